@@ -1,18 +1,48 @@
 package com.binaryneedle.bouncyasep;
 
+import android.os.Build;
 import android.os.Bundle;
+import android.os.Process;
 
 import com.badlogic.gdx.backends.android.AndroidApplication;
 import com.badlogic.gdx.backends.android.AndroidApplicationConfiguration;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.binaryneedle.bouncyasep.BouncyAsep;
 
 public class AndroidLauncher extends AndroidApplication {
+	private BouncyAsep game;
+	private boolean paused;
+
 	@Override
 	protected void onCreate (Bundle savedInstanceState) {
+		// Android N knows when the process started, on the same clock as System.nanoTime()
+		long startTime = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+			? Process.getStartUptimeMillis() * 1000000L
+			: TimeUtils.nanoTime();
 		super.onCreate(savedInstanceState);
 		AndroidApplicationConfiguration config = new AndroidApplicationConfiguration();
 		config.useAccelerometer = false;
 		config.useCompass = false;
-		initialize(new BouncyAsep(), config);
+		// OpenGL ES 3.0 guarantees ETC2, so the compressed textures can be used
+		config.useGL30 = true;
+		// Weak GPUs cannot fill large panels at 60 fps, so let the world resolution drop to half
+		game = new BouncyAsep();
+		game.setStartTime(startTime);
+		game.setResolutionScaling(0.5f, 1f, 60f);
+		game.setAssetArchive(StreamAssetArchive.FACTORY);
+		initialize(game, config);
+	}
+
+	@Override
+	protected void onPause () {
+		paused = true;
+		super.onPause();
+	}
+
+	@Override
+	protected void onResume () {
+		// Textures are restored before the game hears of the resume, so start the clock here
+		if (paused) game.setResumeStartTime(TimeUtils.nanoTime());
+		super.onResume();
 	}
 }
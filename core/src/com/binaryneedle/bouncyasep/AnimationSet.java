@@ -0,0 +1,215 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * The AnimationSet class holds the animations of a sprite sheet, as read from a definition file.
+ * <p>
+ * A definition names the sheet, its frame size and column count, and for every {@link Character.State}
+ * the cell its frames start at, how many there are, how long each shows, how they play ({@code loop},
+ * {@code once} or {@code pingpong}) and, optionally, the state to switch to once the character starts
+ * falling. Frames that run past the end of a row carry on at the start of the next one.
+ * <p>
+ * Each animation is expanded once into a table of sheet cells covering one full cycle, so the frame for a
+ * time is a division and an array read. Sets are shared per definition file, and so are the frames split
+ * from the sheet, so everything that animates (the player, ghosts, bots, collision masks) only keeps a state
+ * and a time of its own. The set also holds the transitions between states, which the simulation follows
+ * as well as the drawn character, so collision masks always match the frame on screen.
+ */
+public class AnimationSet {
+    private static final ObjectMap<String, AnimationSet> loaded = new ObjectMap<>();
+
+    private final String sheetPath;
+    private final int frameWidth;
+    private final int frameHeight;
+    private final int columns;
+    // Per state: sheet cells of one cycle, seconds per frame, whether the cycle repeats, the falling transition
+    private final int[][] cells;
+    private final float[] frameDurations;
+    private final boolean[] loops;
+    private final Character.State[] fallingStates;
+    // Every cell some animation shows, in ascending order
+    private final int[] usedCells;
+    // Frames of the sheet by cell, split from the texture characters share, only for the used cells
+    private Texture framesTexture;
+    private TextureRegion[] frames;
+
+    private AnimationSet(JsonValue definition) {
+        sheetPath = definition.getString("sheet");
+        frameWidth = definition.getInt("frameWidth");
+        frameHeight = definition.getInt("frameHeight");
+        columns = definition.getInt("columns");
+        float defaultDuration = definition.getFloat("frameDuration");
+
+        int stateCount = Character.State.values().length;
+        cells = new int[stateCount][];
+        frameDurations = new float[stateCount];
+        loops = new boolean[stateCount];
+        fallingStates = new Character.State[stateCount];
+
+        JsonValue animations = definition.get("animations");
+        boolean[] used = new boolean[0];
+        for (Character.State state : Character.State.values()) {
+            JsonValue animation = animations == null ? null : animations.get(state.name());
+            if (animation == null) {
+                throw new IllegalArgumentException("No animation defined for " + state);
+            }
+
+            int index = state.getValue();
+            int first = animation.getInt("row") * columns + animation.getInt("column");
+            String mode = animation.getString("mode", "loop");
+            cells[index] = createCycle(first, animation.getInt("frames"), mode);
+            frameDurations[index] = animation.getFloat("duration", defaultDuration);
+            loops[index] = !mode.equals("once");
+            String falling = animation.getString("whenFalling", null);
+            fallingStates[index] = falling == null ? null : Character.State.valueOf(falling);
+
+            for (int cell : cells[index]) {
+                if (cell >= used.length) {
+                    boolean[] grown = new boolean[cell + 1];
+                    System.arraycopy(used, 0, grown, 0, used.length);
+                    used = grown;
+                }
+                used[cell] = true;
+            }
+        }
+
+        IntArray usedList = new IntArray();
+        for (int cell = 0; cell < used.length; cell++) {
+            if (used[cell]) usedList.add(cell);
+        }
+        usedCells = usedList.toArray();
+    }
+
+    /**
+     * Lists the cells of one cycle of an animation.
+     */
+    private static int[] createCycle(int first, int frames, String mode) {
+        if (frames < 1) {
+            throw new IllegalArgumentException("Animations need at least one frame: " + frames);
+        }
+
+        if (mode.equals("loop") || mode.equals("once")) {
+            int[] cycle = new int[frames];
+            for (int i = 0; i < frames; i++) {
+                cycle[i] = first + i;
+            }
+            return cycle;
+        }
+        if (mode.equals("pingpong")) {
+            // Forward, then back without repeating either end
+            int[] cycle = new int[Math.max(1, 2 * frames - 2)];
+            for (int i = 0; i < cycle.length; i++) {
+                cycle[i] = first + (i < frames ? i : 2 * frames - 2 - i);
+            }
+            return cycle;
+        }
+        throw new IllegalArgumentException("Unknown animation mode: " + mode);
+    }
+
+    /**
+     * Gets the animations defined in a file, parsing it only the first time.
+     *
+     * @param path Internal path of the definition file
+     * @return The shared animation set
+     */
+    public static synchronized AnimationSet load(String path) {
+        AnimationSet animations = loaded.get(path);
+        if (animations == null) {
+            try {
+                animations = new AnimationSet(new JsonReader().parse(Gdx.files.internal(path)));
+            } catch (RuntimeException e) {
+                Gdx.app.error("AnimationSet", "Failed to load animations from " + path, e);
+                throw new RuntimeException("Could not load animations: " + path, e);
+            }
+            loaded.put(path, animations);
+        }
+        return animations;
+    }
+
+    /**
+     * Gets the sheet cell shown at a time in a state.
+     *
+     * @param state     The animation state
+     * @param stateTime Time spent in the state
+     * @return The cell, counted row by row from the top left of the sheet
+     */
+    public int getCell(Character.State state, float stateTime) {
+        int index = state.getValue();
+        int[] cycle = cells[index];
+        int frame = (int) (stateTime / frameDurations[index]);
+        return cycle[loops[index] ? frame % cycle.length : Math.min(frame, cycle.length - 1)];
+    }
+
+    /**
+     * Checks whether an animation that plays once has shown its last frame for its full duration.
+     *
+     * @param state     The animation state
+     * @param stateTime Time spent in the state
+     * @return True if the animation is over; looping animations never are
+     */
+    public boolean isFinished(Character.State state, float stateTime) {
+        int index = state.getValue();
+        return !loops[index] && (int) (stateTime / frameDurations[index]) >= cells[index].length;
+    }
+
+    /**
+     * Gets the state a character in a state switches to once it starts falling.
+     *
+     * @param state The animation state
+     * @return The next state, or null if the state does not change
+     */
+    public Character.State getFallingState(Character.State state) {
+        return fallingStates[state.getValue()];
+    }
+
+    /**
+     * Gets the frames of the sheet, split from a texture of it only the first time. A new texture, e.g. once
+     * every character let go of the last one, splits them again. Must only be used from the render thread.
+     *
+     * @param sheet Texture of the sheet
+     * @return The frames by sheet cell, null for cells no animation shows; not to be modified
+     */
+    public TextureRegion[] getFrames(Texture sheet) {
+        if (frames == null || framesTexture != sheet) {
+            frames = new TextureRegion[usedCells.length == 0 ? 0 : usedCells[usedCells.length - 1] + 1];
+            for (int cell : usedCells) {
+                frames[cell] = new TextureRegion(sheet, (cell % columns) * frameWidth, (cell / columns) * frameHeight,
+                        frameWidth, frameHeight);
+            }
+            framesTexture = sheet;
+        }
+        return frames;
+    }
+
+    /**
+     * Gets every cell some animation shows.
+     *
+     * @return The cells in ascending order; not to be modified
+     */
+    public int[] getUsedCells() {
+        return usedCells;
+    }
+
+    public String getSheetPath() {
+        return sheetPath;
+    }
+
+    public int getFrameWidth() {
+        return frameWidth;
+    }
+
+    public int getFrameHeight() {
+        return frameHeight;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+}
@@ -0,0 +1,90 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.files.FileHandle;
+
+import java.io.InputStream;
+
+/**
+ * The ArchiveFileHandle class is an internal file handle served from an {@link AssetArchive}.
+ * <p>
+ * A handle either points at a packed file, whose contents come from the archive, or at a directory of
+ * packed files, which is served like the loose directory. Relative paths resolve through the
+ * {@link ArchiveFiles} that made the handle, so e.g. a font finds its packed page images next to it.
+ */
+class ArchiveFileHandle extends FileHandle {
+    private final ArchiveFiles files;
+    // Index of the packed file in the archive, or -1 for a directory
+    private final int entry;
+    private FileHandle loose;
+
+    ArchiveFileHandle(ArchiveFiles files, String path, int entry) {
+        super(path, Files.FileType.Internal);
+        this.files = files;
+        this.entry = entry;
+    }
+
+    /**
+     * Gets the handle the backend gives the same path outside of the archive.
+     */
+    private FileHandle loose() {
+        if (loose == null) {
+            loose = files.getWrapped().internal(path());
+        }
+        return loose;
+    }
+
+    @Override
+    public InputStream read() {
+        if (entry < 0) return loose().read();
+        return files.getArchive().read(entry);
+    }
+
+    @Override
+    public byte[] readBytes() {
+        if (entry < 0) return loose().readBytes();
+        return files.getArchive().readBytes(entry);
+    }
+
+    @Override
+    public long length() {
+        if (entry < 0) return loose().length();
+        return files.getArchive().getLength(entry);
+    }
+
+    @Override
+    public boolean exists() {
+        return entry >= 0 || loose().exists();
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return entry < 0 && loose().isDirectory();
+    }
+
+    @Override
+    public FileHandle[] list() {
+        if (entry >= 0) return new FileHandle[0];
+        return loose().list();
+    }
+
+    @Override
+    public FileHandle child(String name) {
+        String path = path();
+        return files.internal(path.isEmpty() ? name : path + "/" + name);
+    }
+
+    @Override
+    public FileHandle sibling(String name) {
+        String path = path();
+        int slash = path.lastIndexOf('/');
+        return files.internal(slash < 0 ? name : path.substring(0, slash + 1) + name);
+    }
+
+    @Override
+    public FileHandle parent() {
+        String path = path();
+        int slash = path.lastIndexOf('/');
+        return new ArchiveFileHandle(files, slash < 0 ? "" : path.substring(0, slash), -1);
+    }
+}
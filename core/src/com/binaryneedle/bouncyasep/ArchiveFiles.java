@@ -0,0 +1,91 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * The ArchiveFiles class serves internal files from an {@link AssetArchive} in place of the backend's
+ * {@link Files}, so assets load from one open archive instead of opening a file each.
+ * <p>
+ * Internal files that are not packed, and every other file type, come from the backend as before, so
+ * backend-specific handles such as the ones Android plays sounds from keep working. Install it over
+ * {@code Gdx.files} once the archive is open and put {@link #getWrapped()} back before disposing the archive.
+ */
+public class ArchiveFiles implements Files {
+    private final Files wrapped;
+    private final AssetArchive archive;
+
+    /**
+     * Serves internal files from an archive.
+     *
+     * @param wrapped The backend's files
+     * @param archive The open archive
+     */
+    public ArchiveFiles(Files wrapped, AssetArchive archive) {
+        this.wrapped = wrapped;
+        this.archive = archive;
+    }
+
+    @Override
+    public FileHandle getFileHandle(String path, FileType type) {
+        if (type == FileType.Internal) return internal(path);
+        return wrapped.getFileHandle(path, type);
+    }
+
+    @Override
+    public FileHandle internal(String path) {
+        int entry = archive.indexOf(path);
+        if (entry < 0) return wrapped.internal(path);
+        return new ArchiveFileHandle(this, path, entry);
+    }
+
+    @Override
+    public FileHandle classpath(String path) {
+        return wrapped.classpath(path);
+    }
+
+    @Override
+    public FileHandle external(String path) {
+        return wrapped.external(path);
+    }
+
+    @Override
+    public FileHandle absolute(String path) {
+        return wrapped.absolute(path);
+    }
+
+    @Override
+    public FileHandle local(String path) {
+        return wrapped.local(path);
+    }
+
+    @Override
+    public String getExternalStoragePath() {
+        return wrapped.getExternalStoragePath();
+    }
+
+    @Override
+    public boolean isExternalStorageAvailable() {
+        return wrapped.isExternalStorageAvailable();
+    }
+
+    @Override
+    public String getLocalStoragePath() {
+        return wrapped.getLocalStoragePath();
+    }
+
+    @Override
+    public boolean isLocalStorageAvailable() {
+        return wrapped.isLocalStorageAvailable();
+    }
+
+    // Getters
+
+    public Files getWrapped() {
+        return wrapped;
+    }
+
+    public AssetArchive getArchive() {
+        return archive;
+    }
+}
@@ -0,0 +1,31 @@
+package com.binaryneedle.bouncyasep;
+
+/**
+ * The ArchiveFormat class describes the binary layout of the packed asset archive.
+ * <p>
+ * All values are big-endian. A file starts with a fixed header:
+ * <pre>
+ * int   magic         'BAPK'
+ * short version
+ * short reserved
+ * int   entryCount    number of packed files
+ * int   dataOffset    file offset of the first packed file
+ * </pre>
+ * The header is followed by the index, one entry per packed file, sorted by path:
+ * <pre>
+ * utf   path          internal path with forward slashes, as written by DataOutputStream.writeUTF
+ * int   offset        file offset of the contents
+ * int   length        length of the contents in bytes
+ * </pre>
+ * and then by the contents of the files, one after another.
+ */
+public final class ArchiveFormat {
+    public static final int MAGIC = 0x4241504B;
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    // Internal path of the archive
+    public static final String PATH = "assets.pak";
+
+    private ArchiveFormat() {
+    }
+}
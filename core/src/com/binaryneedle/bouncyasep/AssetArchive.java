@@ -0,0 +1,129 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The AssetArchive class serves files packed into one archive (see {@link ArchiveFormat}).
+ * Only the index is decoded when the archive opens; the contents of a file are read when it is.
+ * Subclasses supply the byte access (loaded in one read or memory-mapped).
+ */
+public abstract class AssetArchive implements Disposable {
+    // Packed files by path, pointing into the packed arrays below
+    private final ObjectIntMap<String> entries = new ObjectIntMap<>();
+    private String[] paths;
+    private int[] offsets;
+    private int[] lengths;
+
+    /**
+     * Opens asset archives. Backends that support memory mapping provide their own factory.
+     */
+    public interface Factory {
+        AssetArchive open(FileHandle file);
+    }
+
+    /**
+     * Reads and validates the header and index. Must be called by subclasses once the archive is open.
+     *
+     * @param in Stream positioned at the start of the archive
+     * @throws IOException If the archive cannot be read or is not an asset archive
+     */
+    protected void readIndex(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != ArchiveFormat.MAGIC) {
+            throw new IOException("Not an asset archive");
+        }
+        short version = data.readShort();
+        if (version != ArchiveFormat.VERSION) {
+            throw new IOException("Unsupported archive version " + version);
+        }
+        data.readShort();
+
+        int entryCount = data.readInt();
+        int dataOffset = data.readInt();
+        if (entryCount < 0 || dataOffset < ArchiveFormat.HEADER_SIZE || dataOffset > size()) {
+            throw new IOException("Corrupt archive header");
+        }
+
+        paths = new String[entryCount];
+        offsets = new int[entryCount];
+        lengths = new int[entryCount];
+        for (int i = 0; i < entryCount; i++) {
+            paths[i] = data.readUTF();
+            offsets[i] = data.readInt();
+            lengths[i] = data.readInt();
+            if (offsets[i] < dataOffset || lengths[i] < 0 || lengths[i] > size() - offsets[i]) {
+                throw new IOException("Corrupt archive entry " + paths[i]);
+            }
+            entries.put(paths[i], i);
+        }
+    }
+
+    /**
+     * Finds a packed file.
+     *
+     * @param path Internal path of the file
+     * @return Index of the entry, or -1 if the file is not packed
+     */
+    public int indexOf(String path) {
+        return entries.get(path.replace('\\', '/'), -1);
+    }
+
+    public boolean contains(String path) {
+        return indexOf(path) >= 0;
+    }
+
+    /**
+     * Opens a stream over the contents of a packed file.
+     *
+     * @param entry Index of the entry
+     */
+    public InputStream read(int entry) {
+        return openEntry(offsets[entry], lengths[entry]);
+    }
+
+    /**
+     * Reads the contents of a packed file into a new array.
+     *
+     * @param entry Index of the entry
+     */
+    public byte[] readBytes(int entry) {
+        byte[] bytes = new byte[lengths[entry]];
+        readEntry(offsets[entry], bytes);
+        return bytes;
+    }
+
+    /**
+     * Gets the size of the whole archive in bytes.
+     */
+    protected abstract int size();
+
+    /**
+     * Opens a stream over a range of the archive.
+     */
+    protected abstract InputStream openEntry(int offset, int length);
+
+    /**
+     * Copies a range of the archive, as long as the array, into the array.
+     */
+    protected abstract void readEntry(int offset, byte[] bytes);
+
+    // Getters
+
+    public int getEntryCount() {
+        return paths.length;
+    }
+
+    public String getPath(int entry) {
+        return paths[entry];
+    }
+
+    public int getLength(int entry) {
+        return lengths[entry];
+    }
+}
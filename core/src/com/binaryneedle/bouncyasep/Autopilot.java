@@ -0,0 +1,37 @@
+package com.binaryneedle.bouncyasep;
+
+import java.util.List;
+
+/**
+ * The Autopilot class plays like a player watching the next gap: it lets the player fall until a jump from
+ * there just clears the top of the gap, and jumps. It does not look further ahead, so it can miss gaps that
+ * move or follow each other closely, but it plays long enough runs to watch and to benchmark with.
+ */
+public class Autopilot implements PlayerController {
+
+    @Override
+    public boolean shouldJump(GameWorld world, int player) {
+        MainEntity entity = world.getPlayer(player);
+        Obstacle next = getNextObstacle(world.getObstacles(), entity);
+
+        float gapBottom = next != null ? next.getY() + GameWorld.TILE_SIZE : GameWorld.PLAYER_START_Y;
+        float gapTop = next != null ? next.getY() + next.getGap() : GameWorld.PLAYER_START_Y + entity.height;
+        float jumpHeight = MainEntity.JUMP_POWER * MainEntity.JUMP_POWER / (2 * entity.getGravity());
+        float target = Math.max(gapBottom, gapTop - entity.height - jumpHeight);
+        return entity.y < target && entity.getVelocity() <= 0;
+    }
+
+    /**
+     * Finds the nearest obstacle the player has not passed yet.
+     */
+    private static Obstacle getNextObstacle(List<Obstacle> obstacles, MainEntity entity) {
+        Obstacle next = null;
+        for (int i = 0; i < obstacles.size(); i++) {
+            Obstacle obstacle = obstacles.get(i);
+            if (obstacle.getX() + obstacle.getWidth() > entity.x && (next == null || obstacle.getX() < next.getX())) {
+                next = obstacle;
+            }
+        }
+        return next;
+    }
+}
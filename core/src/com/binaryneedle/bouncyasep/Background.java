@@ -22,7 +22,7 @@ public class Background {
      * @param speed       The speed at which the background scrolls
      */
     public Background(String texturePath, float speed) {
-        this.texture = new Texture(Gdx.files.internal(texturePath));
+        this.texture = ResourceRegistry.loadTexture(texturePath, "Background");
         this.speed = speed;
         this.scale = (float) Gdx.graphics.getHeight() / texture.getHeight();
 
@@ -65,6 +65,6 @@ public class Background {
      * Disposes of the background texture when it's no longer needed.
      */
     public void dispose() {
-        texture.dispose();
+        ResourceRegistry.release(texture);
     }
 }
@@ -5,66 +5,383 @@ import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 
-import java.util.ArrayList;
-import java.util.List;
-
-public class BouncyAsep extends ApplicationAdapter {
+public class BouncyAsep extends ApplicationAdapter implements GameWorld.Listener {
 
     // Game constants
-    private static final int WORLD_WIDTH = 1024;
-    private static final int WORLD_HEIGHT = 768;
-    private static final int TILE_SIZE = 64;
-    private static final int INITIAL_OBSTACLE_COUNT = 5;
-    private static final float OBSTACLE_SPACING = 5f;
-    private static final float OBSTACLE_BASE_X = 16f;
-    private static final float OBSTACLE_GAP = 250f;
-    private static final float OBSTACLE_WIDTH = 7f;
-    private static final float MAX_OBSTACLE_SPEED = 800f;
+    private static final int WORLD_WIDTH = GameWorld.WORLD_WIDTH;
+    private static final int WORLD_HEIGHT = GameWorld.WORLD_HEIGHT;
+    private static final int TILE_SIZE = GameWorld.TILE_SIZE;
+    private static final String AUTHORED_COURSE = "courses/woods.bac";
+    // The last finished run, kept to check it replays the same
+    private static final String REPLAY_PATH = "replays/last." + RunReplay.EXTENSION;
+    private static final long RACE_SEED = 0x5EEDL;
+    private static final int MAX_GHOSTS = 500;
+    // Fixed simulation step; presses are applied in the tick they happened in
+    public static final float TICK_TIME = 1f / 120f;
+    private static final long TICK_NANOS = 1000000000L / 120;
+    private static final float MAX_FRAME_TIME = 0.25f;
+    // Time scale: 0.25x slow motion up to 64x fast-forward, or as many ticks as the frame budget allows
+    public static final float MIN_TIME_SCALE = 0.25f;
+    public static final float MAX_TIME_SCALE = 64f;
+    public static final float FASTEST = Float.POSITIVE_INFINITY;
+    // Wall time a frame may spend ticking when fast-forwarding, so drawing keeps up; the rest is dropped, as are
+    // ticks past the generated course, so fast-forwarded runs never fall back to random placement
+    private static final long FAST_FORWARD_BUDGET = 10000000L;
+    private static final long FASTEST_BUDGET = 40000000L;
+    private static final int INPUT_QUEUE_SIZE = 64;
+    // Practice mode keeps five seconds of ticks and rewinds two seconds per press
+    private static final int REWIND_CAPACITY = 5 * 120;
+    private static final int REWIND_STEP = 2 * 120;
+    private static final int JOURNAL_CAPACITY = 256;
+    // Resolution scaling used when toggled on without launcher settings
+    private static final float DEFAULT_MIN_SCALE = 0.5f;
+    private static final float DEFAULT_TARGET_FRAME_RATE = 60f;
+    // Text sizes in world units
+    private static final float TITLE_FONT_SIZE = 54f;
+    private static final float INFO_FONT_SIZE = 40f;
+    private static final float SMALL_FONT_SIZE = 15f;
+    // A paused run counts down this long after resuming; coming back should not take longer than the budget
+    private static final float RESUME_COUNTDOWN = 3f;
+    private static final float RESUME_BUDGET = 250f;
+    // The menu plays a demo run after this long without input, and comes back this long after it crashes
+    private static final float ATTRACT_DELAY = 10f;
+    private static final float ATTRACT_END_DELAY = 2f;
 
     // Core components
     private SpriteBatch batch;
     private OrthographicCamera camera;
     private Viewport viewport;
+    private DynamicResolution dynamicResolution;
+    private float minResolutionScale = DEFAULT_MIN_SCALE;
+    private float maxResolutionScale = 1f;
+    private float targetFrameRate = DEFAULT_TARGET_FRAME_RATE;
+    private boolean resolutionScaling = false;
     // Game objects
     private GameState currentState = GameState.MENU;
+    private GameWorld world;
     private MainEntity entity;
     private Character sprite;
-    private List<Obstacle> obstacles;
+    private final CourseReader.Factory courseReaderFactory;
+    private CourseGenerator generatedCourse;
+    private CourseFile authoredCourse;
+    private CourseSource course;
+    // Packed assets, served in place of the loose internal files while the game runs
+    private AssetArchive.Factory assetArchiveFactory;
+    private ArchiveFiles archiveFiles;
+    // Ghost racing
+    private RunRecorder recorder;
+    private GhostField ghosts;
+    private boolean ghostRace = false;
+    // Practice mode
+    private CourseJournal courseJournal;
+    private RewindBuffer rewindBuffer;
+    // Jumps and state hashes of the current run, and the seed its course was laid out with
+    private final RunReplay replay = new RunReplay();
+    private long runSeed;
+    private boolean practice = false;
+    // Simulation on another thread; the render thread draws the frames it publishes
+    private SimulationRunner simulationRunner;
+    private WorldFrame frame;
+    private WorldFrame startFrame;
+    private int framePasses;
+    private int frameTick;
+    // Input
+    private InputQueue inputQueue;
+    private float tickAccumulator;
+    private long frameTime;
+    // Start of the previous frame, for the frame time metric
+    private long lastFrameTime;
+    private long unpresentedInputTime;
+    private float lastInputLatency, averageInputLatency;
+    // Game time per frame for scripted runs, 0 to follow the clock
+    private float fixedFrameTime;
+    private float timeScale = 1f;
+    private PlayerController autopilot;
+    // Attract mode: a demo run played by a planner, ended by any press
+    private final PlanningAutopilot demoPilot = new PlanningAutopilot();
+    private boolean attract = false;
+    private float idleTime;
+    // Simulation ticks per second actually reached, measured over about a second
+    private float ticksPerSecond;
+    private int tickRateTicks;
+    private long tickRateStart;
+    // Pausing
+    private float resumeCountdown;
+    private volatile long resumeStartTime;
+    private float lastResumeTime;
     // Background layers
     private Background layer1, layer2, layer3;
+    // Particle bursts for jumps, passes and crashes
+    private ParticleEffects particles;
     // Audio
     private Sound jumpSound, crashSound, passSound;
     // UI
-    private BitmapFont debugFont, infoFont, titleFont;
-    private int score = 0;
+    private UiFonts uiFonts;
+    private BitmapFont debugFont, infoFont, titleFont, smallFont;
+    // Static text is laid out once, the score, countdown, loading progress and options only when they change
+    private BitmapFontCache titleText, playText, pausedText, gameOverText, restartText;
+    private BitmapFontCache scoreText, countdownText, loadingText;
+    private BitmapFontCache courseText, practiceText, raceText, rewindText, timeScaleText;
+    private int displayedScore = -1, displayedCountdown = -1, displayedProgress = -1;
+    // Options the menu and game over text show; -1 until first laid out, ghost race off shows as -2 ghosts
+    private CourseSource displayedCourse;
+    private int displayedPractice = -1, displayedGhosts = -1, displayedRewind = -1;
+    // Time scale and tick rate the time scale text shows, laid out again about once a second
+    private float displayedTimeScale = 1;
+    private int displayedTickRate = -1;
     private boolean isDebugEnabled = false;
     // Game settings
-    private boolean collisionEnabled = true;
     private boolean collisionHandled = false;
+    // Assets streamed in while the menu shows, set up once the first frame is on screen
+    private final DeferredAssets deferredAssets;
+    private boolean deferredReady = false;
+    private boolean assetsLoaded = false;
+    // Startup
+    private final StartupTimeline timeline = new StartupTimeline();
+    private boolean firstFrameShown = false;
+
+    /**
+     * Creates the game with course files read through a plain stream.
+     */
+    public BouncyAsep() {
+        this(StreamCourseReader.FACTORY);
+    }
+
+    /**
+     * Creates the game with a backend-specific course file reader.
+     *
+     * @param courseReaderFactory Opens hand-authored course files
+     */
+    public BouncyAsep(CourseReader.Factory courseReaderFactory) {
+        this(courseReaderFactory, DeferredAssets.LOCAL);
+    }
+
+    /**
+     * Creates the game with a backend-specific course file reader and asset download.
+     *
+     * @param courseReaderFactory Opens hand-authored course files
+     * @param deferredAssets      Fetches the assets the menu does not need
+     */
+    public BouncyAsep(CourseReader.Factory courseReaderFactory, DeferredAssets deferredAssets) {
+        this.courseReaderFactory = courseReaderFactory;
+        this.deferredAssets = deferredAssets;
+    }
+
+    /**
+     * Renders the world at a resolution that adapts to the frame time, with the UI drawn at full resolution.
+     * Call before the game is created.
+     *
+     * @param minScale        Smallest fraction of the screen resolution to render the world at
+     * @param maxScale        Largest fraction of the screen resolution to render the world at
+     * @param targetFrameRate Frame rate to hold
+     */
+    public void setResolutionScaling(float minScale, float maxScale, float targetFrameRate) {
+        this.minResolutionScale = minScale;
+        this.maxResolutionScale = maxScale;
+        this.targetFrameRate = targetFrameRate;
+        this.resolutionScaling = true;
+    }
+
+    /**
+     * Runs the simulation of a run through the given runner instead of on the render thread.
+     * Call before the game is created. Runners tick in real time, so this clears the time scale.
+     *
+     * @param simulationRunner The runner that ticks the world during play
+     */
+    public void setSimulationRunner(SimulationRunner simulationRunner) {
+        this.simulationRunner = simulationRunner;
+        if (simulationRunner != null) {
+            timeScale = 1f;
+        }
+    }
+
+    /**
+     * Advances the game by the same time every frame instead of the measured frame time, so a scripted run
+     * does the same work on every machine however fast it renders.
+     *
+     * @param fixedFrameTime Game time per frame in seconds, 0 to follow the clock
+     */
+    public void setFixedFrameTime(float fixedFrameTime) {
+        this.fixedFrameTime = fixedFrameTime;
+    }
+
+    /**
+     * Sets how fast the simulation runs compared to real time. Fast-forward runs more ticks per frame, up to a
+     * budget of wall time per frame, and drops the game time it cannot fit in. Runs on a simulation thread
+     * always play in real time, so the time scale is ignored once a {@link SimulationRunner} is set.
+     *
+     * @param timeScale From {@link #MIN_TIME_SCALE} to {@link #MAX_TIME_SCALE}, or {@link #FASTEST} for as
+     *                  many ticks as fit into each frame
+     */
+    public void setTimeScale(float timeScale) {
+        if (simulationRunner != null) return;
+        this.timeScale = timeScale == FASTEST ? FASTEST : MathUtils.clamp(timeScale, MIN_TIME_SCALE, MAX_TIME_SCALE);
+    }
+
+    public float getTimeScale() {
+        return timeScale;
+    }
+
+    /**
+     * Lets a controller play instead of the keyboard. It starts runs from the menu and decides every tick
+     * whether to jump. Runs on a simulation thread are not played by it.
+     *
+     * @param autopilot The controller, or null to play by hand
+     */
+    public void setAutopilot(PlayerController autopilot) {
+        this.autopilot = autopilot;
+    }
+
+    /**
+     * Loads internal assets from the packed archive when one is shipped, see {@link ArchiveFormat}.
+     * Call before the game is created.
+     *
+     * @param assetArchiveFactory Opens the archive, e.g. with a memory mapping
+     */
+    public void setAssetArchive(AssetArchive.Factory assetArchiveFactory) {
+        this.assetArchiveFactory = assetArchiveFactory;
+    }
+
+    /**
+     * Marks when the app started, for backends that know it, so the startup timeline includes the time
+     * before the game was created. Otherwise startup is timed from when the game was constructed.
+     *
+     * @param time Start of the app in TimeUtils.nanoTime() time
+     */
+    public void setStartTime(long time) {
+        timeline.setStartTime(time);
+    }
 
     /**
-     * Initializes the game assets, fonts, camera, layers, sprite, entity, obstacles, and other game variables.
+     * Marks when the app started coming back from the background, for backends that know it before the GL
+     * context is restored. Otherwise the time from {@link #resume()} to the first frame is measured.
+     *
+     * @param time Start of the resume in TimeUtils.nanoTime() time
+     */
+    public void setResumeStartTime(long time) {
+        this.resumeStartTime = time;
+    }
+
+    /**
+     * Gets the simulated world, e.g. for tools that drive the game. Only valid once the game is created.
+     *
+     * @return The world
+     */
+    public GameWorld getWorld() {
+        return world;
+    }
+
+    /**
+     * Initializes what the menu needs: camera, input, menu fonts, sprite and world.
+     * Everything else is fetched meanwhile and set up after the first frame, see {@link #initializeDeferredAssets()}.
      */
     @Override
     public void create() {
         Gdx.app.setLogLevel(Application.LOG_DEBUG);
 
+        timeline.begin("create");
+        timeline.begin("asset archive");
+        openAssetArchive();
+        timeline.end();
+        timeline.begin("graphics");
         initializeGraphics();
-        initializeAudio();
+        timeline.end();
+        timeline.begin("input");
+        initializeInput();
+        timeline.end();
+        timeline.begin("fonts");
         initializeFonts();
+        timeline.end();
+        timeline.begin("game objects");
         initializeGameObjects();
-        initializeObstacles();
-
+        timeline.end();
+        timeline.begin("world");
+        initializeWorld();
         resetGame();
+        timeline.end();
+        timeline.end();
+
+        // The menu only needs the sprite and fonts, everything else can arrive while it shows
+        deferredAssets.load(new Runnable() {
+            @Override
+            public void run() {
+                deferredReady = true;
+            }
+        });
+    }
+
+    /**
+     * Serves internal files from the packed archive, if there is one, so every asset after this comes out
+     * of one open file. Without it the loose files are loaded as before.
+     */
+    private void openAssetArchive() {
+        if (assetArchiveFactory == null) return;
+
+        FileHandle file = Gdx.files.internal(ArchiveFormat.PATH);
+        if (!file.exists()) return;
+        try {
+            archiveFiles = new ArchiveFiles(Gdx.files, assetArchiveFactory.open(file));
+            Gdx.files = archiveFiles;
+            Gdx.app.debug("BouncyAsep", "Serving " + archiveFiles.getArchive().getEntryCount() + " assets from "
+                    + ArchiveFormat.PATH);
+        } catch (RuntimeException e) {
+            Gdx.app.error("BouncyAsep", "Could not open " + ArchiveFormat.PATH + ", loading loose assets", e);
+        }
+    }
+
+    /**
+     * Initialize the assets the menu does not need (sounds, debug font, obstacle tiles, background layers,
+     * particles), once they are fetched and the first frame is on screen. Players collide by box until the
+     * tiles have arrived and their collision masks are loaded here.
+     */
+    private void initializeDeferredAssets() {
+        timeline.begin("deferred assets");
+        initializeAudio();
+
+        timeline.begin("debug font");
+        debugFont = ResourceRegistry.newDefaultFont("BouncyAsep");
+        debugFont.setColor(Color.WHITE);
+        timeline.end();
+
+        timeline.begin("collision masks");
+        world.setPlayerMasks(Character.loadFrameMasks(Character.PLAYER_ANIMATIONS));
+        timeline.end();
+
+        timeline.begin("obstacle tiles");
+        Obstacle.initializeTextures();
+        timeline.end();
+
+        layer1 = loadBackground("bg/background_layer_1.png", 0.1f);
+        layer2 = loadBackground("bg/background_layer_2.png", 125f);
+        layer3 = loadBackground("bg/background_layer_3.png", 250f);
+
+        timeline.begin("particles");
+        particles = new ParticleEffects();
+        timeline.end();
+        timeline.end();
+
+        assetsLoaded = true;
+        timeline.ready();
+    }
+
+    private Background loadBackground(String path, float speed) {
+        timeline.begin(path);
+        Background background = new Background(path, speed);
+        timeline.end();
+        return background;
     }
 
     /**
@@ -79,63 +396,110 @@ public class BouncyAsep extends ApplicationAdapter {
         camera.update();
 
         Obstacle.setCamera(camera);
+
+        if (resolutionScaling) {
+            dynamicResolution = new DynamicResolution(minResolutionScale, maxResolutionScale, targetFrameRate);
+        }
+    }
+
+    /**
+     * Initialize the input queue that receives every key and button press.
+     */
+    private void initializeInput() {
+        inputQueue = new InputQueue(INPUT_QUEUE_SIZE);
+        Gdx.input.setInputProcessor(inputQueue);
     }
 
     /**
      * Initialize audio resources.
      */
     private void initializeAudio() {
-        jumpSound = Gdx.audio.newSound(Gdx.files.internal("sounds/jump.wav"));
-        crashSound = Gdx.audio.newSound(Gdx.files.internal("sounds/hurt.wav"));
-        passSound = Gdx.audio.newSound(Gdx.files.internal("sounds/pass.wav"));
+        jumpSound = loadSound("sounds/jump.wav");
+        crashSound = loadSound("sounds/hurt.wav");
+        passSound = loadSound("sounds/pass.wav");
+    }
+
+    private Sound loadSound(String path) {
+        timeline.begin(path);
+        Sound sound = ResourceRegistry.loadSound(path, "BouncyAsep");
+        timeline.end();
+        return sound;
     }
 
     /**
-     * Initialize fonts with proper scaling.
+     * Initialize the distance-field fonts and lay out the text that never changes. The debug font is deferred.
      */
     private void initializeFonts() {
-        debugFont = new BitmapFont();
-        debugFont.setColor(Color.WHITE);
+        uiFonts = new UiFonts();
+        titleFont = uiFonts.create(TITLE_FONT_SIZE, Color.CYAN);
+        infoFont = uiFonts.create(INFO_FONT_SIZE, Color.WHITE);
+        smallFont = uiFonts.create(SMALL_FONT_SIZE, Color.WHITE);
+
+        titleText = layoutCentered(titleFont, "Bouncy Asep: The Game", WORLD_HEIGHT - 130);
+        playText = layoutCentered(infoFont, "Press SPACE or LMB to play", WORLD_HEIGHT / 5f);
+        pausedText = layoutCentered(titleFont, "PAUSED", WORLD_HEIGHT / 2f + 50);
+        gameOverText = layoutCentered(titleFont, "GAME OVER", WORLD_HEIGHT / 2f + 50);
+        restartText = layoutCentered(infoFont, "Press R to restart", WORLD_HEIGHT / 2f - 50);
+
+        scoreText = newTextCache(infoFont);
+        countdownText = newTextCache(infoFont);
+        loadingText = newTextCache(infoFont);
+        courseText = newTextCache(smallFont);
+        practiceText = newTextCache(smallFont);
+        raceText = newTextCache(smallFont);
+        rewindText = newTextCache(smallFont);
+        timeScaleText = newTextCache(smallFont);
+    }
 
-        infoFont = new BitmapFont();
-        infoFont.setColor(Color.WHITE);
-        infoFont.getData().setScale(3.0f);
+    private static BitmapFontCache newTextCache(BitmapFont font) {
+        BitmapFontCache cache = font.newFontCache();
+        cache.setColor(font.getColor());
+        return cache;
+    }
 
-        titleFont = new BitmapFont();
-        titleFont.setColor(Color.CYAN);
-        titleFont.getData().setScale(4.0f);
+    private static BitmapFontCache layoutCentered(BitmapFont font, CharSequence text, float y) {
+        BitmapFontCache cache = newTextCache(font);
+        setCentered(cache, text, y);
+        return cache;
+    }
+
+    private static void setCentered(BitmapFontCache cache, CharSequence text, float y) {
+        cache.setText(text, 0, y, WORLD_WIDTH, Align.center, false);
     }
 
     /**
-     * Initialize game objects (entity, sprite, background layers).
+     * Initialize game objects (sprite, ghost racing).
      */
     private void initializeGameObjects() {
-        // Initialize background layers
-        layer1 = new Background("bg/background_layer_1.png", 0.1f);
-        layer2 = new Background("bg/background_layer_2.png", 125f);
-        layer3 = new Background("bg/background_layer_3.png", 250f);
-
         // Initialize character sprite
-        sprite = new Character("sprites/char_blue_1.png");
+        sprite = new Character(Character.PLAYER_ANIMATIONS);
 
-        // Initialize main entity
-        entity = new MainEntity(
-                WORLD_WIDTH / 2f - TILE_SIZE / 2f,
-                WORLD_HEIGHT / 2f,
-                sprite.getFrameWidth(),
-                sprite.getFrameHeight()
-        );
+        // Initialize ghost racing
+        recorder = new RunRecorder();
+        ghosts = new GhostField(MAX_GHOSTS);
     }
 
     /**
-     * Initialize obstacles with proper spacing.
+     * Initialize the simulated world (main entity, obstacles, courses).
      */
-    private void initializeObstacles() {
-        obstacles = new ArrayList<>();
-        for (int i = 0; i < INITIAL_OBSTACLE_COUNT; i++) {
-            float x = OBSTACLE_BASE_X + (OBSTACLE_SPACING * i);
-            obstacles.add(new Obstacle(x, OBSTACLE_WIDTH, OBSTACLE_SPACING, OBSTACLE_GAP, TILE_SIZE));
+    private void initializeWorld() {
+        generatedCourse = GameWorld.createCourseGenerator(sprite.getFrameWidth(), sprite.getFrameHeight(), TICK_TIME);
+        course = generatedCourse;
+
+        // Hand-authored course, opened lazily by the reader so only the header is loaded here
+        FileHandle courseFile = Gdx.files.internal(AUTHORED_COURSE);
+        if (courseFile.exists()) {
+            authoredCourse = new CourseFile(courseReaderFactory.open(courseFile), "Woods", TILE_SIZE);
         }
+
+        world = new GameWorld(1, sprite.getFrameWidth(), sprite.getFrameHeight(), course);
+        world.setRecycleCounter(Metrics.OBSTACLE_RECYCLES);
+        world.setListener(this);
+        entity = world.getPlayer(0);
+
+        // Practice runs take their course through a journal so they can be rewound
+        courseJournal = new CourseJournal(course, JOURNAL_CAPACITY);
+        rewindBuffer = new RewindBuffer(world, courseJournal, REWIND_CAPACITY);
     }
 
     /**
@@ -143,7 +507,15 @@ public class BouncyAsep extends ApplicationAdapter {
      */
     @Override
     public void render() {
-        float deltaTime = Gdx.graphics.getDeltaTime();
+        // Deferred assets are set up once the first menu frame is on screen
+        if (deferredReady && firstFrameShown && !assetsLoaded) {
+            initializeDeferredAssets();
+        }
+
+        float deltaTime = fixedFrameTime > 0 ? fixedFrameTime : Gdx.graphics.getDeltaTime();
+        frameTime = TimeUtils.nanoTime();
+        if (lastFrameTime != 0) Metrics.FRAME_TIME.record(frameTime - lastFrameTime);
+        lastFrameTime = frameTime;
 
         // Clear screen
         ScreenUtils.clear(0, 0, 0.2f, 1);
@@ -156,10 +528,25 @@ public class BouncyAsep extends ApplicationAdapter {
         handleInput();
 
         // Update game logic
+        long updateStart = TimeUtils.nanoTime();
         update(deltaTime);
+        long renderStart = TimeUtils.nanoTime();
+        Metrics.UPDATE_TIME.record(renderStart - updateStart);
 
         // Render everything
         renderGame();
+        Metrics.RENDER_TIME.record(TimeUtils.nanoTime() - renderStart);
+        measureInputLatency();
+        measureResumeTime();
+
+        if (resolutionScaling) {
+            dynamicResolution.update(deltaTime);
+        }
+
+        if (!firstFrameShown) {
+            firstFrameShown = true;
+            timeline.firstFrame();
+        }
     }
 
     /**
@@ -169,6 +556,54 @@ public class BouncyAsep extends ApplicationAdapter {
     public void resize(int width, int height) {
         viewport.update(width, height);
         camera.position.set(WORLD_WIDTH / 2f, WORLD_HEIGHT / 2f, 0);
+
+        if (dynamicResolution != null) {
+            dynamicResolution.resize(viewport);
+        }
+    }
+
+    /**
+     * Hold a running run when the app goes to the background, so it does not go on unseen.
+     */
+    @Override
+    public void pause() {
+        if (currentState != GameState.PLAYING) return;
+
+        if (simulationRunner != null) {
+            stopSimulation();
+        }
+        // The simulation thread may have crashed the player after its last published frame
+        currentState = world.isAlive(0) ? GameState.PAUSED : GameState.GAME_OVER;
+        resumeCountdown = RESUME_COUNTDOWN;
+    }
+
+    /**
+     * Count a paused run down again once the app is back.
+     */
+    @Override
+    public void resume() {
+        if (resumeStartTime == 0) {
+            resumeStartTime = TimeUtils.nanoTime();
+        }
+        resumeCountdown = RESUME_COUNTDOWN;
+        // Android puts its own files back when the app returns
+        if (archiveFiles != null) Gdx.files = archiveFiles;
+    }
+
+    /**
+     * Measure the time from coming back from the background to the end of the first frame.
+     */
+    private void measureResumeTime() {
+        if (resumeStartTime == 0) return;
+
+        lastResumeTime = (TimeUtils.nanoTime() - resumeStartTime) / 1000000f;
+        resumeStartTime = 0;
+        if (lastResumeTime > RESUME_BUDGET) {
+            Gdx.app.error("BouncyAsep", "Resume took " + Math.round(lastResumeTime) + " ms, over the "
+                    + Math.round(RESUME_BUDGET) + " ms budget");
+        } else {
+            Gdx.app.debug("BouncyAsep", "Resumed in " + Math.round(lastResumeTime) + " ms");
+        }
     }
 
     /**
@@ -177,43 +612,226 @@ public class BouncyAsep extends ApplicationAdapter {
     private void update(float deltaTime) {
         switch (currentState) {
             case MENU:
-                // Menu state - only update sprite animation
+                // Menu state - only update sprite animation, unless the autopilot starts a run
                 sprite.update(deltaTime, entity.getVelocity());
+                if (autopilot != null && assetsLoaded) {
+                    startGame();
+                } else if (assetsLoaded && simulationRunner == null) {
+                    idleTime += deltaTime;
+                    if (idleTime > ATTRACT_DELAY) {
+                        startAttract();
+                    }
+                }
                 break;
 
             case PLAYING:
                 updatePlaying(deltaTime);
                 break;
 
+            case PAUSED:
+                updatePaused(deltaTime);
+                break;
+
             case GAME_OVER:
                 updateGameOver(deltaTime);
                 break;
         }
+
+        if (assetsLoaded) {
+            particles.update(Math.min(deltaTime, MAX_FRAME_TIME));
+        }
+    }
+
+    /**
+     * Update logic for paused state: count down and carry on with the run.
+     */
+    private void updatePaused(float deltaTime) {
+        resumeCountdown -= Math.min(deltaTime, MAX_FRAME_TIME);
+        if (resumeCountdown > 0) return;
+
+        currentState = GameState.PLAYING;
+        tickAccumulator = 0;
+        startSimulation();
     }
 
     /**
      * Update logic for playing state.
      */
     private void updatePlaying(float deltaTime) {
-        // Update game objects
-        entity.update(deltaTime);
+        if (simulationRunner != null) {
+            updatePlayingThreaded(deltaTime);
+            return;
+        }
+
+        int ticks;
+        long tickNanos;
+        long tickEnd;
+        if (timeScale == FASTEST) {
+            // As many ticks as the budget allows; presses are applied before the first one
+            ticks = Integer.MAX_VALUE;
+            tickNanos = 0;
+            tickEnd = frameTime;
+            tickAccumulator = 0;
+        } else {
+            tickAccumulator += Math.min(deltaTime, MAX_FRAME_TIME) * timeScale;
+            ticks = (int) (tickAccumulator / TICK_TIME);
+            tickAccumulator -= ticks * TICK_TIME;
+
+            // The last tick of this frame ends where the leftover time begins; earlier ticks end before it
+            tickNanos = (long) (TICK_NANOS / timeScale);
+            tickEnd = frameTime - (long) (tickAccumulator / timeScale * 1e9f) - (ticks - 1) * tickNanos;
+        }
+
+        long deadline = frameTime + (timeScale == FASTEST ? FASTEST_BUDGET : FAST_FORWARD_BUDGET);
+        int ticked = 0;
+        for (int i = 0; i < ticks && currentState == GameState.PLAYING; i++, tickEnd += tickNanos) {
+            // Fast-forwarding waits for the course rather than outrunning it into random placement
+            if (timeScale > 1 && (TimeUtils.nanoTime() > deadline || world.getCourse().getLookahead() == 0)) {
+                tickAccumulator = 0;
+                break;
+            }
+
+            // Apply the presses that happened up to the end of this tick, later ones wait for their tick
+            while (currentState == GameState.PLAYING && inputQueue.pollUntil(tickEnd)) {
+                handleEvent();
+            }
+            PlayerController controller = attract ? demoPilot : autopilot;
+            if (controller != null && currentState == GameState.PLAYING && controller.shouldJump(world, 0)) {
+                showJump();
+                world.jump(0);
+                replay.jump();
+            }
+
+            // Update the simulation (entity, obstacles, collisions and passes)
+            world.update(TICK_TIME);
+            replay.tick();
+            if (practice) {
+                rewindBuffer.record();
+            }
+            ticked++;
+        }
+        measureTickRate(ticked);
+
+        // Everything else moves on by the game time simulated this frame
+        if (timeScale != 1) {
+            deltaTime = ticked * TICK_TIME;
+        }
         sprite.update(deltaTime, entity.getVelocity());
 
+        // Record the run and advance the ghosts racing it
+        if (ghostRace) {
+            recorder.update(deltaTime, entity.getY(), sprite.getCurrentState());
+            ghosts.update(deltaTime);
+        }
+
         // Update background layers
-        layer1.update(deltaTime);
-        layer2.update(deltaTime);
-        layer3.update(deltaTime);
+        if (assetsLoaded) {
+            layer1.update(deltaTime);
+            layer2.update(deltaTime);
+            layer3.update(deltaTime);
+        }
+    }
+
+    /**
+     * Count the ticks run and work out the tick rate about once a second.
+     */
+    private void measureTickRate(int ticks) {
+        tickRateTicks += ticks;
+        long elapsed = frameTime - tickRateStart;
+        if (elapsed >= 1000000000L) {
+            ticksPerSecond = tickRateStart == 0 ? 0 : tickRateTicks * 1e9f / elapsed;
+            tickRateTicks = 0;
+            tickRateStart = frameTime;
+        }
+    }
+
+    /**
+     * Update logic for playing state while the simulation runs on its own thread.
+     */
+    private void updatePlayingThreaded(float deltaTime) {
+        // Presses go to the simulation thread, which applies them in the tick they happened in
+        while (currentState == GameState.PLAYING && inputQueue.poll()) {
+            handleEvent();
+        }
 
-        // Update obstacles
-        for (Obstacle obstacle : obstacles) {
-            obstacle.update(deltaTime);
+        WorldFrame latest = simulationRunner.getFrame();
+        if (latest != null) {
+            frame = latest;
+            measureTickRate(frame.tick - frameTick);
+            frameTick = frame.tick;
+            if (frame.passes > framePasses) {
+                framePasses = frame.passes;
+                playSound(passSound);
+                spawnPassParticles();
+            }
+            if (frame.crashed) {
+                // The simulation thread's listener does not call playerCrashed
+                Metrics.COLLISIONS.increment();
+                stopSimulation();
+                currentState = GameState.GAME_OVER;
+            }
+        }
+
+        sprite.update(deltaTime, frame != null ? frame.playerVelocity[0] : entity.getVelocity());
+
+        if (ghostRace) {
+            recorder.update(deltaTime, getDisplayedPlayerY(), sprite.getCurrentState());
+            ghosts.update(deltaTime);
+        }
+
+        if (assetsLoaded) {
+            layer1.update(deltaTime);
+            layer2.update(deltaTime);
+            layer3.update(deltaTime);
+        }
+    }
+
+    /**
+     * Hand the world to the simulation thread, if there is one.
+     */
+    private void startSimulation() {
+        if (simulationRunner == null) return;
+
+        // Until the first tick is published, draw the world as it is handed over
+        if (startFrame == null) {
+            startFrame = new WorldFrame(world);
         }
+        startFrame.capture(world, null, TimeUtils.nanoTime(), 0);
+        frame = startFrame;
+        framePasses = 0;
+        frameTick = 0;
+        simulationRunner.start(world, practice ? rewindBuffer : null);
+    }
+
+    /**
+     * Take the world back from the simulation thread.
+     */
+    private void stopSimulation() {
+        simulationRunner.stop();
+        world.setListener(this);
+        frame = null;
+    }
+
+    /**
+     * Check whether the renderer should draw the simulation thread's frames instead of the world.
+     */
+    private boolean isDrawingFrames() {
+        return frame != null && currentState == GameState.PLAYING;
+    }
 
-        // Check collisions
-        checkCollisions();
+    /**
+     * Get how far the render time is between the previous and the latest published tick.
+     * Drawing one tick behind the simulation leaves a tick on each side to interpolate between.
+     */
+    private float getFrameAlpha() {
+        return MathUtils.clamp((TimeUtils.nanoTime() - frame.time) / (float) TICK_NANOS, 0f, 1f);
+    }
 
-        // Check obstacle passes
-        checkObstaclePass();
+    /**
+     * Get the player's height as it is drawn.
+     */
+    private float getDisplayedPlayerY() {
+        return isDrawingFrames() ? frame.getPlayerY(0, getFrameAlpha()) : entity.getY();
     }
 
     /**
@@ -222,106 +840,126 @@ public class BouncyAsep extends ApplicationAdapter {
     private void updateGameOver(float deltaTime) {
         if (!collisionHandled) {
             sprite.setState(Character.State.DEAD);
-            crashSound.play();
+            playSound(crashSound);
+            if (assetsLoaded) {
+                particles.crash(entity.getX() + entity.getWidth() / 2f, entity.getY() + entity.getHeight() / 2f);
+            }
             collisionHandled = true;
+            saveGhostRun();
+            saveReplay();
         }
         sprite.update(deltaTime, entity.getVelocity());
-    }
 
-    /**
-     * Check for collisions between entity and obstacles.
-     */
-    private void checkCollisions() {
-        if (!collisionEnabled) return;
+        if (ghostRace) {
+            ghosts.update(deltaTime);
+        }
 
-        for (Obstacle obstacle : obstacles) {
-            if (obstacle.checkCollision(entity)) {
-                currentState = GameState.GAME_OVER;
-                break;
+        // A demo run goes back to the menu by itself
+        if (attract) {
+            idleTime += deltaTime;
+            if (idleTime > ATTRACT_END_DELAY) {
+                resetGame();
             }
         }
     }
 
     /**
-     * Check if player has passed any obstacles and update score.
+     * End the run when the player hits an obstacle.
      */
-    private void checkObstaclePass() {
-        for (Obstacle obstacle : obstacles) {
-            if (!obstacle.isPassed() &&
-                    entity.getX() > obstacle.getTopRect().getX() + obstacle.getTopRect().getWidth()) {
-                obstacle.setPassed(true);
-                passSound.play();
-                score++;
+    @Override
+    public void playerCrashed(int player) {
+        Metrics.COLLISIONS.increment();
+        currentState = GameState.GAME_OVER;
+    }
 
-                // TODO: Implement dynamic difficulty scaling
-                if (score % 5 == 0) {
-                    increaseDifficulty();
-                }
-            }
+    /**
+     * Play the pass sound when the player scores.
+     */
+    @Override
+    public void obstaclePassed(int player, Obstacle obstacle) {
+        playSound(passSound);
+        spawnPassParticles();
+    }
+
+    /**
+     * Scatter sparkles around the player for a pass.
+     */
+    private void spawnPassParticles() {
+        if (assetsLoaded) {
+            particles.pass(entity.getX() + entity.getWidth() / 2f, getDisplayedPlayerY() + entity.getHeight() / 2f);
         }
     }
 
-    private void increaseDifficulty() {
-        for (Obstacle obstacle : obstacles) {
-            float currentSpeed = obstacle.getSpeed();
-            if (currentSpeed < MAX_OBSTACLE_SPEED) {
-                obstacle.setSpeed(currentSpeed + 25f);
-            }
+    /**
+     * Play a sound if it has been loaded. Fast-forwarded and demo runs play silently.
+     */
+    private void playSound(Sound sound) {
+        if (sound != null && timeScale <= 1 && !attract) {
+            sound.play();
         }
     }
 
     /**
-     * Render all game elements.
+     * Render all game elements. With resolution scaling the world goes through the offscreen buffer
+     * and only the UI is drawn at full resolution.
      */
     private void renderGame() {
+        if (resolutionScaling) {
+            dynamicResolution.begin(viewport);
+            batch.begin();
+            drawWorld();
+            batch.end();
+            dynamicResolution.end(viewport, batch, WORLD_WIDTH, WORLD_HEIGHT);
+        } else {
+            batch.begin();
+            drawWorld();
+            batch.end();
+        }
+
         batch.begin();
+        drawUI();
+        batch.end();
+    }
 
-        // Draw background layers
-        layer1.draw(batch, WORLD_HEIGHT);
-        layer2.draw(batch, WORLD_HEIGHT);
-        layer3.draw(batch, WORLD_HEIGHT);
+    /**
+     * Draw the background, obstacles, ghosts and the player.
+     */
+    private void drawWorld() {
+        // Draw background layers and obstacles once their textures have arrived
+        if (assetsLoaded) {
+            layer1.draw(batch, WORLD_HEIGHT);
+            layer2.draw(batch, WORLD_HEIGHT);
+            layer3.draw(batch, WORLD_HEIGHT);
+            drawObstacles();
+        }
 
-        // Draw obstacles
-        drawObstacles();
+        // Draw ghosts behind the live player
+        if (ghostRace) {
+            ghosts.draw(batch, sprite, entity.getX(), entity.getWidth(), entity.getHeight());
+        }
 
         // Draw main character
-        sprite.draw(batch, entity.getX(), entity.getY(), entity.getWidth(), entity.getHeight());
+        sprite.draw(batch, entity.getX(), getDisplayedPlayerY(), entity.getWidth(), entity.getHeight());
 
-        // Draw UI
-        drawUI();
-
-        batch.end();
+        if (assetsLoaded) {
+            particles.draw(batch);
+        }
     }
 
     /**
      * Draw obstacles on screen.
      */
     private void drawObstacles() {
-        for (Obstacle obstacle : obstacles) {
-            Rectangle topRect = obstacle.getTopRect();
-            Rectangle bottomRect = obstacle.getBottomRect();
-
-            // Draw filler rectangles
-            for (Rectangle fillerRect : obstacle.getFillerRects()) {
-                batch.draw(
-                        obstacle.getFillerTile(),
-                        fillerRect.x, fillerRect.y,
-                        fillerRect.width, fillerRect.height
-                );
+        if (isDrawingFrames()) {
+            float alpha = getFrameAlpha();
+            for (int i = 0; i < world.getObstacles().size(); i++) {
+                world.getObstacles().get(i).drawAt(batch, frame.getObstacleX(i, alpha), frame.getObstacleY(i, alpha));
             }
+            return;
+        }
 
-            // Draw top and bottom tiles
-            batch.draw(
-                    obstacle.getTopTile(),
-                    topRect.x, topRect.y,
-                    topRect.width, topRect.height
-            );
-
-            batch.draw(
-                    obstacle.getBottomTile(),
-                    bottomRect.x, bottomRect.y,
-                    bottomRect.width, bottomRect.height
-            );
+        for (Obstacle obstacle : world.getObstacles()) {
+            obstacle.draw(batch);
         }
     }
 
@@ -329,29 +967,68 @@ public class BouncyAsep extends ApplicationAdapter {
      * Draw all UI elements.
      */
     private void drawUI() {
+        // Distance-field text needs its shader, the debug overlay uses the default one
+        uiFonts.begin(batch);
         drawScore();
+        drawTimeScale();
         drawStateSpecificUI();
+        uiFonts.end(batch);
         drawDebugInfo();
     }
 
     /**
-     * Draw score display.
+     * Draw score display, laying it out again only when the score changes.
      */
     private void drawScore() {
-        if (currentState == GameState.PLAYING || currentState == GameState.GAME_OVER) {
-            String scoreText = String.valueOf(score);
-            infoFont.draw(batch, scoreText, WORLD_WIDTH / 2f - 10, WORLD_HEIGHT - 50);
+        if (currentState != GameState.MENU) {
+            int score = isDrawingFrames() ? frame.scores[0] : world.getScore(0);
+            if (score != displayedScore) {
+                displayedScore = score;
+                setCentered(scoreText, String.valueOf(score), WORLD_HEIGHT - 50);
+            }
+            scoreText.draw(batch);
+        }
+    }
+
+    /**
+     * Draw the time scale and the tick rate it reaches, when not playing in real time, laying it out again
+     * only when either changes.
+     */
+    private void drawTimeScale() {
+        if (timeScale == 1) return;
+
+        int tickRate = Math.round(ticksPerSecond);
+        if (timeScale != displayedTimeScale || tickRate != displayedTickRate) {
+            displayedTimeScale = timeScale;
+            displayedTickRate = tickRate;
+            timeScaleText.setText(formatTimeScale() + ", " + tickRate + " ticks/s", WORLD_WIDTH - 200,
+                    WORLD_HEIGHT - 10);
         }
+        timeScaleText.draw(batch);
+    }
+
+    private String formatTimeScale() {
+        if (timeScale == FASTEST) return "fastest";
+        return timeScale >= 1 ? "x" + Math.round(timeScale) : "x" + timeScale;
     }
 
     /**
      * Draw UI elements specific to current game state.
      */
     private void drawStateSpecificUI() {
+        // A demo run keeps the menu up
+        if (attract) {
+            drawMenuUI();
+            return;
+        }
+
         switch (currentState) {
             case MENU:
                 drawMenuUI();
                 break;
+            case PAUSED:
+                drawPausedUI();
+                break;
             case GAME_OVER:
                 drawGameOverUI();
                 break;
@@ -365,65 +1042,188 @@ public class BouncyAsep extends ApplicationAdapter {
      * Draw menu UI.
      */
     private void drawMenuUI() {
-        String titleText = "Bouncy Asep: The Game";
-        titleFont.draw(batch, titleText, WORLD_WIDTH / 6f + 20, WORLD_HEIGHT - 130);
+        titleText.draw(batch);
+
+        if (assetsLoaded) {
+            playText.draw(batch);
+        } else {
+            int progress = Math.round(deferredAssets.getProgress() * 100);
+            if (progress != displayedProgress) {
+                displayedProgress = progress;
+                setCentered(loadingText, "Loading... " + progress + "%", WORLD_HEIGHT / 5f);
+            }
+            loadingText.draw(batch);
+        }
+
+        if (authoredCourse != null) {
+            if (course != displayedCourse) {
+                displayedCourse = course;
+                String name = course == authoredCourse ? authoredCourse.getName() : "Random";
+                setCentered(courseText, "C: " + name + " course", WORLD_HEIGHT / 5f - 60);
+            }
+            courseText.draw(batch);
+        }
+
+        int shownPractice = practice ? 1 : 0;
+        if (shownPractice != displayedPractice) {
+            displayedPractice = shownPractice;
+            setCentered(practiceText, "P: Practice " + (practice ? "on" : "off"), WORLD_HEIGHT / 5f - 100);
+        }
+        practiceText.draw(batch);
+
+        if (Gdx.files.isLocalStorageAvailable()) {
+            int shownGhosts = ghostRace ? ghosts.getGhostCount() : -2;
+            if (shownGhosts != displayedGhosts) {
+                displayedGhosts = shownGhosts;
+                String race = ghostRace ? "on (" + shownGhosts + " ghosts)" : "off";
+                setCentered(raceText, "G: Ghost race " + race, WORLD_HEIGHT / 5f - 80);
+            }
+            raceText.draw(batch);
+        }
+    }
+
+    /**
+     * Draw paused UI with the countdown to the run carrying on.
+     */
+    private void drawPausedUI() {
+        pausedText.draw(batch);
 
-        String menuText = "Press SPACE or LMB to play";
-        infoFont.draw(batch, menuText, WORLD_WIDTH / 4f - 30, WORLD_HEIGHT / 5f);
+        int countdown = MathUtils.ceil(resumeCountdown);
+        if (countdown != displayedCountdown) {
+            displayedCountdown = countdown;
+            setCentered(countdownText, String.valueOf(countdown), WORLD_HEIGHT / 2f - 50);
+        }
+        countdownText.draw(batch);
     }
 
     /**
      * Draw game over UI.
      */
     private void drawGameOverUI() {
-        String gameOverText = "GAME OVER";
-        titleFont.draw(batch, gameOverText, WORLD_WIDTH / 3f, WORLD_HEIGHT / 2f + 50);
-
-        String restartText = "Press R to restart";
-        infoFont.draw(batch, restartText, WORLD_WIDTH / 3f, WORLD_HEIGHT / 2f - 50);
+        gameOverText.draw(batch);
+        restartText.draw(batch);
+
+        if (practice && rewindBuffer.getSize() > 1) {
+            int seconds = (int) (Math.min(REWIND_STEP, rewindBuffer.getSize() - 1) * TICK_TIME);
+            if (seconds != displayedRewind) {
+                displayedRewind = seconds;
+                setCentered(rewindText, "BACKSPACE: rewind " + seconds + " s", WORLD_HEIGHT / 2f - 110);
+            }
+            rewindText.draw(batch);
+        }
     }
 
     /**
      * Draw debug information if enabled.
      */
     private void drawDebugInfo() {
-        if (!isDebugEnabled) return;
+        if (!isDebugEnabled || debugFont == null) return;
 
+        // While the simulation thread owns the world, only its published frame is safe to read
+        WorldFrame shown = frame;
         StringBuilder debugText = new StringBuilder()
                 .append("FPS: ").append(Gdx.graphics.getFramesPerSecond())
                 .append("\nState: ").append(currentState)
-                .append("\nEntity Y: ").append(Math.round(entity.getY()))
+                .append("\nEntity Y: ").append(Math.round(shown != null ? shown.playerY[0] : entity.getY()))
                 .append("\nGravity: ").append(entity.getGravity())
-                .append("\nCollision: ").append(collisionEnabled)
-                .append("\nVelocity: ").append(String.format("%.2f", entity.getVelocity()))
-                .append("\nScore: ").append(score);
-
-        if (!obstacles.isEmpty()) {
-            debugText.append("\nObstacle Speed: ").append(obstacles.get(0).getSpeed());
+                .append("\nCollision: ").append(world.isCollisionEnabled())
+                .append("\nVelocity: ").append(String.format("%.2f",
+                        shown != null ? shown.playerVelocity[0] : entity.getVelocity()))
+                .append("\nScore: ").append(shown != null ? shown.scores[0] : world.getScore(0))
+                .append("\nObstacle Speed: ").append(shown != null ? shown.obstacleSpeed : world.getObstacleSpeed());
+        debugText.append("\nCourse Ahead: ").append(shown != null ? shown.courseLookahead : course.getLookahead());
+        debugText.append("\nTime Scale: ").append(formatTimeScale())
+                .append(" (").append(Math.round(ticksPerSecond)).append(" ticks/s)");
+        debugText.append("\nInput Latency: ").append(Math.round(lastInputLatency * 10) / 10f)
+                .append(" ms (avg ").append(Math.round(averageInputLatency * 10) / 10f).append(" ms)");
+        debugText.append("\nStartup: first frame ").append(Math.round(timeline.getTimeToFirstFrame()))
+                .append(" ms, ready ").append(Math.round(timeline.getTimeToReady())).append(" ms");
+        if (lastResumeTime > 0) {
+            debugText.append("\nLast Resume: ").append(Math.round(lastResumeTime)).append(" ms");
+        }
+        debugText.append("\nGPU Memory: ").append(ResourceRegistry.toMegabytes(ResourceRegistry.getGpuBytes()))
+                .append(" / ").append(ResourceRegistry.toMegabytes(ResourceRegistry.getBudget()))
+                .append(" MB (peak ").append(ResourceRegistry.toMegabytes(ResourceRegistry.getPeakGpuBytes()))
+                .append(" MB, ").append(ResourceRegistry.getResourceCount()).append(" resources), audio ")
+                .append(ResourceRegistry.toMegabytes(ResourceRegistry.getAudioBytes())).append(" MB");
+        if (resolutionScaling) {
+            debugText.append("\nResolution: ").append(Math.round(dynamicResolution.getScale() * 100)).append("% (")
+                    .append(dynamicResolution.getRenderWidth()).append('x').append(dynamicResolution.getRenderHeight())
+                    .append("), ").append(dynamicResolution.isGpuTimed() ? "GPU " : "frame ")
+                    .append(Math.round(dynamicResolution.getLastFrameTime() * 10000) / 10f).append(" ms");
+        }
+        if (assetsLoaded) {
+            debugText.append("\nParticles: ").append(particles.getActiveCount());
+        }
+        PlayerController controller = attract ? demoPilot : autopilot;
+        if (controller instanceof PlanningAutopilot) {
+            PlanningAutopilot planner = (PlanningAutopilot) controller;
+            debugText.append("\nPlanner: ").append(planner.getLastNodes()).append(" nodes")
+                    .append(planner.isLastComplete() ? ", complete" : ", out of time");
+        }
+        if (ghostRace) {
+            debugText.append("\nGhosts: ").append(ghosts.getActiveCount()).append('/').append(ghosts.getGhostCount());
         }
 
         debugFont.draw(batch, debugText.toString(), 10, WORLD_HEIGHT - 10);
     }
 
     /**
-     * Handle user input based on current game state.
+     * Handle the queued input. While playing, presses are left in the queue for the simulation ticks
+     * so each one is applied in the tick it happened in; other screens handle them right away.
      */
     private void handleInput() {
+        while (currentState != GameState.PLAYING && inputQueue.poll()) {
+            handleEvent();
+        }
+    }
+
+    /**
+     * Handle the last polled input event based on current game state.
+     */
+    private void handleEvent() {
         // Global inputs
-        if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
+        if (inputQueue.isKey(Input.Keys.ESCAPE)) {
             Gdx.app.exit();
         }
 
-        if (Gdx.input.isKeyJustPressed(Input.Keys.F12)) {
+        if (inputQueue.isKey(Input.Keys.F12)) {
             isDebugEnabled = !isDebugEnabled;
         }
 
+        // Debug resolution scaling toggle
+        if (inputQueue.isKey(Input.Keys.F11)) {
+            toggleResolutionScaling();
+        }
+
+        // Time scale: [ slower, ] faster, \ as fast as possible or back to real time
+        if (inputQueue.isKey(Input.Keys.LEFT_BRACKET)) {
+            setTimeScale(timeScale == FASTEST ? MAX_TIME_SCALE : timeScale / 2);
+        }
+        if (inputQueue.isKey(Input.Keys.RIGHT_BRACKET) && timeScale != FASTEST) {
+            setTimeScale(timeScale * 2);
+        }
+        if (inputQueue.isKey(Input.Keys.BACKSLASH)) {
+            setTimeScale(timeScale == FASTEST ? 1f : FASTEST);
+        }
+
         // Debug collision toggle
-        if (Gdx.input.isKeyJustPressed(Input.Keys.NUM_0)) {
-            collisionEnabled = !collisionEnabled;
+        if (inputQueue.isKey(Input.Keys.NUM_0)) {
+            world.setCollisionEnabled(!world.isCollisionEnabled());
             collisionHandled = false;
         }
 
+        // Any press ends a demo run, a jump goes straight into a run of the player's own
+        idleTime = 0;
+        if (attract) {
+            boolean play = isJumpEvent();
+            resetGame();
+            if (play) {
+                startGame();
+            }
+            return;
+        }
+
         // State-specific input handling
         switch (currentState) {
             case MENU:
@@ -438,22 +1238,124 @@ public class BouncyAsep extends ApplicationAdapter {
         }
     }
 
+    /**
+     * Switch between rendering the world at full resolution and through the resolution scaler.
+     */
+    private void toggleResolutionScaling() {
+        resolutionScaling = !resolutionScaling;
+        if (resolutionScaling && dynamicResolution == null) {
+            dynamicResolution = new DynamicResolution(minResolutionScale, maxResolutionScale, targetFrameRate);
+            dynamicResolution.resize(viewport);
+        }
+    }
+
+    /**
+     * Check whether the last polled event is a jump press.
+     */
+    private boolean isJumpEvent() {
+        return inputQueue.isButton(Input.Buttons.LEFT) || inputQueue.isKey(Input.Keys.SPACE);
+    }
+
     /**
      * Handle input during menu state.
      */
     private void handleMenuInput() {
-        if (Gdx.input.isButtonJustPressed(Input.Buttons.LEFT) ||
-                Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) {
+        if (isJumpEvent() && assetsLoaded) {
             startGame();
         }
+
+        if (inputQueue.isKey(Input.Keys.C) && authoredCourse != null) {
+            switchCourse(course == authoredCourse ? generatedCourse : authoredCourse);
+        }
+
+        if (inputQueue.isKey(Input.Keys.P)) {
+            practice = !practice;
+            applyCourse();
+            resetGame();
+        }
+
+        if (inputQueue.isKey(Input.Keys.G) && Gdx.files.isLocalStorageAvailable()) {
+            ghostRace = !ghostRace;
+            loadGhosts();
+            resetGame();
+        }
+    }
+
+    /**
+     * Switch between the generated and the hand-authored course.
+     */
+    private void switchCourse(CourseSource newCourse) {
+        course = newCourse;
+        applyCourse();
+        loadGhosts();
+        resetGame();
+    }
+
+    /**
+     * Give the world the current course, through the journal in practice mode.
+     */
+    private void applyCourse() {
+        courseJournal.setSource(course);
+        world.setCourse(practice ? courseJournal : course);
+    }
+
+    /**
+     * Get the directory holding ghost runs for the current course.
+     * Generated courses race on a fixed seed so every run shares the same layout.
+     */
+    private FileHandle getGhostDirectory() {
+        String courseKey = course == authoredCourse
+                ? authoredCourse.getName().toLowerCase()
+                : "generated-" + Long.toHexString(RACE_SEED);
+        return Gdx.files.local("ghosts/" + courseKey);
+    }
+
+    /**
+     * Load the recorded runs of the current course as ghosts.
+     */
+    private void loadGhosts() {
+        if (ghostRace) {
+            ghosts.load(getGhostDirectory());
+        } else {
+            ghosts.clear();
+        }
+    }
+
+    /**
+     * Save the run that just ended and race against it from now on.
+     */
+    private void saveGhostRun() {
+        // Rewound practice runs and demo runs are not fair ghosts
+        if (!ghostRace || practice || attract) return;
+
+        recorder.finish(entity.getY(), Character.State.DEAD);
+        try {
+            recorder.save(getGhostDirectory().child(TimeUtils.millis() + "." + RunRecorder.EXTENSION));
+        } catch (RuntimeException e) {
+            Gdx.app.error("BouncyAsep", "Could not save ghost run", e);
+        }
+        ghosts.add(recorder);
+    }
+
+    /**
+     * Keep the run that just ended as the last replay.
+     */
+    private void saveReplay() {
+        // Rewound and demo runs are not worth replaying; runs ticked on the simulation thread are not recorded
+        if (practice || attract || simulationRunner != null || !Gdx.files.isLocalStorageAvailable()) return;
+
+        try {
+            replay.save(Gdx.files.local(REPLAY_PATH));
+        } catch (RuntimeException e) {
+            Gdx.app.error("BouncyAsep", "Could not save replay", e);
+        }
     }
 
     /**
      * Handle input during playing state.
      */
     private void handlePlayingInput() {
-        if (Gdx.input.isButtonJustPressed(Input.Buttons.LEFT) ||
-                Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) {
+        if (isJumpEvent()) {
             jump();
         }
     }
@@ -462,9 +1364,30 @@ public class BouncyAsep extends ApplicationAdapter {
      * Handle input during game over state.
      */
     private void handleGameOverInput() {
-        if (Gdx.input.isKeyJustPressed(Input.Keys.R)) {
+        if (inputQueue.isKey(Input.Keys.R)) {
             resetGame();
         }
+
+        if (inputQueue.isKey(Input.Keys.BACKSPACE) && practice) {
+            rewind();
+        }
+    }
+
+    /**
+     * Rewind a practice run a few seconds and continue playing from there.
+     */
+    private void rewind() {
+        if (rewindBuffer.rewind(REWIND_STEP) < 0 || !world.isAlive(0)) return;
+
+        currentState = GameState.PLAYING;
+        collisionHandled = false;
+        tickAccumulator = 0;
+        startSimulation();
+        if (entity.getVelocity() > 0) {
+            sprite.startJump();
+        } else {
+            sprite.startFall();
+        }
     }
 
     /**
@@ -472,16 +1395,75 @@ public class BouncyAsep extends ApplicationAdapter {
      */
     private void startGame() {
         currentState = GameState.PLAYING;
+        tickAccumulator = 0;
+        recorder.start();
+        startReplay();
+        startSimulation();
         jump(); // Initial jump to start movement
     }
 
+    /**
+     * Start a demo run from the menu, played by the planner.
+     */
+    private void startAttract() {
+        attract = true;
+        idleTime = 0;
+        currentState = GameState.PLAYING;
+        tickAccumulator = 0;
+        recorder.start();
+        startReplay();
+        showJump();
+        world.jump(0);
+    }
+
+    /**
+     * Start recording the jumps and state hashes of a run.
+     */
+    private void startReplay() {
+        replay.start(world, course == authoredCourse ? AUTHORED_COURSE : "", runSeed);
+    }
+
     /**
      * Make the character jump.
      */
     private void jump() {
+        showJump();
+        if (simulationRunner != null) {
+            simulationRunner.jump(inputQueue.getTime());
+        } else {
+            world.jump(0);
+            replay.jump();
+        }
+
+        // Remember the oldest press not yet shown on screen
+        if (unpresentedInputTime == 0) {
+            unpresentedInputTime = inputQueue.getTime();
+        }
+    }
+
+    /**
+     * Show a jump: animation, sound and particles, and count it.
+     */
+    private void showJump() {
+        Metrics.JUMPS.increment();
         sprite.startJump();
-        jumpSound.play();
-        entity.jump();
+        playSound(jumpSound);
+        if (assetsLoaded) {
+            particles.jump(entity.getX() + entity.getWidth() / 2f, getDisplayedPlayerY());
+        }
+    }
+
+    /**
+     * Measure the time from a jump press to the end of the frame that first shows it.
+     */
+    private void measureInputLatency() {
+        if (unpresentedInputTime == 0) return;
+
+        lastInputLatency = (TimeUtils.nanoTime() - unpresentedInputTime) / 1000000f;
+        averageInputLatency = averageInputLatency == 0
+                ? lastInputLatency
+                : averageInputLatency * 0.9f + lastInputLatency * 0.1f;
+        unpresentedInputTime = 0;
     }
 
     /**
@@ -491,21 +1473,24 @@ public class BouncyAsep extends ApplicationAdapter {
         currentState = GameState.MENU;
         sprite.setState(Character.State.STANDING);
         collisionHandled = false;
-        score = 0;
-
-        // Reset entity
-        entity.setVelocity(0);
-        entity.setY(WORLD_HEIGHT / 2f);
-
-        // Reset obstacles
-        for (Obstacle obstacle : obstacles) {
-            obstacle.reset();
+        attract = false;
+        idleTime = 0;
+
+        // Reset the entity and restart the course
+        runSeed = ghostRace ? RACE_SEED : MathUtils.random.nextLong();
+        world.reset(runSeed);
+        rewindBuffer.clear();
+
+        // Rewind the ghosts to the start line
+        ghosts.reset();
+
+        // Reset background layers and drop leftover particles
+        if (assetsLoaded) {
+            layer1.reset();
+            layer2.reset();
+            layer3.reset();
+            particles.clear();
         }
-
-        // Reset background layers
-        layer1.reset();
-        layer2.reset();
-        layer3.reset();
     }
 
     /**
@@ -513,30 +1498,56 @@ public class BouncyAsep extends ApplicationAdapter {
      */
     @Override
     public void dispose() {
+        // Stop the simulation thread before releasing what it ticks
+        if (simulationRunner != null) simulationRunner.dispose();
+
         // Dispose graphics
         if (batch != null) batch.dispose();
+        if (dynamicResolution != null) dynamicResolution.dispose();
 
         // Dispose fonts
-        if (debugFont != null) debugFont.dispose();
+        ResourceRegistry.release(debugFont);
         if (infoFont != null) infoFont.dispose();
         if (titleFont != null) titleFont.dispose();
+        if (smallFont != null) smallFont.dispose();
+        if (uiFonts != null) uiFonts.dispose();
 
         // Dispose background layers
         if (layer1 != null) layer1.dispose();
         if (layer2 != null) layer2.dispose();
         if (layer3 != null) layer3.dispose();
 
+        // Dispose particles
+        if (particles != null) particles.dispose();
+
         // Dispose audio
-        if (jumpSound != null) jumpSound.dispose();
-        if (crashSound != null) crashSound.dispose();
-        if (passSound != null) passSound.dispose();
+        ResourceRegistry.release(jumpSound);
+        ResourceRegistry.release(crashSound);
+        ResourceRegistry.release(passSound);
 
         // Dispose sprite
         if (sprite != null) sprite.dispose();
+
+        // Return pooled obstacle resources
+        if (world != null) world.dispose();
+
+        // Stop course generation and close course files
+        if (generatedCourse != null) generatedCourse.dispose();
+        if (authoredCourse != null) authoredCourse.dispose();
+
+        // Everything should be given back by now
+        Obstacle.disposeStatic();
+        ResourceRegistry.reportLeaks();
+
+        // Close the archive last, managed textures reload from it until they are gone
+        if (archiveFiles != null) {
+            Gdx.files = archiveFiles.getWrapped();
+            archiveFiles.getArchive().dispose();
+        }
     }
 
     // Game state
     public enum GameState {
-        MENU, PLAYING, GAME_OVER
+        MENU, PLAYING, PAUSED, GAME_OVER
     }
 }
\ No newline at end of file
@@ -1,7 +1,8 @@
 package com.binaryneedle.bouncyasep;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Disposable;
@@ -9,90 +10,64 @@ import com.badlogic.gdx.utils.Disposable;
 /**
  * The Character class represents an animated character in the game.
  * It handles the creation, drawing, updating, and disposal of the character's animation.
+ * <p>
+ * The animations and the frames split from the sheet come from a shared {@link AnimationSet}, and the
+ * texture is shared by path, so a character only adds its own state and time, and so does drawing more
+ * entities with it (ghosts, remote players), see {@link #getFrame(State, float)}.
  */
 public class Character implements Disposable {
+    // Animations of the player character
+    public static final String PLAYER_ANIMATIONS = "sprites/char_blue_1.json";
 
-    // Animation frame configurations for each state
-    private static final AnimationConfig[] ANIMATION_CONFIGS = {
-            new AnimationConfig(0, 0, 1, true),   // STANDING
-            new AnimationConfig(3, 6, 2, true),   // JUMPING
-            new AnimationConfig(4, 1, 4, true),   // FALLING
-            new AnimationConfig(6, 0, 12, false)  // DEAD (spans multiple rows)
-    };
     // Core components
+    private final AnimationSet animations;
     private final Texture texture;
-    private final TextureRegion[][] spriteSheet;
-    private final Animation<TextureRegion>[] animations;
-    // Frame properties
-    private final int frameWidth;
-    private final int frameHeight;
-    private final float frameDuration;
-    private TextureRegion currentFrame;
+    // Frames of the sheet by cell, shared by every character of the set
+    private final TextureRegion[] frames;
     // Animation properties
     private float elapsedTime = 0f;
     private State currentState = State.STANDING;
     private boolean isAnimationFinished = false;
     // Display properties
     private float scale = 1.0f;
-    /**
-     * Creates a new Character with the specified texture and animation properties.
-     *
-     * @param texturePath   Path to the character sprite sheet
-     * @param frameWidth    Width of each frame in pixels
-     * @param frameHeight   Height of each frame in pixels
-     * @param frameDuration Duration of each frame in seconds
-     */
-    public Character(String texturePath, int frameWidth, int frameHeight, float frameDuration) {
-        this.frameWidth = frameWidth;
-        this.frameHeight = frameHeight;
-        this.frameDuration = frameDuration;
-
-        // Load texture and create sprite sheet
-        this.texture = new Texture(texturePath);
-        this.spriteSheet = TextureRegion.split(texture, frameWidth, frameHeight);
-
-        // Initialize animations
-        this.animations = new Animation[State.values().length];
-        initializeAnimations();
-
-        // Set initial frame
-        setState(State.STANDING);
-    }
 
     /**
-     * Convenience constructor with default values.
+     * Creates a new Character with the animations of a definition file.
+     *
+     * @param animationsPath Path to the animation definition, see {@link AnimationSet}
      */
-    public Character(String texturePath) {
-        this(texturePath, 56, 56, 0.16f);
-    }
+    public Character(String animationsPath) {
+        this.animations = AnimationSet.load(animationsPath);
 
-    /**
-     * Initialize all animations based on configuration.
-     */
-    @SuppressWarnings("unchecked")
-    private void initializeAnimations() {
-        for (State state : State.values()) {
-            animations[state.getValue()] = createAnimation(state);
-        }
+        // Share the texture and the frames the animations show
+        this.texture = ResourceRegistry.loadTexture(animations.getSheetPath(), "Character");
+        this.frames = animations.getFrames(texture);
     }
 
     /**
-     * Creates animation for the specified state.
+     * Builds collision masks for every animation frame from the alpha channel of a sprite sheet, at the size
+     * the frames are drawn at. Reads the image without creating a texture, so it also works on a server.
+     *
+     * @param animationsPath Path to the animation definition
+     * @return The frame masks, timed like the animations
      */
-    private Animation<TextureRegion> createAnimation(State state) {
-        AnimationConfig config = ANIMATION_CONFIGS[state.getValue()];
-        TextureRegion[] frames = new TextureRegion[config.frameCount];
-
-        if (state == State.DEAD) {
-            // Special handling for death animation (spans multiple rows)
-            System.arraycopy(spriteSheet[6], 0, frames, 0, 8);
-            System.arraycopy(spriteSheet[7], 0, frames, 8, 4);
-        } else {
-            // Standard single-row animation
-            System.arraycopy(spriteSheet[config.startRow], config.startCol, frames, 0, config.frameCount);
+    public static FrameMasks loadFrameMasks(String animationsPath) {
+        AnimationSet animations = AnimationSet.load(animationsPath);
+        Pixmap sheet = new Pixmap(Gdx.files.internal(animations.getSheetPath()));
+        try {
+            int columns = animations.getColumns();
+            int width = animations.getFrameWidth();
+            int height = animations.getFrameHeight();
+            int[] cells = animations.getUsedCells();
+            CollisionMask[] masks = new CollisionMask[cells.length == 0 ? 0 : cells[cells.length - 1] + 1];
+            for (int cell : cells) {
+                masks[cell] = CollisionMask.fromPixmap(sheet, (cell % columns) * width, (cell / columns) * height,
+                        width, height, width, height);
+            }
+            return new FrameMasks(animations, masks);
+        } finally {
+            sheet.dispose();
         }
-
-        return new Animation<>(frameDuration, frames);
     }
 
     /**
@@ -103,24 +78,6 @@ public class Character implements Disposable {
             currentState = newState;
             elapsedTime = 0f;
             isAnimationFinished = false;
-            updateCurrentFrame();
-        }
-    }
-
-    /**
-     * Updates the current frame based on elapsed time and state.
-     */
-    private void updateCurrentFrame() {
-        Animation<TextureRegion> currentAnimation = animations[currentState.getValue()];
-        AnimationConfig config = ANIMATION_CONFIGS[currentState.getValue()];
-
-        if (config.loop) {
-            currentFrame = currentAnimation.getKeyFrame(elapsedTime, true);
-        } else {
-            currentFrame = currentAnimation.getKeyFrame(elapsedTime, false);
-            if (currentAnimation.isAnimationFinished(elapsedTime)) {
-                isAnimationFinished = true;
-            }
         }
     }
 
@@ -133,15 +90,28 @@ public class Character implements Disposable {
     public void update(float deltaTime, float entityVelocity) {
         if (!isAnimationFinished) {
             elapsedTime += deltaTime;
-            updateCurrentFrame();
+            isAnimationFinished = animations.isFinished(currentState, elapsedTime);
         }
 
-        // Auto-transition from jumping to falling when velocity becomes negative
-        if (currentState == State.JUMPING && entityVelocity < 0) {
-            setState(State.FALLING);
+        // Transitions such as jumping to falling once the velocity becomes negative
+        State fallingState = animations.getFallingState(currentState);
+        if (fallingState != null && entityVelocity < 0) {
+            setState(fallingState);
         }
     }
 
+    /**
+     * Gets the frame of any animation state at the given time, without changing this character.
+     * Lets many entities share this character's frame table.
+     *
+     * @param state     The animation state
+     * @param stateTime Time spent in the state
+     * @return The frame to draw
+     */
+    public TextureRegion getFrame(State state, float stateTime) {
+        return frames[animations.getCell(state, stateTime)];
+    }
+
     /**
      * Draws the current frame of the animation at the specified position.
      *
@@ -163,9 +133,7 @@ public class Character implements Disposable {
      * @param height The height of the frame
      */
     public void draw(SpriteBatch batch, float x, float y, float width, float height) {
-        if (currentFrame != null) {
-            batch.draw(currentFrame, x, y, width, height);
-        }
+        batch.draw(getFrame(currentState, elapsedTime), x, y, width, height);
     }
 
     // Convenience methods for state transitions
@@ -195,11 +163,11 @@ public class Character implements Disposable {
     }
 
     public int getFrameWidth() {
-        return frameWidth;
+        return animations.getFrameWidth();
     }
 
     public int getFrameHeight() {
-        return frameHeight;
+        return animations.getFrameHeight();
     }
 
     public float getScale() {
@@ -217,11 +185,11 @@ public class Character implements Disposable {
     }
 
     public float getScaledWidth() {
-        return frameWidth * scale;
+        return getFrameWidth() * scale;
     }
 
     public float getScaledHeight() {
-        return frameHeight * scale;
+        return getFrameHeight() * scale;
     }
 
     // Deprecated methods for backward compatibility
@@ -240,15 +208,15 @@ public class Character implements Disposable {
      */
     @Override
     public void dispose() {
-        if (texture != null) {
-            texture.dispose();
-        }
+        ResourceRegistry.release(texture);
     }
 
     // Animation states
     public enum State {
         STANDING(0), JUMPING(1), FALLING(2), DEAD(3);
 
+        private static final State[] BY_VALUE = values();
+
         private final int value;
 
         State(int value) {
@@ -258,18 +226,15 @@ public class Character implements Disposable {
         public int getValue() {
             return value;
         }
-    }
-
-    // Animation configurations
-    private static final class AnimationConfig {
-        final int startRow, startCol, frameCount;
-        final boolean loop;
 
-        AnimationConfig(int startRow, int startCol, int frameCount, boolean loop) {
-            this.startRow = startRow;
-            this.startCol = startCol;
-            this.frameCount = frameCount;
-            this.loop = loop;
+        /**
+         * Gets the state with a value, without allocating.
+         *
+         * @param value Value of the state, see {@link #getValue()}
+         * @return The state
+         */
+        public static State fromValue(int value) {
+            return BY_VALUE[value];
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,134 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.graphics.Pixmap;
+
+/**
+ * The CollisionMask class marks the opaque pixels of an image as a packed bitset, one long per row.
+ * <p>
+ * Rows run from the bottom of the image up, like world coordinates, and bit {@code x} of a row is the pixel
+ * {@code x} from the left, so masks of images up to 64 pixels wide can be tested against each other a whole
+ * row at a time with a shift and an AND. The bounds of the opaque pixels are kept as well and checked first,
+ * which rejects most tests before any row is read.
+ */
+public class CollisionMask {
+    public static final int MAX_WIDTH = Long.SIZE;
+    // Pixels at least this opaque collide
+    private static final int ALPHA_THRESHOLD = 128;
+
+    private final int width;
+    private final int height;
+    private final long[] rows;
+    // Bounds of the opaque pixels, inclusive; empty masks have minX > maxX
+    private int minX, maxX, minY, maxY;
+
+    /**
+     * Creates an empty mask.
+     *
+     * @param width  Width in pixels, at most {@link #MAX_WIDTH}
+     * @param height Height in pixels
+     */
+    public CollisionMask(int width, int height) {
+        if (width > MAX_WIDTH) {
+            throw new IllegalArgumentException("Collision masks are at most " + MAX_WIDTH + " px wide: " + width);
+        }
+        this.width = width;
+        this.height = height;
+        this.rows = new long[height];
+        updateBounds();
+    }
+
+    /**
+     * Builds a mask from the alpha channel of a region of a pixmap, scaled to the size it is drawn at.
+     *
+     * @param pixmap    Source image
+     * @param srcX      Left edge of the region in the pixmap
+     * @param srcY      Top edge of the region in the pixmap
+     * @param srcWidth  Width of the region
+     * @param srcHeight Height of the region
+     * @param width     Width the region is drawn at
+     * @param height    Height the region is drawn at
+     * @return The mask
+     */
+    public static CollisionMask fromPixmap(Pixmap pixmap, int srcX, int srcY, int srcWidth, int srcHeight,
+                                           int width, int height) {
+        CollisionMask mask = new CollisionMask(width, height);
+        for (int row = 0; row < height; row++) {
+            // Pixmap rows run from the top, mask rows from the bottom; sample at pixel centers
+            int pixelY = srcY + (int) ((height - 1 - row + 0.5f) * srcHeight / height);
+            long bits = 0;
+            for (int x = 0; x < width; x++) {
+                int pixelX = srcX + (int) ((x + 0.5f) * srcWidth / width);
+                if ((pixmap.getPixel(pixelX, pixelY) & 0xff) >= ALPHA_THRESHOLD) {
+                    bits |= 1L << x;
+                }
+            }
+            mask.rows[row] = bits;
+        }
+        mask.updateBounds();
+        return mask;
+    }
+
+    private void updateBounds() {
+        minX = width;
+        maxX = -1;
+        minY = height;
+        maxY = -1;
+        long all = 0;
+        for (int row = 0; row < height; row++) {
+            if (rows[row] == 0) continue;
+            all |= rows[row];
+            minY = Math.min(minY, row);
+            maxY = row;
+        }
+        if (all != 0) {
+            minX = Long.numberOfTrailingZeros(all);
+            maxX = MAX_WIDTH - 1 - Long.numberOfLeadingZeros(all);
+        }
+    }
+
+    /**
+     * Checks whether another mask placed at an offset from this one covers any of the same pixels.
+     *
+     * @param other   The other mask
+     * @param offsetX X position of the other mask's left edge relative to this one's
+     * @param offsetY Y position of the other mask's bottom edge relative to this one's
+     * @return True if an opaque pixel of each mask falls on the same spot
+     */
+    public boolean overlaps(CollisionMask other, int offsetX, int offsetY) {
+        if (isEmpty() || other.isEmpty()) return false;
+
+        // Reject on the opaque bounds first; passing this also keeps the shift below within a long
+        if (offsetX + other.minX > maxX || offsetX + other.maxX < minX
+                || offsetY + other.minY > maxY || offsetY + other.maxY < minY) {
+            return false;
+        }
+
+        int from = Math.max(minY, offsetY + other.minY);
+        int to = Math.min(maxY, offsetY + other.maxY);
+        for (int row = from; row <= to; row++) {
+            long bits = other.rows[row - offsetY];
+            long shifted = offsetX >= 0 ? bits << offsetX : bits >>> -offsetX;
+            if ((rows[row] & shifted) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the mask has no opaque pixels at all.
+     *
+     * @return True if nothing can collide with this mask
+     */
+    public boolean isEmpty() {
+        return maxX < 0;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,108 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.glutils.PixmapTextureData;
+import com.badlogic.gdx.utils.BufferUtils;
+
+import java.nio.IntBuffer;
+
+/**
+ * The CompressedTextures class loads the ETC2 variant of a texture when the GPU can sample it,
+ * and the PNG otherwise.
+ * <p>
+ * ETC2 textures take a quarter of the GPU memory of RGBA8 ones. The variants are written next to the PNGs
+ * by the desktop TextureCompressor tool; assets without a variant, and GPUs without ETC2 support
+ * (most desktop drivers and all browsers), simply use the PNG.
+ * <p>
+ * Android drops the GL context when the app is sent to the background, and managed textures are then
+ * uploaded again on resume. PNGs are kept decoded in memory there, so that upload skips reading and
+ * decoding the file; the compressed variants are cheap to read again and are not kept.
+ */
+public final class CompressedTextures {
+    public static final String COMPRESSED_EXTENSION = ".zktx";
+    private static final int GL_COMPRESSED_RGBA8_ETC2_EAC = 0x9278;
+
+    private static boolean checked;
+    private static boolean etc2Supported;
+
+    private CompressedTextures() {
+    }
+
+    /**
+     * Loads a texture, preferring its compressed variant.
+     *
+     * @param path Internal path of the PNG
+     * @return The texture
+     */
+    public static Texture load(String path) {
+        if (isEtc2Supported()) {
+            FileHandle compressed = Gdx.files.internal(path.substring(0, path.lastIndexOf('.')) + COMPRESSED_EXTENSION);
+            if (compressed.exists()) {
+                return new Texture(compressed);
+            }
+        }
+        if (Gdx.app.getType() == Application.ApplicationType.Android) {
+            return loadKeepingPixmap(path);
+        }
+        return new Texture(Gdx.files.internal(path));
+    }
+
+    /**
+     * Loads a PNG as a managed texture restored from its decoded pixels rather than the file.
+     * The pixels are freed with the texture.
+     */
+    private static Texture loadKeepingPixmap(String path) {
+        final Pixmap pixmap = new Pixmap(Gdx.files.internal(path));
+        return new Texture(new PixmapTextureData(pixmap, null, false, false, true)) {
+            @Override
+            public void dispose() {
+                super.dispose();
+                if (!pixmap.isDisposed()) {
+                    pixmap.dispose();
+                }
+            }
+        };
+    }
+
+    /**
+     * Checks once whether the GPU accepts ETC2 textures.
+     *
+     * @return True if ETC2 RGBA textures can be uploaded
+     */
+    public static boolean isEtc2Supported() {
+        if (checked) return etc2Supported;
+        checked = true;
+
+        // WebGL only exposes ETC2 through an extension the web backend does not query
+        if (Gdx.app.getType() == Application.ApplicationType.WebGL) return false;
+
+        // ETC2 is part of OpenGL ES 3.0
+        if (Gdx.app.getType() == Application.ApplicationType.Android && Gdx.graphics.isGL30Available()) {
+            etc2Supported = true;
+            return true;
+        }
+
+        // Otherwise look for the format in the list the driver reports
+        IntBuffer count = BufferUtils.newIntBuffer(16);
+        Gdx.gl.glGetIntegerv(GL20.GL_NUM_COMPRESSED_TEXTURE_FORMATS, count);
+        int formatCount = count.get(0);
+        if (formatCount > 0) {
+            IntBuffer formats = BufferUtils.newIntBuffer(formatCount);
+            Gdx.gl.glGetIntegerv(GL20.GL_COMPRESSED_TEXTURE_FORMATS, formats);
+            for (int i = 0; i < formatCount; i++) {
+                if (formats.get(i) == GL_COMPRESSED_RGBA8_ETC2_EAC) {
+                    etc2Supported = true;
+                    break;
+                }
+            }
+        }
+
+        Gdx.app.debug("CompressedTextures", "ETC2 " + (etc2Supported ? "supported" : "not supported, using PNG"));
+        return etc2Supported;
+    }
+}
@@ -0,0 +1,69 @@
+package com.binaryneedle.bouncyasep;
+
+/**
+ * The CourseChunk class holds a fixed-size run of generated obstacle layouts.
+ * Layouts are stored as packed primitive arrays so chunks can be filled on the generator thread
+ * and recycled indefinitely without allocating.
+ */
+public class CourseChunk {
+    // Course distance of each obstacle, measured from the start of the run
+    final double[] distance;
+    // Gap position in tile units
+    final int[] gapTile;
+    // Vertical oscillation of the gap (0 for a static gap)
+    final float[] gapAmplitude;
+    final float[] gapFrequency;
+    // Obstacle speed of the section the obstacle belongs to
+    final float[] speed;
+    int count;
+
+    /**
+     * Creates an empty chunk.
+     *
+     * @param capacity Maximum number of obstacles in the chunk
+     */
+    public CourseChunk(int capacity) {
+        this.distance = new double[capacity];
+        this.gapTile = new int[capacity];
+        this.gapAmplitude = new float[capacity];
+        this.gapFrequency = new float[capacity];
+        this.speed = new float[capacity];
+    }
+
+    /**
+     * Appends an obstacle layout to the chunk.
+     */
+    void add(double distance, int gapTile, float gapAmplitude, float gapFrequency, float speed) {
+        this.distance[count] = distance;
+        this.gapTile[count] = gapTile;
+        this.gapAmplitude[count] = gapAmplitude;
+        this.gapFrequency[count] = gapFrequency;
+        this.speed[count] = speed;
+        count++;
+    }
+
+    /**
+     * Gets the maximum number of obstacles in the chunk.
+     *
+     * @return The chunk capacity
+     */
+    public int getCapacity() {
+        return distance.length;
+    }
+
+    /**
+     * Gets the number of obstacles currently in the chunk.
+     *
+     * @return The obstacle count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Empties the chunk so it can be filled again.
+     */
+    public void clear() {
+        count = 0;
+    }
+}
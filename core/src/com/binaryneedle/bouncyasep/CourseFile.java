@@ -0,0 +1,89 @@
+package com.binaryneedle.bouncyasep;
+
+/**
+ * The CourseFile class plays a hand-authored course as an alternative to generated layouts.
+ * Records are pulled from the reader only when an obstacle is recycled, so the course is consumed
+ * lazily as the player progresses. The course loops back to its first record when it ends.
+ * <p>
+ * A record with a speed of 0 keeps the speed of the records before it, so course obstacles always carry a
+ * section speed and never fall back to the classic speed ramp of randomly placed obstacles.
+ */
+public class CourseFile implements CourseSource {
+    private final CourseReader reader;
+    private final String name;
+    private final float tileSize;
+    private double nextDistance;
+    private double scrolled;
+    // Speed of the current section, carried over records that keep it
+    private float sectionSpeed;
+
+    /**
+     * Creates a course backed by the given reader.
+     *
+     * @param reader   Reader positioned on a course file
+     * @param name     Display name of the course
+     * @param tileSize Size of each tile in pixels
+     */
+    public CourseFile(CourseReader reader, String name, float tileSize) {
+        this.reader = reader;
+        this.name = name;
+        this.tileSize = tileSize;
+    }
+
+    @Override
+    public void reset(long seed) {
+        reader.seek(0);
+        nextDistance = 0;
+        scrolled = 0;
+        sectionSpeed = GameWorld.INITIAL_OBSTACLE_SPEED;
+    }
+
+    @Override
+    public void advance(float distance) {
+        scrolled += distance;
+    }
+
+    @Override
+    public boolean placeNext(Obstacle obstacle) {
+        if (!reader.next()) {
+            // Loop the course, continuing from the current distance
+            reader.seek(0);
+            if (!reader.next()) {
+                return false;
+            }
+        }
+
+        nextDistance += reader.getXOffset() * tileSize;
+        if (reader.getSpeed() > 0) {
+            sectionSpeed = reader.getSpeed();
+        }
+
+        obstacle.setX((float) (nextDistance - scrolled));
+        obstacle.setGapMotion(reader.getAmplitude() * tileSize, reader.getFrequency());
+        obstacle.setY(reader.getGapY() * tileSize);
+        obstacle.setSectionSpeed(sectionSpeed);
+        obstacle.setPassed(false);
+        return true;
+    }
+
+    @Override
+    public int getLookahead() {
+        // At the end the course loops, so the whole file is ahead again
+        int remaining = reader.getEntryCount() - reader.getCursor();
+        return remaining > 0 ? remaining : reader.getEntryCount();
+    }
+
+    /**
+     * Gets the display name of the course.
+     *
+     * @return The course name
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void dispose() {
+        reader.dispose();
+    }
+}
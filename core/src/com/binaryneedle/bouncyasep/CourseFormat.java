@@ -0,0 +1,41 @@
+package com.binaryneedle.bouncyasep;
+
+/**
+ * The CourseFormat class describes the binary layout of hand-authored course files.
+ * <p>
+ * All values are big-endian. A file starts with a fixed header:
+ * <pre>
+ * int   magic         'BACF'
+ * short version
+ * short recordSize    bytes per obstacle record
+ * int   entryCount    number of obstacle records
+ * int   indexStride   records per index block
+ * int   indexCount    number of index entries
+ * float totalLength   course length in tiles
+ * </pre>
+ * The header is followed by the index, one entry per block of {@code indexStride} records:
+ * <pre>
+ * float distance      course distance of the first record in the block, in tiles
+ * int   offset        file offset of the first record in the block
+ * </pre>
+ * and then by the obstacle records:
+ * <pre>
+ * float xOffset       distance from the previous obstacle (or the course start), in tiles
+ * float gapY          gap position, in tiles
+ * short speed         section speed in pixels per second, 0 to keep the current speed
+ * byte  amplitude     gap oscillation amplitude, in 1/16 tiles
+ * byte  frequency     gap oscillation frequency, in 1/16 radians per second
+ * </pre>
+ */
+public final class CourseFormat {
+    public static final int MAGIC = 0x42414346;
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 24;
+    public static final int INDEX_ENTRY_SIZE = 8;
+    public static final int RECORD_SIZE = 12;
+    public static final int DEFAULT_INDEX_STRIDE = 64;
+    public static final float MOTION_UNIT = 1f / 16f;
+
+    private CourseFormat() {
+    }
+}
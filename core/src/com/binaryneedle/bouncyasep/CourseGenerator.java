@@ -0,0 +1,397 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The CourseGenerator class produces an endless course of obstacle layouts ahead of the player.
+ * Chunks of layouts (gap heights, spacing, moving gaps and speed sections) are generated on a worker
+ * thread and handed to the render thread through a lock-free queue; consumed chunks travel back
+ * through a second queue to be refilled, so steady-state play never allocates or waits on generation.
+ * <p>
+ * Every gap is checked against {@link Reachability} before it is kept: a gap the player could not get
+ * through is pulled towards the previous one, calmed if it moves, or as a last resort moved to the nearest
+ * gap that works, pushing the obstacle back if none does. Should even that fail, the gap is kept and logged,
+ * so a course is only known to be passable for the seeds the verifyCourses task checks. The checks use no
+ * random numbers, which keeps courses the same for a seed.
+ * <p>
+ * On backends without threads (HTML) the executor runs the fill task inline, which keeps the same code path.
+ */
+public class CourseGenerator implements CourseSource {
+    private static final String TAG = "CourseGenerator";
+    private static final int CHUNK_SIZE = 16;
+    private static final int LOOKAHEAD_CHUNKS = 4;
+
+    // Speed progression, matching the classic difficulty curve of +25 px/s every 5 obstacles
+    private static final float BASE_SPEED = 250f;
+    private static final float SPEED_STEP = 25f;
+    private static final int OBSTACLES_PER_STEP = 5;
+    private static final float SPEED_BURST = 100f;
+
+    // Spacing limits in tiles; the lower bound keeps recycled obstacles off screen
+    private static final float MIN_SPACING = 4f;
+    private static final float MAX_SPACING = 7f;
+    // Tiles an obstacle may be pushed back by when no gap in its place can be made
+    private static final int MAX_EXTRA_SPACING = 4;
+
+    private enum Pattern {
+        RANDOM, STAIRS, ZIGZAG, TUNNEL, MOVING
+    }
+
+    // Configuration
+    private final float tileSize;
+    private final int maxGapTile;
+    private final float startDistance;
+    private final float maxSpeed;
+    private final Reachability reachability;
+
+    // Chunk hand-over between the threads
+    private final SpscQueue<CourseChunk> readyChunks;
+    private final SpscQueue<CourseChunk> freeChunks;
+    private final AsyncExecutor executor;
+    private final AtomicBoolean working = new AtomicBoolean();
+    private final AsyncTask<Void> fillTask;
+    private AsyncResult<Void> pendingFill;
+
+    // Generator state, owned by whichever thread runs the fill task
+    private final RandomXS128 random = new RandomXS128();
+    private double generatedDistance;
+    private int generatedCount;
+    private int lastGapTile;
+    private int chunkIndex;
+
+    // Consumer state, owned by the render thread
+    private CourseChunk currentChunk;
+    private int cursor;
+    private double scrolled;
+
+    /**
+     * Creates a course generator.
+     *
+     * @param tileSize      Size of each tile in pixels
+     * @param maxGapTile    Highest gap position in tile units
+     * @param startDistance Distance of the first obstacle from the start of the course
+     * @param maxSpeed      Maximum obstacle speed in pixels per second
+     * @param reachability  Tracker of where the player can be, set up for the world the course is played in
+     */
+    public CourseGenerator(float tileSize, int maxGapTile, float startDistance, float maxSpeed,
+                           Reachability reachability) {
+        this.tileSize = tileSize;
+        this.maxGapTile = maxGapTile;
+        this.startDistance = startDistance;
+        this.maxSpeed = maxSpeed;
+        this.reachability = reachability;
+
+        this.readyChunks = new SpscQueue<>(LOOKAHEAD_CHUNKS + 1);
+        this.freeChunks = new SpscQueue<>(LOOKAHEAD_CHUNKS + 1);
+        for (int i = 0; i < LOOKAHEAD_CHUNKS; i++) {
+            freeChunks.offer(new CourseChunk(CHUNK_SIZE));
+        }
+
+        this.executor = new AsyncExecutor(1, "course-generator");
+        this.fillTask = new AsyncTask<Void>() {
+            @Override
+            public Void call() {
+                do {
+                    try {
+                        fillFreeChunks();
+                    } finally {
+                        working.set(false);
+                    }
+                    // A chunk freed after the queue ran empty but before going idle would otherwise wait
+                    // for the next recycle, so take it on unless a new request already did
+                } while (freeChunks.size() > 0 && working.compareAndSet(false, true));
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Restarts the course from the beginning with a new seed.
+     * The first chunk is generated immediately so the opening obstacles can be placed right away.
+     *
+     * @param seed Seed for the course layout
+     */
+    @Override
+    public void reset(long seed) {
+        waitForWorker();
+
+        // Return every chunk to the free queue
+        if (currentChunk != null) {
+            recycle(currentChunk);
+            currentChunk = null;
+        }
+        CourseChunk chunk;
+        while ((chunk = readyChunks.poll()) != null) {
+            recycle(chunk);
+        }
+
+        random.setSeed(seed);
+        generatedDistance = startDistance;
+        generatedCount = 0;
+        lastGapTile = maxGapTile / 2;
+        chunkIndex = 0;
+        reachability.reset();
+
+        cursor = 0;
+        scrolled = 0;
+
+        // Generate the opening chunk inline, the worker takes care of the rest
+        fillFreeChunk();
+        requestFill();
+    }
+
+    /**
+     * Advances the course by the distance the obstacles moved this frame.
+     *
+     * @param distance Distance in pixels
+     */
+    @Override
+    public void advance(float distance) {
+        scrolled += distance;
+    }
+
+    /**
+     * Places the obstacle at the next layout of the course.
+     *
+     * @param obstacle The obstacle to place
+     * @return True if the obstacle was placed, false if no generated layout was ready
+     */
+    @Override
+    public boolean placeNext(Obstacle obstacle) {
+        if (currentChunk == null || cursor >= currentChunk.count) {
+            if (currentChunk != null) {
+                recycle(currentChunk);
+                requestFill();
+            }
+            currentChunk = readyChunks.poll();
+            cursor = 0;
+
+            if (currentChunk == null) {
+                Gdx.app.debug(TAG, "Course generation fell behind, using random placement");
+                return false;
+            }
+        }
+
+        obstacle.setX((float) (currentChunk.distance[cursor] - scrolled));
+        obstacle.setGapMotion(currentChunk.gapAmplitude[cursor] * tileSize, currentChunk.gapFrequency[cursor]);
+        obstacle.setY(tileSize * currentChunk.gapTile[cursor]);
+        obstacle.setSectionSpeed(currentChunk.speed[cursor]);
+        obstacle.setPassed(false);
+        cursor++;
+        return true;
+    }
+
+    /**
+     * Gets the distance scrolled since the start of the course.
+     *
+     * @return The scrolled distance in pixels
+     */
+    public double getScrolled() {
+        return scrolled;
+    }
+
+    /**
+     * Gets the number of generated layouts waiting to be placed.
+     *
+     * @return The number of layouts in the current and ready chunks
+     */
+    @Override
+    public int getLookahead() {
+        // Read once, the consumer may swap chunks meanwhile when the simulation runs on its own thread
+        CourseChunk chunk = currentChunk;
+        int remaining = chunk != null ? Math.max(0, chunk.count - cursor) : 0;
+        return remaining + readyChunks.size() * CHUNK_SIZE;
+    }
+
+    /**
+     * Returns a consumed chunk to the generator.
+     */
+    private void recycle(CourseChunk chunk) {
+        chunk.clear();
+        freeChunks.offer(chunk);
+    }
+
+    /**
+     * Starts the worker if it is idle. The worker refills every free chunk before going idle again.
+     */
+    private void requestFill() {
+        if (working.compareAndSet(false, true)) {
+            pendingFill = executor.submit(fillTask);
+        }
+    }
+
+    /**
+     * Blocks until a running fill task has finished, so the generator state can be touched safely.
+     */
+    private void waitForWorker() {
+        if (pendingFill != null) {
+            pendingFill.get();
+            pendingFill = null;
+        }
+    }
+
+    /**
+     * Fills chunks until the free queue is empty. Runs on the worker thread.
+     */
+    private void fillFreeChunks() {
+        while (fillFreeChunk()) {
+            // Keep going until the look-ahead is full
+        }
+    }
+
+    /**
+     * Takes one free chunk, generates its layouts and publishes it.
+     *
+     * @return True if a chunk was generated
+     */
+    private boolean fillFreeChunk() {
+        CourseChunk chunk = freeChunks.poll();
+        if (chunk == null) {
+            return false;
+        }
+
+        generateChunk(chunk);
+        readyChunks.offer(chunk);
+        return true;
+    }
+
+    /**
+     * Generates one chunk of the course using a pattern picked for the whole chunk.
+     */
+    private void generateChunk(CourseChunk chunk) {
+        chunk.clear();
+
+        // The opening chunk is always a plain random section
+        Pattern pattern = chunkIndex == 0
+                ? Pattern.RANDOM
+                : Pattern.values()[random.nextInt(Pattern.values().length)];
+        boolean speedBurst = chunkIndex > 0 && random.nextFloat() < 0.2f;
+        int direction = random.nextBoolean() ? 1 : -1;
+
+        for (int i = 0; i < chunk.getCapacity(); i++) {
+            float spacing;
+            int gapTile;
+            float amplitude = 0f;
+            float frequency = 0f;
+
+            switch (pattern) {
+                case STAIRS:
+                    spacing = 5f;
+                    gapTile = lastGapTile + direction;
+                    if (gapTile < 0 || gapTile > maxGapTile) {
+                        direction = -direction;
+                        gapTile = lastGapTile + direction;
+                    }
+                    break;
+                case ZIGZAG:
+                    spacing = 5.5f;
+                    gapTile = (i & 1) == 0 ? lastGapTile + 2 : lastGapTile - 2;
+                    break;
+                case TUNNEL:
+                    spacing = MIN_SPACING;
+                    gapTile = lastGapTile + random.nextInt(3) - 1;
+                    break;
+                case MOVING:
+                    spacing = 6f;
+                    amplitude = 0.5f + random.nextFloat() * 0.5f;
+                    frequency = 1f + random.nextFloat();
+                    gapTile = 1 + random.nextInt(Math.max(1, maxGapTile - 1));
+                    break;
+                case RANDOM:
+                default:
+                    spacing = 4.5f + random.nextFloat() * 2f;
+                    gapTile = random.nextInt(maxGapTile + 1);
+                    break;
+            }
+
+            gapTile = MathUtils.clamp(gapTile, 0, maxGapTile);
+            spacing = MathUtils.clamp(spacing, MIN_SPACING, MAX_SPACING);
+
+            if (generatedCount > 0) {
+                generatedDistance += spacing * tileSize;
+            }
+
+            float speed = BASE_SPEED + SPEED_STEP * (generatedCount / OBSTACLES_PER_STEP);
+            if (speedBurst) {
+                speed += SPEED_BURST;
+            }
+            speed = Math.min(speed, maxSpeed);
+
+            // Keep the gap only if the player can get through it
+            reachability.approach(generatedDistance);
+            if (!tryPass(gapTile, amplitude, frequency, speed)) {
+                int pulled = gapTile;
+                boolean passed = false;
+                while (pulled != lastGapTile && !passed) {
+                    pulled += pulled > lastGapTile ? -1 : 1;
+                    passed = tryPass(pulled, amplitude, frequency, speed);
+                }
+                if (passed) {
+                    gapTile = pulled;
+                } else {
+                    amplitude = 0f;
+                    frequency = 0f;
+                    gapTile = findPassableGap(gapTile, speed);
+                }
+            }
+
+            chunk.add(generatedDistance, gapTile, amplitude, frequency, speed);
+            lastGapTile = gapTile;
+            generatedCount++;
+        }
+
+        chunkIndex++;
+    }
+
+    /**
+     * Keeps a gap for the obstacle being generated if the player can get through it.
+     *
+     * @param gapTile   Gap position in tile units
+     * @param amplitude Motion amplitude in tiles
+     * @param frequency Motion frequency in radians per second
+     * @param speed     Speed of the obstacle's section
+     * @return True if the gap can be made and was kept
+     */
+    private boolean tryPass(int gapTile, float amplitude, float frequency, float speed) {
+        return reachability.tryPass(generatedDistance, gapTile * tileSize, amplitude * tileSize, frequency, speed);
+    }
+
+    /**
+     * Keeps the still gap closest to a wanted position that the player can get through. If there is none, the
+     * obstacle is pushed back a tile at a time, which leaves the player room to come back from the edges.
+     *
+     * @param gapTile Wanted gap position in tile units
+     * @param speed   Speed of the obstacle's section
+     * @return The kept gap position, or the wanted one if no gap can be made
+     */
+    private int findPassableGap(int gapTile, float speed) {
+        for (int extra = 0; extra <= MAX_EXTRA_SPACING; extra++) {
+            if (extra > 0) {
+                generatedDistance += tileSize;
+                reachability.approach(generatedDistance);
+            }
+            for (int offset = 0; offset <= maxGapTile; offset++) {
+                if (gapTile - offset >= 0 && tryPass(gapTile - offset, 0f, 0f, speed)) return gapTile - offset;
+                if (gapTile + offset <= maxGapTile && tryPass(gapTile + offset, 0f, 0f, speed)) return gapTile + offset;
+            }
+        }
+        Gdx.app.debug(TAG, "No passable gap left at obstacle " + generatedCount);
+        reachability.skip(generatedDistance, speed);
+        return gapTile;
+    }
+
+    /**
+     * Stops the worker thread.
+     */
+    @Override
+    public void dispose() {
+        executor.dispose();
+    }
+}
@@ -0,0 +1,141 @@
+package com.binaryneedle.bouncyasep;
+
+/**
+ * The CourseJournal class records the layouts another course source places so they can be placed again.
+ * <p>
+ * Course sources only move forward, which rules out rewinding a run. The journal sits between the world
+ * and the real source and keeps the last layouts in a ring. Restoring an earlier state moves its read
+ * position back, and the following placements replay the journal until it catches up with the source.
+ * The journal works in course distance, so layouts replayed after a rewind land where they did before.
+ */
+public class CourseJournal implements CourseSource {
+    // Number of ints written by saveState: scrolled distance as two halves, and the read position
+    public static final int STATE_SIZE = 3;
+
+    private CourseSource source;
+    private final int capacity;
+    private final double[] distance;
+    private final float[] gapY;
+    private final float[] amplitude;
+    private final float[] frequency;
+    private final float[] speed;
+    // Layouts taken from the source so far, and the next one to place
+    private int head;
+    private int cursor;
+    // Distance scrolled in this run, and the total the source has seen, which does not rewind
+    private double scrolled;
+    private double sourceScrolled;
+
+    /**
+     * Creates a journal in front of a course source.
+     *
+     * @param source   The course source to record
+     * @param capacity Number of layouts to keep; must cover every layout placed within the rewind window
+     */
+    public CourseJournal(CourseSource source, int capacity) {
+        this.source = source;
+        this.capacity = capacity;
+        this.distance = new double[capacity];
+        this.gapY = new float[capacity];
+        this.amplitude = new float[capacity];
+        this.frequency = new float[capacity];
+        this.speed = new float[capacity];
+    }
+
+    /**
+     * Sets the course source to record. Takes effect from the next reset.
+     *
+     * @param source The course source
+     */
+    public void setSource(CourseSource source) {
+        this.source = source;
+    }
+
+    @Override
+    public void reset(long seed) {
+        source.reset(seed);
+        head = 0;
+        cursor = 0;
+        scrolled = 0;
+        sourceScrolled = 0;
+    }
+
+    @Override
+    public void advance(float distance) {
+        scrolled += distance;
+        sourceScrolled += distance;
+        source.advance(distance);
+    }
+
+    @Override
+    public boolean placeNext(Obstacle obstacle) {
+        if (cursor < head) {
+            int slot = cursor % capacity;
+            obstacle.setX((float) (distance[slot] - scrolled));
+            obstacle.setGapMotion(amplitude[slot], frequency[slot]);
+            obstacle.setY(gapY[slot]);
+            obstacle.setSectionSpeed(speed[slot]);
+            obstacle.setPassed(false);
+            cursor++;
+            return true;
+        }
+
+        if (!source.placeNext(obstacle)) {
+            return false;
+        }
+
+        // The source places relative to its own scrolled distance, which runs ahead after a rewind
+        int slot = head % capacity;
+        distance[slot] = obstacle.getX() + sourceScrolled;
+        gapY[slot] = obstacle.getY();
+        amplitude[slot] = obstacle.getGapAmplitude();
+        frequency[slot] = obstacle.getGapFrequency();
+        speed[slot] = obstacle.getSectionSpeed();
+        head++;
+        cursor++;
+
+        obstacle.setX((float) (distance[slot] - scrolled));
+        return true;
+    }
+
+    @Override
+    public int getLookahead() {
+        return head - cursor + source.getLookahead();
+    }
+
+    /**
+     * Writes the position of the journal as {@link #STATE_SIZE} ints.
+     *
+     * @param data   Destination array
+     * @param offset Index of the first int to write
+     */
+    public void saveState(int[] data, int offset) {
+        long bits = Double.doubleToLongBits(scrolled);
+        data[offset] = (int) (bits >>> 32);
+        data[offset + 1] = (int) bits;
+        data[offset + 2] = cursor;
+    }
+
+    /**
+     * Restores a position written by {@link #saveState(int[], int)}.
+     *
+     * @param data   Source array
+     * @param offset Index of the first int to read
+     */
+    public void restoreState(int[] data, int offset) {
+        int savedCursor = data[offset + 2];
+        if (savedCursor < head - capacity) {
+            throw new IllegalStateException("Course journal no longer holds layout " + savedCursor);
+        }
+
+        scrolled = Double.longBitsToDouble(((long) data[offset] << 32) | (data[offset + 1] & 0xFFFFFFFFL));
+        cursor = savedCursor;
+    }
+
+    /**
+     * The journal does not own its source; whoever created the source disposes it.
+     */
+    @Override
+    public void dispose() {
+    }
+}
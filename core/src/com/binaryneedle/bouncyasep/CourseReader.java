@@ -0,0 +1,163 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.io.IOException;
+
+/**
+ * The CourseReader class decodes a binary course file (see {@link CourseFormat}) one record at a time.
+ * Only the header and the small index are kept in memory; records are read on demand, so
+ * very long courses open instantly. Subclasses supply the byte access (streamed or memory-mapped).
+ */
+public abstract class CourseReader implements Disposable {
+    private int entryCount;
+    private int recordSize;
+    private int indexStride;
+    private float totalLength;
+    private int[] indexOffset;
+    private int cursor;
+
+    // Current record
+    private float xOffset;
+    private float gapY;
+    private float speed;
+    private float amplitude;
+    private float frequency;
+
+    /**
+     * Creates readers for course files. Backends that support memory mapping provide their own factory.
+     */
+    public interface Factory {
+        CourseReader open(FileHandle file);
+    }
+
+    /**
+     * Reads and validates the header and index. Must be called by subclasses once the file is open.
+     *
+     * @throws IOException If the file cannot be read or is not a course file
+     */
+    protected void readHeader() throws IOException {
+        position(0);
+        if (readInt() != CourseFormat.MAGIC) {
+            throw new IOException("Not a course file");
+        }
+        short version = readShort();
+        if (version != CourseFormat.VERSION) {
+            throw new IOException("Unsupported course version " + version);
+        }
+
+        recordSize = readShort();
+        entryCount = readInt();
+        indexStride = readInt();
+        int indexCount = readInt();
+        totalLength = readFloat();
+
+        if (entryCount <= 0 || indexStride <= 0 || indexCount != (entryCount + indexStride - 1) / indexStride) {
+            throw new IOException("Corrupt course header");
+        }
+
+        // Only the offsets are needed for seeking, block distances are for tools
+        indexOffset = new int[indexCount];
+        for (int i = 0; i < indexCount; i++) {
+            readFloat();
+            indexOffset[i] = readInt();
+        }
+
+        seek(0);
+    }
+
+    /**
+     * Moves the reader to the given record using the index.
+     *
+     * @param entry Record number to read next
+     */
+    public void seek(int entry) {
+        try {
+            int block = entry / indexStride;
+            position(indexOffset[block]);
+            cursor = block * indexStride;
+            while (cursor < entry) {
+                next();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not seek course file", e);
+        }
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return True if a record was read, false at the end of the course
+     */
+    public boolean next() {
+        if (cursor >= entryCount) {
+            return false;
+        }
+
+        try {
+            xOffset = readFloat();
+            gapY = readFloat();
+            speed = readShort() & 0xFFFF;
+            amplitude = (readByte() & 0xFF) * CourseFormat.MOTION_UNIT;
+            frequency = (readByte() & 0xFF) * CourseFormat.MOTION_UNIT;
+
+            // Skip fields added by newer writers
+            for (int i = CourseFormat.RECORD_SIZE; i < recordSize; i++) {
+                readByte();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read course record " + cursor, e);
+        }
+
+        cursor++;
+        return true;
+    }
+
+    /**
+     * Moves to an absolute byte offset in the file.
+     */
+    protected abstract void position(int offset) throws IOException;
+
+    protected abstract int readInt() throws IOException;
+
+    protected abstract float readFloat() throws IOException;
+
+    protected abstract short readShort() throws IOException;
+
+    protected abstract byte readByte() throws IOException;
+
+    // Getters
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public int getCursor() {
+        return cursor;
+    }
+
+    public float getTotalLength() {
+        return totalLength;
+    }
+
+    public float getXOffset() {
+        return xOffset;
+    }
+
+    public float getGapY() {
+        return gapY;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public float getAmplitude() {
+        return amplitude;
+    }
+
+    public float getFrequency() {
+        return frequency;
+    }
+}
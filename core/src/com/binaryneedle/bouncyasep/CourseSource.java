@@ -0,0 +1,39 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * The CourseSource interface supplies obstacle layouts as obstacles are recycled.
+ * Sources track how far the course has scrolled so each layout lands at its course distance.
+ */
+public interface CourseSource extends Disposable {
+
+    /**
+     * Restarts the course from the beginning.
+     *
+     * @param seed Seed for sources with a random layout, ignored by fixed courses
+     */
+    void reset(long seed);
+
+    /**
+     * Advances the course by the distance the obstacles moved this frame.
+     *
+     * @param distance Distance in pixels
+     */
+    void advance(float distance);
+
+    /**
+     * Places the obstacle at the next layout of the course.
+     *
+     * @param obstacle The obstacle to place
+     * @return True if the obstacle was placed, false if no layout was available
+     */
+    boolean placeNext(Obstacle obstacle);
+
+    /**
+     * Gets the number of layouts that can be placed without waiting on the source.
+     *
+     * @return The number of layouts ahead of the player
+     */
+    int getLookahead();
+}
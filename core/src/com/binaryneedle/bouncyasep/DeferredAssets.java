@@ -0,0 +1,38 @@
+package com.binaryneedle.bouncyasep;
+
+/**
+ * The DeferredAssets interface fetches the assets the menu does not need while the menu is already showing.
+ * Backends that read assets from local storage have nothing to fetch and use {@link #LOCAL}; the web build
+ * downloads them in the background.
+ */
+public interface DeferredAssets {
+
+    /**
+     * Assets that are already available, as on desktop and Android.
+     */
+    DeferredAssets LOCAL = new DeferredAssets() {
+        @Override
+        public void load(Runnable onLoaded) {
+            onLoaded.run();
+        }
+
+        @Override
+        public float getProgress() {
+            return 1f;
+        }
+    };
+
+    /**
+     * Starts fetching the deferred assets.
+     *
+     * @param onLoaded Run on the render thread once every deferred asset can be opened
+     */
+    void load(Runnable onLoaded);
+
+    /**
+     * Gets how much of the deferred assets has been fetched.
+     *
+     * @return Progress between 0 and 1
+     */
+    float getProgress();
+}
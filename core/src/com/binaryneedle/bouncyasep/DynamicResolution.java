@@ -0,0 +1,246 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.viewport.Viewport;
+
+import java.nio.IntBuffer;
+
+/**
+ * The DynamicResolution class renders the world into an offscreen buffer whose resolution follows the GPU load.
+ * <p>
+ * The buffer is allocated once at the largest scale of the screen area and the world is rendered into
+ * a corner of it sized by the current scale, then stretched over the viewport. Every adjustment period
+ * the measured frame time is compared with the target: a slow period shrinks the scale in proportion
+ * to the overrun, a fast one grows it a step at a time. GPU time comes from timer queries when the
+ * driver offers them, and timings the driver flags as disjoint (e.g. after a clock change) are thrown away;
+ * otherwise the whole frame time is used.
+ */
+public class DynamicResolution implements Disposable {
+    private static final float ADJUST_PERIOD = 0.5f;
+    private static final float SCALE_STEP = 0.05f;
+    // Shrink when a period is this much over the target, grow when it is this much under
+    private static final float OVER_BUDGET = 1.05f;
+    private static final float UNDER_BUDGET = 0.85f;
+    // Without GPU timers a vsynced frame never looks fast, so grow after this many periods on target
+    private static final int ON_TARGET_PERIODS = 4;
+
+    // Timer query constants from EXT_disjoint_timer_query and ARB_timer_query
+    private static final int GL_TIME_ELAPSED = 0x88BF;
+    private static final int GL_QUERY_RESULT = 0x8866;
+    private static final int GL_QUERY_RESULT_AVAILABLE = 0x8867;
+    private static final int GL_GPU_DISJOINT = 0x8FBB;
+    private static final int QUERY_COUNT = 4;
+
+    private final float minScale;
+    private final float maxScale;
+    private final float targetFrameTime;
+    private float scale;
+
+    // Offscreen buffer sized for the largest scale, and the part of it used this frame
+    private FrameBuffer frameBuffer;
+    private int renderWidth, renderHeight;
+
+    // Frame time measurement
+    private float measuredTime;
+    private int measuredFrames;
+    private float periodTime;
+    private float lastFrameTime;
+    private int onTargetPeriods;
+    private IntBuffer queries;
+    private final IntBuffer queryResult = BufferUtils.newIntBuffer(1);
+    private int queryHead, queryTail;
+    private boolean queryActive;
+    // Only EXT_disjoint_timer_query reports disjoint timings
+    private boolean checkDisjoint;
+
+    /**
+     * Creates a resolution scaler.
+     *
+     * @param minScale        Smallest fraction of the screen resolution to render at
+     * @param maxScale        Largest fraction of the screen resolution to render at
+     * @param targetFrameRate Frame rate the scale is adjusted to hold
+     */
+    public DynamicResolution(float minScale, float maxScale, float targetFrameRate) {
+        if (minScale <= 0 || minScale > maxScale) {
+            throw new IllegalArgumentException("Invalid scale bounds: " + minScale + " to " + maxScale);
+        }
+        this.minScale = minScale;
+        this.maxScale = maxScale;
+        this.targetFrameTime = 1f / targetFrameRate;
+        this.scale = maxScale;
+
+        // GPU timer queries need GLES 3 or desktop GL 3.3 and the timer extension
+        checkDisjoint = Gdx.graphics.supportsExtension("GL_EXT_disjoint_timer_query");
+        if (Gdx.gl30 != null && (checkDisjoint || Gdx.graphics.supportsExtension("GL_ARB_timer_query"))) {
+            queries = BufferUtils.newIntBuffer(QUERY_COUNT);
+            Gdx.gl30.glGenQueries(QUERY_COUNT, queries);
+            // Clear a disjoint flag left from before the first timing
+            if (checkDisjoint) Gdx.gl.glGetIntegerv(GL_GPU_DISJOINT, queryResult);
+        }
+    }
+
+    /**
+     * Resizes the offscreen buffer for the viewport's screen area. Call after the viewport was updated.
+     *
+     * @param viewport The viewport the world is shown in
+     */
+    public void resize(Viewport viewport) {
+        int width = Math.max(1, MathUtils.ceil(viewport.getScreenWidth() * maxScale));
+        int height = Math.max(1, MathUtils.ceil(viewport.getScreenHeight() * maxScale));
+        if (frameBuffer != null && frameBuffer.getWidth() == width && frameBuffer.getHeight() == height) return;
+
+        ResourceRegistry.release(frameBuffer);
+        frameBuffer = ResourceRegistry.newFrameBuffer(Pixmap.Format.RGB888, width, height, false, "DynamicResolution");
+        frameBuffer.getColorBufferTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+    }
+
+    /**
+     * Starts rendering the world offscreen at the current scale.
+     *
+     * @param viewport The viewport the world is shown in
+     */
+    public void begin(Viewport viewport) {
+        if (frameBuffer == null) resize(viewport);
+        readQueries();
+        if (queries != null && queryHead - queryTail < QUERY_COUNT) {
+            Gdx.gl30.glBeginQuery(GL_TIME_ELAPSED, queries.get(queryHead % QUERY_COUNT));
+            queryActive = true;
+        }
+
+        renderWidth = Math.max(1, Math.round(viewport.getScreenWidth() * scale));
+        renderHeight = Math.max(1, Math.round(viewport.getScreenHeight() * scale));
+        frameBuffer.begin();
+        Gdx.gl.glViewport(0, 0, renderWidth, renderHeight);
+        Gdx.gl.glClearColor(0, 0, 0.2f, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+    }
+
+    /**
+     * Stops rendering offscreen and stretches the rendered world over the viewport.
+     *
+     * @param viewport    The viewport the world is shown in
+     * @param batch       The batch to draw with, using the viewport's projection
+     * @param worldWidth  Width of the world in world units
+     * @param worldHeight Height of the world in world units
+     */
+    public void end(Viewport viewport, SpriteBatch batch, float worldWidth, float worldHeight) {
+        frameBuffer.end();
+        viewport.apply();
+
+        // The buffer's first row is the bottom of the world, so flip it back
+        batch.begin();
+        batch.draw(frameBuffer.getColorBufferTexture(), 0, 0, worldWidth, worldHeight,
+                0, 0, renderWidth, renderHeight, false, true);
+        batch.end();
+
+        if (queryActive) {
+            Gdx.gl30.glEndQuery(GL_TIME_ELAPSED);
+            queryHead++;
+            queryActive = false;
+        }
+    }
+
+    /**
+     * Records the frame and adjusts the scale at the end of each period.
+     *
+     * @param deltaTime Time since the last frame
+     */
+    public void update(float deltaTime) {
+        // Without GPU timers, the whole frame time is the measurement
+        if (queries == null) {
+            lastFrameTime = deltaTime;
+            measuredTime += deltaTime;
+            measuredFrames++;
+        }
+
+        periodTime += deltaTime;
+        if (periodTime < ADJUST_PERIOD) return;
+        periodTime = 0;
+        if (measuredFrames == 0) return;
+
+        float average = measuredTime / measuredFrames;
+        measuredTime = 0;
+        measuredFrames = 0;
+
+        if (average > targetFrameTime * OVER_BUDGET) {
+            // Cost grows with the pixel count, i.e. with the square of the scale
+            float fitting = scale * (float) Math.sqrt(targetFrameTime / average);
+            scale = Math.max(minScale, Math.min(scale - SCALE_STEP, fitting));
+            onTargetPeriods = 0;
+        } else if (average < targetFrameTime * UNDER_BUDGET
+                || (queries == null && ++onTargetPeriods >= ON_TARGET_PERIODS)) {
+            scale = Math.min(maxScale, scale + SCALE_STEP);
+            onTargetPeriods = 0;
+        }
+    }
+
+    /**
+     * Collects finished GPU timings without waiting for the ones still in flight. If the GPU reports a
+     * disjoint operation since the last check, the timings collected now cannot be trusted and are dropped.
+     */
+    private void readQueries() {
+        float time = 0;
+        int frames = 0;
+        float last = 0;
+        while (queries != null && queryTail < queryHead) {
+            int query = queries.get(queryTail % QUERY_COUNT);
+            Gdx.gl30.glGetQueryObjectuiv(query, GL_QUERY_RESULT_AVAILABLE, queryResult);
+            if (queryResult.get(0) == 0) break;
+
+            Gdx.gl30.glGetQueryObjectuiv(query, GL_QUERY_RESULT, queryResult);
+            last = (queryResult.get(0) & 0xFFFFFFFFL) / 1e9f;
+            time += last;
+            frames++;
+            queryTail++;
+        }
+        if (frames == 0) return;
+
+        if (checkDisjoint) {
+            // Reading the flag also clears it
+            Gdx.gl.glGetIntegerv(GL_GPU_DISJOINT, queryResult);
+            if (queryResult.get(0) != 0) return;
+        }
+        lastFrameTime = last;
+        measuredTime += time;
+        measuredFrames += frames;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    public int getRenderWidth() {
+        return renderWidth;
+    }
+
+    public int getRenderHeight() {
+        return renderHeight;
+    }
+
+    /**
+     * Gets the last measured frame time.
+     *
+     * @return GPU time of the last timed frame if timer queries are available, otherwise the frame time
+     */
+    public float getLastFrameTime() {
+        return lastFrameTime;
+    }
+
+    public boolean isGpuTimed() {
+        return queries != null;
+    }
+
+    @Override
+    public void dispose() {
+        ResourceRegistry.release(frameBuffer);
+        if (queries != null) Gdx.gl30.glDeleteQueries(QUERY_COUNT, queries);
+    }
+}
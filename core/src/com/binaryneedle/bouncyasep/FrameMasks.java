@@ -0,0 +1,34 @@
+package com.binaryneedle.bouncyasep;
+
+/**
+ * The FrameMasks class holds a collision mask for every frame of a character's animations.
+ * <p>
+ * Masks are picked with the same timing as the frames drawn for the character, but hold no textures, so
+ * the simulation can collide players by their shape on a server as well as in the game.
+ * Built by {@link Character#loadFrameMasks(String)}.
+ */
+public class FrameMasks {
+    private final AnimationSet animations;
+    // Masks by sheet cell, only for the cells some animation shows
+    private final CollisionMask[] masks;
+
+    FrameMasks(AnimationSet animations, CollisionMask[] masks) {
+        this.animations = animations;
+        this.masks = masks;
+    }
+
+    /**
+     * Gets the mask of the frame shown at a time in an animation state.
+     *
+     * @param state     The animation state
+     * @param stateTime Time spent in the state
+     * @return The mask of that frame
+     */
+    public CollisionMask get(Character.State state, float stateTime) {
+        return masks[animations.getCell(state, stateTime)];
+    }
+
+    public AnimationSet getAnimations() {
+        return animations;
+    }
+}
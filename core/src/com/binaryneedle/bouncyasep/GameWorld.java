@@ -0,0 +1,485 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The GameWorld class holds the simulation state of a run: the players, the obstacles and the course.
+ * It has no rendering or audio dependencies, so the same rules run in the game, on a dedicated
+ * server and in tools. Every player sits at the same X position and races the same obstacles.
+ */
+public class GameWorld implements Disposable {
+    // World constants
+    public static final int WORLD_WIDTH = 1024;
+    public static final int WORLD_HEIGHT = 768;
+    public static final int TILE_SIZE = 64;
+    public static final float PLAYER_X = WORLD_WIDTH / 2f - TILE_SIZE / 2f;
+    public static final float PLAYER_START_Y = WORLD_HEIGHT / 2f;
+    public static final int OBSTACLE_COUNT = 5;
+    public static final float OBSTACLE_SPACING = 5f;
+    public static final float OBSTACLE_BASE_X = 16f;
+    public static final float OBSTACLE_GAP = 250f;
+    public static final float OBSTACLE_WIDTH = 7f;
+    public static final float INITIAL_OBSTACLE_SPEED = 250f;
+    public static final float MAX_OBSTACLE_SPEED = 800f;
+    // Ints per player written by saveState: y, velocity, alive, score, animation time and state
+    private static final int PLAYER_STATE_SIZE = 6;
+    // Ints written by saveState for the random generator's two longs
+    private static final int RANDOM_STATE_SIZE = 4;
+    private static final String[] PLAYER_STATE_NAMES = {
+            "y", "velocity", "alive", "score", "animation time", "animation state"};
+
+    /**
+     * Receives gameplay events raised during {@link #update(float)}.
+     */
+    public interface Listener {
+        void obstaclePassed(int player, Obstacle obstacle);
+
+        void playerCrashed(int player);
+    }
+
+    private final MainEntity[] players;
+    private final boolean[] alive;
+    private final int[] scores;
+    // Animation state of each player and the time in it, to pick collision masks
+    private final float[] animationTimes;
+    private final Character.State[] animationStates;
+    private final List<Obstacle> obstacles;
+    // Places obstacles when the course has no layout ready; seeded with the course, so a run replays the same
+    private final RandomXS128 random = new RandomXS128();
+    private CourseSource course;
+    private Listener listener;
+    private boolean collisionEnabled = true;
+    private FrameMasks playerMasks;
+    // Scratch space for copying obstacles between worlds
+    private int[] obstacleState;
+
+    /**
+     * Creates a world for the given number of players.
+     *
+     * @param playerCount  Number of players racing in the world
+     * @param playerWidth  Width of a player's collision box
+     * @param playerHeight Height of a player's collision box
+     * @param course       Source of obstacle layouts
+     */
+    public GameWorld(int playerCount, float playerWidth, float playerHeight, CourseSource course) {
+        this.players = new MainEntity[playerCount];
+        this.alive = new boolean[playerCount];
+        this.scores = new int[playerCount];
+        this.animationTimes = new float[playerCount];
+        this.animationStates = new Character.State[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            players[i] = new MainEntity(PLAYER_X, PLAYER_START_Y, playerWidth, playerHeight);
+        }
+
+        this.obstacles = new ArrayList<>();
+        for (int i = 0; i < OBSTACLE_COUNT; i++) {
+            float x = OBSTACLE_BASE_X + (OBSTACLE_SPACING * i);
+            Obstacle obstacle = new Obstacle(x, OBSTACLE_WIDTH, OBSTACLE_SPACING, OBSTACLE_GAP, TILE_SIZE);
+            obstacle.setRandom(random);
+            obstacles.add(obstacle);
+        }
+        setCourse(course);
+    }
+
+    /**
+     * Creates a course generator laid out for this world.
+     *
+     * @param playerWidth  Width of the players, to keep every gap reachable
+     * @param playerHeight Height of the players, to keep every gap reachable
+     * @param tickTime     Length of a simulation tick in seconds
+     * @return A new course generator
+     */
+    public static CourseGenerator createCourseGenerator(float playerWidth, float playerHeight, float tickTime) {
+        Reachability reachability = new Reachability(tickTime, PLAYER_X, playerWidth, playerHeight, PLAYER_START_Y,
+                INITIAL_OBSTACLE_SPEED, TILE_SIZE, OBSTACLE_GAP, OBSTACLE_COUNT);
+        return new CourseGenerator(TILE_SIZE, (int) OBSTACLE_WIDTH, OBSTACLE_BASE_X * TILE_SIZE, MAX_OBSTACLE_SPEED,
+                reachability);
+    }
+
+    /**
+     * Resets every player and restarts the course.
+     *
+     * @param seed Seed for the course layout
+     */
+    public void reset(long seed) {
+        for (int i = 0; i < players.length; i++) {
+            players[i].setVelocity(0);
+            players[i].setY(PLAYER_START_Y);
+            alive[i] = true;
+            scores[i] = 0;
+            animationTimes[i] = 0;
+            // Players start out dropping, before their first jump
+            animationStates[i] = Character.State.FALLING;
+        }
+
+        // Restart the course and lay out the opening obstacles from it
+        random.setSeed(seed);
+        course.reset(seed);
+        for (Obstacle obstacle : obstacles) {
+            obstacle.reset();
+        }
+        setObstacleSpeed(INITIAL_OBSTACLE_SPEED);
+    }
+
+    /**
+     * Makes a player jump if it is still alive.
+     *
+     * @param player Player index
+     */
+    public void jump(int player) {
+        if (alive[player]) {
+            players[player].jump();
+
+            // Like the character, a jump while jumping carries on with the same animation
+            if (animationStates[player] != Character.State.JUMPING) {
+                animationStates[player] = Character.State.JUMPING;
+                animationTimes[player] = 0;
+            }
+        }
+    }
+
+    /**
+     * Advances the simulation.
+     *
+     * @param deltaTime Time step in seconds
+     */
+    public void update(float deltaTime) {
+        for (int i = 0; i < players.length; i++) {
+            if (alive[i]) {
+                players[i].update(deltaTime);
+                updateAnimation(i, deltaTime);
+            }
+        }
+
+        // Advance the course before moving obstacles so recycled ones line up with it
+        course.advance(getObstacleSpeed() * deltaTime);
+
+        for (Obstacle obstacle : obstacles) {
+            obstacle.update(deltaTime);
+        }
+
+        checkCollisions();
+        checkObstaclePass();
+    }
+
+    /**
+     * Advances a player's animation state the way {@link Character#update(float, float)} does, following the
+     * transitions of the masks' {@link AnimationSet}, so collision masks follow the frames being drawn while
+     * depending only on the simulation. Without masks the state is not needed and only the time advances.
+     */
+    private void updateAnimation(int player, float deltaTime) {
+        animationTimes[player] += deltaTime;
+        if (playerMasks == null) return;
+
+        Character.State fallingState = playerMasks.getAnimations().getFallingState(animationStates[player]);
+        if (fallingState != null && players[player].getVelocity() < 0) {
+            animationStates[player] = fallingState;
+            animationTimes[player] = 0;
+        }
+    }
+
+    /**
+     * Check for collisions between the players and the obstacles.
+     */
+    private void checkCollisions() {
+        if (!collisionEnabled) return;
+
+        for (int i = 0; i < players.length; i++) {
+            if (!alive[i]) continue;
+
+            CollisionMask mask = null;
+            if (playerMasks != null) {
+                mask = playerMasks.get(animationStates[i], animationTimes[i]);
+            }
+            for (Obstacle obstacle : obstacles) {
+                if (obstacle.checkCollision(players[i], mask)) {
+                    alive[i] = false;
+                    if (listener != null) listener.playerCrashed(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if the players have passed any obstacles and update their scores.
+     */
+    private void checkObstaclePass() {
+        for (Obstacle obstacle : obstacles) {
+            if (!obstacle.isPassed() &&
+                    PLAYER_X > obstacle.getTopRect().getX() + obstacle.getTopRect().getWidth()) {
+                obstacle.setPassed(true);
+
+                boolean scored = false;
+                for (int i = 0; i < players.length; i++) {
+                    if (alive[i]) {
+                        scores[i]++;
+                        scored = true;
+                        if (listener != null) listener.obstaclePassed(i, obstacle);
+                    }
+                }
+
+                // Course obstacles carry the speed of their section, random ones use the classic ramp
+                if (obstacle.getSectionSpeed() > 0) {
+                    setObstacleSpeed(obstacle.getSectionSpeed());
+                } else if (scored && getBestScore() % 5 == 0) {
+                    increaseDifficulty();
+                }
+            }
+        }
+    }
+
+    private void increaseDifficulty() {
+        for (Obstacle obstacle : obstacles) {
+            float currentSpeed = obstacle.getSpeed();
+            if (currentSpeed < MAX_OBSTACLE_SPEED) {
+                obstacle.setSpeed(currentSpeed + 25f);
+            }
+        }
+    }
+
+    /**
+     * Set the same speed on every obstacle so the course scrolls as one.
+     */
+    private void setObstacleSpeed(float speed) {
+        for (Obstacle obstacle : obstacles) {
+            obstacle.setSpeed(Math.min(speed, MAX_OBSTACLE_SPEED));
+        }
+    }
+
+    /**
+     * Gets the number of ints saveState writes for this world.
+     *
+     * @return The state size
+     */
+    public int getStateSize() {
+        return players.length * PLAYER_STATE_SIZE + obstacles.size() * Obstacle.STATE_SIZE + RANDOM_STATE_SIZE;
+    }
+
+    /**
+     * Names an int written by {@link #saveState(int[], int)}, e.g. to report where two states differ.
+     *
+     * @param index Index of the int from the start of the state
+     * @return The player or obstacle and the field the int holds
+     */
+    public String describeState(int index) {
+        int playerInts = players.length * PLAYER_STATE_SIZE;
+        if (index < playerInts) {
+            return "player " + index / PLAYER_STATE_SIZE + " " + PLAYER_STATE_NAMES[index % PLAYER_STATE_SIZE];
+        }
+        index -= playerInts;
+        if (index < obstacles.size() * Obstacle.STATE_SIZE) {
+            return "obstacle " + index / Obstacle.STATE_SIZE + " "
+                    + Obstacle.describeState(index % Obstacle.STATE_SIZE);
+        }
+        return "random state " + (index - obstacles.size() * Obstacle.STATE_SIZE);
+    }
+
+    /**
+     * Writes the simulation state of the players, the obstacles and the random generator placing obstacles
+     * when the course has no layout ready. The course is not included.
+     *
+     * @param data   Destination array with room for {@link #getStateSize()} ints
+     * @param offset Index of the first int to write
+     */
+    public void saveState(int[] data, int offset) {
+        for (int i = 0; i < players.length; i++, offset += PLAYER_STATE_SIZE) {
+            data[offset] = Float.floatToIntBits(players[i].getY());
+            data[offset + 1] = Float.floatToIntBits(players[i].getVelocity());
+            data[offset + 2] = alive[i] ? 1 : 0;
+            data[offset + 3] = scores[i];
+            data[offset + 4] = Float.floatToIntBits(animationTimes[i]);
+            data[offset + 5] = animationStates[i].getValue();
+        }
+        for (int i = 0; i < obstacles.size(); i++, offset += Obstacle.STATE_SIZE) {
+            obstacles.get(i).saveState(data, offset);
+        }
+
+        long seed0 = random.getState(0);
+        long seed1 = random.getState(1);
+        data[offset] = (int) (seed0 >>> 32);
+        data[offset + 1] = (int) seed0;
+        data[offset + 2] = (int) (seed1 >>> 32);
+        data[offset + 3] = (int) seed1;
+    }
+
+    /**
+     * Restores a state written by {@link #saveState(int[], int)}.
+     *
+     * @param data   Source array
+     * @param offset Index of the first int to read
+     */
+    public void restoreState(int[] data, int offset) {
+        for (int i = 0; i < players.length; i++, offset += PLAYER_STATE_SIZE) {
+            players[i].setY(Float.intBitsToFloat(data[offset]));
+            players[i].setVelocity(Float.intBitsToFloat(data[offset + 1]));
+            alive[i] = data[offset + 2] != 0;
+            scores[i] = data[offset + 3];
+            animationTimes[i] = Float.intBitsToFloat(data[offset + 4]);
+            animationStates[i] = Character.State.fromValue(data[offset + 5]);
+        }
+        for (int i = 0; i < obstacles.size(); i++, offset += Obstacle.STATE_SIZE) {
+            obstacles.get(i).restoreState(data, offset);
+        }
+
+        long seed0 = ((long) data[offset] << 32) | (data[offset + 1] & 0xFFFFFFFFL);
+        long seed1 = ((long) data[offset + 2] << 32) | (data[offset + 3] & 0xFFFFFFFFL);
+        random.setState(seed0, seed1);
+    }
+
+    /**
+     * Makes this world a copy of one player's run in another world, e.g. to look ahead from it without
+     * touching the real run. Copies the player to player 0 of this world, and the obstacles; the course is not
+     * included, so obstacles recycled from then on are placed by this world's own course.
+     *
+     * @param source The world to copy
+     * @param player Index of the player in the source world
+     */
+    public void copyPlayer(GameWorld source, int player) {
+        MainEntity from = source.players[player];
+        players[0].setY(from.getY());
+        players[0].setVelocity(from.getVelocity());
+        players[0].setGravity(from.getGravity());
+        alive[0] = source.alive[player];
+        scores[0] = source.scores[player];
+        animationTimes[0] = source.animationTimes[player];
+        animationStates[0] = source.animationStates[player];
+
+        if (obstacleState == null) {
+            obstacleState = new int[Obstacle.STATE_SIZE];
+        }
+        for (int i = 0; i < obstacles.size(); i++) {
+            source.obstacles.get(i).saveState(obstacleState, 0);
+            obstacles.get(i).restoreState(obstacleState, 0);
+        }
+    }
+
+    /**
+     * Checks whether any player is still alive.
+     *
+     * @return True if at least one player is alive
+     */
+    public boolean isAnyoneAlive() {
+        for (boolean playerAlive : alive) {
+            if (playerAlive) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the highest score of all players.
+     *
+     * @return The best score
+     */
+    public int getBestScore() {
+        int best = 0;
+        for (int score : scores) {
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    // Getters and setters
+
+    public int getPlayerCount() {
+        return players.length;
+    }
+
+    public MainEntity getPlayer(int player) {
+        return players[player];
+    }
+
+    public boolean isAlive(int player) {
+        return alive[player];
+    }
+
+    public void setAlive(int player, boolean alive) {
+        this.alive[player] = alive;
+    }
+
+    public int getScore(int player) {
+        return scores[player];
+    }
+
+    public void setScore(int player, int score) {
+        scores[player] = score;
+    }
+
+    public List<Obstacle> getObstacles() {
+        return obstacles;
+    }
+
+    public float getObstacleSpeed() {
+        return obstacles.get(0).getSpeed();
+    }
+
+    public CourseSource getCourse() {
+        return course;
+    }
+
+    /**
+     * Sets the source of obstacle layouts. Takes effect from the next reset.
+     *
+     * @param course The course source
+     */
+    public void setCourse(CourseSource course) {
+        this.course = course;
+        for (Obstacle obstacle : obstacles) {
+            obstacle.setCourse(course);
+        }
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Counts the recycles of this world's obstacles, e.g. for the game's own world but not for lookaheads.
+     *
+     * @param recycleCounter The counter, or null not to count
+     */
+    public void setRecycleCounter(Metrics.Counter recycleCounter) {
+        for (Obstacle obstacle : obstacles) {
+            obstacle.setRecycleCounter(recycleCounter);
+        }
+    }
+
+    /**
+     * Makes players collide by the shape of their current animation frame instead of their box, and loads
+     * the obstacle tile masks to test it against.
+     *
+     * @param playerMasks Masks of the players' frames, or null to collide by box
+     */
+    public void setPlayerMasks(FrameMasks playerMasks) {
+        this.playerMasks = playerMasks;
+        if (playerMasks != null) {
+            Obstacle.loadCollisionMasks(TILE_SIZE);
+        }
+    }
+
+    public FrameMasks getPlayerMasks() {
+        return playerMasks;
+    }
+
+    public boolean isCollisionEnabled() {
+        return collisionEnabled;
+    }
+
+    public void setCollisionEnabled(boolean collisionEnabled) {
+        this.collisionEnabled = collisionEnabled;
+    }
+
+    /**
+     * Returns pooled obstacle resources.
+     */
+    @Override
+    public void dispose() {
+        for (Obstacle obstacle : obstacles) {
+            obstacle.dispose();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The GhostField class replays recorded runs as translucent ghosts alongside the live player.
+ * <p>
+ * All trajectories live in a few packed primitive arrays shared by every ghost. Because every
+ * ghost starts at the same moment, one sample index is computed per frame and all ghosts are
+ * advanced in a single loop; drawing is a single pass over the live player's frame table, so
+ * hundreds of ghosts cost one batch of quads.
+ */
+public class GhostField {
+    private static final String TAG = "GhostField";
+    private static final Character.State[] STATES = Character.State.values();
+    private static final float GHOST_ALPHA = 0.35f;
+
+    private final int maxGhosts;
+
+    // Recorded samples of every ghost, concatenated
+    private short[] ySamples = new short[0];
+    private byte[] stateSamples = new byte[0];
+    private int totalSamples;
+    private final int[] start;
+    private final int[] length;
+    private int ghostCount;
+
+    // Per-ghost playback state
+    private final float[] ghostY;
+    private final byte[] ghostState;
+    private final float[] ghostStateTime;
+    private final boolean[] ghostActive;
+    private float time;
+
+    /**
+     * Creates an empty ghost field.
+     *
+     * @param maxGhosts Maximum number of ghosts that can be loaded
+     */
+    public GhostField(int maxGhosts) {
+        this.maxGhosts = maxGhosts;
+        this.start = new int[maxGhosts];
+        this.length = new int[maxGhosts];
+        this.ghostY = new float[maxGhosts];
+        this.ghostState = new byte[maxGhosts];
+        this.ghostStateTime = new float[maxGhosts];
+        this.ghostActive = new boolean[maxGhosts];
+    }
+
+    /**
+     * Removes all ghosts.
+     */
+    public void clear() {
+        ghostCount = 0;
+        totalSamples = 0;
+        reset();
+    }
+
+    /**
+     * Loads the newest run files from a directory, up to the ghost limit.
+     *
+     * @param directory Directory containing run files
+     */
+    public void load(FileHandle directory) {
+        clear();
+        if (!directory.isDirectory()) return;
+
+        FileHandle[] files = directory.list("." + RunRecorder.EXTENSION);
+        // Run files are named by their creation time, newest first
+        Arrays.sort(files, (a, b) -> b.name().compareTo(a.name()));
+
+        for (FileHandle file : files) {
+            if (ghostCount == maxGhosts) break;
+            try {
+                read(file);
+            } catch (IOException e) {
+                Gdx.app.error(TAG, "Skipping unreadable run " + file.path(), e);
+            }
+        }
+        Gdx.app.debug(TAG, "Loaded " + ghostCount + " ghosts (" + totalSamples + " samples)");
+    }
+
+    private void read(FileHandle file) throws IOException {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(file.read(4096));
+            if (in.readInt() != RunRecorder.MAGIC || in.readInt() != RunRecorder.VERSION) {
+                throw new IOException("Not a run file");
+            }
+
+            int count = in.readInt();
+            int offset = reserve(count);
+            for (int i = 0; i < count; i++) {
+                ySamples[offset + i] = in.readShort();
+            }
+            in.readFully(stateSamples, offset, count);
+            commit(offset, count);
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Adds a run that was just recorded.
+     *
+     * @param recorder The finished recording
+     */
+    public void add(RunRecorder recorder) {
+        if (ghostCount == maxGhosts) return;
+
+        int count = recorder.getSampleCount();
+        int offset = reserve(count);
+        System.arraycopy(recorder.getYSamples(), 0, ySamples, offset, count);
+        System.arraycopy(recorder.getStateSamples(), 0, stateSamples, offset, count);
+        commit(offset, count);
+    }
+
+    /**
+     * Makes room for a ghost's samples at the end of the packed arrays.
+     *
+     * @return Offset of the reserved samples
+     */
+    private int reserve(int count) {
+        int required = totalSamples + count;
+        if (required > ySamples.length) {
+            int capacity = Math.max(required, ySamples.length * 2);
+            ySamples = Arrays.copyOf(ySamples, capacity);
+            stateSamples = Arrays.copyOf(stateSamples, capacity);
+        }
+        return totalSamples;
+    }
+
+    private void commit(int offset, int count) {
+        start[ghostCount] = offset;
+        length[ghostCount] = count;
+        ghostCount++;
+        totalSamples += count;
+    }
+
+    /**
+     * Rewinds all ghosts to the start of their runs.
+     */
+    public void reset() {
+        time = 0;
+        Arrays.fill(ghostState, 0, maxGhosts, (byte) -1);
+        update(0);
+    }
+
+    /**
+     * Advances every ghost along its trajectory in one pass.
+     *
+     * @param deltaTime Time since the last frame
+     */
+    public void update(float deltaTime) {
+        time += deltaTime;
+
+        // Every ghost shares the same clock, so the sample position is computed once
+        float position = time * RunRecorder.SAMPLE_RATE;
+        int index = (int) position;
+        float fraction = position - index;
+
+        for (int g = 0; g < ghostCount; g++) {
+            if (index + 1 >= length[g]) {
+                ghostActive[g] = false;
+                continue;
+            }
+
+            int sample = start[g] + index;
+            float y0 = ySamples[sample];
+            float y1 = ySamples[sample + 1];
+            ghostY[g] = (y0 + (y1 - y0) * fraction) * RunRecorder.Y_UNIT;
+            ghostActive[g] = true;
+
+            byte state = stateSamples[sample];
+            if (state != ghostState[g]) {
+                ghostState[g] = state;
+                ghostStateTime[g] = 0;
+            } else {
+                ghostStateTime[g] += deltaTime;
+            }
+        }
+    }
+
+    /**
+     * Draws every active ghost in one pass using a shared frame table.
+     *
+     * @param batch  The SpriteBatch used for drawing
+     * @param frames Character whose animation frames are shared by all ghosts
+     * @param x      The X coordinate of the ghosts
+     * @param width  The width of a ghost
+     * @param height The height of a ghost
+     */
+    public void draw(SpriteBatch batch, Character frames, float x, float width, float height) {
+        if (ghostCount == 0) return;
+
+        Color previous = batch.getColor();
+        float r = previous.r, g = previous.g, b = previous.b, a = previous.a;
+        batch.setColor(r, g, b, a * GHOST_ALPHA);
+
+        for (int i = 0; i < ghostCount; i++) {
+            if (ghostActive[i]) {
+                batch.draw(frames.getFrame(STATES[ghostState[i]], ghostStateTime[i]), x, ghostY[i], width, height);
+            }
+        }
+
+        batch.setColor(r, g, b, a);
+    }
+
+    /**
+     * Gets the number of loaded ghosts.
+     *
+     * @return The ghost count
+     */
+    public int getGhostCount() {
+        return ghostCount;
+    }
+
+    /**
+     * Gets the number of ghosts whose runs are still in progress.
+     *
+     * @return The active ghost count
+     */
+    public int getActiveCount() {
+        int active = 0;
+        for (int i = 0; i < ghostCount; i++) {
+            if (ghostActive[i]) active++;
+        }
+        return active;
+    }
+}
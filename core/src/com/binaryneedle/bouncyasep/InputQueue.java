@@ -0,0 +1,154 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * The InputQueue class records key and button presses as timestamped events instead of leaving them
+ * to be polled once per frame. Events are kept in preallocated parallel arrays used as a ring buffer,
+ * so queueing never allocates, and every press is kept even when several arrive within one frame.
+ * <p>
+ * Events are delivered on the render thread before {@code render()}, so the queue needs no locking.
+ */
+public class InputQueue extends InputAdapter {
+    public static final int KEY = 0;
+    public static final int BUTTON = 1;
+
+    private final int[] types;
+    private final int[] codes;
+    private final long[] times;
+    private final int mask;
+    private int head;
+    private int tail;
+    private int dropped;
+
+    // The event taken by the last poll()
+    private int type;
+    private int code;
+    private long time;
+
+    /**
+     * Creates a queue able to hold at least the given number of events.
+     *
+     * @param capacity Minimum capacity, rounded up to the next power of two
+     */
+    public InputQueue(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.types = new int[size];
+        this.codes = new int[size];
+        this.times = new long[size];
+        this.mask = size - 1;
+    }
+
+    @Override
+    public boolean keyDown(int keycode) {
+        return add(KEY, keycode);
+    }
+
+    @Override
+    public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+        return add(BUTTON, button);
+    }
+
+    /**
+     * Adds an event stamped with the time the backend received it.
+     */
+    private boolean add(int eventType, int eventCode) {
+        if (tail - head == types.length) {
+            // Keep the oldest events, they are due first
+            dropped++;
+            return true;
+        }
+
+        // Backends stamp events when they arrive from the OS, which may be well before this frame
+        long eventTime = Gdx.input.getCurrentEventTime();
+        if (eventTime == 0) {
+            eventTime = TimeUtils.nanoTime();
+        }
+
+        int slot = tail & mask;
+        types[slot] = eventType;
+        codes[slot] = eventCode;
+        times[slot] = eventTime;
+        tail++;
+        return true;
+    }
+
+    /**
+     * Takes the oldest event from the queue. Its fields are then available through
+     * {@link #getType()}, {@link #getCode()} and {@link #getTime()}.
+     *
+     * @return True if an event was taken, false if the queue is empty
+     */
+    public boolean poll() {
+        if (head == tail) return false;
+
+        int slot = head & mask;
+        type = types[slot];
+        code = codes[slot];
+        time = times[slot];
+        head++;
+        return true;
+    }
+
+    /**
+     * Takes the oldest event if it happened at or before the given time.
+     *
+     * @param until Time in nanoseconds, as returned by {@link TimeUtils#nanoTime()}
+     * @return True if an event was taken
+     */
+    public boolean pollUntil(long until) {
+        if (head == tail || times[head & mask] > until) return false;
+        return poll();
+    }
+
+    /**
+     * Discards every queued event.
+     */
+    public void clear() {
+        head = tail;
+    }
+
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    public int size() {
+        return tail - head;
+    }
+
+    /**
+     * Gets the number of events dropped because the queue was full.
+     *
+     * @return The dropped event count
+     */
+    public int getDropped() {
+        return dropped;
+    }
+
+    // Fields of the last polled event
+
+    public int getType() {
+        return type;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public boolean isKey(int keycode) {
+        return type == KEY && code == keycode;
+    }
+
+    public boolean isButton(int button) {
+        return type == BUTTON && code == button;
+    }
+}
@@ -1,18 +1,34 @@
 package com.binaryneedle.bouncyasep;
 
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 
 /**
  * The MainEntity class represents the main character in the game.
  * It extends the Rectangle class and includes properties for gravity and velocity,
  * allowing the entity to jump and be affected by gravity.
+ * <p>
+ * Motion is integrated exactly for constant acceleration, so the path does not depend on the step size.
+ * The path of the last step is kept so collisions can be swept over the whole step.
  */
 public class MainEntity extends Rectangle {
-    private float gravity = 1000.0f;
+    public static final float DEFAULT_GRAVITY = 1000.0f;
+    public static final float JUMP_POWER = 500;
+    public static final float UPPER_BOUND = 768 - 20 - 64;
+    public static final float LOWER_BOUND = 20;
+
+    private float gravity = DEFAULT_GRAVITY;
     private float velocity = 0;
-    private final float power = 500;
-    private final float upperBound = 768 - 20 - 64;
-    private final float lowerBound = 20;
+    private final float power = JUMP_POWER;
+    private final float upperBound = UPPER_BOUND;
+    private final float lowerBound = LOWER_BOUND;
+
+    // Path of the last step: an arc from its start, and a second arc from the bound it touched, if any
+    private float stepTime;
+    private float stepStartY;
+    private float stepStartVelocity;
+    private float contactTime = -1;
+    private float contactY;
 
     /**
      * Constructs a new MainEntity with the specified initial position and size.
@@ -71,18 +87,119 @@ public class MainEntity extends Rectangle {
 
     /**
      * Updates the entity's position based on the delta time and its current velocity.
-     * The entity's position is adjusted by gravity and bounded within the upper and lower limits.
+     * The position follows the exact constant-acceleration path. Touching the upper bound stops the ascent
+     * and the entity falls from there for the rest of the step; touching the lower bound leaves it resting.
      *
      * @param deltaTime Time since the last frame
      */
     public void update(float deltaTime) {
-        velocity -= gravity * deltaTime;
-        float newY = y + velocity * deltaTime;
+        stepTime = deltaTime;
+        stepStartY = y;
+        stepStartVelocity = velocity;
+        contactTime = -1;
 
-        if (newY < upperBound && newY > lowerBound) {
-            y = newY;
-        } else {
+        float newY = arc(y, velocity, deltaTime);
+        float apexTime = gravity > 0 ? velocity / gravity : -1;
+        float highest = apexTime > 0 && apexTime < deltaTime ? arc(y, velocity, apexTime) : Math.max(y, newY);
+
+        if (highest > upperBound) {
+            contactTime = timeToReach(upperBound, deltaTime);
+            contactY = upperBound;
+            float fallTime = deltaTime - contactTime;
+            y = Math.max(arc(upperBound, 0, fallTime), lowerBound);
+            velocity = y > lowerBound ? -gravity * fallTime : 0;
+        } else if (newY < lowerBound) {
+            contactTime = timeToReach(lowerBound, deltaTime);
+            contactY = lowerBound;
+            y = lowerBound;
             velocity = 0;
+        } else {
+            y = newY;
+            velocity -= gravity * deltaTime;
+        }
+    }
+
+    /**
+     * Gets the Y position at a time within the last step.
+     *
+     * @param time Time since the start of the last step
+     * @return The Y position at that time
+     */
+    public float getYAt(float time) {
+        if (contactTime < 0 || time <= contactTime) {
+            return arc(stepStartY, stepStartVelocity, time);
+        }
+        if (contactY == lowerBound) {
+            return lowerBound;
+        }
+        return Math.max(arc(contactY, 0, time - contactTime), lowerBound);
+    }
+
+    /**
+     * Gets the lowest Y position reached between two times within the last step.
+     *
+     * @param from Start time since the start of the last step
+     * @param to   End time since the start of the last step
+     * @return The lowest Y position in that interval
+     */
+    public float getMinY(float from, float to) {
+        // Both arcs open downwards, so the lowest point is always at an end of the interval
+        return Math.min(getYAt(from), getYAt(to));
+    }
+
+    /**
+     * Gets the highest Y position reached between two times within the last step.
+     *
+     * @param from Start time since the start of the last step
+     * @param to   End time since the start of the last step
+     * @return The highest Y position in that interval
+     */
+    public float getMaxY(float from, float to) {
+        float highest = Math.max(getYAt(from), getYAt(to));
+
+        // The first arc peaks where its velocity reaches zero; the second starts at rest
+        float end = contactTime < 0 ? to : Math.min(to, contactTime);
+        if (gravity > 0) {
+            float apexTime = stepStartVelocity / gravity;
+            if (apexTime > from && apexTime < end) {
+                highest = Math.max(highest, getYAt(apexTime));
+            }
+        }
+        if (contactTime > from && contactTime < to) {
+            highest = Math.max(highest, contactY);
+        }
+        return highest;
+    }
+
+    /**
+     * Gets the length of the last step.
+     *
+     * @return The step time in seconds
+     */
+    public float getStepTime() {
+        return stepTime;
+    }
+
+    private float arc(float startY, float startVelocity, float time) {
+        return startY + startVelocity * time - 0.5f * gravity * time * time;
+    }
+
+    /**
+     * Finds the earliest time within the step at which the first arc reaches a height.
+     */
+    private float timeToReach(float height, float deltaTime) {
+        float rise = height - stepStartY;
+        if (gravity == 0) {
+            return stepStartVelocity == 0 ? 0 : MathUtils.clamp(rise / stepStartVelocity, 0, deltaTime);
         }
+
+        // Solve startY + v t - g t^2 / 2 = height for the smallest non-negative t
+        float discriminant = stepStartVelocity * stepStartVelocity - 2 * gravity * rise;
+        if (discriminant < 0) return 0;
+        float root = (float) Math.sqrt(discriminant);
+        float early = (stepStartVelocity - root) / gravity;
+        float late = (stepStartVelocity + root) / gravity;
+        float time = early >= 0 ? early : late;
+        return MathUtils.clamp(time, 0, deltaTime);
     }
 }
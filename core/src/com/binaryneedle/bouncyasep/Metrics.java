@@ -0,0 +1,237 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The Metrics class keeps counters and latency histograms of the running game, for exporters such as the
+ * desktop's metrics endpoint to read while the game plays.
+ * <p>
+ * Recording is lock-free and never allocates, each value is one atomic add. Only a few threads record (the
+ * render thread, the simulation thread and the collectors' notifications), a few times a frame at most, so
+ * the metrics are not striped across threads. A read taken while values are recorded may miss the latest
+ * ones but never counts one twice. Metrics are registered up front, before they are exported.
+ */
+public final class Metrics {
+    private static final long MS = 1000000L;
+    private static final long[] FRAME_BOUNDS = {2 * MS, 4 * MS, 8 * MS, 12 * MS, 16667000L, 20 * MS, 25 * MS,
+            33333000L, 50 * MS, 100 * MS, 250 * MS};
+    private static final long[] WORK_BOUNDS = {MS / 10, MS / 4, MS / 2, MS, 2 * MS, 4 * MS, 8 * MS, 16 * MS,
+            33 * MS};
+
+    private static final Array<Counter> counters = new Array<>();
+    private static final Array<Histogram> histograms = new Array<>();
+    private static final Array<Gauge> gauges = new Array<>();
+
+    // Game metrics
+    public static final Histogram FRAME_TIME = histogram("frame_time_seconds",
+            "Time between the starts of consecutive frames.", FRAME_BOUNDS);
+    public static final Histogram UPDATE_TIME = histogram("update_time_seconds",
+            "Time spent updating the game in a frame.", WORK_BOUNDS);
+    public static final Histogram RENDER_TIME = histogram("render_time_seconds",
+            "Time spent drawing a frame on the CPU.", WORK_BOUNDS);
+    public static final Counter OBSTACLE_RECYCLES = counter("obstacle_recycles_total",
+            "Obstacles moved back to the right edge of the game world.");
+    public static final Counter COLLISIONS = counter("collisions_total", "Players crashing into an obstacle.");
+    public static final Counter JUMPS = counter("jumps_total", "Jumps of the player.");
+
+    private Metrics() {
+    }
+
+    /**
+     * Registers a counter.
+     *
+     * @param name Name of the counter, ending in _total
+     * @param help What the counter counts
+     * @return The counter
+     */
+    public static Counter counter(String name, String help) {
+        Counter counter = new Counter(name, help);
+        counters.add(counter);
+        return counter;
+    }
+
+    /**
+     * Registers a histogram of durations.
+     *
+     * @param name   Name of the histogram, ending in the unit of the exported values
+     * @param help   What the histogram measures
+     * @param bounds Upper bounds of the buckets in nanoseconds, ascending; longer durations go into a last
+     *               bucket of their own
+     * @return The histogram
+     */
+    public static Histogram histogram(String name, String help, long[] bounds) {
+        Histogram histogram = new Histogram(name, help, bounds);
+        histograms.add(histogram);
+        return histogram;
+    }
+
+    /**
+     * Registers a gauge, a value that is read whenever the metrics are exported.
+     *
+     * @param gauge The gauge
+     * @return The gauge
+     */
+    public static Gauge gauge(Gauge gauge) {
+        gauges.add(gauge);
+        return gauge;
+    }
+
+    // Getters
+
+    public static Array<Counter> getCounters() {
+        return counters;
+    }
+
+    public static Array<Histogram> getHistograms() {
+        return histograms;
+    }
+
+    public static Array<Gauge> getGauges() {
+        return gauges;
+    }
+
+    /**
+     * The Counter class counts events from any thread.
+     */
+    public static final class Counter {
+        private final String name;
+        private final String help;
+        private final AtomicLong count = new AtomicLong();
+
+        private Counter(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        public void increment() {
+            add(1);
+        }
+
+        /**
+         * Adds to the counter.
+         *
+         * @param delta Amount to add, not negative
+         */
+        public void add(long delta) {
+            count.getAndAdd(delta);
+        }
+
+        public long get() {
+            return count.get();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getHelp() {
+            return help;
+        }
+    }
+
+    /**
+     * The Histogram class counts durations from any thread into fixed buckets and keeps their sum.
+     */
+    public static final class Histogram {
+        private final String name;
+        private final String help;
+        private final long[] bounds;
+        // A count for every bucket, the last one unbounded
+        private final AtomicLongArray counts;
+        private final AtomicLong sum = new AtomicLong();
+
+        private Histogram(String name, String help, long[] bounds) {
+            for (int i = 1; i < bounds.length; i++) {
+                if (bounds[i] <= bounds[i - 1]) {
+                    throw new IllegalArgumentException("Bucket bounds of " + name + " must ascend");
+                }
+            }
+            this.name = name;
+            this.help = help;
+            this.bounds = bounds.clone();
+            this.counts = new AtomicLongArray(bounds.length + 1);
+        }
+
+        /**
+         * Records a duration.
+         *
+         * @param nanos The duration in nanoseconds; negative durations count as zero
+         */
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            int bucket = 0;
+            while (bucket < bounds.length && nanos > bounds[bucket]) {
+                bucket++;
+            }
+            counts.getAndIncrement(bucket);
+            sum.getAndAdd(nanos);
+        }
+
+        /**
+         * Gets how many durations fell into a bucket.
+         *
+         * @param bucket Index of the bucket; {@link #getBucketCount()} - 1 is the unbounded one
+         */
+        public long getCount(int bucket) {
+            return counts.get(bucket);
+        }
+
+        /**
+         * Gets the sum of all recorded durations in nanoseconds.
+         */
+        public long getSum() {
+            return sum.get();
+        }
+
+        public int getBucketCount() {
+            return bounds.length + 1;
+        }
+
+        /**
+         * Gets the upper bound of a bounded bucket.
+         *
+         * @param bucket Index of the bucket, below {@link #getBucketCount()} - 1
+         * @return The bound in nanoseconds
+         */
+        public long getBound(int bucket) {
+            return bounds[bucket];
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getHelp() {
+            return help;
+        }
+    }
+
+    /**
+     * The Gauge class is a value read when the metrics are exported, e.g. the heap in use.
+     */
+    public abstract static class Gauge {
+        private final String name;
+        private final String help;
+
+        protected Gauge(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        /**
+         * Reads the current value. Called from the exporting thread.
+         */
+        public abstract double get();
+
+        public String getName() {
+            return name;
+        }
+
+        public String getHelp() {
+            return help;
+        }
+    }
+}
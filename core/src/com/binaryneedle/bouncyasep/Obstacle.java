@@ -2,13 +2,16 @@ package com.binaryneedle.bouncyasep;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Pool;
 
-import static com.badlogic.gdx.math.MathUtils.random;
+import java.util.Random;
 
 /**
  * The Obstacle class represents an obstacle in the game.
@@ -23,11 +26,18 @@ public class Obstacle {
     private static final float TILE_WIDTH = 24f;
     private static final int GRID_HEIGHT = 12; // Number of tiles vertically
     private static final int OBSTACLE_COUNT = 5; // Number of obstacles in the game
-
-    // Tileset coordinates for better maintainability
-    private static final int TOP_TILE_X = 15, TOP_TILE_Y = 10;
-    private static final int BOTTOM_TILE_X = 15, BOTTOM_TILE_Y = 11;
-    private static final int FILLER_TILE_X = 15, FILLER_TILE_Y = 5;
+    // Number of ints written by saveState
+    public static final int STATE_SIZE = 9;
+    private static final String[] STATE_NAMES = {"x", "base y", "gap phase", "gap amplitude", "gap frequency",
+            "speed", "section speed", "step distance", "passed"};
+
+    // The three tiles cut from art/woods_tileset.png (15,10), (15,11) and (15,5), so only they are shipped
+    private static final String TILES_PATH = "obstacle_tiles.png";
+    private static final int TOP_TILE_X = 0, TOP_TILE_Y = 0;
+    private static final int BOTTOM_TILE_X = 1, BOTTOM_TILE_Y = 0;
+    private static final int FILLER_TILE_X = 2, FILLER_TILE_Y = 0;
+    // Most either side moves between two collision mask tests, in pixels
+    private static final float MASK_SAMPLE_SPACING = 1f;
     // Object pooling for rectangles to reduce garbage collection
     private static final Pool<Rectangle> RECTANGLE_POOL = new Pool<Rectangle>() {
         @Override
@@ -39,7 +49,12 @@ public class Obstacle {
     private static TextureRegion topTile;
     private static TextureRegion bottomTile;
     private static TextureRegion fillerTile;
+    private static Texture tileset;
     private static boolean texturesLoaded = false;
+    // Collision masks of the tiles at the tile size, null until loaded
+    private static CollisionMask topMask;
+    private static CollisionMask bottomMask;
+    private static CollisionMask fillerMask;
     // Reference to camera for getting world width
     private static OrthographicCamera gameCamera;
     // Core obstacle properties
@@ -53,6 +68,18 @@ public class Obstacle {
     // Dynamic properties
     private float speed;
     private boolean passed;
+    // Distance moved left during the last update, zero if it was recycled
+    private float stepDistance;
+    // Course layout properties, and where gap positions come from without a course
+    private CourseSource course;
+    private Random random = MathUtils.random;
+    // Counts recycles of the game's own obstacles; null in lookahead and tool worlds
+    private Metrics.Counter recycleCounter;
+    private float baseY;
+    private float gapAmplitude;
+    private float gapFrequency;
+    private float gapPhase;
+    private float sectionSpeed;
     // Cached values for performance - using viewport world coordinates
     private float currentWorldWidth;
     private float resetPositionX;
@@ -69,9 +96,6 @@ public class Obstacle {
      * @param tileSize      Size of each tile in pixels
      */
     public Obstacle(float initialX, float obstacleWidth, float spacing, float gap, float tileSize) {
-        // Initialize static textures if not already loaded
-        initializeTextures();
-
         // Store configuration
         this.speed = 250f; // Default speed, will be set by main class if needed
         this.initialX = tileSize * initialX;
@@ -100,14 +124,16 @@ public class Obstacle {
     }
 
     /**
-     * Initialize static texture resources (called once for all obstacles).
+     * Initialize static texture resources (once for all obstacles). The game calls this while the menu shows;
+     * otherwise it happens on first draw. Loading lazily lets obstacles be simulated without a graphics
+     * context, e.g. on a server.
      */
-    private static void initializeTextures() {
+    public static void initializeTextures() {
         if (texturesLoaded) return;
 
         try {
-            Texture tilesetTexture = new Texture("woods_tileset.png");
-            TextureRegion[][] tiles = TextureRegion.split(tilesetTexture, 24, 24);
+            tileset = ResourceRegistry.loadTexture(TILES_PATH, "Obstacle");
+            TextureRegion[][] tiles = TextureRegion.split(tileset, 24, 24);
 
             topTile = tiles[TOP_TILE_Y][TOP_TILE_X];
             bottomTile = tiles[BOTTOM_TILE_Y][BOTTOM_TILE_X];
@@ -120,14 +146,42 @@ public class Obstacle {
         }
     }
 
+    /**
+     * Builds collision masks of the three tiles from the tileset's alpha channel, so players collide with the
+     * drawn tiles instead of their squares. Reads the image without creating a texture, so it also works on
+     * a server. Does nothing if the masks are already loaded.
+     *
+     * @param tileSize Size the tiles are drawn at, in pixels
+     */
+    public static void loadCollisionMasks(int tileSize) {
+        if (topMask != null) return;
+
+        Pixmap tileset = new Pixmap(Gdx.files.internal(TILES_PATH));
+        try {
+            topMask = loadTileMask(tileset, TOP_TILE_X, TOP_TILE_Y, tileSize);
+            bottomMask = loadTileMask(tileset, BOTTOM_TILE_X, BOTTOM_TILE_Y, tileSize);
+            fillerMask = loadTileMask(tileset, FILLER_TILE_X, FILLER_TILE_Y, tileSize);
+        } finally {
+            tileset.dispose();
+        }
+    }
+
+    private static CollisionMask loadTileMask(Pixmap tileset, int tileX, int tileY, int tileSize) {
+        int sourceSize = (int) TILE_WIDTH;
+        return CollisionMask.fromPixmap(tileset, tileX * sourceSize, tileY * sourceSize, sourceSize, sourceSize,
+                tileSize, tileSize);
+    }
+
     /**
      * Static cleanup method for the entire obstacle system.
      * Call this when shutting down the game.
      */
     public static void disposeStatic() {
         RECTANGLE_POOL.clear();
+        ResourceRegistry.release(tileset);
+        tileset = null;
+        topTile = bottomTile = fillerTile = null;
         texturesLoaded = false;
-        // Note: Texture disposal should be handled by the texture manager
     }
 
     /**
@@ -143,10 +197,19 @@ public class Obstacle {
         // Move obstacle left
         float movement = speed * deltaTime;
         moveHorizontally(-movement);
+        stepDistance = movement;
+
+        // Oscillate moving gaps around their base position
+        if (gapAmplitude > 0) {
+            gapPhase += gapFrequency * deltaTime;
+            applyY(baseY + gapAmplitude * MathUtils.sin(gapPhase));
+        }
 
         // Check if obstacle needs to be reset (using world coordinates)
         if (topRect.x + topRect.width < 0) {
             resetToRightSide();
+            stepDistance = 0;
+            if (recycleCounter != null) recycleCounter.increment();
         }
     }
 
@@ -204,11 +267,18 @@ public class Obstacle {
     }
 
     /**
-     * Resets obstacle to the right side of the screen with random Y position.
+     * Resets obstacle to the next course layout, or to the right side of the screen
+     * with random Y position when no course layout is available.
      */
     private void resetToRightSide() {
+        if (course != null && course.placeNext(this)) {
+            return;
+        }
+
         setX(resetPositionX);
+        setGapMotion(0, 0);
         setRandomY(0, maxY);
+        sectionSpeed = 0;
         passed = false;
     }
 
@@ -222,8 +292,8 @@ public class Obstacle {
         }
         fillerRects.clear();
 
-        // Calculate Y bounds in tile coordinates
-        int topTileY = (int) (topRect.y / tileSize);
+        // Calculate Y bounds in tile coordinates, rounding outwards so moving gaps stay closed
+        int topTileY = MathUtils.ceil(topRect.y / tileSize);
         int bottomTileY = (int) (bottomRect.y / tileSize);
 
         // Create filler rectangles above and below the gap
@@ -244,7 +314,7 @@ public class Obstacle {
      * @param max Maximum Y position (in tile units)
      */
     public void setRandomY(int min, int max) {
-        setY(tileSize * random(min, max));
+        setY(tileSize * (min + random.nextInt(max - min + 1)));
     }
 
     /**
@@ -252,10 +322,141 @@ public class Obstacle {
      * More efficient implementation using world coordinates.
      */
     public void reset() {
+        cacheValid = false; // Force cache update
+        stepDistance = 0;
+        if (course != null && course.placeNext(this)) {
+            return;
+        }
+
         setX(initialX);
+        setGapMotion(0, 0);
         setRandomY(0, maxY);
+        sectionSpeed = 0;
         passed = false;
-        cacheValid = false; // Force cache update
+    }
+
+    /**
+     * Sets the course that supplies layouts whenever this obstacle is recycled.
+     * Without a course, obstacles fall back to random gap positions.
+     *
+     * @param course The course source, or null for random placement
+     */
+    public void setCourse(CourseSource course) {
+        this.course = course;
+    }
+
+    /**
+     * Sets the random generator gap positions are drawn from when no course layout is available.
+     *
+     * @param random The random generator, {@link MathUtils#random} by default
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Sets the counter recycles of this obstacle are counted with.
+     *
+     * @param recycleCounter The counter, or null not to count
+     */
+    public void setRecycleCounter(Metrics.Counter recycleCounter) {
+        this.recycleCounter = recycleCounter;
+    }
+
+    /**
+     * Sets the vertical oscillation of the gap. An amplitude of zero gives a static gap.
+     *
+     * @param amplitude Oscillation amplitude in pixels
+     * @param frequency Oscillation frequency in radians per second
+     */
+    public void setGapMotion(float amplitude, float frequency) {
+        this.gapAmplitude = amplitude;
+        this.gapFrequency = frequency;
+    }
+
+    /**
+     * Gets the oscillation amplitude of the gap.
+     *
+     * @return The amplitude in pixels, 0 for a static gap
+     */
+    public float getGapAmplitude() {
+        return gapAmplitude;
+    }
+
+    /**
+     * Gets the oscillation frequency of the gap.
+     *
+     * @return The frequency in radians per second
+     */
+    public float getGapFrequency() {
+        return gapFrequency;
+    }
+
+    /**
+     * Gets the speed of the course section this obstacle belongs to.
+     *
+     * @return The section speed, or 0 if the obstacle was placed randomly
+     */
+    public float getSectionSpeed() {
+        return sectionSpeed;
+    }
+
+    /**
+     * Sets the speed of the course section this obstacle belongs to.
+     *
+     * @param sectionSpeed The section speed in pixels per second
+     */
+    public void setSectionSpeed(float sectionSpeed) {
+        this.sectionSpeed = sectionSpeed;
+    }
+
+    /**
+     * Writes the simulation state of the obstacle as {@link #STATE_SIZE} ints.
+     *
+     * @param data   Destination array
+     * @param offset Index of the first int to write
+     */
+    public void saveState(int[] data, int offset) {
+        data[offset] = Float.floatToIntBits(topRect.x);
+        data[offset + 1] = Float.floatToIntBits(baseY);
+        data[offset + 2] = Float.floatToIntBits(gapPhase);
+        data[offset + 3] = Float.floatToIntBits(gapAmplitude);
+        data[offset + 4] = Float.floatToIntBits(gapFrequency);
+        data[offset + 5] = Float.floatToIntBits(speed);
+        data[offset + 6] = Float.floatToIntBits(sectionSpeed);
+        data[offset + 7] = Float.floatToIntBits(stepDistance);
+        data[offset + 8] = passed ? 1 : 0;
+    }
+
+    /**
+     * Names an int written by {@link #saveState(int[], int)}.
+     *
+     * @param index Index of the int from the start of the obstacle's state
+     * @return The name of the field
+     */
+    public static String describeState(int index) {
+        return STATE_NAMES[index];
+    }
+
+    /**
+     * Restores a state written by {@link #saveState(int[], int)}. Filler rectangles come from the pool,
+     * so restoring does not allocate.
+     *
+     * @param data   Source array
+     * @param offset Index of the first int to read
+     */
+    public void restoreState(int[] data, int offset) {
+        setX(Float.intBitsToFloat(data[offset]));
+        baseY = Float.intBitsToFloat(data[offset + 1]);
+        gapPhase = Float.intBitsToFloat(data[offset + 2]);
+        gapAmplitude = Float.intBitsToFloat(data[offset + 3]);
+        gapFrequency = Float.intBitsToFloat(data[offset + 4]);
+        speed = Float.intBitsToFloat(data[offset + 5]);
+        sectionSpeed = Float.intBitsToFloat(data[offset + 6]);
+        stepDistance = Float.intBitsToFloat(data[offset + 7]);
+        passed = data[offset + 8] != 0;
+
+        applyY(gapAmplitude > 0 ? baseY + gapAmplitude * MathUtils.sin(gapPhase) : baseY);
     }
 
     /**
@@ -286,15 +487,135 @@ public class Obstacle {
     }
 
     /**
-     * Alternative collision check method that accepts MainEntity directly.
-     * Provides better type safety and potential for future optimizations.
+     * Swept collision check against a player over the whole of the last step.
+     * The obstacle moved left at constant speed and the player along its own arc, so instead of testing only
+     * the final positions this finds when the two overlap horizontally and checks the player's height range
+     * during that window. Fast obstacles and long steps can no longer pass through the player.
      *
-     * @param entity The MainEntity to check collision against
-     * @return True if there is a collision, false otherwise
+     * @param entity The MainEntity to check collision against, updated for the same step
+     * @return True if they touched at any time during the step, false otherwise
      */
     public boolean checkCollision(MainEntity entity) {
-        return checkCollision(new Rectangle(entity.getX(), entity.getY(),
-                entity.getWidth(), entity.getHeight()));
+        return checkCollision(entity, null);
+    }
+
+    /**
+     * Swept collision check against a player's shape. Once the player's box touches the obstacle during the
+     * last step, its mask is tested against the tile masks at points spread over the time they overlap,
+     * so only opaque pixels collide. Without a mask, or before {@link #loadCollisionMasks(int)}, this is
+     * the box check of {@link #checkCollision(MainEntity)}.
+     *
+     * @param entity The MainEntity to check collision against, updated for the same step
+     * @param mask   Collision mask of the player's current frame, or null to collide by box
+     * @return True if they touched at any time during the step, false otherwise
+     */
+    public boolean checkCollision(MainEntity entity, CollisionMask mask) {
+        float stepTime = entity.getStepTime();
+        float left = entity.x;
+        float right = entity.x + entity.width;
+
+        // Time window in which the columns overlap horizontally; the obstacle was stepDistance further right at 0
+        float enter = 0;
+        float exit = stepTime;
+        if (stepDistance > 0 && stepTime > 0) {
+            enter = Math.max(enter, stepTime * (1 - (right - topRect.x) / stepDistance));
+            exit = Math.min(exit, stepTime * (1 - (left - topRect.x - topRect.width) / stepDistance));
+        } else if (right <= topRect.x || left >= topRect.x + topRect.width) {
+            return false;
+        }
+        if (enter > exit) {
+            return false;
+        }
+
+        // Height range the player covered during the window
+        float bottom = entity.getMinY(enter, exit);
+        float top = entity.getMaxY(enter, exit) + entity.height;
+
+        boolean touched = overlapsVertically(topRect, bottom, top) || overlapsVertically(bottomRect, bottom, top);
+        for (int i = 0; i < fillerRects.size && !touched; i++) {
+            touched = overlapsVertically(fillerRects.get(i), bottom, top);
+        }
+
+        if (!touched || mask == null || topMask == null) {
+            return touched;
+        }
+        return checkMasks(entity, mask, enter, exit);
+    }
+
+    /**
+     * Tests the player's mask against the tile masks between two times of the last step, often enough that
+     * neither moves more than {@link #MASK_SAMPLE_SPACING} between tests.
+     */
+    private boolean checkMasks(MainEntity entity, CollisionMask mask, float enter, float exit) {
+        float stepTime = entity.getStepTime();
+        float speed = stepTime > 0 ? stepDistance / stepTime : 0;
+
+        // The player's path peaks at most once, so its length follows from the ends and the highest point
+        float highest = entity.getMaxY(enter, exit);
+        float climb = (highest - entity.getYAt(enter)) + (highest - entity.getYAt(exit));
+        float travel = Math.max(speed * (exit - enter), climb);
+        int samples = Math.max(1, MathUtils.ceil(travel / MASK_SAMPLE_SPACING));
+
+        for (int i = 0; i <= samples; i++) {
+            float time = enter + (exit - enter) * i / samples;
+            float x = topRect.x + speed * (stepTime - time);
+            if (overlapsMasks(mask, Math.round(entity.x - x), entity.getYAt(time))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean overlapsMasks(CollisionMask mask, int offsetX, float y) {
+        if (topMask.overlaps(mask, offsetX, Math.round(y - topRect.y))
+                || bottomMask.overlaps(mask, offsetX, Math.round(y - bottomRect.y))) {
+            return true;
+        }
+        for (int i = 0; i < fillerRects.size; i++) {
+            if (fillerMask.overlaps(mask, offsetX, Math.round(y - fillerRects.get(i).y))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean overlapsVertically(Rectangle rect, float bottom, float top) {
+        return bottom < rect.y + rect.height && top > rect.y;
+    }
+
+    /**
+     * Draws the filler, top and bottom tiles of the obstacle.
+     *
+     * @param batch The SpriteBatch used for drawing
+     */
+    public void draw(SpriteBatch batch) {
+        drawAt(batch, topRect.x, topRect.y);
+    }
+
+    /**
+     * Draws the obstacle with its top part at the given position instead of its own.
+     * Only reads the obstacle's fixed dimensions, so it can draw a copied position while another thread
+     * moves the obstacle.
+     *
+     * @param batch The SpriteBatch used for drawing
+     * @param x     X position of the obstacle
+     * @param y     Y position of the top part
+     */
+    public void drawAt(SpriteBatch batch, float x, float y) {
+        initializeTextures();
+
+        // Draw filler tiles, laid out like the filler rectangles
+        int topTileY = MathUtils.ceil(y / tileSize);
+        int bottomTileY = (int) ((y + gap) / tileSize);
+        for (int i = 0; i < GRID_HEIGHT; i++) {
+            if (i < topTileY || i > bottomTileY) {
+                batch.draw(fillerTile, x, tileSize * i, tileSize, tileSize);
+            }
+        }
+
+        // Draw top and bottom tiles
+        batch.draw(topTile, x, y, tileSize, tileSize);
+        batch.draw(bottomTile, x, y + gap, tileSize, tileSize);
     }
 
     /**
@@ -332,6 +653,7 @@ public class Obstacle {
      * @return The texture region for the top part
      */
     public TextureRegion getTopTile() {
+        initializeTextures();
         return topTile;
     }
 
@@ -341,6 +663,7 @@ public class Obstacle {
      * @return The texture region for the bottom part
      */
     public TextureRegion getBottomTile() {
+        initializeTextures();
         return bottomTile;
     }
 
@@ -350,6 +673,7 @@ public class Obstacle {
      * @return The texture region for the filler parts
      */
     public TextureRegion getFillerTile() {
+        initializeTextures();
         return fillerTile;
     }
 
@@ -431,6 +755,17 @@ public class Obstacle {
      * @param y New Y position
      */
     public void setY(float y) {
+        baseY = y;
+        gapPhase = 0;
+        applyY(y);
+    }
+
+    /**
+     * Positions all parts of the obstacle at the given Y without changing the base position.
+     *
+     * @param y Y position of the top part
+     */
+    private void applyY(float y) {
         topRect.set(topRect.x, y, tileSize, tileSize);
         bottomRect.set(bottomRect.x, y + gap, tileSize, tileSize);
 
@@ -0,0 +1,236 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.ParticleEffect;
+import com.badlogic.gdx.graphics.g2d.ParticleEffectPool;
+import com.badlogic.gdx.graphics.g2d.ParticleEffectPool.PooledEffect;
+import com.badlogic.gdx.graphics.g2d.ParticleEmitter;
+import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * The ParticleEffects class plays the short bursts shown for jumps, passes and crashes.
+ * <p>
+ * Each kind of burst is one emitter set up in code, drawn from a single shared particle texture, and its
+ * effects come from a {@link ParticleEffectPool} filled when the game loads, so spawning during play reuses
+ * finished effects instead of allocating. The number of live particles is capped: when a new burst would
+ * go over the cap, the oldest bursts are cut short to make room.
+ */
+public class ParticleEffects implements Disposable {
+    private static final String TEXTURE_PATH = "particles/particle.png";
+    private static final int MAX_LIVE_PARTICLES = 160;
+    // Emitters skip updates shorter than a millisecond
+    private static final float WARM_UP_STEP = 0.001f;
+
+    // Burst configurations: particle count, life, speed, angle and spread, gravity, size and color
+    private static final BurstConfig DUST = new BurstConfig(10, 350, 70, 100, 100, -80, 10, 0.8f, 0.7f, 0.55f);
+    private static final BurstConfig SPARKLE = new BurstConfig(14, 450, 140, 0, 360, 0, 8, 1f, 0.95f, 0.4f);
+    private static final BurstConfig DEBRIS = new BurstConfig(24, 800, 260, 0, 360, -900, 12, 0.9f, 0.35f, 0.3f);
+
+    private final Texture texture;
+    private final ParticleEffect[] prototypes;
+    private final ParticleEffectPool dustPool;
+    private final ParticleEffectPool sparklePool;
+    private final ParticleEffectPool debrisPool;
+
+    // Live bursts, oldest first, and the most particles they can hold
+    private final Array<PooledEffect> live;
+    private int liveCapacity;
+
+    /**
+     * Loads the particle texture and fills the pools with enough bursts for the particle cap.
+     */
+    public ParticleEffects() {
+        texture = ResourceRegistry.loadTexture(TEXTURE_PATH, "ParticleEffects");
+        Array<Sprite> sprites = new Array<>(1);
+        sprites.add(new Sprite(texture));
+
+        ParticleEffect dust = createPrototype(DUST, sprites);
+        ParticleEffect sparkle = createPrototype(SPARKLE, sprites);
+        ParticleEffect debris = createPrototype(DEBRIS, sprites);
+        prototypes = new ParticleEffect[]{dust, sparkle, debris};
+
+        dustPool = createPool(dust, DUST);
+        sparklePool = createPool(sparkle, SPARKLE);
+        debrisPool = createPool(debris, DEBRIS);
+        live = new Array<>(true, MAX_LIVE_PARTICLES / DUST.count + 1);
+    }
+
+    /**
+     * Builds the effect a pool copies its bursts from.
+     */
+    private static ParticleEffect createPrototype(BurstConfig config, Array<Sprite> sprites) {
+        ParticleEmitter emitter = new ParticleEmitter();
+        emitter.setMinParticleCount(config.count);
+        emitter.setMaxParticleCount(config.count);
+        emitter.setSprites(sprites);
+        emitter.setContinuous(false);
+        emitter.setAttached(false);
+
+        // Every particle is released on the first update, none after
+        emitter.getDuration().setLow(1);
+        emitter.getEmission().setHigh(0);
+        emitter.getLife().setHigh(config.life * 0.6f, config.life);
+
+        emitter.getVelocity().setActive(true);
+        emitter.getVelocity().setHigh(config.speed * 0.4f, config.speed);
+        emitter.getVelocity().setScaling(new float[]{1, 0.2f});
+        emitter.getVelocity().setTimeline(new float[]{0, 1});
+        emitter.getAngle().setActive(true);
+        emitter.getAngle().setHigh(config.angle, config.angle + config.spread);
+        if (config.gravity != 0) {
+            emitter.getGravity().setActive(true);
+            emitter.getGravity().setHigh(config.gravity);
+        }
+
+        emitter.getXScale().setHigh(config.size * 0.6f, config.size);
+        emitter.getXScale().setScaling(new float[]{1, 0.3f});
+        emitter.getXScale().setTimeline(new float[]{0, 1});
+        emitter.getTint().setColors(new float[]{config.red, config.green, config.blue});
+        emitter.getTransparency().setHigh(1);
+        emitter.getTransparency().setScaling(new float[]{1, 0});
+        emitter.getTransparency().setTimeline(new float[]{0, 1});
+
+        ParticleEffect effect = new ParticleEffect();
+        effect.getEmitters().add(emitter);
+        return effect;
+    }
+
+    /**
+     * Creates a pool holding as many bursts as can be live at once under the cap. Emitters create their
+     * particles on first use, so every burst is played once here to have them created up front.
+     */
+    private static ParticleEffectPool createPool(ParticleEffect prototype, BurstConfig config) {
+        int size = MAX_LIVE_PARTICLES / config.count;
+        ParticleEffectPool pool = new ParticleEffectPool(prototype, size, size);
+        Array<PooledEffect> warm = new Array<>(size);
+        for (int i = 0; i < size; i++) {
+            PooledEffect effect = pool.obtain();
+            effect.start();
+            effect.update(WARM_UP_STEP);
+            warm.add(effect);
+        }
+        pool.freeAll(warm);
+        return pool;
+    }
+
+    /**
+     * Kicks up dust under the player's feet.
+     */
+    public void jump(float x, float y) {
+        spawn(dustPool, DUST, x, y);
+    }
+
+    /**
+     * Scatters sparkles around the player when an obstacle is passed.
+     */
+    public void pass(float x, float y) {
+        spawn(sparklePool, SPARKLE, x, y);
+    }
+
+    /**
+     * Throws debris where the player crashed.
+     */
+    public void crash(float x, float y) {
+        spawn(debrisPool, DEBRIS, x, y);
+    }
+
+    private void spawn(ParticleEffectPool pool, BurstConfig config, float x, float y) {
+        // Cut the oldest bursts short until the new one fits under the cap
+        while (live.size > 0 && liveCapacity + config.count > MAX_LIVE_PARTICLES) {
+            release(0);
+        }
+
+        PooledEffect effect = pool.obtain();
+        effect.setPosition(x, y);
+        effect.start();
+        live.add(effect);
+        liveCapacity += config.count;
+    }
+
+    /**
+     * Advances the live bursts and returns finished ones to their pools.
+     *
+     * @param deltaTime Time since the last frame
+     */
+    public void update(float deltaTime) {
+        for (int i = live.size - 1; i >= 0; i--) {
+            PooledEffect effect = live.get(i);
+            effect.update(deltaTime);
+            if (effect.isComplete()) {
+                release(i);
+            }
+        }
+    }
+
+    /**
+     * Draws the live bursts.
+     *
+     * @param batch The SpriteBatch used for drawing
+     */
+    public void draw(SpriteBatch batch) {
+        for (int i = 0; i < live.size; i++) {
+            live.get(i).draw(batch);
+        }
+    }
+
+    /**
+     * Ends every live burst at once, e.g. when a run restarts.
+     */
+    public void clear() {
+        while (live.size > 0) {
+            release(live.size - 1);
+        }
+    }
+
+    private void release(int index) {
+        PooledEffect effect = live.removeIndex(index);
+        liveCapacity -= effect.getEmitters().first().getMaxParticleCount();
+        effect.free();
+    }
+
+    /**
+     * Gets the number of particles currently alive.
+     *
+     * @return The live particle count
+     */
+    public int getActiveCount() {
+        int count = 0;
+        for (int i = 0; i < live.size; i++) {
+            count += live.get(i).getEmitters().first().getActiveCount();
+        }
+        return count;
+    }
+
+    @Override
+    public void dispose() {
+        clear();
+        for (ParticleEffect prototype : prototypes) {
+            prototype.dispose();
+        }
+        ResourceRegistry.release(texture);
+    }
+
+    // Burst configuration; angles in degrees, life in milliseconds
+    private static final class BurstConfig {
+        final int count, life;
+        final float speed, angle, spread, gravity, size;
+        final float red, green, blue;
+
+        BurstConfig(int count, int life, float speed, float angle, float spread, float gravity, float size,
+                    float red, float green, float blue) {
+            this.count = count;
+            this.life = life;
+            this.speed = speed;
+            this.angle = angle;
+            this.spread = spread;
+            this.gravity = gravity;
+            this.size = size;
+            this.red = red;
+            this.green = green;
+            this.blue = blue;
+        }
+    }
+}
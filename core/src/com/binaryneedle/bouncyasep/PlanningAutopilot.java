@@ -0,0 +1,393 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.Arrays;
+
+/**
+ * The PlanningAutopilot class plays by looking ahead: it searches sequences of jumps through a copy of the
+ * world and follows the best one it found.
+ * <p>
+ * A plan may jump every {@link #DECISION_TICKS} ticks over the next {@link #HORIZON} ticks. The search goes
+ * depth first through those decisions, first jumping when the player is below the middle of the next gap and
+ * first not jumping otherwise, and simulates each on the copy, restoring the states saved at the decisions it
+ * goes back to, so the first plan it finds already heads for the gaps. A plan is better if it survives
+ * longer, or survives as long at a lower cost: every jump costs a little, and a plan costs more the further
+ * it ends from the middle of the next gap, so it does not put off a jump it needs just past its horizon.
+ * Once a plan survives the whole horizon, branches whose jumps alone cost as much are cut off. Jumps soon
+ * after a jump are not tried at all; they rarely help and would double the branches to try.
+ * <p>
+ * The search runs for a budget of wall time each frame and carries on over the next frames. It plans from
+ * where the plan being followed leaves the player {@link #COMMIT_TICKS} ticks ahead, starting from what is
+ * left of that plan and from what an {@link Autopilot} would do, and the best plan so far takes over when
+ * the player gets there. Nodes are preallocated, so planning does not allocate either. Ticks the plans do not
+ * cover, e.g. when fast-forwarding uses up the budget, are played by the {@link Autopilot}.
+ */
+public class PlanningAutopilot implements PlayerController {
+    // Default planning time per frame in nanoseconds
+    public static final long DEFAULT_BUDGET = 2000000L;
+    // A plan decides whether to jump every this many ticks, this many times
+    private static final int DECISION_TICKS = 10;
+    private static final int DECISIONS = 15;
+    private static final int HORIZON = DECISION_TICKS * DECISIONS;
+    // Ticks of the followed plan kept while the next one is searched
+    private static final int COMMIT_TICKS = DECISION_TICKS;
+    // Plans only jump again once the last jump slowed down to this speed
+    private static final float REJUMP_VELOCITY = MainEntity.JUMP_POWER / 2f;
+    // Cost of a jump, in pixels off the middle of the next gap at the end of a plan
+    private static final float JUMP_COST = 8f;
+    // Obstacles recycled in the lookahead are parked out of reach instead of taking the next layout
+    private static final float PARKED_X = 1e9f;
+
+    private final long budget;
+    private final PlayerController fallback = new Autopilot();
+
+    // Copy of the world the plans are tried on, and the states at each decision of the current branch
+    private GameWorld lookahead;
+    private int[][] nodeStates;
+    // Current branch: its depth, the decisions taken, which is tried first, whether jumping is tried at all,
+    // how many were tried and the jumps so far
+    private int depth;
+    private final boolean[] nodeJumps = new boolean[DECISIONS];
+    private final boolean[] nodeJumpsFirst = new boolean[DECISIONS];
+    private final boolean[] nodeMayJump = new boolean[DECISIONS];
+    private final int[] nodeBranches = new int[DECISIONS];
+    private final int[] nodeJumpCounts = new int[DECISIONS];
+
+    // Search in progress: the tick of the followed plan it starts at, and where the player is expected there
+    private boolean searching;
+    private boolean complete;
+    private int rootTick;
+    private float rootY;
+    private float rootVelocity;
+    private int nodes;
+    // Best plan of the search, jump flags by tick, with the ticks it survives and its cost
+    private boolean[] best = new boolean[HORIZON];
+    private boolean[] spare = new boolean[HORIZON];
+    private int bestSurvived;
+    private float bestCost;
+    // Plan being followed, the ticks it covers and its next tick
+    private boolean[] plan = new boolean[HORIZON];
+    private int planEnd;
+    private int planTick;
+
+    // Frame the budget was last spent in, and how much of it is spent
+    private long frameId = -1;
+    private long spent;
+    // Nodes expanded by the search behind the plan being followed and whether it tried every branch, for tools
+    private int lastNodes;
+    private boolean lastComplete;
+
+    /**
+     * Creates an autopilot planning for up to {@link #DEFAULT_BUDGET} every frame.
+     */
+    public PlanningAutopilot() {
+        this(DEFAULT_BUDGET);
+    }
+
+    /**
+     * Creates an autopilot planning for up to a budget of wall time every frame.
+     *
+     * @param budget Planning time per frame in nanoseconds
+     */
+    public PlanningAutopilot(long budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    public boolean shouldJump(GameWorld world, int player) {
+        if (!world.isAlive(player)) {
+            searching = false;
+            planEnd = 0;
+            return false;
+        }
+
+        long frame = Gdx.graphics.getFrameId();
+        if (frame != frameId) {
+            frameId = frame;
+            spent = 0;
+        }
+
+        long start = TimeUtils.nanoTime();
+        if (spent < budget) {
+            if (!searching) {
+                startSearch(world, player);
+            }
+            if (!complete) {
+                search(start + budget - spent);
+            }
+        }
+
+        // Take over the search's plan where it starts, unless the run went differently than expected
+        if (searching && planTick == rootTick) {
+            MainEntity entity = world.getPlayer(player);
+            if (entity.getY() == rootY && entity.getVelocity() == rootVelocity) {
+                boolean[] followed = plan;
+                plan = best;
+                best = followed;
+                planEnd = HORIZON;
+                planTick = 0;
+                lastNodes = nodes;
+                lastComplete = complete;
+            } else {
+                planEnd = 0;
+            }
+            searching = false;
+            if (spent < budget) {
+                startSearch(world, player);
+            }
+        }
+        spent += TimeUtils.nanoTime() - start;
+
+        if (planTick < planEnd) {
+            return plan[planTick++];
+        }
+        return fallback.shouldJump(world, player);
+    }
+
+    /**
+     * Starts a search from where the plan being followed leaves the player a few ticks from now, or from now
+     * if there is no plan.
+     */
+    private void startSearch(GameWorld world, int player) {
+        if (lookahead == null) {
+            MainEntity entity = world.getPlayer(player);
+            createLookahead(entity.width, entity.height);
+        }
+        // Collide the way the real run does, or plans through a narrow gap would look fatal
+        if (lookahead.getPlayerMasks() != world.getPlayerMasks()) {
+            lookahead.setPlayerMasks(world.getPlayerMasks());
+        }
+        lookahead.copyPlayer(world, player);
+        int commit = Math.max(0, Math.min(COMMIT_TICKS, planEnd - planTick));
+        for (int tick = 0; tick < commit; tick++) {
+            if (plan[planTick + tick]) {
+                lookahead.jump(0);
+            }
+            lookahead.update(BouncyAsep.TICK_TIME);
+        }
+        lookahead.saveState(nodeStates[0], 0);
+        rootTick = planTick + commit;
+        rootY = lookahead.getPlayer(0).getY();
+        rootVelocity = lookahead.getPlayer(0).getVelocity();
+
+        // What is left of the plan being followed is the first to beat, then what the fallback would do
+        for (int tick = 0; tick < HORIZON; tick++) {
+            best[tick] = rootTick + tick < planEnd && plan[rootTick + tick];
+        }
+        bestSurvived = -1;
+        rollOut(best, false);
+        rollOut(spare, true);
+
+        lookahead.restoreState(nodeStates[0], 0);
+        depth = 0;
+        nodeJumpCounts[0] = 0;
+        startNode();
+        nodes = 0;
+        complete = false;
+        searching = true;
+    }
+
+    /**
+     * Carries on with the search until every branch is tried or the deadline passes.
+     */
+    private void search(long deadline) {
+        while (true) {
+            if (nodeBranches[depth] == 2) {
+                // Both branches tried, go back up
+                if (depth == 0) {
+                    complete = true;
+                    return;
+                }
+                depth--;
+                continue;
+            }
+            if (TimeUtils.nanoTime() > deadline) return;
+
+            boolean jump = (nodeBranches[depth]++ == 0) == nodeJumpsFirst[depth];
+            if (jump && !nodeMayJump[depth]) continue;
+            int jumps = nodeJumpCounts[depth] + (jump ? 1 : 0);
+            // Once a plan gets through, a branch is cut off when its jumps already cost as much as that plan
+            if (bestSurvived == HORIZON && jumps * JUMP_COST >= bestCost) continue;
+
+            nodeJumps[depth] = jump;
+            nodes++;
+            int survived = expand(jump);
+            if (survived < DECISION_TICKS || depth + 1 == DECISIONS) {
+                int reached = depth * DECISION_TICKS + survived;
+                float cost = getCost(reached, jumps);
+                if (reached > bestSurvived || (reached == bestSurvived && cost < bestCost)) {
+                    keepBranch(reached, cost);
+                }
+                continue;
+            }
+
+            depth++;
+            lookahead.saveState(nodeStates[depth], 0);
+            nodeJumpCounts[depth] = jumps;
+            startNode();
+        }
+    }
+
+    /**
+     * Sets up the node at the current depth from the lookahead, which is at its state.
+     */
+    private void startNode() {
+        nodeBranches[depth] = 0;
+        nodeMayJump[depth] = lookahead.getPlayer(0).getVelocity() <= REJUMP_VELOCITY;
+        nodeJumpsFirst[depth] = nodeMayJump[depth] && isBelowGap();
+    }
+
+    /**
+     * Simulates a decision from the state saved at the current depth.
+     *
+     * @return The ticks survived, up to {@link #DECISION_TICKS}
+     */
+    private int expand(boolean jump) {
+        lookahead.restoreState(nodeStates[depth], 0);
+        if (jump) {
+            lookahead.jump(0);
+        }
+        for (int tick = 0; tick < DECISION_TICKS; tick++) {
+            lookahead.update(BouncyAsep.TICK_TIME);
+            if (!lookahead.isAlive(0)) return tick;
+        }
+        return DECISION_TICKS;
+    }
+
+    /**
+     * Simulates a plan tick by tick from the root state and makes it the best plan if it is better. A reactive
+     * roll out asks the fallback every tick instead and writes its jumps down as the plan.
+     */
+    private void rollOut(boolean[] candidate, boolean reactive) {
+        lookahead.restoreState(nodeStates[0], 0);
+        int jumps = 0;
+        int survived = HORIZON;
+        for (int tick = 0; tick < HORIZON; tick++) {
+            if (reactive) {
+                candidate[tick] = fallback.shouldJump(lookahead, 0);
+            }
+            if (candidate[tick]) {
+                lookahead.jump(0);
+                jumps++;
+            }
+            lookahead.update(BouncyAsep.TICK_TIME);
+            if (!lookahead.isAlive(0)) {
+                survived = tick;
+                if (reactive) {
+                    Arrays.fill(candidate, tick + 1, HORIZON, false);
+                }
+                break;
+            }
+        }
+
+        float cost = getCost(survived, jumps);
+        if (survived > bestSurvived || (survived == bestSurvived && cost < bestCost)) {
+            if (candidate != best) {
+                spare = best;
+                best = candidate;
+            }
+            bestSurvived = survived;
+            bestCost = cost;
+        }
+    }
+
+    /**
+     * Scores the lookahead at the end of a plan: its jumps, and for a plan surviving the whole horizon how far
+     * the player is from the middle of the next gap.
+     */
+    private float getCost(int survived, int jumps) {
+        float cost = jumps * JUMP_COST;
+        if (survived < HORIZON) return cost;
+        return cost + Math.abs(getOffset());
+    }
+
+    private boolean isBelowGap() {
+        return getOffset() < 0;
+    }
+
+    /**
+     * Gets how far the middle of the player in the lookahead is above the middle of the next gap.
+     */
+    private float getOffset() {
+        MainEntity entity = lookahead.getPlayer(0);
+        Obstacle next = null;
+        for (int i = 0; i < lookahead.getObstacles().size(); i++) {
+            Obstacle obstacle = lookahead.getObstacles().get(i);
+            if (obstacle.getX() + obstacle.getWidth() > entity.x && (next == null || obstacle.getX() < next.getX())) {
+                next = obstacle;
+            }
+        }
+        // The gap runs from the top of the lower tile to the bottom of the upper one
+        float middle = next != null && next.getX() < PARKED_X
+                ? next.getY() + (GameWorld.TILE_SIZE + next.getGap()) / 2f
+                : GameWorld.PLAYER_START_Y + entity.height / 2f;
+        return entity.y + entity.height / 2f - middle;
+    }
+
+    /**
+     * Makes the current branch the best plan.
+     */
+    private void keepBranch(int survived, float cost) {
+        for (int tick = 0; tick < HORIZON; tick++) {
+            int decision = tick / DECISION_TICKS;
+            best[tick] = decision <= depth && tick % DECISION_TICKS == 0 && nodeJumps[decision];
+        }
+        bestSurvived = survived;
+        bestCost = cost;
+    }
+
+    /**
+     * Creates the world plans are tried on, with a course that parks recycled obstacles where they cannot
+     * reach the player within a plan.
+     */
+    private void createLookahead(float playerWidth, float playerHeight) {
+        lookahead = new GameWorld(1, playerWidth, playerHeight, new CourseSource() {
+            @Override
+            public void reset(long seed) {
+            }
+
+            @Override
+            public void advance(float distance) {
+            }
+
+            @Override
+            public boolean placeNext(Obstacle obstacle) {
+                obstacle.setX(PARKED_X);
+                obstacle.setGapMotion(0, 0);
+                obstacle.setSectionSpeed(0);
+                obstacle.setPassed(false);
+                return true;
+            }
+
+            @Override
+            public int getLookahead() {
+                return 0;
+            }
+
+            @Override
+            public void dispose() {
+            }
+        });
+        nodeStates = new int[DECISIONS][lookahead.getStateSize()];
+    }
+
+    /**
+     * Gets the number of decisions tried by the search behind the plan being followed.
+     *
+     * @return The nodes expanded
+     */
+    public int getLastNodes() {
+        return lastNodes;
+    }
+
+    /**
+     * Checks whether the search behind the plan being followed tried every branch it did not cut off.
+     *
+     * @return True if the plan is the best there is
+     */
+    public boolean isLastComplete() {
+        return lastComplete;
+    }
+}
@@ -0,0 +1,17 @@
+package com.binaryneedle.bouncyasep;
+
+/**
+ * The PlayerController interface decides tick by tick whether a player jumps, so automated players go
+ * through the same ticks as presses do, at any time scale.
+ */
+public interface PlayerController {
+
+    /**
+     * Decides whether a player jumps in the coming tick.
+     *
+     * @param world  The world about to be ticked
+     * @param player Index of the player
+     * @return True to jump
+     */
+    boolean shouldJump(GameWorld world, int player);
+}
@@ -0,0 +1,353 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.math.MathUtils;
+
+import java.util.Arrays;
+
+/**
+ * The Reachability class follows where the player can be while a course is generated, so the generator only
+ * keeps gaps the player is able to get through.
+ * <p>
+ * Every jump sets the same upward velocity, so the height gained on a tick depends only on the number of ticks
+ * since the last jump. That rise is tabled once, and the reachable states are kept as one height range per
+ * tick count: a tick without a jump moves every range one step along the table, a jump gathers all of them
+ * into the range for the jump's own tick. Gaps cut the ranges down while the player passes them. The course
+ * is replayed tick by tick the way the world scrolls it, with section speeds changing on passes and moving
+ * gaps swinging from the tick their obstacle is recycled, so the ranges match the real run.
+ * <p>
+ * The ranges never hold a state the player cannot be in, up to a small margin: states touching the floor are
+ * dropped, of the states running into the ceiling only the one stopping there right at the end of a tick is
+ * kept, and a jump keeps only the largest connected part of the gathered ranges. A gap may therefore be
+ * turned down although it could be made, but never the other way round.
+ */
+public class Reachability {
+    // Longest time since a jump that is followed; a fall from the ceiling lands well before that
+    private static final float MAX_FALL_TIME = 2f;
+    // Slack for the path between ticks, the rounding of the world's positions and the grid ranges are joined on
+    private static final float MARGIN = 2.5f;
+
+    // Configuration
+    private final float tickTime;
+    private final float playerX;
+    private final float playerWidth;
+    private final float playerHeight;
+    private final float startY;
+    private final float startSpeed;
+    private final float tileSize;
+    private final float gapSize;
+    private final int obstacleCount;
+    private final int maxTicks;
+    // Ticks from a jump to its peak
+    private final int apex;
+
+    // Height gained in the tick ending the given number of ticks after a jump, the jump's own tick being 1
+    private final float[] rise;
+
+    // Reachable heights of the player's bottom by ticks since the last jump; empty where low > high
+    private final float[] low;
+    private final float[] high;
+    // Highest tick count with a state, 0 once every state crashed
+    private int lastTick;
+    // Grid of whole pixels the ranges are joined on: ranges starting minus ranges ending in each cell, and
+    // the lowest start and highest end in each cell, valid if set on the current tick
+    private final int[] cellCount;
+    private final float[] cellLow;
+    private final float[] cellHigh;
+    private final int[] cellLowTick;
+    private final int[] cellHighTick;
+
+    // Replay of the course
+    private int tick;
+    private double scrolled;
+    private float speed;
+    // Distances of the layouts that may still be on screen, and the tick each upcoming layout is placed on
+    private final double[] layoutDistance;
+    private final int[] placeTick;
+    private int added;
+    private int recycled;
+
+    // Copy of the replay from before a gap was tried
+    private final float[] savedLow;
+    private final float[] savedHigh;
+    private final int[] savedPlaceTick;
+
+    /**
+     * Creates a reachability tracker.
+     *
+     * @param tickTime      Length of a simulation tick in seconds
+     * @param playerX       X position of the players
+     * @param playerWidth   Width of the players
+     * @param playerHeight  Height of the players
+     * @param startY        Y position the players start a run at
+     * @param startSpeed    Obstacle speed at the start of a run in pixels per second
+     * @param tileSize      Size of an obstacle tile in pixels
+     * @param gapSize       Height of the gap between the top and bottom part of an obstacle in pixels
+     * @param obstacleCount Number of obstacles the world recycles
+     */
+    public Reachability(float tickTime, float playerX, float playerWidth, float playerHeight, float startY,
+                        float startSpeed, float tileSize, float gapSize, int obstacleCount) {
+        this.tickTime = tickTime;
+        this.playerX = playerX;
+        this.playerWidth = playerWidth;
+        this.playerHeight = playerHeight;
+        this.startY = startY;
+        this.startSpeed = startSpeed;
+        this.tileSize = tileSize;
+        this.gapSize = gapSize;
+        this.obstacleCount = obstacleCount;
+        this.maxTicks = MathUtils.ceil(MAX_FALL_TIME / tickTime);
+        this.apex = Math.round(MainEntity.JUMP_POWER / (MainEntity.DEFAULT_GRAVITY * tickTime));
+
+        // Exact rise over one tick for the velocity left that many ticks after a jump
+        float gravity = MainEntity.DEFAULT_GRAVITY;
+        this.rise = new float[maxTicks];
+        for (int k = 1; k < maxTicks; k++) {
+            float velocity = MainEntity.JUMP_POWER - gravity * (k - 1) * tickTime;
+            rise[k] = velocity * tickTime - gravity * tickTime * tickTime / 2f;
+        }
+
+        this.low = new float[maxTicks];
+        this.high = new float[maxTicks];
+        int cells = (int) (MainEntity.UPPER_BOUND - MainEntity.LOWER_BOUND) + 2;
+        this.cellCount = new int[cells];
+        this.cellLow = new float[cells];
+        this.cellHigh = new float[cells];
+        this.cellLowTick = new int[cells];
+        this.cellHighTick = new int[cells];
+        this.savedLow = new float[maxTicks];
+        this.savedHigh = new float[maxTicks];
+        this.layoutDistance = new double[obstacleCount * 2];
+        this.placeTick = new int[obstacleCount * 2];
+        this.savedPlaceTick = new int[obstacleCount * 2];
+    }
+
+    /**
+     * Starts over with the player at rest at its start position and no layouts.
+     */
+    public void reset() {
+        Arrays.fill(low, Float.MAX_VALUE);
+        Arrays.fill(high, -Float.MAX_VALUE);
+
+        // Being at rest is where a jump peaks
+        low[apex] = startY;
+        high[apex] = startY;
+        lastTick = apex;
+        Arrays.fill(cellLowTick, -1);
+        Arrays.fill(cellHighTick, -1);
+
+        tick = 0;
+        scrolled = 0;
+        speed = startSpeed;
+        added = 0;
+        recycled = 0;
+
+        // The opening obstacles are placed before the first tick
+        Arrays.fill(placeTick, 0);
+    }
+
+    /**
+     * Replays the course up to the last tick before the player reaches an obstacle.
+     *
+     * @param distance Course distance of the obstacle
+     */
+    public void approach(double distance) {
+        while (!overlaps(distance, scrolled + speed * tickTime, speed * tickTime)) {
+            step(Double.NaN, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Replays the player through a gap if some state makes it, and takes on the speed of the gap's section.
+     * Call {@link #approach} first. If every state crashes, nothing changes, so another gap can be tried.
+     *
+     * @param distance     Course distance of the obstacle
+     * @param gapY         Y position of the top part of the obstacle
+     * @param amplitude    Motion amplitude of the gap in pixels
+     * @param frequency    Motion frequency of the gap in radians per second
+     * @param sectionSpeed Obstacle speed once the player passed it
+     * @return True if the gap can be made
+     */
+    public boolean tryPass(double distance, float gapY, float amplitude, float frequency, float sectionSpeed) {
+        System.arraycopy(low, 0, savedLow, 0, lastTick + 1);
+        System.arraycopy(high, 0, savedHigh, 0, lastTick + 1);
+        System.arraycopy(placeTick, 0, savedPlaceTick, 0, placeTick.length);
+        int savedTick = tick;
+        double savedScrolled = scrolled;
+        int savedRecycled = recycled;
+        int savedLastTick = lastTick;
+
+        while (playerX <= (float) (distance - scrolled) + tileSize) {
+            step(distance, gapY, amplitude, frequency);
+            if (lastTick == 0) {
+                System.arraycopy(savedLow, 0, low, 0, savedLastTick + 1);
+                System.arraycopy(savedHigh, 0, high, 0, savedLastTick + 1);
+                System.arraycopy(savedPlaceTick, 0, placeTick, 0, placeTick.length);
+                tick = savedTick;
+                scrolled = savedScrolled;
+                recycled = savedRecycled;
+                lastTick = savedLastTick;
+                return false;
+            }
+        }
+
+        addLayout(distance, sectionSpeed);
+        return true;
+    }
+
+    /**
+     * Replays the course past an obstacle as if it had no gap to get through, for a gap kept although no state
+     * makes it.
+     *
+     * @param distance     Course distance of the obstacle
+     * @param sectionSpeed Obstacle speed once the player passed it
+     */
+    public void skip(double distance, float sectionSpeed) {
+        while (playerX <= (float) (distance - scrolled) + tileSize) {
+            step(Double.NaN, 0, 0, 0);
+        }
+        addLayout(distance, sectionSpeed);
+    }
+
+    private void addLayout(double distance, float sectionSpeed) {
+        layoutDistance[added % layoutDistance.length] = distance;
+        added++;
+        speed = sectionSpeed;
+    }
+
+    /**
+     * Advances the replay by one tick, with the player possibly passing a gap.
+     *
+     * @param distance Course distance of the gap's obstacle, or NaN for none
+     */
+    private void step(double distance, float gapY, float amplitude, float frequency) {
+        float movement = speed * tickTime;
+        scrolled += movement;
+        tick++;
+
+        // An obstacle leaving the screen is recycled into the layout that many obstacles later
+        while (recycled < added && layoutDistance[recycled % layoutDistance.length] - scrolled + tileSize < 0) {
+            placeTick[(recycled + obstacleCount) % placeTick.length] = tick;
+            recycled++;
+        }
+        if (lastTick == 0) return;
+
+        // Jumping gathers every state, not jumping moves each one along the rise table
+        gather();
+        int end = Math.min(lastTick + 1, maxTicks - 1);
+        for (int k = end; k > 1; k--) {
+            low[k] = low[k - 1] + rise[k];
+            high[k] = high[k - 1] + rise[k];
+        }
+        low[1] = low[0] + rise[1];
+        high[1] = high[0] + rise[1];
+
+        // Heights the player's bottom may be at, at the start and the end of this tick
+        float bottom = MainEntity.LOWER_BOUND;
+        float top = MainEntity.UPPER_BOUND;
+        if (!Double.isNaN(distance) && overlaps(distance, scrolled, movement)) {
+            float y = gapY;
+            if (amplitude > 0) {
+                int placed = placeTick[added % placeTick.length];
+                y += amplitude * MathUtils.sin(frequency * tickTime * (tick - placed));
+            }
+            bottom = Math.max(bottom, y + tileSize);
+            top = Math.min(top, y + gapSize - playerHeight);
+        }
+        lastTick = 0;
+        boolean ceilingHit = false;
+        for (int k = 1; k <= end; k++) {
+            low[k] = Math.max(low[k], bottom + Math.max(rise[k], 0) + MARGIN);
+            if (top < MainEntity.UPPER_BOUND) {
+                high[k] = Math.min(high[k], top + Math.min(rise[k], 0) - MARGIN);
+            } else {
+                // The ceiling stops the player instead of crashing it
+                ceilingHit |= k <= apex && low[k] <= top && high[k] > top;
+                high[k] = Math.min(high[k], top);
+            }
+            if (low[k] <= high[k]) {
+                lastTick = k;
+            }
+        }
+        if (ceilingHit) {
+            stopAtCeiling();
+        }
+    }
+
+    /**
+     * Adds the state stopped by the ceiling right at the end of the tick, which falls from rest like the peak of
+     * a jump. States stopped earlier in the tick are already falling, which no tick count matches, so they are
+     * left out.
+     */
+    private void stopAtCeiling() {
+        // A peak state already held is kept rather than the one at the ceiling, as they only join if it reaches there
+        if (apex <= lastTick && low[apex] <= high[apex]) return;
+
+        low[apex] = MainEntity.UPPER_BOUND;
+        high[apex] = MainEntity.UPPER_BOUND;
+        lastTick = Math.max(lastTick, apex);
+    }
+
+    /**
+     * Joins the ranges into their largest connected part and leaves it in slot 0.
+     * Ranges are joined on a grid of whole pixels, so two ranges up to two pixels apart count as connected;
+     * the margin covers that.
+     */
+    private void gather() {
+        int lowest = cellCount.length;
+        int highest = 0;
+        for (int k = 1; k <= lastTick; k++) {
+            if (low[k] > high[k]) continue;
+
+            // Count the ranges covering each cell, and keep the outermost ends found in the end cells
+            int first = (int) (low[k] - MainEntity.LOWER_BOUND);
+            int last = (int) (high[k] - MainEntity.LOWER_BOUND);
+            cellCount[first]++;
+            cellCount[last + 1]--;
+            lowest = Math.min(lowest, first);
+            highest = Math.max(highest, last + 1);
+            if (cellLowTick[first] != tick || low[k] < cellLow[first]) {
+                cellLow[first] = low[k];
+                cellLowTick[first] = tick;
+            }
+            if (cellHighTick[last] != tick || high[k] > cellHigh[last]) {
+                cellHigh[last] = high[k];
+                cellHighTick[last] = tick;
+            }
+        }
+
+        float bestLow = Float.MAX_VALUE;
+        float bestHigh = -Float.MAX_VALUE;
+        float runLow = 0;
+        int covering = 0;
+        for (int cell = lowest; cell < highest; cell++) {
+            int previous = covering;
+            covering += cellCount[cell];
+            cellCount[cell] = 0;
+            if (previous == 0 && covering > 0) {
+                runLow = cellLow[cell];
+            }
+            if (covering > 0 && covering + cellCount[cell + 1] == 0) {
+                float runHigh = cellHigh[cell];
+                if (runHigh - runLow > bestHigh - bestLow) {
+                    bestLow = runLow;
+                    bestHigh = runHigh;
+                }
+            }
+        }
+        cellCount[highest] = 0;
+        low[0] = bestLow;
+        high[0] = bestHigh;
+    }
+
+    /**
+     * Checks whether the player overlaps an obstacle horizontally at any time during a tick.
+     *
+     * @param distance Course distance of the obstacle
+     * @param scrolled Scrolled distance at the end of the tick
+     * @param movement Distance the obstacle moves in the tick
+     */
+    private boolean overlaps(double distance, double scrolled, float movement) {
+        float x = (float) (distance - scrolled);
+        return x < playerX + playerWidth + MARGIN && x + movement + tileSize > playerX - MARGIN;
+    }
+}
@@ -0,0 +1,272 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * The ResourceRegistry class creates the textures, frame buffers, fonts and sounds of the game and keeps
+ * count of them, so it is known how much GPU memory the game holds and what is never given back.
+ * <p>
+ * Every resource is registered with its owner, an estimate of its size and a reference count. Textures and
+ * sounds loaded from the same path are shared, and a resource is disposed once every owner has released it.
+ * GPU bytes are estimated from the size and format of each texture, a third more with mipmaps, and a
+ * quarter of RGBA8 for ETC2 variants; sounds count the size of their file against a separate total.
+ * Going over the GPU budget logs an error, and {@link #reportLeaks()} lists whatever is still registered.
+ * Must only be used from the render thread.
+ */
+public final class ResourceRegistry {
+    private static final String TAG = "Resources";
+    public static final long DEFAULT_BUDGET = 64L * 1024 * 1024;
+
+    private static final ObjectMap<Object, Entry> entries = new ObjectMap<>();
+    private static final ObjectMap<String, Object> byPath = new ObjectMap<>();
+    private static long gpuBytes;
+    private static long audioBytes;
+    private static long peakGpuBytes;
+    private static long budget = DEFAULT_BUDGET;
+    private static boolean overBudget;
+
+    private ResourceRegistry() {
+    }
+
+    /**
+     * Loads a texture, preferring its compressed variant, or shares the one already loaded from the path.
+     *
+     * @param path  Internal path of the PNG
+     * @param owner Name of what holds the texture, for the overlay and leak reports
+     * @return The texture; release it with {@link #release(Disposable)}
+     */
+    public static Texture loadTexture(String path, String owner) {
+        Texture texture = (Texture) retainPath(path);
+        if (texture == null) {
+            texture = CompressedTextures.load(path);
+            register(texture, path, owner, estimateBytes(texture), false, true);
+        }
+        return texture;
+    }
+
+    /**
+     * Creates a frame buffer. Frame buffers are never shared.
+     *
+     * @param format Format of the color buffer
+     * @param width  Width in pixels
+     * @param height Height in pixels
+     * @param depth  Whether to add a 16 bit depth buffer
+     * @param owner  Name of what holds the frame buffer
+     * @return The frame buffer; release it with {@link #release(Disposable)}
+     */
+    public static FrameBuffer newFrameBuffer(Pixmap.Format format, int width, int height, boolean depth, String owner) {
+        FrameBuffer frameBuffer = new FrameBuffer(format, width, height, depth);
+        long bytes = (long) width * height * (getBytesPerPixel(format) + (depth ? 2 : 0));
+        register(frameBuffer, "frame buffer " + width + "x" + height, owner, bytes, false, false);
+        return frameBuffer;
+    }
+
+    /**
+     * Creates the built-in 15 px font. Its page counts as one resource with the font.
+     *
+     * @param owner Name of what holds the font
+     * @return The font; release it with {@link #release(Disposable)}
+     */
+    public static BitmapFont newDefaultFont(String owner) {
+        BitmapFont font = new BitmapFont();
+        long bytes = 0;
+        for (int i = 0; i < font.getRegions().size; i++) {
+            bytes += estimateBytes(font.getRegions().get(i).getTexture());
+        }
+        register(font, "default font", owner, bytes, false, false);
+        return font;
+    }
+
+    /**
+     * Loads a sound, or shares the one already loaded from the path.
+     *
+     * @param path  Internal path of the sound
+     * @param owner Name of what holds the sound
+     * @return The sound, or null if the file is missing; release it with {@link #release(Disposable)}
+     */
+    public static Sound loadSound(String path, String owner) {
+        Sound sound = (Sound) retainPath(path);
+        if (sound == null) {
+            FileHandle file = Gdx.files.internal(path);
+            if (!file.exists()) {
+                Gdx.app.error(TAG, "Sound " + path + " is missing, playing without it");
+                return null;
+            }
+            sound = Gdx.audio.newSound(file);
+            register(sound, path, owner, file.length(), true, true);
+        }
+        return sound;
+    }
+
+    private static Object retainPath(String path) {
+        Object resource = byPath.get(path);
+        if (resource != null) {
+            entries.get(resource).references++;
+        }
+        return resource;
+    }
+
+    /**
+     * Registers a new resource with one reference; shared resources are named by their path.
+     */
+    private static void register(Disposable resource, String name, String owner, long bytes, boolean audio,
+                                 boolean shared) {
+        entries.put(resource, new Entry(name, owner, bytes, audio));
+        if (shared) {
+            byPath.put(name, resource);
+        }
+
+        if (audio) {
+            audioBytes += bytes;
+            return;
+        }
+        gpuBytes += bytes;
+        peakGpuBytes = Math.max(peakGpuBytes, gpuBytes);
+        if (gpuBytes > budget && !overBudget) {
+            overBudget = true;
+            Gdx.app.error(TAG, "GPU memory at " + toMegabytes(gpuBytes) + " MB after " + name + " for " + owner
+                    + ", over the " + toMegabytes(budget) + " MB budget");
+        }
+    }
+
+    /**
+     * Gives a resource back. It is disposed once everything that loaded it has released it.
+     *
+     * @param resource A resource created through the registry, or null
+     */
+    public static void release(Disposable resource) {
+        if (resource == null) return;
+
+        Entry entry = entries.get(resource);
+        if (entry == null) {
+            Gdx.app.error(TAG, "Released a resource that is not registered: " + resource);
+            resource.dispose();
+            return;
+        }
+        if (--entry.references > 0) return;
+
+        entries.remove(resource);
+        if (byPath.get(entry.name) == resource) {
+            byPath.remove(entry.name);
+        }
+        if (entry.audio) {
+            audioBytes -= entry.bytes;
+        } else {
+            gpuBytes -= entry.bytes;
+            overBudget = gpuBytes > budget;
+        }
+        resource.dispose();
+    }
+
+    /**
+     * Logs every resource that is still registered, e.g. once everything should have been released.
+     *
+     * @return The number of resources still registered
+     */
+    public static int reportLeaks() {
+        for (ObjectMap.Entry<Object, Entry> leak : entries) {
+            Entry entry = leak.value;
+            Gdx.app.error(TAG, "Leaked " + entry.name + " of " + entry.owner + " (" + entry.references
+                    + (entry.references == 1 ? " reference, " : " references, ") + entry.bytes + " bytes)");
+        }
+        return entries.size;
+    }
+
+    /**
+     * Estimates the GPU memory a texture loaded from a file takes.
+     */
+    private static long estimateBytes(Texture texture) {
+        TextureData data = texture.getTextureData();
+        long pixels = (long) texture.getWidth() * texture.getHeight();
+        long bytes;
+        if (data.getType() == TextureData.TextureDataType.Custom) {
+            // The compressed variants are ETC2 RGBA8, a byte per pixel
+            bytes = pixels;
+        } else {
+            bytes = pixels * getBytesPerPixel(data.getFormat());
+        }
+        return data.useMipMaps() ? bytes * 4 / 3 : bytes;
+    }
+
+    private static int getBytesPerPixel(Pixmap.Format format) {
+        switch (format) {
+            case Alpha:
+            case Intensity:
+                return 1;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444:
+                return 2;
+            case RGB888:
+                // Drivers pad three byte pixels to four
+            case RGBA8888:
+            default:
+                return 4;
+        }
+    }
+
+    /**
+     * Sets the GPU memory budget; going over it logs an error.
+     *
+     * @param bytes The budget in bytes
+     */
+    public static void setBudget(long bytes) {
+        budget = bytes;
+        overBudget = gpuBytes > budget;
+    }
+
+    public static long getBudget() {
+        return budget;
+    }
+
+    public static long getGpuBytes() {
+        return gpuBytes;
+    }
+
+    public static long getPeakGpuBytes() {
+        return peakGpuBytes;
+    }
+
+    public static long getAudioBytes() {
+        return audioBytes;
+    }
+
+    public static int getResourceCount() {
+        return entries.size;
+    }
+
+    /**
+     * Converts bytes to megabytes with one decimal, for display.
+     *
+     * @param bytes Size in bytes
+     * @return The size in megabytes
+     */
+    public static float toMegabytes(long bytes) {
+        return Math.round(bytes / (1024f * 1024f) * 10) / 10f;
+    }
+
+    // A registered resource
+    private static final class Entry {
+        final String name;
+        final String owner;
+        final long bytes;
+        final boolean audio;
+        int references = 1;
+
+        Entry(String name, String owner, long bytes, boolean audio) {
+            this.name = name;
+            this.owner = owner;
+            this.bytes = bytes;
+            this.audio = audio;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.binaryneedle.bouncyasep;
+
+/**
+ * The RewindBuffer class keeps a snapshot of the simulation for each of the last ticks so a run can be rewound.
+ * <p>
+ * A snapshot holds the players, the obstacles, the random generator the world places obstacles with when no
+ * course layout is ready, and the course position. Snapshots are packed as ints into one array allocated up
+ * front and used as a ring, so recording every tick and restoring any of them never allocates.
+ */
+public class RewindBuffer {
+    private final GameWorld world;
+    private final CourseJournal journal;
+    private final int capacity;
+    private final int stride;
+    private final int[] data;
+    // Slot of the next snapshot, and the number of snapshots held
+    private int head;
+    private int size;
+
+    /**
+     * Creates a rewind buffer for a world.
+     *
+     * @param world    The world to snapshot
+     * @param journal  The journal the world takes its course from
+     * @param capacity Number of ticks to keep
+     */
+    public RewindBuffer(GameWorld world, CourseJournal journal, int capacity) {
+        this.world = world;
+        this.journal = journal;
+        this.capacity = capacity;
+        this.stride = world.getStateSize() + CourseJournal.STATE_SIZE;
+        this.data = new int[capacity * stride];
+    }
+
+    /**
+     * Records the current state, replacing the oldest snapshot when the buffer is full.
+     */
+    public void record() {
+        int offset = head * stride;
+        world.saveState(data, offset);
+        offset += world.getStateSize();
+        journal.saveState(data, offset);
+
+        head = (head + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+    }
+
+    /**
+     * Restores the state from a number of ticks back and forgets the snapshots after it.
+     * The oldest snapshot is never forgotten, so rewinding further stops there.
+     *
+     * @param ticks Number of ticks to go back, 0 for the latest snapshot
+     * @return The number of ticks actually rewound, or -1 if nothing has been recorded
+     */
+    public int rewind(int ticks) {
+        if (size == 0) return -1;
+        ticks = Math.min(ticks, size - 1);
+
+        int slot = (head - 1 - ticks + capacity) % capacity;
+        int offset = slot * stride;
+        world.restoreState(data, offset);
+        offset += world.getStateSize();
+        journal.restoreState(data, offset);
+
+        head = (slot + 1) % capacity;
+        size -= ticks;
+        return ticks;
+    }
+
+    /**
+     * Forgets every snapshot.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Gets the number of ticks that can be rewound.
+     *
+     * @return The number of snapshots held
+     */
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,118 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The RunRecorder class records the trajectory of a run so it can be raced against as a ghost.
+ * Samples are taken at a fixed rate and stored as packed primitive arrays: the height in
+ * quarter pixels and the animation state of the character.
+ */
+public class RunRecorder {
+    static final int MAGIC = 0x42415255;
+    static final int VERSION = 1;
+    static final float SAMPLE_RATE = 30f;
+    static final float Y_UNIT = 0.25f;
+    static final String EXTENSION = "run";
+
+    private static final int INITIAL_CAPACITY = 60 * (int) SAMPLE_RATE;
+
+    private short[] ySamples = new short[INITIAL_CAPACITY];
+    private byte[] stateSamples = new byte[INITIAL_CAPACITY];
+    private int sampleCount;
+    private float sampleTimer;
+
+    /**
+     * Starts a new recording, discarding the previous one.
+     */
+    public void start() {
+        sampleCount = 0;
+        sampleTimer = 0;
+    }
+
+    /**
+     * Records the current state of the player, adding a sample whenever a sample interval has elapsed.
+     *
+     * @param deltaTime Time since the last frame
+     * @param y         Current height of the player
+     * @param state     Current animation state of the player
+     */
+    public void update(float deltaTime, float y, Character.State state) {
+        if (sampleCount == 0) {
+            addSample(y, state);
+        }
+
+        sampleTimer += deltaTime;
+        float interval = 1f / SAMPLE_RATE;
+        while (sampleTimer >= interval) {
+            sampleTimer -= interval;
+            addSample(y, state);
+        }
+    }
+
+    /**
+     * Adds the final sample of the run.
+     *
+     * @param y     Height of the player when the run ended
+     * @param state Animation state of the player when the run ended
+     */
+    public void finish(float y, Character.State state) {
+        addSample(y, state);
+    }
+
+    private void addSample(float y, Character.State state) {
+        if (sampleCount == ySamples.length) {
+            // Growing is rare: the initial capacity covers a minute of play
+            short[] newY = new short[ySamples.length * 2];
+            byte[] newStates = new byte[stateSamples.length * 2];
+            System.arraycopy(ySamples, 0, newY, 0, sampleCount);
+            System.arraycopy(stateSamples, 0, newStates, 0, sampleCount);
+            ySamples = newY;
+            stateSamples = newStates;
+        }
+
+        ySamples[sampleCount] = (short) Math.round(y / Y_UNIT);
+        stateSamples[sampleCount] = (byte) state.getValue();
+        sampleCount++;
+    }
+
+    /**
+     * Writes the recording to a run file.
+     *
+     * @param file The file to write
+     */
+    public void save(FileHandle file) {
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(file.write(false, 4096));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sampleCount);
+            for (int i = 0; i < sampleCount; i++) {
+                out.writeShort(ySamples[i]);
+            }
+            out.write(stateSamples, 0, sampleCount);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not save run " + file.path(), e);
+        } finally {
+            StreamUtils.closeQuietly(out);
+        }
+    }
+
+    // Getters
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    short[] getYSamples() {
+        return ySamples;
+    }
+
+    byte[] getStateSamples() {
+        return stateSamples;
+    }
+}
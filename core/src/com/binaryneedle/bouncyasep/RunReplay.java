@@ -0,0 +1,242 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The RunReplay class records what it takes to play a run again: the course, its seed, how the player
+ * collided, the ticks the player jumped on and a {@link StateHash} of the world every few ticks.
+ * <p>
+ * Replaying the jumps on the same course must reach the same hashes. Where it does not, the simulation
+ * depends on something outside of it, e.g. the platform's float math or the course generator falling
+ * behind, and the first hash that differs tells roughly when. Jumps and hashes are kept in packed primitive
+ * arrays that only grow for long runs, so recording does not allocate while playing.
+ */
+public class RunReplay {
+    static final int MAGIC = 0x42415250;
+    static final int VERSION = 2;
+    public static final String EXTENSION = "replay";
+    // Ticks between hashes, ten a second
+    public static final int DEFAULT_HASH_INTERVAL = 12;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int hashInterval;
+    private StateHash stateHash;
+
+    // Run being recorded or read: course, seed, player size, whether it collided by frame shape, ticks played
+    private String coursePath = "";
+    private long seed;
+    private float playerWidth;
+    private float playerHeight;
+    private boolean frameMasks;
+    private int ticks;
+    // Ticks the player jumped before, in order
+    private int[] jumpTicks = new int[INITIAL_CAPACITY];
+    private int jumpCount;
+    // Hash after every hashInterval ticks
+    private long[] hashes = new long[INITIAL_CAPACITY];
+    private int hashCount;
+
+    public RunReplay() {
+        this(DEFAULT_HASH_INTERVAL);
+    }
+
+    /**
+     * Creates a replay hashing the world every few ticks.
+     *
+     * @param hashInterval Ticks between hashes
+     */
+    public RunReplay(int hashInterval) {
+        if (hashInterval <= 0) {
+            throw new IllegalArgumentException("Hash interval must be positive: " + hashInterval);
+        }
+        this.hashInterval = hashInterval;
+    }
+
+    /**
+     * Starts recording a run of a freshly reset world, discarding the previous recording.
+     *
+     * @param world      The world the run is played in
+     * @param coursePath Internal path of the course file, or an empty string for the generated course
+     * @param seed       Seed the world was reset with
+     */
+    public void start(GameWorld world, String coursePath, long seed) {
+        if (stateHash == null || stateHash.getWorld() != world) {
+            stateHash = new StateHash(world);
+        }
+        this.coursePath = coursePath;
+        this.seed = seed;
+        this.playerWidth = world.getPlayer(0).width;
+        this.playerHeight = world.getPlayer(0).height;
+        this.frameMasks = world.getPlayerMasks() != null;
+        ticks = 0;
+        jumpCount = 0;
+        hashCount = 0;
+    }
+
+    /**
+     * Records a jump of the player before the next tick. Several jumps before the same tick count as one.
+     */
+    public void jump() {
+        if (jumpCount > 0 && jumpTicks[jumpCount - 1] == ticks) return;
+
+        if (jumpCount == jumpTicks.length) {
+            int[] newJumps = new int[jumpTicks.length * 2];
+            System.arraycopy(jumpTicks, 0, newJumps, 0, jumpCount);
+            jumpTicks = newJumps;
+        }
+        jumpTicks[jumpCount++] = ticks;
+    }
+
+    /**
+     * Records a tick of the world, hashing it if a hash interval has passed.
+     */
+    public void tick() {
+        ticks++;
+        if (ticks % hashInterval != 0) return;
+
+        if (hashCount == hashes.length) {
+            long[] newHashes = new long[hashes.length * 2];
+            System.arraycopy(hashes, 0, newHashes, 0, hashCount);
+            hashes = newHashes;
+        }
+        hashes[hashCount++] = stateHash.compute();
+    }
+
+    /**
+     * Writes the recording to a replay file.
+     *
+     * @param file The file to write
+     */
+    public void save(FileHandle file) {
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(file.write(false, 4096));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(coursePath);
+            out.writeLong(seed);
+            out.writeFloat(playerWidth);
+            out.writeFloat(playerHeight);
+            out.writeBoolean(frameMasks);
+            out.writeInt(ticks);
+            out.writeInt(jumpCount);
+            for (int i = 0; i < jumpCount; i++) {
+                out.writeInt(jumpTicks[i]);
+            }
+            out.writeInt(hashInterval);
+            out.writeInt(hashCount);
+            for (int i = 0; i < hashCount; i++) {
+                out.writeLong(hashes[i]);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not save replay " + file.path(), e);
+        } finally {
+            StreamUtils.closeQuietly(out);
+        }
+    }
+
+    /**
+     * Reads a replay file.
+     *
+     * @param file The file to read
+     * @return The recorded run
+     * @throws IOException If the file cannot be read or is not a replay
+     */
+    public static RunReplay load(FileHandle file) throws IOException {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(file.read(4096));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a replay file");
+            }
+
+            String coursePath = in.readUTF();
+            long seed = in.readLong();
+            float playerWidth = in.readFloat();
+            float playerHeight = in.readFloat();
+            boolean frameMasks = in.readBoolean();
+            int ticks = in.readInt();
+            int[] jumpTicks = new int[in.readInt()];
+            for (int i = 0; i < jumpTicks.length; i++) {
+                jumpTicks[i] = in.readInt();
+            }
+            RunReplay replay = new RunReplay(in.readInt());
+            long[] hashes = new long[in.readInt()];
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = in.readLong();
+            }
+
+            replay.coursePath = coursePath;
+            replay.seed = seed;
+            replay.playerWidth = playerWidth;
+            replay.playerHeight = playerHeight;
+            replay.frameMasks = frameMasks;
+            replay.ticks = ticks;
+            replay.jumpTicks = jumpTicks;
+            replay.jumpCount = jumpTicks.length;
+            replay.hashes = hashes;
+            replay.hashCount = hashes.length;
+            return replay;
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+    }
+
+    // Getters
+
+    public String getCoursePath() {
+        return coursePath;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public float getPlayerWidth() {
+        return playerWidth;
+    }
+
+    public float getPlayerHeight() {
+        return playerHeight;
+    }
+
+    public boolean usesFrameMasks() {
+        return frameMasks;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public int getJumpCount() {
+        return jumpCount;
+    }
+
+    public int getJumpTick(int index) {
+        return jumpTicks[index];
+    }
+
+    public int getHashInterval() {
+        return hashInterval;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Gets a recorded hash.
+     *
+     * @param index Index of the hash; hash i was taken after (i + 1) * hash interval ticks
+     * @return The hash
+     */
+    public long getHash(int index) {
+        return hashes[index];
+    }
+}
@@ -0,0 +1,41 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * The SimulationRunner interface ticks the world away from the render thread while a run is played.
+ * <p>
+ * Between {@link #start} and {@link #stop()} the runner owns the world and the rewind buffer: the render
+ * thread only reads the frames the runner publishes and passes presses on through {@link #jump(long)}.
+ * Runners that need threads live in the backends, as the web build cannot start one.
+ */
+public interface SimulationRunner extends Disposable {
+
+    /**
+     * Hands the world to the runner, which ticks it in real time from now on until a player crashes or
+     * {@link #stop()} is called.
+     *
+     * @param world  The world to tick
+     * @param rewind Rewind buffer to record every tick into, or null
+     */
+    void start(GameWorld world, RewindBuffer rewind);
+
+    /**
+     * Queues a jump press, to be applied in the tick the press happened in.
+     *
+     * @param time Time of the press in TimeUtils.nanoTime() time
+     */
+    void jump(long time);
+
+    /**
+     * Gets the frame of the latest tick. Must only be called from the render thread.
+     *
+     * @return The latest frame, or null if no tick has finished since the last start
+     */
+    WorldFrame getFrame();
+
+    /**
+     * Stops ticking and waits until the runner no longer touches the world.
+     */
+    void stop();
+}
@@ -0,0 +1,88 @@
+package com.binaryneedle.bouncyasep;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The SpscQueue class is a bounded, lock-free queue for exactly one producer thread and one consumer thread.
+ * Elements are handed over through a power-of-two ring buffer; the only synchronisation is the ordered
+ * write of the head and tail counters, so neither side ever blocks or allocates.
+ *
+ * @param <T> The element type
+ */
+public class SpscQueue<T> {
+    private final Object[] buffer;
+    private final int mask;
+    // Next slot to read, only written by the consumer
+    private final AtomicInteger head = new AtomicInteger();
+    // Next slot to write, only written by the producer
+    private final AtomicInteger tail = new AtomicInteger();
+
+    /**
+     * Creates a queue able to hold at least the given number of elements.
+     *
+     * @param capacity Minimum capacity, rounded up to the next power of two
+     */
+    public SpscQueue(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds an element to the queue. Must only be called from the producer thread.
+     *
+     * @param element The element to add
+     * @return True if the element was added, false if the queue is full
+     */
+    public boolean offer(T element) {
+        int currentTail = tail.get();
+        if (currentTail - head.get() == buffer.length) {
+            return false;
+        }
+
+        buffer[currentTail & mask] = element;
+        // Publishing the new tail makes the slot write visible to the consumer
+        tail.set(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest element from the queue. Must only be called from the consumer thread.
+     *
+     * @return The oldest element, or null if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        int currentHead = head.get();
+        if (currentHead == tail.get()) {
+            return null;
+        }
+
+        int index = currentHead & mask;
+        T element = (T) buffer[index];
+        buffer[index] = null;
+        head.set(currentHead + 1);
+        return element;
+    }
+
+    /**
+     * Gets the number of queued elements. The value is only a snapshot when read from the other side.
+     *
+     * @return The number of queued elements
+     */
+    public int size() {
+        return tail.get() - head.get();
+    }
+
+    /**
+     * Checks whether the queue is currently empty.
+     *
+     * @return True if there are no queued elements
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
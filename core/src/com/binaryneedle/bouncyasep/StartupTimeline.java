@@ -0,0 +1,149 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * The StartupTimeline class records how long each step of starting the game takes.
+ * <p>
+ * Steps are timed between {@link #begin(String)} and {@link #end()} and may contain smaller steps, such as
+ * the assets loaded by an init phase. Two milestones are kept as well: the end of the first frame, which is
+ * the first time anything is on screen, and the point where every asset is loaded. Times are counted from
+ * the start of the app when the launcher knows it, otherwise from when the timeline was created.
+ */
+public class StartupTimeline {
+    private static final String TAG = "Startup";
+
+    private long startTime;
+    // Recorded steps in the order they began; durations are -1 while a step is open
+    private final Array<String> names = new Array<>();
+    private final LongArray starts = new LongArray();
+    private final LongArray durations = new LongArray();
+    private final IntArray depths = new IntArray();
+    private final IntArray open = new IntArray();
+    private long firstFrameTime;
+    private long readyTime;
+
+    /**
+     * Creates a timeline that counts from now.
+     */
+    public StartupTimeline() {
+        this.startTime = TimeUtils.nanoTime();
+    }
+
+    /**
+     * Counts the timeline from an earlier start, e.g. the start of the process, so the time spent before the
+     * game was created shows up too.
+     *
+     * @param startTime Start of the app in TimeUtils.nanoTime() time
+     */
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * Starts timing a step. Steps begun before this one ends are recorded inside it.
+     *
+     * @param name Name of the step, e.g. an init phase or an asset path
+     */
+    public void begin(String name) {
+        open.add(names.size);
+        names.add(name);
+        starts.add(TimeUtils.nanoTime());
+        durations.add(-1);
+        depths.add(open.size - 1);
+    }
+
+    /**
+     * Ends the step begun last.
+     */
+    public void end() {
+        int index = open.pop();
+        durations.set(index, TimeUtils.nanoTime() - starts.get(index));
+    }
+
+    /**
+     * Marks the end of the first frame.
+     */
+    public void firstFrame() {
+        if (firstFrameTime == 0) {
+            firstFrameTime = TimeUtils.nanoTime();
+        }
+    }
+
+    /**
+     * Marks the point where every asset is loaded and logs the report.
+     */
+    public void ready() {
+        if (readyTime != 0) return;
+
+        readyTime = TimeUtils.nanoTime();
+        for (String line : getReport().split("\n")) {
+            Gdx.app.log(TAG, line);
+        }
+    }
+
+    /**
+     * Gets the time from the start to the end of the first frame.
+     *
+     * @return The time in milliseconds, 0 until the first frame has ended
+     */
+    public float getTimeToFirstFrame() {
+        return firstFrameTime == 0 ? 0 : toMillis(firstFrameTime - startTime);
+    }
+
+    /**
+     * Gets the time from the start until every asset was loaded.
+     *
+     * @return The time in milliseconds, 0 until then
+     */
+    public float getTimeToReady() {
+        return readyTime == 0 ? 0 : toMillis(readyTime - startTime);
+    }
+
+    /**
+     * Lists every step with the time it began at and how long it took, indented by nesting, followed by the
+     * milestones.
+     *
+     * @return The report, one step per line
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder("at ms    took ms  step");
+        for (int i = 0; i < names.size; i++) {
+            report.append('\n');
+            appendMillis(report, starts.get(i) - startTime);
+            report.append("  ");
+            if (durations.get(i) < 0) {
+                report.append("      -");
+            } else {
+                appendMillis(report, durations.get(i));
+            }
+            report.append("  ");
+            for (int d = 0; d < depths.get(i); d++) {
+                report.append("  ");
+            }
+            report.append(names.get(i));
+        }
+        report.append("\nFirst frame after ").append(Math.round(getTimeToFirstFrame())).append(" ms")
+                .append("\nReady after ").append(Math.round(getTimeToReady())).append(" ms");
+        return report.toString();
+    }
+
+    /**
+     * Appends a duration in milliseconds with one decimal, right aligned.
+     */
+    private static void appendMillis(StringBuilder report, long nanos) {
+        String text = String.valueOf(Math.round(toMillis(nanos) * 10) / 10f);
+        for (int i = text.length(); i < 7; i++) {
+            report.append(' ');
+        }
+        report.append(text);
+    }
+
+    private static float toMillis(long nanos) {
+        return nanos / 1000000f;
+    }
+}
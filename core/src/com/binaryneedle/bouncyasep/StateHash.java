@@ -0,0 +1,67 @@
+package com.binaryneedle.bouncyasep;
+
+/**
+ * The StateHash class condenses the simulation state of a world into a 64 bit hash, so runs can be
+ * compared tick by tick without keeping their states.
+ * <p>
+ * The hash covers everything {@link GameWorld#saveState(int[], int)} writes: every player with its score,
+ * every obstacle and the random generator placing obstacles. Floats are hashed by their bits, so even a
+ * last-bit difference shows. The state is packed into an array allocated up front and hashed an int at a
+ * time with FNV-1a, so hashing never allocates; the packed state stays available to report differences.
+ */
+public class StateHash {
+    private static final long OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long PRIME = 0x100000001B3L;
+
+    private final GameWorld world;
+    private final int[] state;
+
+    /**
+     * Creates a hash of a world's state.
+     *
+     * @param world The world to hash
+     */
+    public StateHash(GameWorld world) {
+        this.world = world;
+        this.state = new int[world.getStateSize()];
+    }
+
+    /**
+     * Hashes the current state of the world.
+     *
+     * @return The hash
+     */
+    public long compute() {
+        world.saveState(state, 0);
+        return hash(state, state.length);
+    }
+
+    /**
+     * Hashes packed ints.
+     *
+     * @param data   The ints to hash
+     * @param length Number of ints from the start of the array
+     * @return The hash
+     */
+    public static long hash(int[] data, int length) {
+        long hash = OFFSET_BASIS;
+        for (int i = 0; i < length; i++) {
+            hash ^= data[i] & 0xFFFFFFFFL;
+            hash *= PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the state the last hash was computed from, as written by {@link GameWorld#saveState(int[], int)}.
+     *
+     * @return The packed state; overwritten by the next {@link #compute()}
+     */
+    public int[] getState() {
+        return state;
+    }
+
+    public GameWorld getWorld() {
+        return world;
+    }
+}
@@ -0,0 +1,59 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The StreamAssetArchive class reads a whole asset archive onto the heap with one sequential read.
+ * It works on every backend; packed files are then served straight from the array.
+ */
+public class StreamAssetArchive extends AssetArchive {
+    /**
+     * Opens asset archives by reading them whole.
+     */
+    public static final AssetArchive.Factory FACTORY = new AssetArchive.Factory() {
+        @Override
+        public AssetArchive open(FileHandle file) {
+            return new StreamAssetArchive(file);
+        }
+    };
+
+    private final byte[] data;
+
+    /**
+     * Reads an asset archive into memory.
+     *
+     * @param file The archive
+     */
+    public StreamAssetArchive(FileHandle file) {
+        data = file.readBytes();
+        try {
+            readIndex(new ByteArrayInputStream(data));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open asset archive " + file.path(), e);
+        }
+    }
+
+    @Override
+    protected int size() {
+        return data.length;
+    }
+
+    @Override
+    protected InputStream openEntry(int offset, int length) {
+        return new ByteArrayInputStream(data, offset, length);
+    }
+
+    @Override
+    protected void readEntry(int offset, byte[] bytes) {
+        System.arraycopy(data, offset, bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void dispose() {
+        // The array goes with the archive
+    }
+}
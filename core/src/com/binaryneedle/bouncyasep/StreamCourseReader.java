@@ -0,0 +1,91 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * The StreamCourseReader class reads course files through a buffered stream.
+ * It works on every backend; seeking backwards reopens the stream.
+ */
+public class StreamCourseReader extends CourseReader {
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Opens course files through a stream.
+     */
+    public static final CourseReader.Factory FACTORY = new CourseReader.Factory() {
+        @Override
+        public CourseReader open(FileHandle file) {
+            return new StreamCourseReader(file);
+        }
+    };
+
+    private final FileHandle file;
+    private DataInputStream input;
+    private int position;
+
+    /**
+     * Opens a course file for streaming.
+     *
+     * @param file The course file
+     */
+    public StreamCourseReader(FileHandle file) {
+        this.file = file;
+        try {
+            readHeader();
+        } catch (IOException e) {
+            dispose();
+            throw new RuntimeException("Could not open course " + file.path(), e);
+        }
+    }
+
+    @Override
+    protected void position(int offset) throws IOException {
+        if (input == null || offset < position) {
+            StreamUtils.closeQuietly(input);
+            input = new DataInputStream(file.read(BUFFER_SIZE));
+            position = 0;
+        }
+
+        while (position < offset) {
+            long skipped = input.skip(offset - position);
+            if (skipped <= 0) {
+                throw new IOException("Unexpected end of course file");
+            }
+            position += (int) skipped;
+        }
+    }
+
+    @Override
+    protected int readInt() throws IOException {
+        position += 4;
+        return input.readInt();
+    }
+
+    @Override
+    protected float readFloat() throws IOException {
+        position += 4;
+        return input.readFloat();
+    }
+
+    @Override
+    protected short readShort() throws IOException {
+        position += 2;
+        return input.readShort();
+    }
+
+    @Override
+    protected byte readByte() throws IOException {
+        position += 1;
+        return input.readByte();
+    }
+
+    @Override
+    public void dispose() {
+        StreamUtils.closeQuietly(input);
+        input = null;
+    }
+}
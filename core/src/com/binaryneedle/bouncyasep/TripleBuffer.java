@@ -0,0 +1,72 @@
+package com.binaryneedle.bouncyasep;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The TripleBuffer class hands the latest of a stream of values from one writer thread to one reader thread.
+ * <p>
+ * The writer fills its own buffer and publishes it by swapping it with the shared middle buffer; the reader
+ * swaps the middle buffer with its own when a fresh one is there. Each side only ever touches the buffer it
+ * holds, so neither locks or waits, and the reader always sees a complete value. Values the reader did not
+ * pick up in time are overwritten.
+ *
+ * @param <T> The buffer type
+ */
+public class TripleBuffer<T> {
+    // Set in the middle index when the writer published a buffer the reader has not taken yet
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+
+    private final Object[] buffers;
+    private final AtomicInteger middle = new AtomicInteger(2);
+    // Buffer held by the writer, only touched by the writer
+    private int writeIndex = 0;
+    // Buffer held by the reader, only touched by the reader
+    private int readIndex = 1;
+
+    /**
+     * Creates a triple buffer over three preallocated buffers.
+     */
+    public TripleBuffer(T first, T second, T third) {
+        this.buffers = new Object[]{first, second, third};
+    }
+
+    /**
+     * Gets the buffer the writer fills. Must only be called from the writer thread.
+     *
+     * @return The write buffer
+     */
+    @SuppressWarnings("unchecked")
+    public T getWriteBuffer() {
+        return (T) buffers[writeIndex];
+    }
+
+    /**
+     * Publishes the write buffer and takes over the previous middle buffer for the next write.
+     * Must only be called from the writer thread.
+     */
+    public void publish() {
+        writeIndex = middle.getAndSet(writeIndex | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Takes the latest published buffer if there is one. Must only be called from the reader thread.
+     *
+     * @return True if the read buffer changed
+     */
+    public boolean update() {
+        if ((middle.get() & FRESH) == 0) return false;
+        readIndex = middle.getAndSet(readIndex) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * Gets the buffer taken by the last {@link #update()}. Must only be called from the reader thread.
+     *
+     * @return The read buffer
+     */
+    @SuppressWarnings("unchecked")
+    public T getReadBuffer() {
+        return (T) buffers[readIndex];
+    }
+}
@@ -0,0 +1,88 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.DistanceFieldFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * The UiFonts class loads the distance-field font the score, menus and titles are drawn with.
+ * <p>
+ * The glyphs store the distance to their outline instead of coverage, so a shader keeps the edges sharp at
+ * any scale and every text size is drawn from the same small page. Each size gets its own
+ * {@link DistanceFieldFont}, as the scale lives in the font data, but they all share the one texture.
+ * Text drawn with these fonts has to be drawn between {@link #begin(SpriteBatch)} and {@link #end(SpriteBatch)}.
+ * Generated by DistanceFieldFontGenerator.
+ */
+public class UiFonts implements Disposable {
+    public static final String FONT_PATH = "fonts/ui.fnt";
+    // Pixel size and spread the font was generated with
+    private static final float GENERATED_SIZE = 32f;
+    private static final float SPREAD = 4f;
+
+    private final Texture texture;
+    private final TextureRegion region;
+    private final ShaderProgram shader;
+
+    public UiFonts() {
+        BitmapFont.BitmapFontData data = new BitmapFont.BitmapFontData(Gdx.files.internal(FONT_PATH), false);
+        texture = ResourceRegistry.loadTexture(data.getImagePath(0), "UiFonts");
+        texture.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        region = new TextureRegion(texture);
+
+        shader = DistanceFieldFont.createDistanceFieldShader();
+        if (!shader.isCompiled()) {
+            Gdx.app.error("UiFonts", "Distance field shader failed to compile: " + shader.getLog());
+            throw new RuntimeException("Could not compile the distance field shader");
+        }
+    }
+
+    /**
+     * Creates a font drawing at a size.
+     *
+     * @param size  Size of the font in world units
+     * @param color Color of the text
+     * @return The font; disposing it leaves the shared texture alone
+     */
+    public BitmapFont create(float size, Color color) {
+        BitmapFont.BitmapFontData data = new BitmapFont.BitmapFontData(Gdx.files.internal(FONT_PATH), false);
+        Array<TextureRegion> regions = new Array<>(1);
+        regions.add(region);
+
+        DistanceFieldFont font = new DistanceFieldFont(data, regions, false);
+        font.getData().setScale(size / GENERATED_SIZE);
+        font.setDistanceFieldSmoothing(SPREAD);
+        font.setColor(color);
+        return font;
+    }
+
+    /**
+     * Switches the batch to the distance field shader.
+     *
+     * @param batch The batch the text is drawn with
+     */
+    public void begin(SpriteBatch batch) {
+        batch.setShader(shader);
+    }
+
+    /**
+     * Switches the batch back to its default shader.
+     *
+     * @param batch The batch the text was drawn with
+     */
+    public void end(SpriteBatch batch) {
+        batch.setShader(null);
+    }
+
+    @Override
+    public void dispose() {
+        ResourceRegistry.release(texture);
+        shader.dispose();
+    }
+}
@@ -0,0 +1,139 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/**
+ * The WorldFrame class is a copy of what the renderer needs from the world after one simulation tick.
+ * <p>
+ * A frame holds the positions at the end of its tick and at the end of the tick before, so the renderer
+ * can draw anywhere in between. Frames are written by the simulation and are not changed once published.
+ */
+public class WorldFrame {
+    // End of the tick in TimeUtils.nanoTime() time
+    public long time;
+    public int tick;
+    public final float[] playerY;
+    public final float[] previousPlayerY;
+    public final float[] playerVelocity;
+    public final boolean[] alive;
+    public final int[] scores;
+    public final float[] obstacleX;
+    public final float[] previousObstacleX;
+    public final float[] obstacleY;
+    public final float[] previousObstacleY;
+    public float obstacleSpeed;
+    // Course layouts generated ahead of the player
+    public int courseLookahead;
+    // Running totals of gameplay events, so readers that skip frames miss none
+    public int passes;
+    public boolean crashed;
+
+    /**
+     * Creates an empty frame for a world.
+     *
+     * @param world The world the frame will copy
+     */
+    public WorldFrame(GameWorld world) {
+        int players = world.getPlayerCount();
+        int obstacles = world.getObstacles().size();
+        playerY = new float[players];
+        previousPlayerY = new float[players];
+        playerVelocity = new float[players];
+        alive = new boolean[players];
+        scores = new int[players];
+        obstacleX = new float[obstacles];
+        previousObstacleX = new float[obstacles];
+        obstacleY = new float[obstacles];
+        previousObstacleY = new float[obstacles];
+    }
+
+    /**
+     * Copies the world into this frame.
+     *
+     * @param world    The world after the tick
+     * @param previous The frame of the tick before, or null if this is the first tick
+     * @param time     End of the tick
+     * @param tick     Number of the tick
+     */
+    public void capture(GameWorld world, WorldFrame previous, long time, int tick) {
+        this.time = time;
+        this.tick = tick;
+        for (int i = 0; i < playerY.length; i++) {
+            MainEntity player = world.getPlayer(i);
+            playerY[i] = player.getY();
+            previousPlayerY[i] = previous != null ? previous.playerY[i] : player.getY();
+            playerVelocity[i] = player.getVelocity();
+            alive[i] = world.isAlive(i);
+            scores[i] = world.getScore(i);
+        }
+        for (int i = 0; i < obstacleX.length; i++) {
+            Obstacle obstacle = world.getObstacles().get(i);
+            obstacleX[i] = obstacle.getX();
+            obstacleY[i] = obstacle.getY();
+            previousObstacleX[i] = previous != null ? previous.obstacleX[i] : obstacle.getX();
+            previousObstacleY[i] = previous != null ? previous.obstacleY[i] : obstacle.getY();
+        }
+        obstacleSpeed = world.getObstacleSpeed();
+        CourseSource course = world.getCourse();
+        courseLookahead = course != null ? course.getLookahead() : 0;
+    }
+
+    /**
+     * Copies another frame into this one.
+     *
+     * @param other The frame to copy
+     */
+    public void set(WorldFrame other) {
+        time = other.time;
+        tick = other.tick;
+        System.arraycopy(other.playerY, 0, playerY, 0, playerY.length);
+        System.arraycopy(other.previousPlayerY, 0, previousPlayerY, 0, playerY.length);
+        System.arraycopy(other.playerVelocity, 0, playerVelocity, 0, playerY.length);
+        System.arraycopy(other.alive, 0, alive, 0, playerY.length);
+        System.arraycopy(other.scores, 0, scores, 0, playerY.length);
+        System.arraycopy(other.obstacleX, 0, obstacleX, 0, obstacleX.length);
+        System.arraycopy(other.previousObstacleX, 0, previousObstacleX, 0, obstacleX.length);
+        System.arraycopy(other.obstacleY, 0, obstacleY, 0, obstacleX.length);
+        System.arraycopy(other.previousObstacleY, 0, previousObstacleY, 0, obstacleX.length);
+        obstacleSpeed = other.obstacleSpeed;
+        courseLookahead = other.courseLookahead;
+        passes = other.passes;
+        crashed = other.crashed;
+    }
+
+    /**
+     * Gets a player's height between the previous and this tick.
+     *
+     * @param player Player index
+     * @param alpha  0 for the previous tick, 1 for this one
+     * @return The interpolated Y position
+     */
+    public float getPlayerY(int player, float alpha) {
+        return MathUtils.lerp(previousPlayerY[player], playerY[player], alpha);
+    }
+
+    /**
+     * Gets an obstacle's X position between the previous and this tick.
+     * Obstacles recycled to the right in this tick are not interpolated.
+     *
+     * @param obstacle Obstacle index
+     * @param alpha    0 for the previous tick, 1 for this one
+     * @return The interpolated X position
+     */
+    public float getObstacleX(int obstacle, float alpha) {
+        if (obstacleX[obstacle] > previousObstacleX[obstacle]) return obstacleX[obstacle];
+        return MathUtils.lerp(previousObstacleX[obstacle], obstacleX[obstacle], alpha);
+    }
+
+    /**
+     * Gets an obstacle's gap position between the previous and this tick.
+     *
+     * @param obstacle Obstacle index
+     * @param alpha    0 for the previous tick, 1 for this one
+     * @return The interpolated Y position of the top part
+     */
+    public float getObstacleY(int obstacle, float alpha) {
+        if (obstacleX[obstacle] > previousObstacleX[obstacle]) return obstacleY[obstacle];
+        return MathUtils.lerp(previousObstacleY[obstacle], obstacleY[obstacle], alpha);
+    }
+}
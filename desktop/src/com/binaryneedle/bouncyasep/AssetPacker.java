@@ -0,0 +1,132 @@
+package com.binaryneedle.bouncyasep;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The AssetPacker class packs the game's assets into one archive (see {@link ArchiveFormat}) that
+ * {@link AssetArchive} serves, so startup opens one file instead of one per asset.
+ * <p>
+ * Files are packed sorted by path, with the index in front, so reading the assets in path order reads
+ * the archive front to back. Sounds stay loose because Android plays them from their own asset file
+ * descriptors, as do the launcher icons, which the backends load before the game starts, and the ghosts
+ * and replays the game writes at run time. The desktop jar and the APK ship only the archive and these
+ * loose assets, so the lists in their build scripts follow {@code LOOSE}.
+ * <p>
+ * Usage: {@code AssetPacker <assets directory> [archive]}
+ */
+public class AssetPacker {
+    // Path prefixes of assets left loose
+    private static final String[] LOOSE = {"sounds/", "icons/", "ghosts/", "replays/"};
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: AssetPacker <assets directory> [archive]");
+            System.exit(1);
+        }
+
+        File assets = new File(args[0]);
+        File archive = args.length > 1 ? new File(args[1]) : new File(assets, ArchiveFormat.PATH);
+        pack(assets, archive);
+    }
+
+    /**
+     * Packs every asset under a directory.
+     *
+     * @param assets  The assets directory; packed paths are relative to it
+     * @param archive The archive to write
+     * @throws IOException If an asset cannot be read or the archive cannot be written
+     */
+    public static void pack(File assets, File archive) throws IOException {
+        List<String> paths = new ArrayList<>();
+        collect(assets, "", archive.getAbsoluteFile(), paths);
+        Collections.sort(paths);
+
+        // The index size depends on the encoded paths, so write it once to measure it
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        DataOutputStream index = new DataOutputStream(indexBytes);
+        int[] lengths = new int[paths.size()];
+        for (int i = 0; i < paths.size(); i++) {
+            long length = new File(assets, paths.get(i)).length();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException(paths.get(i) + ": too large to pack");
+            }
+            lengths[i] = (int) length;
+            index.writeUTF(paths.get(i));
+            index.writeInt(0);
+            index.writeInt(0);
+        }
+
+        int dataOffset = ArchiveFormat.HEADER_SIZE + indexBytes.size();
+        long total = dataOffset;
+        for (int length : lengths) {
+            total += length;
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("Assets are too large for one archive: " + total + " bytes");
+        }
+
+        File parent = archive.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(archive)))) {
+            out.writeInt(ArchiveFormat.MAGIC);
+            out.writeShort(ArchiveFormat.VERSION);
+            out.writeShort(0);
+            out.writeInt(paths.size());
+            out.writeInt(dataOffset);
+
+            int offset = dataOffset;
+            for (int i = 0; i < paths.size(); i++) {
+                out.writeUTF(paths.get(i));
+                out.writeInt(offset);
+                out.writeInt(lengths[i]);
+                offset += lengths[i];
+            }
+
+            for (int i = 0; i < paths.size(); i++) {
+                byte[] contents = Files.readAllBytes(new File(assets, paths.get(i)).toPath());
+                if (contents.length != lengths[i]) {
+                    throw new IOException(paths.get(i) + ": changed while packing");
+                }
+                out.write(contents);
+            }
+        }
+
+        System.out.println("Packed " + paths.size() + " assets, " + total + " bytes, into " + archive);
+    }
+
+    /**
+     * Adds the paths of the files to pack under a directory.
+     */
+    private static void collect(File directory, String prefix, File archive, List<String> paths) {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+
+        for (File file : files) {
+            String path = prefix + file.getName();
+            if (file.getName().startsWith(".") || file.getAbsoluteFile().equals(archive)) continue;
+
+            if (file.isDirectory()) {
+                if (!isLoose(path + "/")) collect(file, path + "/", archive, paths);
+            } else {
+                paths.add(path);
+            }
+        }
+    }
+
+    private static boolean isLoose(String path) {
+        for (String prefix : LOOSE) {
+            if (path.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,360 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * The Benchmark class plays a scripted, seeded scenario through the real game and reports how each part
+ * of it performed, so builds and machines can be compared with one command.
+ * <p>
+ * The scenario sits in the menu, plays at escalating obstacle speeds with collisions off and an autopilot
+ * pressing jump through the game's own input queue, then adds stress phases that draw many extra columns
+ * and character sprites on top of the game. Every phase runs for the same number of frames. For each phase
+ * the report lists frame time percentiles, draw calls per frame, garbage collections and the heap
+ * high-water mark. Every frame advances the game by the same time, so the scenario does the same work
+ * everywhere, and frames are not capped, so frame times show what the machine can do.
+ * <p>
+ * Usage: {@code DesktopLauncher --benchmark [frames per phase] [report file]}
+ */
+public class Benchmark implements ApplicationListener {
+    public static final int DEFAULT_FRAMES = 600;
+    public static final String DEFAULT_REPORT = "benchmark.txt";
+    private static final String TAG = "Benchmark";
+    private static final long SEED = 0x5EEDL;
+    // Game time per frame, the same on every machine
+    private static final float FRAME_TIME = 1f / 60f;
+
+    // Scripted phases: name, obstacle speed (0 stays in the menu), extra columns and extra sprites
+    private static final Phase[] PHASES = {
+            new Phase("menu", 0, 0, 0),
+            new Phase("play 250", 250, 0, 0),
+            new Phase("play 500", 500, 0, 0),
+            new Phase("play 800", 800, 0, 0),
+            new Phase("stress columns", 800, 48, 0),
+            new Phase("stress sprites", 800, 0, 2000),
+            new Phase("stress both", 800, 48, 2000)
+    };
+    // Speed the extra columns scroll at, in pixels per second
+    private static final float COLUMN_SPEED = 300f;
+
+    private final BouncyAsep game;
+    private final Autopilot autopilot = new Autopilot();
+    private final int framesPerPhase;
+    private final String reportPath;
+
+    private GLProfiler profiler;
+    private SpriteBatch batch;
+    private Obstacle column;
+    private Character sprites;
+    // Extra sprites: position and velocity
+    private float[] spriteX, spriteY, spriteVelocityX, spriteVelocityY;
+    private float elapsedTime;
+
+    private int phase;
+    private int phaseFrame;
+    private boolean finished;
+    private long lastFrameStart;
+    private PhaseResult[] results;
+    private List<GarbageCollectorMXBean> collectors;
+    private List<MemoryPoolMXBean> heapPools;
+
+    /**
+     * Creates a benchmark around a game that has not been created yet.
+     *
+     * @param game           The game to benchmark
+     * @param framesPerPhase Frames each phase runs for
+     * @param reportPath     File the report is written to
+     */
+    public Benchmark(BouncyAsep game, int framesPerPhase, String reportPath) {
+        this.game = game;
+        this.framesPerPhase = framesPerPhase;
+        this.reportPath = reportPath;
+    }
+
+    @Override
+    public void create() {
+        // Seed everything the game randomizes before it lays out the course
+        MathUtils.random.setSeed(SEED);
+        game.setFixedFrameTime(FRAME_TIME);
+        game.create();
+        game.getWorld().setCollisionEnabled(false);
+
+        profiler = new GLProfiler(Gdx.graphics);
+        profiler.enable();
+        batch = new SpriteBatch();
+        batch.getProjectionMatrix().setToOrtho2D(0, 0, GameWorld.WORLD_WIDTH, GameWorld.WORLD_HEIGHT);
+        column = new Obstacle(0, GameWorld.OBSTACLE_WIDTH, GameWorld.OBSTACLE_SPACING, GameWorld.OBSTACLE_GAP,
+                GameWorld.TILE_SIZE);
+        sprites = new Character(Character.PLAYER_ANIMATIONS);
+        createSprites();
+
+        collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+
+        results = new PhaseResult[PHASES.length];
+        startPhase();
+    }
+
+    private void createSprites() {
+        int count = 0;
+        for (Phase p : PHASES) {
+            count = Math.max(count, p.sprites);
+        }
+        spriteX = new float[count];
+        spriteY = new float[count];
+        spriteVelocityX = new float[count];
+        spriteVelocityY = new float[count];
+
+        Random random = new Random(SEED);
+        for (int i = 0; i < count; i++) {
+            spriteX[i] = random.nextFloat() * GameWorld.WORLD_WIDTH;
+            spriteY[i] = random.nextFloat() * GameWorld.WORLD_HEIGHT;
+            spriteVelocityX[i] = (random.nextFloat() - 0.5f) * 400f;
+            spriteVelocityY[i] = (random.nextFloat() - 0.5f) * 400f;
+        }
+    }
+
+    @Override
+    public void render() {
+        if (finished) return;
+
+        long frameStart = TimeUtils.nanoTime();
+        // Each frame closes the timing of the one before within the phase, so the first records nothing
+        if (phaseFrame > 0) {
+            results[phase].frameTimes[phaseFrame - 1] = frameStart - lastFrameStart;
+        }
+        lastFrameStart = frameStart;
+
+        Phase current = PHASES[phase];
+        if (current.speed > 0) {
+            play(current.speed);
+        }
+
+        game.render();
+        drawStress(current, FRAME_TIME);
+
+        // A phase renders one frame more than it measures: the extra frame only ends the timing of the last
+        // measured one, so its draw calls are left out like its time
+        if (phaseFrame < framesPerPhase) {
+            results[phase].drawCalls += profiler.getDrawCalls();
+        }
+        profiler.reset();
+
+        if (++phaseFrame > framesPerPhase) {
+            endPhase();
+            if (++phase == PHASES.length) {
+                finished = true;
+                writeReport();
+                Gdx.app.exit();
+                return;
+            }
+            startPhase();
+        }
+    }
+
+    /**
+     * Holds the course at the phase speed and presses jump whenever the autopilot would.
+     */
+    private void play(float speed) {
+        GameWorld world = game.getWorld();
+        for (Obstacle obstacle : world.getObstacles()) {
+            obstacle.setSpeed(speed);
+        }
+
+        // The first press starts the run from the menu
+        if ((phaseFrame == 0 && phase == firstPlayingPhase()) || autopilot.shouldJump(world, 0)) {
+            Gdx.input.getInputProcessor().keyDown(Input.Keys.SPACE);
+        }
+    }
+
+    private static int firstPlayingPhase() {
+        for (int i = 0; i < PHASES.length; i++) {
+            if (PHASES[i].speed > 0) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Draws the phase's extra columns and sprites over the game.
+     */
+    private void drawStress(Phase current, float deltaTime) {
+        if (current.columns == 0 && current.sprites == 0) return;
+
+        elapsedTime += deltaTime;
+        batch.begin();
+
+        float span = GameWorld.WORLD_WIDTH + GameWorld.TILE_SIZE;
+        float spacing = span / Math.max(1, current.columns);
+        for (int i = 0; i < current.columns; i++) {
+            float x = ((i * spacing - elapsedTime * COLUMN_SPEED) % span + span) % span - GameWorld.TILE_SIZE;
+            column.drawAt(batch, x, (i * 3 % (int) GameWorld.OBSTACLE_WIDTH) * GameWorld.TILE_SIZE);
+        }
+
+        for (int i = 0; i < current.sprites; i++) {
+            spriteX[i] = wrap(spriteX[i] + spriteVelocityX[i] * deltaTime, GameWorld.WORLD_WIDTH);
+            spriteY[i] = wrap(spriteY[i] + spriteVelocityY[i] * deltaTime, GameWorld.WORLD_HEIGHT);
+            Character.State state = spriteVelocityY[i] > 0 ? Character.State.JUMPING : Character.State.FALLING;
+            batch.draw(sprites.getFrame(state, elapsedTime + i * 0.01f), spriteX[i], spriteY[i]);
+        }
+
+        batch.end();
+    }
+
+    private static float wrap(float value, float size) {
+        return value < 0 ? value + size : value >= size ? value - size : value;
+    }
+
+    private void startPhase() {
+        phaseFrame = 0;
+        results[phase] = new PhaseResult(framesPerPhase);
+        results[phase].collections = getCollections();
+        results[phase].collectionTime = getCollectionTime();
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+        profiler.reset();
+    }
+
+    private void endPhase() {
+        PhaseResult result = results[phase];
+        result.collections = getCollections() - result.collections;
+        result.collectionTime = getCollectionTime() - result.collectionTime;
+        // Pools peak at different times, so their sum is an upper bound of the heap's peak
+        for (MemoryPoolMXBean pool : heapPools) {
+            result.heapPeak += pool.getPeakUsage().getUsed();
+        }
+        Arrays.sort(result.frameTimes);
+        Gdx.app.log(TAG, format(PHASES[phase].name, result));
+    }
+
+    private long getCollections() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private long getCollectionTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return time;
+    }
+
+    private void writeReport() {
+        StringBuilder report = new StringBuilder()
+                .append(String.format(Locale.ROOT, "Bouncy Asep benchmark, %d frames per phase, seed 0x%X%n",
+                        framesPerPhase, SEED))
+                .append(String.format(Locale.ROOT, "Renderer: %s, OpenGL %s%n",
+                        Gdx.gl.glGetString(GL20.GL_RENDERER), Gdx.gl.glGetString(GL20.GL_VERSION)))
+                .append(String.format(Locale.ROOT, "Java %s on %s %s, %d cores, %d MB max heap%n%n",
+                        System.getProperty("java.version"), System.getProperty("os.name"),
+                        System.getProperty("os.arch"), Runtime.getRuntime().availableProcessors(),
+                        Runtime.getRuntime().maxMemory() >> 20))
+                .append(String.format(Locale.ROOT, "%-16s %7s %7s %7s %7s %8s %4s %6s %9s%n",
+                        "phase", "p50 ms", "p90 ms", "p99 ms", "max ms", "draws", "gc", "gc ms", "heap MB"));
+        for (int i = 0; i < PHASES.length; i++) {
+            report.append(format(PHASES[i].name, results[i])).append(System.lineSeparator());
+        }
+
+        File file = new File(reportPath);
+        try {
+            Files.write(file.toPath(), report.toString().getBytes(StandardCharsets.UTF_8));
+            Gdx.app.log(TAG, "Report written to " + file.getAbsolutePath());
+        } catch (IOException e) {
+            Gdx.app.error(TAG, "Could not write the report to " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private String format(String name, PhaseResult result) {
+        long[] times = result.frameTimes;
+        return String.format(Locale.ROOT, "%-16s %7.2f %7.2f %7.2f %7.2f %8.1f %4d %6d %9.1f", name,
+                percentile(times, 0.5f), percentile(times, 0.9f), percentile(times, 0.99f),
+                times[times.length - 1] / 1e6f, result.drawCalls / (float) framesPerPhase,
+                result.collections, result.collectionTime, result.heapPeak / (1024f * 1024f));
+    }
+
+    private static float percentile(long[] sorted, float fraction) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6f;
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        game.resize(width, height);
+    }
+
+    @Override
+    public void pause() {
+        game.pause();
+    }
+
+    @Override
+    public void resume() {
+        game.resume();
+    }
+
+    @Override
+    public void dispose() {
+        // The game reports leaks when disposed, so give back what is shared with it first
+        if (batch != null) batch.dispose();
+        if (sprites != null) sprites.dispose();
+        if (column != null) column.dispose();
+        game.dispose();
+        if (profiler != null) profiler.disable();
+    }
+
+    // Scripted phase of the scenario
+    private static final class Phase {
+        final String name;
+        final float speed;
+        final int columns, sprites;
+
+        Phase(String name, float speed, int columns, int sprites) {
+            this.name = name;
+            this.speed = speed;
+            this.columns = columns;
+            this.sprites = sprites;
+        }
+    }
+
+    // Measurements of one phase; frame times in nanoseconds, heap in bytes
+    private static final class PhaseResult {
+        final long[] frameTimes;
+        long drawCalls;
+        long collections;
+        long collectionTime;
+        long heapPeak;
+
+        PhaseResult(int frames) {
+            frameTimes = new long[frames];
+        }
+    }
+}
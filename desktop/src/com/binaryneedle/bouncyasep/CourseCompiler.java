@@ -0,0 +1,150 @@
+package com.binaryneedle.bouncyasep;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The CourseCompiler class turns hand-authored course text files into the binary format read by {@link CourseReader}.
+ * <p>
+ * Each non-empty line of the source describes one obstacle, {@code #} starts a comment:
+ * <pre>
+ * xOffset gapY [speed [amplitude frequency]]
+ * </pre>
+ * Offsets and gap positions are in tiles, speed in pixels per second (0 keeps the current speed),
+ * amplitude in tiles and frequency in radians per second.
+ * <p>
+ * Usage: {@code CourseCompiler <source.course | directory> [output.bac | directory]}
+ */
+public class CourseCompiler {
+    private static final String SOURCE_EXTENSION = ".course";
+    private static final String BINARY_EXTENSION = ".bac";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: CourseCompiler <source.course | directory> [output.bac | directory]");
+            System.exit(1);
+        }
+
+        File source = new File(args[0]);
+        File output = args.length > 1 ? new File(args[1]) : null;
+
+        if (source.isDirectory()) {
+            File[] sources = source.listFiles((dir, name) -> name.endsWith(SOURCE_EXTENSION));
+            if (sources == null) return;
+            for (File file : sources) {
+                File directory = output != null ? output : source;
+                compile(file, new File(directory, binaryName(file)));
+            }
+        } else {
+            compile(source, output != null ? output : new File(source.getParentFile(), binaryName(source)));
+        }
+    }
+
+    private static String binaryName(File source) {
+        String name = source.getName();
+        return name.substring(0, name.length() - SOURCE_EXTENSION.length()) + BINARY_EXTENSION;
+    }
+
+    /**
+     * Compiles one course source file.
+     *
+     * @param source Course text file
+     * @param output Binary course file to write
+     * @throws IOException If the source cannot be read or contains invalid lines
+     */
+    public static void compile(File source, File output) throws IOException {
+        List<float[]> records = parse(source);
+        if (records.isEmpty()) {
+            throw new IOException(source + ": course has no obstacles");
+        }
+
+        int stride = CourseFormat.DEFAULT_INDEX_STRIDE;
+        int indexCount = (records.size() + stride - 1) / stride;
+        int recordsOffset = CourseFormat.HEADER_SIZE + indexCount * CourseFormat.INDEX_ENTRY_SIZE;
+
+        float totalLength = 0;
+        for (float[] record : records) {
+            totalLength += record[0];
+        }
+
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+            // Header
+            out.writeInt(CourseFormat.MAGIC);
+            out.writeShort(CourseFormat.VERSION);
+            out.writeShort(CourseFormat.RECORD_SIZE);
+            out.writeInt(records.size());
+            out.writeInt(stride);
+            out.writeInt(indexCount);
+            out.writeFloat(totalLength);
+
+            // Index
+            float distance = 0;
+            for (int i = 0; i < records.size(); i++) {
+                if (i % stride == 0) {
+                    out.writeFloat(distance + records.get(i)[0]);
+                    out.writeInt(recordsOffset + i * CourseFormat.RECORD_SIZE);
+                }
+                distance += records.get(i)[0];
+            }
+
+            // Records
+            for (float[] record : records) {
+                out.writeFloat(record[0]);
+                out.writeFloat(record[1]);
+                out.writeShort((int) record[2]);
+                out.writeByte(Math.round(record[3] / CourseFormat.MOTION_UNIT));
+                out.writeByte(Math.round(record[4] / CourseFormat.MOTION_UNIT));
+            }
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%s: %d obstacles, %.1f tiles -> %s (%d bytes)",
+                source.getName(), records.size(), totalLength, output, output.length()));
+    }
+
+    private static List<float[]> parse(File source) throws IOException {
+        List<float[]> records = new ArrayList<>();
+        List<String> lines = Files.readAllLines(source.toPath(), StandardCharsets.UTF_8);
+
+        for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            String line = lines.get(lineNumber - 1);
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+
+            String[] fields = line.split("\\s+");
+            if (fields.length != 2 && fields.length != 3 && fields.length != 5) {
+                throw new IOException(source + ":" + lineNumber + ": expected 'xOffset gapY [speed [amplitude frequency]]'");
+            }
+
+            float[] record = new float[5];
+            try {
+                for (int i = 0; i < fields.length; i++) {
+                    record[i] = Float.parseFloat(fields[i]);
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException(source + ":" + lineNumber + ": " + e.getMessage());
+            }
+
+            if (record[0] < 0 || record[2] < 0 || record[2] > 0xFFFF
+                    || record[3] < 0 || record[3] > 255 * CourseFormat.MOTION_UNIT
+                    || record[4] < 0 || record[4] > 255 * CourseFormat.MOTION_UNIT) {
+                throw new IOException(source + ":" + lineNumber + ": value out of range");
+            }
+            records.add(record);
+        }
+
+        return records;
+    }
+}
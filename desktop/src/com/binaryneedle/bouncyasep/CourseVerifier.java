@@ -0,0 +1,225 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The CourseVerifier class proves that generated courses can be finished, seed by seed.
+ * <p>
+ * For each seed it plays the course in a world with collisions off and follows every way the player could
+ * move: each tick, every state either jumps or not, is moved by the real {@link MainEntity} physics and is
+ * dropped if {@link Obstacle#checkCollision(MainEntity)} hits it. States are merged on a grid of height and
+ * velocity, keeping the first actual state of each cell, so a state that survives is always one a player
+ * could really be in. Merging can lose the only way through a tight spot, so a seed without states left is
+ * played again on a much finer grid before it fails; it is then reported with the gaps around the spot and
+ * the tool exits with a non-zero status. Boxes are stricter than the players' frame shapes the game collides
+ * with, so a course finishable here is finishable in the game.
+ * <p>
+ * Usage: {@code CourseVerifier [seeds] [obstacles] [firstSeed]}
+ */
+public class CourseVerifier extends ApplicationAdapter {
+    private static final String TAG = "CourseVerifier";
+    private static final float TICK_TIME = BouncyAsep.TICK_TIME;
+    private static final float PLAYER_SIZE = 56f;
+
+    // Merge grids for player states, the fine one for seeds failing on the coarse one
+    private static final float Y_CELL = 1f;
+    private static final float VELOCITY_CELL = 10f;
+    private static final float FINE_Y_CELL = 0.25f;
+    private static final float FINE_VELOCITY_CELL = 5f;
+    private static final float MIN_VELOCITY = -2000f;
+    // Gaps behind the player that are still listed when a seed fails
+    private static final int GAPS_BEHIND = 2;
+
+    private final int seedCount;
+    private final int obstacleCount;
+    private final long firstSeed;
+
+    private CourseGenerator generator;
+    private GameWorld world;
+    private MainEntity probe;
+
+    // Current merge grid
+    private float yCell;
+    private float velocityCell;
+    private int yCells;
+    private int velocityCells;
+
+    // Current and next state sets, and the tick each grid cell was last filled in
+    private float[] stateY;
+    private float[] stateVelocity;
+    private float[] nextY;
+    private float[] nextVelocity;
+    private int[] cellTick;
+
+    private int failures;
+
+    public CourseVerifier(int seedCount, int obstacleCount, long firstSeed) {
+        this.seedCount = seedCount;
+        this.obstacleCount = obstacleCount;
+        this.firstSeed = firstSeed;
+    }
+
+    public static void main(String[] args) {
+        int seeds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int obstacles = args.length > 1 ? Integer.parseInt(args[1]) : 150;
+        long firstSeed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        new HeadlessApplication(new CourseVerifier(seeds, obstacles, firstSeed), config);
+    }
+
+    @Override
+    public void create() {
+        // Shows the generator giving up on a spot, which explains a failing seed
+        Gdx.app.setLogLevel(Application.LOG_DEBUG);
+
+        // Obstacles need the world width, which would otherwise come from the game camera
+        Obstacle.setCamera(new OrthographicCamera(GameWorld.WORLD_WIDTH, GameWorld.WORLD_HEIGHT));
+
+        generator = GameWorld.createCourseGenerator(PLAYER_SIZE, PLAYER_SIZE, TICK_TIME);
+        world = new GameWorld(1, PLAYER_SIZE, PLAYER_SIZE, new WaitingCourse(generator));
+        world.setCollisionEnabled(false);
+        probe = new MainEntity(GameWorld.PLAYER_X, GameWorld.PLAYER_START_Y, PLAYER_SIZE, PLAYER_SIZE);
+
+        long start = TimeUtils.millis();
+        for (int i = 0; i < seedCount; i++) {
+            long seed = firstSeed + i;
+            setGrid(Y_CELL, VELOCITY_CELL);
+            if (verify(seed, false)) continue;
+
+            Gdx.app.log(TAG, "Seed " + seed + " failed on the coarse grid, retrying on the fine one");
+            setGrid(FINE_Y_CELL, FINE_VELOCITY_CELL);
+            if (!verify(seed, true)) {
+                failures++;
+            }
+        }
+        Gdx.app.log(TAG, String.format(Locale.ROOT, "%d of %d seeds finishable over %d obstacles in %.1f s",
+                seedCount - failures, seedCount, obstacleCount, (TimeUtils.millis() - start) / 1000f));
+        Gdx.app.exit();
+    }
+
+    /**
+     * Sets the grid states are merged on, sizing the state sets to match.
+     */
+    private void setGrid(float yCell, float velocityCell) {
+        if (this.yCell == yCell && this.velocityCell == velocityCell) return;
+
+        this.yCell = yCell;
+        this.velocityCell = velocityCell;
+        this.yCells = (int) (GameWorld.WORLD_HEIGHT / yCell) + 1;
+        this.velocityCells = (int) ((MainEntity.JUMP_POWER - MIN_VELOCITY) / velocityCell) + 1;
+        int cells = yCells * velocityCells;
+        stateY = new float[cells];
+        stateVelocity = new float[cells];
+        nextY = new float[cells];
+        nextVelocity = new float[cells];
+        cellTick = new int[cells];
+    }
+
+    /**
+     * Plays one seed until every state crashed or the player passed enough obstacles.
+     *
+     * @param report Whether to report a seed that cannot be finished
+     * @return True if some state passed every obstacle
+     */
+    private boolean verify(long seed, boolean report) {
+        world.reset(seed);
+        Arrays.fill(cellTick, -1);
+
+        int states = 1;
+        stateY[0] = GameWorld.PLAYER_START_Y;
+        stateVelocity[0] = 0f;
+        int tick = 0;
+        int mostStates = 0;
+
+        while (world.getScore(0) < obstacleCount) {
+            world.update(TICK_TIME);
+
+            int next = 0;
+            for (int s = 0; s < states; s++) {
+                for (int jump = 0; jump < 2; jump++) {
+                    probe.setY(stateY[s]);
+                    probe.setVelocity(jump == 1 ? MainEntity.JUMP_POWER : stateVelocity[s]);
+                    probe.update(TICK_TIME);
+                    if (collides()) continue;
+
+                    int cell = getCell(probe.getY(), probe.getVelocity());
+                    if (cellTick[cell] == tick) continue;
+                    cellTick[cell] = tick;
+                    nextY[next] = probe.getY();
+                    nextVelocity[next] = probe.getVelocity();
+                    next++;
+                }
+            }
+
+            float[] swap = stateY;
+            stateY = nextY;
+            nextY = swap;
+            swap = stateVelocity;
+            stateVelocity = nextVelocity;
+            nextVelocity = swap;
+            states = next;
+            mostStates = Math.max(mostStates, states);
+            tick++;
+
+            if (states == 0) {
+                if (report) {
+                    Gdx.app.error(TAG, "Seed " + seed + " cannot be finished: every path crashes after obstacle "
+                            + world.getScore(0) + " at " + world.getObstacleSpeed() + " px/s, " + describeGaps());
+                }
+                return false;
+            }
+        }
+        Gdx.app.log(TAG, String.format(Locale.ROOT, "Seed %d finishable, %d ticks, up to %d states",
+                seed, tick, mostStates));
+        return true;
+    }
+
+    private boolean collides() {
+        for (Obstacle obstacle : world.getObstacles()) {
+            if (obstacle.checkCollision(probe)) return true;
+        }
+        return false;
+    }
+
+    private int getCell(float y, float velocity) {
+        int row = Math.max(0, Math.min((int) (y / yCell), yCells - 1));
+        int column = Math.max(0, Math.min((int) ((velocity - MIN_VELOCITY) / velocityCell), velocityCells - 1));
+        return row * velocityCells + column;
+    }
+
+    /**
+     * Lists the upcoming gaps from left to right as x:y, with moving gaps marked by their amplitude.
+     */
+    private String describeGaps() {
+        Obstacle[] sorted = world.getObstacles().toArray(new Obstacle[0]);
+        Arrays.sort(sorted, (a, b) -> Float.compare(a.getX(), b.getX()));
+
+        StringBuilder gaps = new StringBuilder("gaps");
+        for (Obstacle obstacle : sorted) {
+            if (obstacle.getX() < GameWorld.PLAYER_X - GameWorld.TILE_SIZE * (GameWorld.OBSTACLE_SPACING * GAPS_BEHIND)) {
+                continue;
+            }
+            gaps.append(String.format(Locale.ROOT, " %.0f:%.0f", obstacle.getX(), obstacle.getY()));
+            if (obstacle.getGapAmplitude() > 0) {
+                gaps.append(String.format(Locale.ROOT, "~%.0f", obstacle.getGapAmplitude()));
+            }
+        }
+        return gaps.toString();
+    }
+
+    @Override
+    public void dispose() {
+        generator.dispose();
+        System.exit(failures == 0 ? 0 : 1);
+    }
+}
@@ -1,18 +1,108 @@
 package com.binaryneedle.bouncyasep;
 
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
 
 // Please note that on macOS your application needs to be started with the -XstartOnFirstThread JVM argument
 public class DesktopLauncher {
     public static void main(String[] arg) {
+        // The JVM knows how long ago it started, so startup is timed from the launch rather than from main
+        long startTime = TimeUtils.nanoTime() - ManagementFactory.getRuntimeMXBean().getUptime() * 1000000L;
+
+        // Versus mode: --server [port], --connect host[:port], --loopback [clients] [seconds]
+        if (arg.length > 0 && arg[0].equals("--server")) {
+            int port = arg.length > 1 ? Integer.parseInt(arg[1]) : NetProtocol.DEFAULT_PORT;
+            HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+            config.updatesPerSecond = NetProtocol.TICK_RATE;
+            new HeadlessApplication(new VersusServer("0.0.0.0", port), config);
+            return;
+        }
+        if (arg.length > 0 && arg[0].equals("--loopback")) {
+            int clients = arg.length > 1 ? Integer.parseInt(arg[1]) : 4;
+            int seconds = arg.length > 2 ? Integer.parseInt(arg[2]) : 30;
+            VersusLoopback.run(clients, seconds, 0f, 0);
+            return;
+        }
+
+        // Single player, with flags in any order: --sim-thread ticks the simulation on its own thread;
+        // --benchmark [frames per phase] [report file] plays the benchmark with frames uncapped.
+        // Watching runs: --autopilot plays by itself, --time-scale <0.25..64 | max> slows down or speeds up;
+        // --gpu-budget <MB> changes the GPU memory budget; --metrics [port] serves metrics on localhost
+        BouncyAsep bouncyAsep = new BouncyAsep(MappedCourseReader.FACTORY);
+        bouncyAsep.setStartTime(startTime);
+        bouncyAsep.setAssetArchive(MappedAssetArchive.FACTORY);
+        MetricsServer metrics = null;
+        boolean benchmark = false;
+        int benchmarkFrames = Benchmark.DEFAULT_FRAMES;
+        String benchmarkReport = Benchmark.DEFAULT_REPORT;
+        for (int i = 0; i < arg.length; i++) {
+            if (arg[i].equals("--sim-thread")) {
+                bouncyAsep.setSimulationRunner(new SimulationThread(BouncyAsep.TICK_TIME));
+            } else if (arg[i].equals("--benchmark")) {
+                benchmark = true;
+                if (i + 1 < arg.length && arg[i + 1].matches("\\d+")) {
+                    benchmarkFrames = Integer.parseInt(arg[++i]);
+                }
+                if (i + 1 < arg.length && !arg[i + 1].startsWith("--")) {
+                    benchmarkReport = arg[++i];
+                }
+            } else if (arg[i].equals("--autopilot")) {
+                bouncyAsep.setAutopilot(new PlanningAutopilot());
+            } else if (arg[i].equals("--time-scale") && i + 1 < arg.length) {
+                bouncyAsep.setTimeScale(arg[i + 1].equals("max") ? BouncyAsep.FASTEST : Float.parseFloat(arg[i + 1]));
+            } else if (arg[i].equals("--gpu-budget") && i + 1 < arg.length) {
+                // GPU memory budget in megabytes, for the warning and the debug overlay
+                ResourceRegistry.setBudget(Long.parseLong(arg[i + 1]) * 1024 * 1024);
+            } else if (arg[i].equals("--metrics") && metrics == null) {
+                boolean hasPort = i + 1 < arg.length && arg[i + 1].matches("\\d+");
+                metrics = startMetrics(hasPort ? Integer.parseInt(arg[i + 1]) : MetricsServer.DEFAULT_PORT);
+            }
+        }
+        ApplicationListener game = bouncyAsep;
+        if (arg.length > 1 && arg[0].equals("--connect")) {
+            game = new VersusGame(parseAddress(arg[1]));
+        }
+
+        if (benchmark) {
+            game = new Benchmark(bouncyAsep, benchmarkFrames, benchmarkReport);
+        }
+
         Lwjgl3ApplicationConfiguration config = new Lwjgl3ApplicationConfiguration();
         config.setWindowedMode(1024, 768);
-        config.setForegroundFPS(60);
+        config.setForegroundFPS(benchmark ? 0 : 60);
         config.useVsync(false);
         config.setResizable(false);
         config.setTitle("Bouncy Asep: The Game");
 //        config.setWindowIcon("icons/logo.jpg");
-        new Lwjgl3Application(new BouncyAsep(), config);
+        try {
+            new Lwjgl3Application(game, config);
+        } finally {
+            if (metrics != null) metrics.stop();
+        }
+    }
+
+    private static MetricsServer startMetrics(int port) {
+        try {
+            MetricsServer metrics = new MetricsServer(port);
+            metrics.start();
+            return metrics;
+        } catch (IOException e) {
+            System.err.println("Could not serve metrics on port " + port + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static InetSocketAddress parseAddress(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) return new InetSocketAddress(address, NetProtocol.DEFAULT_PORT);
+        return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
     }
 }
@@ -0,0 +1,198 @@
+package com.binaryneedle.bouncyasep;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.LineMetrics;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * The DistanceFieldFontGenerator class writes the distance-field font the game draws its text with.
+ * <p>
+ * Every printable ASCII glyph is rendered large, and each pixel of the small output glyph stores how far it
+ * is from the glyph's outline in its alpha channel: 0.5 on the outline, more inside, less outside, fading
+ * out over the spread. The shader of {@link com.badlogic.gdx.graphics.g2d.DistanceFieldFont} turns that back
+ * into sharp edges at any scale, so one small page serves the score, the menus and the titles.
+ * The font is written in the AngelCode text format with a single PNG page next to it.
+ * <p>
+ * Usage: {@code DistanceFieldFontGenerator <output.fnt> [font.ttf] [size] [spread]}. Without a font file the
+ * bold system sans-serif font is used.
+ */
+public class DistanceFieldFontGenerator {
+    public static final int DEFAULT_SIZE = 32;
+    public static final int DEFAULT_SPREAD = 4;
+    // Glyphs are rendered this many times larger than they are stored
+    private static final int UPSCALE = 8;
+    private static final int PAGE_WIDTH = 256;
+    private static final char FIRST_CHAR = ' ';
+    private static final char LAST_CHAR = '~';
+
+    public static void main(String[] args) throws IOException, FontFormatException {
+        if (args.length < 1) {
+            System.err.println("Usage: DistanceFieldFontGenerator <output.fnt> [font.ttf] [size] [spread]");
+            System.exit(1);
+        }
+
+        File output = new File(args[0]);
+        Font font = args.length > 1
+                ? Font.createFont(Font.TRUETYPE_FONT, new File(args[1]))
+                : new Font(Font.SANS_SERIF, Font.BOLD, 1);
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SIZE;
+        int spread = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_SPREAD;
+
+        generate(font.deriveFont((float) size * UPSCALE), size, spread, output);
+    }
+
+    /**
+     * Renders the glyphs, packs them into one page and writes the font.
+     *
+     * @param font   The font, already at {@code size * UPSCALE} points
+     * @param size   Size of the stored glyphs in pixels
+     * @param spread Distance from the outline, in stored pixels, over which the field fades out
+     * @param output The .fnt file; the page is written next to it with the same name
+     * @throws IOException If the files cannot be written
+     */
+    public static void generate(Font font, int size, int spread, File output) throws IOException {
+        FontRenderContext context = new FontRenderContext(null, true, true);
+        LineMetrics metrics = font.getLineMetrics("Ag", context);
+        int base = Math.round(metrics.getAscent() / UPSCALE);
+        int lineHeight = Math.round((metrics.getAscent() + metrics.getDescent() + metrics.getLeading()) / UPSCALE);
+
+        int count = LAST_CHAR - FIRST_CHAR + 1;
+        BufferedImage[] fields = new BufferedImage[count];
+        int[] offsetX = new int[count];
+        int[] offsetY = new int[count];
+        int[] advance = new int[count];
+        for (int i = 0; i < count; i++) {
+            GlyphVector glyph = font.createGlyphVector(context, String.valueOf((char) (FIRST_CHAR + i)));
+            advance[i] = Math.round(glyph.getGlyphMetrics(0).getAdvanceX() / UPSCALE);
+
+            Rectangle bounds = glyph.getPixelBounds(context, 0, 0);
+            if (bounds.isEmpty()) continue;
+
+            // Stored box around the outline, padded by the spread, relative to the pen on the baseline
+            int left = Math.floorDiv(bounds.x, UPSCALE) - spread;
+            int top = Math.floorDiv(bounds.y, UPSCALE) - spread;
+            int width = -Math.floorDiv(-(bounds.x + bounds.width), UPSCALE) - left + spread;
+            int height = -Math.floorDiv(-(bounds.y + bounds.height), UPSCALE) - top + spread;
+            fields[i] = toDistanceField(render(glyph, left * UPSCALE, top * UPSCALE, width * UPSCALE,
+                    height * UPSCALE), width, height, spread);
+            offsetX[i] = left;
+            offsetY[i] = base + top;
+        }
+
+        // Pack the glyphs in rows, one pixel apart so filtering never bleeds between them
+        int[] x = new int[count];
+        int[] y = new int[count];
+        int penX = 0, penY = 0, rowHeight = 0;
+        for (int i = 0; i < count; i++) {
+            if (fields[i] == null) continue;
+            if (penX + fields[i].getWidth() > PAGE_WIDTH) {
+                penX = 0;
+                penY += rowHeight + 1;
+                rowHeight = 0;
+            }
+            x[i] = penX;
+            y[i] = penY;
+            penX += fields[i].getWidth() + 1;
+            rowHeight = Math.max(rowHeight, fields[i].getHeight());
+        }
+        int pageHeight = Integer.highestOneBit(penY + rowHeight);
+        if (pageHeight < penY + rowHeight) pageHeight *= 2;
+
+        BufferedImage page = new BufferedImage(PAGE_WIDTH, pageHeight, BufferedImage.TYPE_INT_ARGB);
+        for (int i = 0; i < count; i++) {
+            if (fields[i] == null) continue;
+            page.getRaster().setRect(x[i], y[i], fields[i].getRaster());
+        }
+
+        String name = output.getName();
+        String pageName = (name.endsWith(".fnt") ? name.substring(0, name.length() - 4) : name) + ".png";
+        File pageFile = new File(output.getParentFile(), pageName);
+        if (output.getParentFile() != null) output.getParentFile().mkdirs();
+        ImageIO.write(page, "png", pageFile);
+
+        try (PrintWriter writer = new PrintWriter(output, StandardCharsets.UTF_8.name())) {
+            writer.println(String.format(Locale.ROOT, "info face=\"%s\" size=%d bold=0 italic=0 charset=\"\" unicode=1 "
+                    + "stretchH=100 smooth=1 aa=1 padding=%d,%d,%d,%d spacing=1,1",
+                    font.getFontName(Locale.ROOT), size, spread, spread, spread, spread));
+            writer.println(String.format(Locale.ROOT, "common lineHeight=%d base=%d scaleW=%d scaleH=%d pages=1 packed=0",
+                    lineHeight, base, PAGE_WIDTH, pageHeight));
+            writer.println(String.format(Locale.ROOT, "page id=0 file=\"%s\"", pageName));
+            writer.println("chars count=" + count);
+            for (int i = 0; i < count; i++) {
+                int width = fields[i] == null ? 0 : fields[i].getWidth();
+                int height = fields[i] == null ? 0 : fields[i].getHeight();
+                writer.println(String.format(Locale.ROOT, "char id=%d x=%d y=%d width=%d height=%d xoffset=%d "
+                        + "yoffset=%d xadvance=%d page=0 chnl=0",
+                        FIRST_CHAR + i, x[i], y[i], width, height, offsetX[i], offsetY[i], advance[i]));
+            }
+        }
+        System.out.println(String.format(Locale.ROOT, "%s: %d glyphs on a %dx%d page",
+                output.getPath(), count, PAGE_WIDTH, pageHeight));
+    }
+
+    /**
+     * Renders a glyph in white on a transparent image.
+     */
+    private static BufferedImage render(GlyphVector glyph, int left, int top, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(Color.WHITE);
+        graphics.fill(glyph.getOutline(-left, -top));
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * Samples the large rendering at the center of every stored pixel and finds the nearest pixel on the
+     * other side of the outline within the spread.
+     */
+    private static BufferedImage toDistanceField(BufferedImage glyph, int width, int height, int spread) {
+        int range = spread * UPSCALE;
+        int glyphWidth = glyph.getWidth();
+        int glyphHeight = glyph.getHeight();
+        boolean[] inside = new boolean[glyphWidth * glyphHeight];
+        for (int y = 0; y < glyphHeight; y++) {
+            for (int x = 0; x < glyphWidth; x++) {
+                inside[y * glyphWidth + x] = (glyph.getRaster().getSample(x, y, 0) & 0xff) >= 128;
+            }
+        }
+
+        BufferedImage field = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int fy = 0; fy < height; fy++) {
+            for (int fx = 0; fx < width; fx++) {
+                int cx = fx * UPSCALE + UPSCALE / 2;
+                int cy = fy * UPSCALE + UPSCALE / 2;
+                boolean in = inside[cy * glyphWidth + cx];
+
+                int nearest = range * range;
+                for (int y = Math.max(0, cy - range); y <= Math.min(glyphHeight - 1, cy + range); y++) {
+                    for (int x = Math.max(0, cx - range); x <= Math.min(glyphWidth - 1, cx + range); x++) {
+                        if (inside[y * glyphWidth + x] != in) {
+                            nearest = Math.min(nearest, (x - cx) * (x - cx) + (y - cy) * (y - cy));
+                        }
+                    }
+                }
+
+                float distance = (float) Math.sqrt(nearest) / range;
+                float value = in ? 0.5f + distance / 2 : 0.5f - distance / 2;
+                int alpha = Math.max(0, Math.min(255, Math.round(value * 255)));
+                field.setRGB(fx, fy, alpha << 24 | 0xffffff);
+            }
+        }
+        return field;
+    }
+}
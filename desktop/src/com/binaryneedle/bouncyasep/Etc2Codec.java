@@ -0,0 +1,401 @@
+package com.binaryneedle.bouncyasep;
+
+/**
+ * The Etc2Codec class encodes and decodes {@code GL_COMPRESSED_RGBA8_ETC2_EAC} textures in software.
+ * <p>
+ * Every 4x4 block takes 16 bytes: an 8 byte EAC block for alpha followed by an 8 byte color block.
+ * The color encoder only produces the individual and differential modes, which are also valid ETC1,
+ * and the decoder only accepts those modes, so it serves to verify this encoder's output rather than
+ * arbitrary ETC2 files. Pixels are packed as {@code 0xAARRGGBB} ints, row by row.
+ */
+public final class Etc2Codec {
+    public static final int GL_COMPRESSED_RGBA8_ETC2_EAC = 0x9278;
+    public static final int BLOCK_BYTES = 16;
+
+    // Intensity modifiers of the color block, by table codeword
+    private static final int[][] COLOR_MODIFIERS = {
+            {2, 8, -2, -8}, {5, 17, -5, -17}, {9, 29, -9, -29}, {13, 42, -13, -42},
+            {18, 60, -18, -60}, {24, 80, -24, -80}, {33, 106, -33, -106}, {47, 183, -47, -183}
+    };
+    // Alpha modifiers of the EAC block, by table index
+    private static final int[][] ALPHA_MODIFIERS = {
+            {-3, -6, -9, -15, 2, 5, 8, 14}, {-3, -7, -10, -13, 2, 6, 9, 12},
+            {-2, -5, -8, -13, 1, 4, 7, 12}, {-2, -4, -6, -13, 1, 3, 5, 12},
+            {-3, -6, -8, -12, 2, 5, 7, 11}, {-3, -7, -9, -11, 2, 6, 8, 10},
+            {-4, -7, -8, -11, 3, 6, 7, 10}, {-3, -5, -8, -11, 2, 4, 7, 10},
+            {-2, -6, -8, -10, 1, 5, 7, 9}, {-2, -5, -8, -10, 1, 4, 7, 9},
+            {-2, -4, -8, -10, 1, 3, 7, 9}, {-2, -5, -7, -10, 1, 4, 6, 9},
+            {-3, -4, -7, -10, 2, 3, 6, 9}, {-1, -2, -3, -10, 0, 1, 2, 9},
+            {-4, -6, -8, -9, 3, 5, 7, 8}, {-3, -5, -7, -9, 2, 4, 6, 8}
+    };
+    // Table with a zero modifier, used for blocks of constant alpha
+    private static final int CONSTANT_ALPHA_TABLE = 13;
+    private static final int CONSTANT_ALPHA_INDEX = 4;
+
+    private Etc2Codec() {
+    }
+
+    /**
+     * Gets the size of a compressed image.
+     *
+     * @param width  Image width in pixels
+     * @param height Image height in pixels
+     * @return Size in bytes
+     */
+    public static int getCompressedSize(int width, int height) {
+        return ((width + 3) / 4) * ((height + 3) / 4) * BLOCK_BYTES;
+    }
+
+    /**
+     * Compresses an image.
+     *
+     * @param pixels ARGB pixels, row by row
+     * @param width  Image width
+     * @param height Image height
+     * @return The compressed blocks, row by row
+     */
+    public static byte[] encode(int[] pixels, int width, int height) {
+        byte[] out = new byte[getCompressedSize(width, height)];
+        int[] block = new int[16];
+        int offset = 0;
+
+        for (int by = 0; by < height; by += 4) {
+            for (int bx = 0; bx < width; bx += 4) {
+                // Gather the block in ETC pixel order (column by column), clamping at the edges
+                for (int x = 0; x < 4; x++) {
+                    for (int y = 0; y < 4; y++) {
+                        int px = Math.min(bx + x, width - 1);
+                        int py = Math.min(by + y, height - 1);
+                        block[x * 4 + y] = pixels[py * width + px];
+                    }
+                }
+                writeLong(out, offset, encodeAlpha(block));
+                writeLong(out, offset + 8, encodeColor(block));
+                offset += BLOCK_BYTES;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Decompresses an image produced by {@link #encode(int[], int, int)}.
+     *
+     * @param data   The compressed blocks
+     * @param width  Image width
+     * @param height Image height
+     * @return ARGB pixels, row by row
+     */
+    public static int[] decode(byte[] data, int width, int height) {
+        int[] pixels = new int[width * height];
+        int[] alpha = new int[16];
+        int[] rgb = new int[16];
+        int offset = 0;
+
+        for (int by = 0; by < height; by += 4) {
+            for (int bx = 0; bx < width; bx += 4) {
+                decodeAlpha(readLong(data, offset), alpha);
+                decodeColor(readLong(data, offset + 8), rgb);
+                offset += BLOCK_BYTES;
+
+                for (int x = 0; x < 4 && bx + x < width; x++) {
+                    for (int y = 0; y < 4 && by + y < height; y++) {
+                        int j = x * 4 + y;
+                        pixels[(by + y) * width + bx + x] = (alpha[j] << 24) | rgb[j];
+                    }
+                }
+            }
+        }
+        return pixels;
+    }
+
+    // Alpha (EAC)
+
+    private static long encodeAlpha(int[] block) {
+        int min = 255, max = 0;
+        for (int pixel : block) {
+            int a = pixel >>> 24;
+            min = Math.min(min, a);
+            max = Math.max(max, a);
+        }
+
+        if (min == max) {
+            return packAlpha(min, 1, CONSTANT_ALPHA_TABLE, CONSTANT_ALPHA_INDEX, block, null);
+        }
+
+        long best = 0;
+        int bestError = Integer.MAX_VALUE;
+        int[] indices = new int[16];
+        for (int table = 0; table < ALPHA_MODIFIERS.length && bestError > 0; table++) {
+            int[] modifiers = ALPHA_MODIFIERS[table];
+            int low = modifiers[3], high = modifiers[7];
+
+            for (int multiplier = 1; multiplier <= 15 && bestError > 0; multiplier++) {
+                // Center the table's range on the block's range, then try the neighbouring bases
+                int center = Math.round((min + max) / 2f - (low + high) * multiplier / 2f);
+                for (int base = center - 2; base <= center + 2; base++) {
+                    if (base < 0 || base > 255) continue;
+
+                    int error = 0;
+                    for (int j = 0; j < 16 && error < bestError; j++) {
+                        int a = block[j] >>> 24;
+                        int bestIndexError = Integer.MAX_VALUE;
+                        for (int i = 0; i < 8; i++) {
+                            int diff = clamp(base + modifiers[i] * multiplier) - a;
+                            if (diff * diff < bestIndexError) {
+                                bestIndexError = diff * diff;
+                                indices[j] = i;
+                            }
+                        }
+                        error += bestIndexError;
+                    }
+
+                    if (error < bestError) {
+                        bestError = error;
+                        best = packAlpha(base, multiplier, table, 0, block, indices);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static long packAlpha(int base, int multiplier, int table, int constantIndex, int[] block, int[] indices) {
+        long bits = ((long) base << 56) | ((long) multiplier << 52) | ((long) table << 48);
+        for (int j = 0; j < 16; j++) {
+            long index = indices != null ? indices[j] : constantIndex;
+            bits |= index << (45 - 3 * j);
+        }
+        return bits;
+    }
+
+    private static void decodeAlpha(long bits, int[] out) {
+        int base = (int) (bits >>> 56) & 0xFF;
+        int multiplier = (int) (bits >>> 52) & 0xF;
+        int[] modifiers = ALPHA_MODIFIERS[(int) (bits >>> 48) & 0xF];
+        for (int j = 0; j < 16; j++) {
+            int index = (int) (bits >>> (45 - 3 * j)) & 0x7;
+            out[j] = clamp(base + modifiers[index] * multiplier);
+        }
+    }
+
+    // Color (individual and differential modes)
+
+    private static long encodeColor(int[] block) {
+        long best = 0;
+        long bestError = Long.MAX_VALUE;
+        int[] first = new int[3], second = new int[3];
+
+        for (int flip = 0; flip < 2; flip++) {
+            averageSubblock(block, flip, 0, first);
+            averageSubblock(block, flip, 1, second);
+
+            // Differential mode: 5 bit base and a 3 bit signed difference per channel
+            int[] base1 = new int[3], base2 = new int[3];
+            boolean differential = true;
+            for (int c = 0; c < 3; c++) {
+                base1[c] = Math.round(first[c] * 31 / 255f);
+                base2[c] = Math.round(second[c] * 31 / 255f);
+                int delta = base2[c] - base1[c];
+                if (delta < -4 || delta > 3) differential = false;
+            }
+            if (differential) {
+                long bits = encodeSubblocks(block, flip, true, base1, base2);
+                long error = blockError(block, bits);
+                if (error < bestError) {
+                    bestError = error;
+                    best = bits;
+                }
+            }
+
+            // Individual mode: two independent 4 bit colors
+            for (int c = 0; c < 3; c++) {
+                base1[c] = Math.round(first[c] * 15 / 255f);
+                base2[c] = Math.round(second[c] * 15 / 255f);
+            }
+            long bits = encodeSubblocks(block, flip, false, base1, base2);
+            long error = blockError(block, bits);
+            if (error < bestError) {
+                bestError = error;
+                best = bits;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Averages the color of a subblock, ignoring fully transparent pixels whose color is never seen.
+     */
+    private static void averageSubblock(int[] block, int flip, int subblock, int[] out) {
+        int r = 0, g = 0, b = 0, count = 0;
+        for (int j = 0; j < 16; j++) {
+            if (subblockOf(j, flip) != subblock || (block[j] >>> 24) == 0) continue;
+            r += (block[j] >> 16) & 0xFF;
+            g += (block[j] >> 8) & 0xFF;
+            b += block[j] & 0xFF;
+            count++;
+        }
+        if (count == 0) {
+            out[0] = out[1] = out[2] = 0;
+        } else {
+            out[0] = Math.round(r / (float) count);
+            out[1] = Math.round(g / (float) count);
+            out[2] = Math.round(b / (float) count);
+        }
+    }
+
+    private static long encodeSubblocks(int[] block, int flip, boolean differential, int[] base1, int[] base2) {
+        long bits;
+        int[] color1 = new int[3], color2 = new int[3];
+        if (differential) {
+            bits = ((long) base1[0] << 59) | ((long) ((base2[0] - base1[0]) & 7) << 56)
+                    | ((long) base1[1] << 51) | ((long) ((base2[1] - base1[1]) & 7) << 48)
+                    | ((long) base1[2] << 43) | ((long) ((base2[2] - base1[2]) & 7) << 40)
+                    | (1L << 33);
+            for (int c = 0; c < 3; c++) {
+                color1[c] = extend5(base1[c]);
+                color2[c] = extend5(base2[c]);
+            }
+        } else {
+            bits = ((long) base1[0] << 60) | ((long) base2[0] << 56)
+                    | ((long) base1[1] << 52) | ((long) base2[1] << 48)
+                    | ((long) base1[2] << 44) | ((long) base2[2] << 40);
+            for (int c = 0; c < 3; c++) {
+                color1[c] = extend4(base1[c]);
+                color2[c] = extend4(base2[c]);
+            }
+        }
+        bits |= (long) flip << 32;
+
+        bits |= encodeSubblockIndices(block, flip, 0, color1, 37);
+        bits |= encodeSubblockIndices(block, flip, 1, color2, 34);
+        return bits;
+    }
+
+    /**
+     * Picks the modifier table of a subblock and the modifier of each of its pixels.
+     *
+     * @return The table codeword at its bit position, combined with the pixel index bits
+     */
+    private static long encodeSubblockIndices(int[] block, int flip, int subblock, int[] color, int tableShift) {
+        long bestBits = 0;
+        long bestError = Long.MAX_VALUE;
+
+        for (int table = 0; table < COLOR_MODIFIERS.length; table++) {
+            long bits = (long) table << tableShift;
+            long error = 0;
+            for (int j = 0; j < 16; j++) {
+                if (subblockOf(j, flip) != subblock) continue;
+
+                int bestIndex = 0;
+                int bestPixelError = Integer.MAX_VALUE;
+                for (int i = 0; i < 4; i++) {
+                    int pixelError = colorError(block[j], modify(color, COLOR_MODIFIERS[table][i]));
+                    if (pixelError < bestPixelError) {
+                        bestPixelError = pixelError;
+                        bestIndex = i;
+                    }
+                }
+                error += bestPixelError;
+                bits |= (long) (bestIndex >> 1) << (16 + j);
+                bits |= (long) (bestIndex & 1) << j;
+            }
+            if (error < bestError) {
+                bestError = error;
+                bestBits = bits;
+            }
+        }
+        return bestBits;
+    }
+
+    private static long blockError(int[] block, long bits) {
+        int[] decoded = new int[16];
+        decodeColor(bits, decoded);
+        long error = 0;
+        for (int j = 0; j < 16; j++) {
+            error += colorError(block[j], decoded[j]);
+        }
+        return error;
+    }
+
+    private static void decodeColor(long bits, int[] out) {
+        int[] color1 = new int[3], color2 = new int[3];
+        boolean differential = ((bits >>> 33) & 1) != 0;
+        int flip = (int) (bits >>> 32) & 1;
+
+        if (differential) {
+            for (int c = 0; c < 3; c++) {
+                int shift = 59 - c * 8;
+                int base = (int) (bits >>> shift) & 0x1F;
+                int delta = ((int) (bits >>> (shift - 3)) & 0x7) << 29 >> 29;
+                if (base + delta < 0 || base + delta > 31) {
+                    throw new IllegalArgumentException("ETC2 T, H and planar blocks are not supported");
+                }
+                color1[c] = extend5(base);
+                color2[c] = extend5(base + delta);
+            }
+        } else {
+            for (int c = 0; c < 3; c++) {
+                int shift = 60 - c * 8;
+                color1[c] = extend4((int) (bits >>> shift) & 0xF);
+                color2[c] = extend4((int) (bits >>> (shift - 4)) & 0xF);
+            }
+        }
+
+        int[] modifiers1 = COLOR_MODIFIERS[(int) (bits >>> 37) & 0x7];
+        int[] modifiers2 = COLOR_MODIFIERS[(int) (bits >>> 34) & 0x7];
+        for (int j = 0; j < 16; j++) {
+            int index = (int) (((bits >>> (16 + j)) & 1) << 1 | ((bits >>> j) & 1));
+            boolean firstSubblock = subblockOf(j, flip) == 0;
+            out[j] = modify(firstSubblock ? color1 : color2, (firstSubblock ? modifiers1 : modifiers2)[index]);
+        }
+    }
+
+    /**
+     * Gets the subblock of a pixel; without flip the block is split into left and right halves,
+     * with flip into top and bottom halves.
+     */
+    private static int subblockOf(int j, int flip) {
+        return flip == 0 ? (j / 4 < 2 ? 0 : 1) : (j % 4 < 2 ? 0 : 1);
+    }
+
+    private static int modify(int[] color, int modifier) {
+        return (clamp(color[0] + modifier) << 16) | (clamp(color[1] + modifier) << 8) | clamp(color[2] + modifier);
+    }
+
+    /**
+     * Squared color difference; fully transparent source pixels can take any color.
+     */
+    private static int colorError(int source, int rgb) {
+        if ((source >>> 24) == 0) return 0;
+        int dr = ((source >> 16) & 0xFF) - ((rgb >> 16) & 0xFF);
+        int dg = ((source >> 8) & 0xFF) - ((rgb >> 8) & 0xFF);
+        int db = (source & 0xFF) - (rgb & 0xFF);
+        return dr * dr + dg * dg + db * db;
+    }
+
+    private static int extend4(int value) {
+        return (value << 4) | value;
+    }
+
+    private static int extend5(int value) {
+        return (value << 3) | (value >> 2);
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+
+    private static void writeLong(byte[] out, int offset, long value) {
+        for (int i = 0; i < 8; i++) {
+            out[offset + i] = (byte) (value >>> (56 - i * 8));
+        }
+    }
+
+    private static long readLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
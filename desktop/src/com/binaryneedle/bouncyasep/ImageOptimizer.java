@@ -0,0 +1,94 @@
+package com.binaryneedle.bouncyasep;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Locale;
+
+/**
+ * The ImageOptimizer class shrinks the PNG assets without changing a single pixel.
+ * <p>
+ * Every image is re-encoded, which drops metadata chunks and unused color information, and the result
+ * is kept only if it is smaller and decodes to exactly the same pixels. This mostly matters for the web
+ * build, where every byte is downloaded before the game can use it.
+ * <p>
+ * Usage: {@code ImageOptimizer <directory | image.png>...}
+ */
+public class ImageOptimizer {
+    private static long totalBefore;
+    private static long totalAfter;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ImageOptimizer <directory | image.png>...");
+            System.exit(1);
+        }
+
+        for (String arg : args) {
+            optimize(new File(arg));
+        }
+        System.out.println(String.format(Locale.ROOT, "Total: %d -> %d bytes", totalBefore, totalAfter));
+    }
+
+    private static void optimize(File file) throws IOException {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null) return;
+            for (File child : children) {
+                optimize(child);
+            }
+        } else if (file.getName().toLowerCase(Locale.ROOT).endsWith(".png")) {
+            optimizeImage(file);
+        }
+    }
+
+    /**
+     * Re-encodes one image, replacing it only if the result is smaller and lossless.
+     *
+     * @param file The PNG file
+     * @throws IOException If the file cannot be read or written
+     */
+    public static void optimizeImage(File file) throws IOException {
+        byte[] original = Files.readAllBytes(file.toPath());
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(original));
+        if (image == null) {
+            throw new IOException(file + ": not a readable image");
+        }
+
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(original.length);
+        ImageIO.write(image, "png", encoded);
+        byte[] result = encoded.toByteArray();
+
+        boolean keep = result.length < original.length
+                && samePixels(image, ImageIO.read(new ByteArrayInputStream(result)));
+        if (keep) {
+            Files.write(file.toPath(), result);
+        }
+
+        totalBefore += original.length;
+        totalAfter += keep ? result.length : original.length;
+        System.out.println(String.format(Locale.ROOT, "%s: %d -> %d bytes%s",
+                file.getPath(), original.length, result.length, keep ? "" : " (kept original)"));
+    }
+
+    private static boolean samePixels(BufferedImage a, BufferedImage b) {
+        if (b == null || a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight()) return false;
+
+        int width = a.getWidth();
+        int[] rowA = new int[width];
+        int[] rowB = new int[width];
+        for (int y = 0; y < a.getHeight(); y++) {
+            a.getRGB(0, y, width, 1, rowA, 0, width);
+            b.getRGB(0, y, width, 1, rowB, 0, width);
+            for (int x = 0; x < width; x++) {
+                // Fully transparent pixels may change color without changing the image
+                if (rowA[x] != rowB[x] && ((rowA[x] | rowB[x]) >>> 24) != 0) return false;
+            }
+        }
+        return true;
+    }
+}
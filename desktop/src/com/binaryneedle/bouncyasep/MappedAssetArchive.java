@@ -0,0 +1,125 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.files.FileHandle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The MappedAssetArchive class serves an asset archive through a read-only memory mapping.
+ * Opening it maps the file and decodes the index; the contents of a packed file are paged in by the
+ * operating system as they are read, so the archive never has to be copied onto the heap.
+ */
+public class MappedAssetArchive extends AssetArchive {
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    /**
+     * Opens archives with a memory mapping when they live on the file system,
+     * and falls back to reading them whole when packed on the classpath.
+     */
+    public static final AssetArchive.Factory FACTORY = new AssetArchive.Factory() {
+        @Override
+        public AssetArchive open(FileHandle file) {
+            if (file.type() != Files.FileType.Classpath && file.file().exists()) {
+                return new MappedAssetArchive(file);
+            }
+            return new StreamAssetArchive(file);
+        }
+    };
+
+    /**
+     * Maps an asset archive into memory.
+     *
+     * @param file The archive, which must exist on the local file system
+     */
+    public MappedAssetArchive(FileHandle file) {
+        try {
+            channel = FileChannel.open(file.file().toPath(), StandardOpenOption.READ);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            readIndex(openEntry(0, buffer.capacity()));
+        } catch (IOException e) {
+            dispose();
+            throw new RuntimeException("Could not map asset archive " + file.path(), e);
+        }
+    }
+
+    @Override
+    protected int size() {
+        return buffer.capacity();
+    }
+
+    @Override
+    protected InputStream openEntry(int offset, int length) {
+        return new BufferInputStream(slice(offset, length));
+    }
+
+    @Override
+    protected void readEntry(int offset, byte[] bytes) {
+        slice(offset, bytes.length).get(bytes);
+    }
+
+    /**
+     * Gets a view of a range of the mapping with a position of its own, so entries can be read
+     * from any thread.
+     */
+    private ByteBuffer slice(int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        // Casts keep the Java 8 signatures when built with a newer JDK
+        ((Buffer) view).limit(offset + length);
+        ((Buffer) view).position(offset);
+        return view;
+    }
+
+    @Override
+    public void dispose() {
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+
+    /**
+     * The BufferInputStream class streams the remaining bytes of a buffer.
+     */
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+            ((Buffer) buffer).position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.files.FileHandle;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The MappedCourseReader class reads course files through a read-only memory mapping.
+ * Records are paged in by the operating system as they are read, so the course never
+ * has to be copied onto the heap.
+ */
+public class MappedCourseReader extends CourseReader {
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    /**
+     * Opens course files with a memory mapping when they live on the file system,
+     * and falls back to streaming for files packed on the classpath or in the asset archive,
+     * whose loose copy may be stale or missing.
+     */
+    public static final CourseReader.Factory FACTORY = new CourseReader.Factory() {
+        @Override
+        public CourseReader open(FileHandle file) {
+            if (file.type() != Files.FileType.Classpath && !(file instanceof ArchiveFileHandle)
+                    && file.file().exists()) {
+                return new MappedCourseReader(file);
+            }
+            return new StreamCourseReader(file);
+        }
+    };
+
+    /**
+     * Maps a course file into memory.
+     *
+     * @param file The course file, which must exist on the local file system
+     */
+    public MappedCourseReader(FileHandle file) {
+        try {
+            channel = FileChannel.open(file.file().toPath(), StandardOpenOption.READ);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            readHeader();
+        } catch (IOException e) {
+            dispose();
+            throw new RuntimeException("Could not map course " + file.path(), e);
+        }
+    }
+
+    @Override
+    protected void position(int offset) {
+        // Cast keeps the Java 8 signature when built with a newer JDK
+        ((Buffer) buffer).position(offset);
+    }
+
+    @Override
+    protected int readInt() {
+        return buffer.getInt();
+    }
+
+    @Override
+    protected float readFloat() {
+        return buffer.getFloat();
+    }
+
+    @Override
+    protected short readShort() {
+        return buffer.getShort();
+    }
+
+    @Override
+    protected byte readByte() {
+        return buffer.get();
+    }
+
+    @Override
+    public void dispose() {
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+}
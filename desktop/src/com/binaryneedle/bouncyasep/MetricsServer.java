@@ -0,0 +1,165 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.utils.Array;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The MetricsServer class serves the game's {@link Metrics} over HTTP in the Prometheus text format, so
+ * dashboards can scrape long-running sessions.
+ * <p>
+ * The server only listens on the loopback interface, at {@code http://localhost:<port>/metrics}, and
+ * answers on a thread of its own; the game only records into the lock-free metrics. Besides the game's
+ * metrics it exports the JVM heap and a histogram of garbage collection pauses. Pauses are taken from the
+ * collectors' notifications, leaving out the cycles concurrent collectors run alongside the game.
+ */
+public class MetricsServer {
+    private static final String TAG = "MetricsServer";
+    public static final int DEFAULT_PORT = 9464;
+    private static final String PREFIX = "bouncyasep_";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final long MS = 1000000L;
+    private static final long[] PAUSE_BOUNDS = {MS, 2 * MS, 5 * MS, 10 * MS, 20 * MS, 50 * MS, 100 * MS,
+            200 * MS, 500 * MS, 1000 * MS};
+
+    private final HttpServer server;
+
+    /**
+     * Registers the JVM metrics and opens the endpoint. Call {@link #start()} to serve it.
+     *
+     * @param port Local port to listen on
+     * @throws IOException If the port cannot be bound
+     */
+    public MetricsServer(int port) throws IOException {
+        registerJvmMetrics();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", this::handle);
+    }
+
+    public void start() {
+        server.start();
+        System.out.println(TAG + ": serving metrics at http://localhost:" + server.getAddress().getPort() + "/metrics");
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private static void registerJvmMetrics() {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Metrics.gauge(new Metrics.Gauge("heap_used_bytes", "Heap in use.") {
+            @Override
+            public double get() {
+                return memory.getHeapMemoryUsage().getUsed();
+            }
+        });
+        Metrics.gauge(new Metrics.Gauge("heap_committed_bytes", "Heap the JVM has reserved from the system.") {
+            @Override
+            public double get() {
+                return memory.getHeapMemoryUsage().getCommitted();
+            }
+        });
+        Metrics.gauge(new Metrics.Gauge("heap_max_bytes", "Largest heap the JVM may grow to, -1 if unbounded.") {
+            @Override
+            public double get() {
+                return memory.getHeapMemoryUsage().getMax();
+            }
+        });
+
+        Metrics.Histogram pauses = Metrics.histogram("gc_pause_seconds", "Garbage collection pauses.", PAUSE_BOUNDS);
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            // Concurrent cycles run beside the application and do not pause it
+            String name = collector.getName();
+            if (!(collector instanceof NotificationEmitter) || name.contains("Concurrent") || name.contains("Cycles")) {
+                continue;
+            }
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                pauses.record(info.getGcInfo().getDuration() * MS);
+            }, null, null);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = format().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if (method.equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Writes every registered metric in the Prometheus text exposition format. The registry is walked by
+     * index, as libGDX arrays share their iterators.
+     */
+    static String format() {
+        StringBuilder text = new StringBuilder(4096);
+        Array<Metrics.Counter> counters = Metrics.getCounters();
+        for (int i = 0; i < counters.size; i++) {
+            Metrics.Counter counter = counters.get(i);
+            header(text, counter.getName(), counter.getHelp(), "counter");
+            text.append(PREFIX).append(counter.getName()).append(' ').append(counter.get()).append('\n');
+        }
+        Array<Metrics.Gauge> gauges = Metrics.getGauges();
+        for (int i = 0; i < gauges.size; i++) {
+            Metrics.Gauge gauge = gauges.get(i);
+            header(text, gauge.getName(), gauge.getHelp(), "gauge");
+            text.append(PREFIX).append(gauge.getName()).append(' ').append(gauge.get()).append('\n');
+        }
+        Array<Metrics.Histogram> histograms = Metrics.getHistograms();
+        for (int i = 0; i < histograms.size; i++) {
+            Metrics.Histogram histogram = histograms.get(i);
+            String name = PREFIX + histogram.getName();
+            header(text, histogram.getName(), histogram.getHelp(), "histogram");
+
+            // Buckets are cumulative, and the count is their total so both agree within a scrape
+            long count = 0;
+            int last = histogram.getBucketCount() - 1;
+            for (int bucket = 0; bucket <= last; bucket++) {
+                count += histogram.getCount(bucket);
+                String bound = bucket == last ? "+Inf" : Double.toString(histogram.getBound(bucket) / 1e9);
+                text.append(name).append("_bucket{le=\"").append(bound).append("\"} ").append(count).append('\n');
+            }
+            text.append(name).append("_sum ").append(histogram.getSum() / 1e9).append('\n');
+            text.append(name).append("_count ").append(count).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void header(StringBuilder text, String name, String help, String type) {
+        text.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+}
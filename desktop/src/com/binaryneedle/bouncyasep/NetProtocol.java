@@ -0,0 +1,213 @@
+package com.binaryneedle.bouncyasep;
+
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * The NetProtocol class defines the UDP messages of the versus mode and the snapshot codec.
+ * <p>
+ * The world is flattened into a fixed vector of quantized ints ({@link #FIELD_COUNT} fields).
+ * Snapshots are sent as a delta against the last state the client acknowledged: a bitmask of changed
+ * fields followed by the zigzag varint difference of each changed field. A client that has not
+ * acknowledged anything recent receives a delta against the all-zero vector, i.e. a full state.
+ */
+public final class NetProtocol {
+    public static final int PROTOCOL_VERSION = 1;
+    public static final int DEFAULT_PORT = 27960;
+    public static final int MAX_PLAYERS = 8;
+    public static final int TICK_RATE = 60;
+    public static final float TICK_TIME = 1f / TICK_RATE;
+    public static final int MAX_PACKET_SIZE = 1200;
+    // Snapshots kept for delta baselines, about one second
+    public static final int HISTORY_SIZE = 64;
+    // Unacknowledged jumps resent with every input packet
+    public static final int MAX_INPUT_JUMPS = 16;
+    // Collision box of every player, shared so predictions match the server
+    public static final float PLAYER_SIZE = 56f;
+
+    // Client to server
+    public static final byte HELLO = 1;
+    public static final byte INPUT = 2;
+    public static final byte BYE = 3;
+    // Server to client
+    public static final byte WELCOME = 10;
+    public static final byte FULL = 11;
+    public static final byte SNAPSHOT = 12;
+
+    // Race phases
+    public static final int PHASE_WAITING = 0;
+    public static final int PHASE_COUNTDOWN = 1;
+    public static final int PHASE_RACING = 2;
+    public static final int PHASE_FINISHED = 3;
+
+    // Quantization of positions and velocities
+    public static final float POSITION_SCALE = 256f;
+
+    // State vector layout
+    public static final int FIELD_TICK = 0;
+    public static final int FIELD_PHASE = 1;
+    public static final int FIELD_RACE_START = 2;
+    public static final int FIELD_CONNECTED = 3;
+    public static final int FIELD_SPEED = 4;
+    private static final int PLAYER_BASE = 5;
+    private static final int PLAYER_FIELDS = 4;
+    private static final int OBSTACLE_BASE = PLAYER_BASE + MAX_PLAYERS * PLAYER_FIELDS;
+    private static final int OBSTACLE_FIELDS = 3;
+    public static final int FIELD_COUNT = OBSTACLE_BASE + GameWorld.OBSTACLE_COUNT * OBSTACLE_FIELDS;
+    private static final int MASK_BYTES = (FIELD_COUNT + 7) / 8;
+
+    private NetProtocol() {
+    }
+
+    public static int quantize(float value) {
+        return Math.round(value * POSITION_SCALE);
+    }
+
+    public static float dequantize(int value) {
+        return value / POSITION_SCALE;
+    }
+
+    /**
+     * Flattens the world into a state vector.
+     *
+     * @param world     The authoritative world
+     * @param tick      Current server tick
+     * @param phase     Current race phase
+     * @param raceStart Tick of the first simulated race tick
+     * @param connected Bitmask of connected players
+     * @param out       Vector of {@link #FIELD_COUNT} ints to fill
+     */
+    public static void writeState(GameWorld world, int tick, int phase, int raceStart, int connected, int[] out) {
+        out[FIELD_TICK] = tick;
+        out[FIELD_PHASE] = phase;
+        out[FIELD_RACE_START] = raceStart;
+        out[FIELD_CONNECTED] = connected;
+        out[FIELD_SPEED] = quantize(world.getObstacleSpeed());
+
+        for (int p = 0; p < MAX_PLAYERS; p++) {
+            int base = PLAYER_BASE + p * PLAYER_FIELDS;
+            if (p < world.getPlayerCount()) {
+                MainEntity player = world.getPlayer(p);
+                out[base] = quantize(player.getY());
+                out[base + 1] = quantize(player.getVelocity());
+                out[base + 2] = world.isAlive(p) ? 1 : 0;
+                out[base + 3] = world.getScore(p);
+            } else {
+                out[base] = out[base + 1] = out[base + 2] = out[base + 3] = 0;
+            }
+        }
+
+        List<Obstacle> obstacles = world.getObstacles();
+        for (int o = 0; o < GameWorld.OBSTACLE_COUNT; o++) {
+            int base = OBSTACLE_BASE + o * OBSTACLE_FIELDS;
+            Obstacle obstacle = obstacles.get(o);
+            out[base] = quantize(obstacle.getX());
+            out[base + 1] = quantize(obstacle.getY());
+            out[base + 2] = obstacle.isPassed() ? 1 : 0;
+        }
+    }
+
+    // State vector accessors
+
+    public static float getPlayerY(int[] state, int player) {
+        return dequantize(state[PLAYER_BASE + player * PLAYER_FIELDS]);
+    }
+
+    public static float getPlayerVelocity(int[] state, int player) {
+        return dequantize(state[PLAYER_BASE + player * PLAYER_FIELDS + 1]);
+    }
+
+    public static boolean isPlayerAlive(int[] state, int player) {
+        return state[PLAYER_BASE + player * PLAYER_FIELDS + 2] != 0;
+    }
+
+    public static int getPlayerScore(int[] state, int player) {
+        return state[PLAYER_BASE + player * PLAYER_FIELDS + 3];
+    }
+
+    public static boolean isPlayerConnected(int[] state, int player) {
+        return (state[FIELD_CONNECTED] & (1 << player)) != 0;
+    }
+
+    public static float getObstacleX(int[] state, int obstacle) {
+        return dequantize(state[OBSTACLE_BASE + obstacle * OBSTACLE_FIELDS]);
+    }
+
+    public static float getObstacleY(int[] state, int obstacle) {
+        return dequantize(state[OBSTACLE_BASE + obstacle * OBSTACLE_FIELDS + 1]);
+    }
+
+    /**
+     * Checks whether the simulation moves players at the given tick of a state.
+     */
+    public static boolean isRacing(int[] state, int tick) {
+        int phase = state[FIELD_PHASE];
+        return (phase == PHASE_COUNTDOWN || phase == PHASE_RACING) && tick >= state[FIELD_RACE_START];
+    }
+
+    /**
+     * Writes the delta of a state against a baseline.
+     *
+     * @param state    The state to send
+     * @param baseline The state the receiver already has, or null to send everything
+     * @param out      Buffer receiving the encoded delta
+     */
+    public static void writeDelta(int[] state, int[] baseline, ByteBuffer out) {
+        int maskPosition = out.position();
+        for (int i = 0; i < MASK_BYTES; i++) {
+            out.put((byte) 0);
+        }
+
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            int base = baseline != null ? baseline[i] : 0;
+            if (state[i] != base) {
+                int maskIndex = maskPosition + (i >> 3);
+                out.put(maskIndex, (byte) (out.get(maskIndex) | (1 << (i & 7))));
+                writeVarInt(out, state[i] - base);
+            }
+        }
+    }
+
+    /**
+     * Reads a delta and applies it to a baseline.
+     *
+     * @param in       Buffer holding the encoded delta
+     * @param baseline The state the delta was encoded against, or null for the zero vector
+     * @param out      Vector receiving the decoded state
+     */
+    public static void readDelta(ByteBuffer in, int[] baseline, int[] out) {
+        int maskPosition = in.position();
+        // Cast keeps the Java 8 signature when built with a newer JDK
+        ((Buffer) in).position(maskPosition + MASK_BYTES);
+
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            int base = baseline != null ? baseline[i] : 0;
+            boolean changed = (in.get(maskPosition + (i >> 3)) & (1 << (i & 7))) != 0;
+            out[i] = changed ? base + readVarInt(in) : base;
+        }
+    }
+
+    private static void writeVarInt(ByteBuffer out, int value) {
+        // Zigzag so small negative differences stay small
+        int zigzag = (value << 1) ^ (value >> 31);
+        while ((zigzag & ~0x7F) != 0) {
+            out.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.put((byte) zigzag);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (result >>> 1) ^ -(result & 1);
+            }
+        }
+        throw new BufferUnderflowException();
+    }
+}
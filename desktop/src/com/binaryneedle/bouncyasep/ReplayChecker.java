@@ -0,0 +1,206 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Files;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * The ReplayChecker class plays a recorded run again to find where its simulation stops being deterministic.
+ * <p>
+ * The run's jumps are replayed twice: first straight on the desktop JVM with only the desktop file backend
+ * in place, then under the headless backend. Each replay hashes the world after every tick with
+ * {@link StateHash}, and the two hash streams are compared with each other and with the hashes the game
+ * recorded. Where the replays part, the first tick that differs is reported with every field of the state
+ * that differs. The game only records hashes, so where just the recording differs, the ticks between the
+ * last matching hash and the first differing one are reported with the replayed player there. Replays wait
+ * for the course generator, so a recording that fell back to random placement shows up as differing.
+ * Each replay keeps the state of every tick, a few megabytes a minute. The tool exits with a non-zero
+ * status if anything differs.
+ * <p>
+ * Usage: {@code ReplayChecker [replay file]}
+ */
+public class ReplayChecker extends ApplicationAdapter {
+    private static final String TAG = "ReplayChecker";
+    private static final String DEFAULT_REPLAY = "replays/last." + RunReplay.EXTENSION;
+
+    private final RunReplay replay;
+    private final Replayer jvmRun;
+    private int exitStatus;
+
+    private ReplayChecker(RunReplay replay, Replayer jvmRun) {
+        this.replay = replay;
+        this.jvmRun = jvmRun;
+    }
+
+    public static void main(String[] args) {
+        String path = args.length > 0 ? args[0] : DEFAULT_REPLAY;
+        RunReplay replay;
+        try {
+            replay = RunReplay.load(new FileHandle(new File(path)));
+        } catch (IOException e) {
+            System.err.println("Could not read replay " + path + ": " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        // The first replay runs before any backend is started; the simulation only needs files and natives
+        GdxNativesLoader.load();
+        Gdx.files = new Lwjgl3Files();
+        Replayer jvmRun = new Replayer(replay);
+        jvmRun.play();
+
+        new HeadlessApplication(new ReplayChecker(replay, jvmRun), new HeadlessApplicationConfiguration());
+    }
+
+    @Override
+    public void create() {
+        Replayer headlessRun = new Replayer(replay);
+        headlessRun.play();
+
+        String course = replay.getCoursePath().isEmpty() ? "generated course" : replay.getCoursePath();
+        Gdx.app.log(TAG, replay.getTicks() + " ticks and " + replay.getJumpCount() + " jumps on the " + course
+                + ", seed " + Long.toHexString(replay.getSeed()) + ", " + replay.getHashCount() + " recorded hashes");
+
+        compareReplays(headlessRun);
+        compareRecording(headlessRun);
+
+        if (headlessRun.crashTick != replay.getTicks()) {
+            Gdx.app.error(TAG, "The recorded run crashed on tick " + replay.getTicks() + ", the replay "
+                    + (headlessRun.crashTick < 0 ? "does not crash" : "crashes on tick " + headlessRun.crashTick));
+            exitStatus = 1;
+        }
+        if (exitStatus == 0) {
+            Gdx.app.log(TAG, "The run replays the same on the JVM, under the headless backend and as recorded");
+        }
+        Gdx.app.exit();
+    }
+
+    /**
+     * Reports the first tick the JVM and headless replays differ on, with the fields that differ.
+     */
+    private void compareReplays(Replayer headlessRun) {
+        for (int tick = 0; tick < replay.getTicks(); tick++) {
+            if (jvmRun.hashes[tick] == headlessRun.hashes[tick]) continue;
+
+            Gdx.app.error(TAG, "The JVM and headless replays differ after tick " + (tick + 1) + ":");
+            int offset = tick * jvmRun.stateSize;
+            for (int i = 0; i < jvmRun.stateSize; i++) {
+                int jvmValue = jvmRun.states[offset + i];
+                int headlessValue = headlessRun.states[offset + i];
+                if (jvmValue != headlessValue) {
+                    Gdx.app.error(TAG, "  " + headlessRun.world.describeState(i) + ": " + describeValue(jvmValue)
+                            + " on the JVM, " + describeValue(headlessValue) + " headless");
+                }
+            }
+            exitStatus = 1;
+            return;
+        }
+    }
+
+    /**
+     * Reports the first recorded hash the replay does not reach.
+     */
+    private void compareRecording(Replayer headlessRun) {
+        int interval = replay.getHashInterval();
+        for (int i = 0; i < replay.getHashCount(); i++) {
+            int tick = (i + 1) * interval;
+            if (tick > replay.getTicks()) {
+                Gdx.app.error(TAG, "Hash " + i + " was recorded after the run ended on tick " + replay.getTicks());
+                exitStatus = 1;
+                return;
+            }
+            if (headlessRun.hashes[tick - 1] == replay.getHash(i)) continue;
+
+            int offset = (tick - 1) * headlessRun.stateSize;
+            Gdx.app.error(TAG, "The recording differs from the replay between tick " + (tick - interval + 1)
+                    + " and tick " + tick + ": recorded hash " + Long.toHexString(replay.getHash(i)) + ", replayed "
+                    + Long.toHexString(headlessRun.hashes[tick - 1]));
+            Gdx.app.error(TAG, "  replayed player y " + Float.intBitsToFloat(headlessRun.states[offset])
+                    + ", velocity " + Float.intBitsToFloat(headlessRun.states[offset + 1])
+                    + ", score " + headlessRun.states[offset + 3]);
+            exitStatus = 1;
+            return;
+        }
+    }
+
+    /**
+     * Shows a state int both as bits and as the float it holds for most fields.
+     */
+    private static String describeValue(int bits) {
+        return String.format(Locale.ROOT, "%08x (%s)", bits, Float.intBitsToFloat(bits));
+    }
+
+    @Override
+    public void dispose() {
+        System.exit(exitStatus);
+    }
+
+    /**
+     * The Replayer class plays a replay's jumps in a world of its own, keeping the hash and the state of
+     * the world after every tick.
+     */
+    static class Replayer {
+        private final RunReplay replay;
+        GameWorld world;
+        int stateSize;
+        long[] hashes;
+        int[] states;
+        // Tick the player crashed on, counted from 1, or -1
+        int crashTick = -1;
+
+        Replayer(RunReplay replay) {
+            this.replay = replay;
+        }
+
+        /**
+         * Plays the whole run, the way the game ticks it: jumps first, then the update.
+         */
+        void play() {
+            // Obstacles recycle at the world's right edge, which comes from the camera in the game
+            Obstacle.setCamera(new OrthographicCamera(GameWorld.WORLD_WIDTH, GameWorld.WORLD_HEIGHT));
+
+            CourseSource course;
+            if (replay.getCoursePath().isEmpty()) {
+                course = new WaitingCourse(GameWorld.createCourseGenerator(replay.getPlayerWidth(),
+                        replay.getPlayerHeight(), BouncyAsep.TICK_TIME));
+            } else {
+                course = new CourseFile(StreamCourseReader.FACTORY.open(Gdx.files.internal(replay.getCoursePath())),
+                        replay.getCoursePath(), GameWorld.TILE_SIZE);
+            }
+            world = new GameWorld(1, replay.getPlayerWidth(), replay.getPlayerHeight(), course);
+            if (replay.usesFrameMasks()) {
+                world.setPlayerMasks(Character.loadFrameMasks(Character.PLAYER_ANIMATIONS));
+            }
+            world.reset(replay.getSeed());
+
+            stateSize = world.getStateSize();
+            hashes = new long[replay.getTicks()];
+            states = new int[replay.getTicks() * stateSize];
+            StateHash stateHash = new StateHash(world);
+            int jump = 0;
+            for (int tick = 0; tick < replay.getTicks(); tick++) {
+                if (jump < replay.getJumpCount() && replay.getJumpTick(jump) == tick) {
+                    world.jump(0);
+                    jump++;
+                }
+                world.update(BouncyAsep.TICK_TIME);
+
+                hashes[tick] = stateHash.compute();
+                System.arraycopy(stateHash.getState(), 0, states, tick * stateSize, stateSize);
+                if (crashTick < 0 && !world.isAlive(0)) {
+                    crashTick = tick + 1;
+                }
+            }
+            course.dispose();
+        }
+    }
+}
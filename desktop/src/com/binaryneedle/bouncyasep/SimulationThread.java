@@ -0,0 +1,187 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The SimulationThread class ticks the world on its own thread at a fixed rate while a run is played.
+ * <p>
+ * Each tick is copied into a {@link WorldFrame} and published through a {@link TripleBuffer}, so the render
+ * thread picks up the latest tick without locks and a slow frame never holds up the simulation. Presses are
+ * passed over in a lock-free ring of timestamps and applied in the tick they happened in, as far as they
+ * reach this thread in time.
+ */
+public class SimulationThread implements SimulationRunner, Runnable {
+    private static final int JUMP_CAPACITY = 64;
+    // After a stall longer than this the simulation skips ahead instead of catching up
+    private static final long MAX_CATCH_UP = 250000000L;
+
+    private final float tickTime;
+    private final long tickNanos;
+    private final Thread thread;
+
+    // Handshake: the render thread requests ticking, this thread reports whether it is ticking
+    private volatile boolean active;
+    private volatile boolean ticking;
+    private volatile boolean disposed;
+
+    // Owned by this thread between start and stop
+    private GameWorld world;
+    private RewindBuffer rewind;
+    private TripleBuffer<WorldFrame> frames;
+    private WorldFrame previous;
+    private long tickEnd;
+    private int tick;
+    private int passes;
+    private boolean crashed;
+    private final GameWorld.Listener listener = new GameWorld.Listener() {
+        @Override
+        public void obstaclePassed(int player, Obstacle obstacle) {
+            passes++;
+        }
+
+        @Override
+        public void playerCrashed(int player) {
+            crashed = true;
+        }
+    };
+
+    // Presses from the render thread
+    private final long[] jumpTimes = new long[JUMP_CAPACITY];
+    private final AtomicInteger jumpHead = new AtomicInteger();
+    private final AtomicInteger jumpTail = new AtomicInteger();
+
+    // Render thread side
+    private boolean hasFrame;
+
+    /**
+     * Creates the simulation thread. It sleeps until a run is started.
+     *
+     * @param tickTime Length of a simulation tick in seconds
+     */
+    public SimulationThread(float tickTime) {
+        this.tickTime = tickTime;
+        this.tickNanos = (long) (tickTime * 1e9);
+        this.thread = new Thread(this, "Simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void start(GameWorld world, RewindBuffer rewind) {
+        stop();
+
+        // This thread is idle, so the render thread may set everything up
+        if (this.world != world) {
+            this.previous = new WorldFrame(world);
+        }
+        this.world = world;
+        this.rewind = rewind;
+        this.frames = new TripleBuffer<>(new WorldFrame(world), new WorldFrame(world), new WorldFrame(world));
+        this.hasFrame = false;
+        this.tick = 0;
+        this.passes = 0;
+        this.crashed = false;
+        this.tickEnd = TimeUtils.nanoTime() + tickNanos;
+        world.setListener(listener);
+
+        active = true;
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void jump(long time) {
+        int tail = jumpTail.get();
+        if (tail - jumpHead.get() == JUMP_CAPACITY) return;
+
+        jumpTimes[tail % JUMP_CAPACITY] = time;
+        jumpTail.set(tail + 1);
+    }
+
+    @Override
+    public WorldFrame getFrame() {
+        if (frames == null) return null;
+        if (frames.update()) hasFrame = true;
+        return hasFrame ? frames.getReadBuffer() : null;
+    }
+
+    @Override
+    public void stop() {
+        active = false;
+        LockSupport.unpark(thread);
+        while (ticking) {
+            Thread.yield();
+        }
+
+        // Presses left over from the run must not leak into the next one
+        jumpHead.set(jumpTail.get());
+    }
+
+    @Override
+    public void run() {
+        while (!disposed) {
+            if (!active) {
+                ticking = false;
+                LockSupport.park(this);
+                continue;
+            }
+            ticking = true;
+            if (!active) continue;
+
+            long now = TimeUtils.nanoTime();
+            if (now - tickEnd > MAX_CATCH_UP) {
+                tickEnd = now;
+            }
+            while (active && tickEnd <= now) {
+                tick();
+                tickEnd += tickNanos;
+            }
+
+            long wait = tickEnd - TimeUtils.nanoTime();
+            if (active && wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+        ticking = false;
+    }
+
+    /**
+     * Runs one tick and publishes its frame.
+     */
+    private void tick() {
+        // Apply the presses that happened up to the end of this tick
+        int head = jumpHead.get();
+        while (head != jumpTail.get() && jumpTimes[head % JUMP_CAPACITY] <= tickEnd) {
+            world.jump(0);
+            head++;
+        }
+        jumpHead.set(head);
+
+        world.update(tickTime);
+        if (rewind != null) {
+            rewind.record();
+        }
+        tick++;
+
+        WorldFrame frame = frames.getWriteBuffer();
+        frame.capture(world, tick > 1 ? previous : null, tickEnd, tick);
+        frame.passes = passes;
+        frame.crashed = crashed;
+        previous.set(frame);
+        frames.publish();
+
+        // The run is over; the render thread takes the world back
+        if (crashed) {
+            active = false;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        stop();
+        disposed = true;
+        LockSupport.unpark(thread);
+    }
+}
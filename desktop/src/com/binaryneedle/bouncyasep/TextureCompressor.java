@@ -0,0 +1,160 @@
+package com.binaryneedle.bouncyasep;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The TextureCompressor class writes an ETC2 compressed variant next to every PNG asset.
+ * <p>
+ * Each image is compressed to {@code GL_COMPRESSED_RGBA8_ETC2_EAC} and stored as a gzipped KTX file
+ * ({@code .zktx}), which libGDX loads directly. The result is decoded again in software and compared
+ * with the source; images whose error is above the quality threshold keep only their PNG. For every
+ * image the report lists the GPU memory of the uncompressed and the compressed texture.
+ * <p>
+ * Usage: {@code TextureCompressor <directory | image.png>... [--min-psnr decibels]}
+ */
+public class TextureCompressor {
+    private static final float DEFAULT_MIN_PSNR = 32f;
+    private static final byte[] KTX_IDENTIFIER = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+    private static final int GL_RGBA = 0x1908;
+
+    private static float minPsnr = DEFAULT_MIN_PSNR;
+    private static long totalUncompressed;
+    private static long totalGpu;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TextureCompressor <directory | image.png>... [--min-psnr decibels]");
+            System.exit(1);
+        }
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--min-psnr") && i + 1 < args.length) {
+                minPsnr = Float.parseFloat(args[++i]);
+            }
+        }
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--min-psnr")) {
+                i++;
+                continue;
+            }
+            compress(new File(args[i]));
+        }
+
+        System.out.println(String.format(Locale.ROOT, "Total GPU memory: %d KB -> %d KB (%d KB saved)",
+                totalUncompressed / 1024, totalGpu / 1024, (totalUncompressed - totalGpu) / 1024));
+    }
+
+    private static void compress(File file) throws IOException {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null) return;
+            for (File child : children) {
+                compress(child);
+            }
+        } else if (file.getName().toLowerCase(Locale.ROOT).endsWith(".png")) {
+            compressImage(file);
+        }
+    }
+
+    /**
+     * Compresses one image and verifies the result.
+     *
+     * @param file The PNG file
+     * @throws IOException If the image cannot be read or the result cannot be written
+     */
+    public static void compressImage(File file) throws IOException {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException(file + ": not a readable image");
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+        byte[] blocks = Etc2Codec.encode(pixels, width, height);
+        int[] decoded = Etc2Codec.decode(blocks, width, height);
+
+        // Compare the colors of visible pixels and the alpha of all pixels
+        long squaredError = 0;
+        int visible = 0;
+        int maxAlphaError = 0;
+        for (int i = 0; i < pixels.length; i++) {
+            int sourceAlpha = pixels[i] >>> 24;
+            maxAlphaError = Math.max(maxAlphaError, Math.abs(sourceAlpha - (decoded[i] >>> 24)));
+            if (sourceAlpha == 0) continue;
+
+            for (int shift = 0; shift <= 16; shift += 8) {
+                int diff = ((pixels[i] >> shift) & 0xFF) - ((decoded[i] >> shift) & 0xFF);
+                squaredError += diff * diff;
+            }
+            visible++;
+        }
+        double mse = visible == 0 ? 0 : squaredError / (visible * 3.0);
+        double psnr = mse == 0 ? Double.POSITIVE_INFINITY : 10 * Math.log10(255 * 255 / mse);
+
+        int uncompressed = width * height * 4;
+        File output = new File(file.getParentFile(), baseName(file) + CompressedTextures.COMPRESSED_EXTENSION);
+        boolean accepted = psnr >= minPsnr;
+        if (accepted) {
+            writeZktx(output, blocks, width, height);
+        } else if (output.exists() && !output.delete()) {
+            throw new IOException(output + ": could not remove stale compressed texture");
+        }
+
+        int gpu = accepted ? blocks.length : uncompressed;
+        totalUncompressed += uncompressed;
+        totalGpu += gpu;
+        System.out.println(String.format(Locale.ROOT,
+                "%s: %dx%d, PSNR %.1f dB, max alpha error %d, GPU %d KB -> %d KB%s",
+                file.getPath(), width, height, psnr, maxAlphaError, uncompressed / 1024, gpu / 1024,
+                accepted ? "" : " (below " + minPsnr + " dB, PNG kept)"));
+    }
+
+    private static String baseName(File file) {
+        String name = file.getName();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+
+    /**
+     * Writes a single-level KTX file, gzipped with the uncompressed size in front as libGDX expects.
+     */
+    private static void writeZktx(File output, byte[] blocks, int width, int height) throws IOException {
+        ByteArrayOutputStream ktx = new ByteArrayOutputStream(blocks.length + 128);
+        DataOutputStream out = new DataOutputStream(ktx);
+        out.write(KTX_IDENTIFIER);
+        out.writeInt(0x04030201); // Endianness, written big-endian
+        out.writeInt(0); // glType, 0 for compressed data
+        out.writeInt(1); // glTypeSize
+        out.writeInt(0); // glFormat, 0 for compressed data
+        out.writeInt(Etc2Codec.GL_COMPRESSED_RGBA8_ETC2_EAC);
+        out.writeInt(GL_RGBA);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(0); // pixelDepth
+        out.writeInt(0); // numberOfArrayElements
+        out.writeInt(1); // numberOfFaces
+        out.writeInt(1); // numberOfMipmapLevels
+        out.writeInt(0); // bytesOfKeyValueData
+        out.writeInt(blocks.length);
+        out.write(blocks);
+        out.flush();
+
+        try (OutputStream file = new FileOutputStream(output);
+             DataOutputStream zipped = new DataOutputStream(new GZIPOutputStream(file))) {
+            zipped.writeInt(ktx.size());
+            ktx.writeTo(zipped);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayDeque;
+
+/**
+ * The VersusClient class connects to a {@link VersusServer} and predicts the local player.
+ * <p>
+ * The client runs ahead of the server by about half a round trip. Each tick it stamps jumps with the
+ * tick it predicts the server will apply them at, simulates its own {@link MainEntity} immediately and
+ * resends unacknowledged jumps. When a snapshot arrives the local player is reset to the authoritative
+ * state and the remembered jumps since that tick are replayed (reconciliation).
+ * <p>
+ * For testing, packet loss and latency can be simulated on both directions.
+ */
+public class VersusClient {
+    private static final int INPUT_HISTORY = 256;
+    private static final int RESYNC_THRESHOLD = 6;
+    private static final int JITTER_TICKS = 2;
+
+    private final InetSocketAddress server;
+    private final DatagramChannel channel;
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(NetProtocol.MAX_PACKET_SIZE);
+    private final ByteBuffer sendBuffer = ByteBuffer.allocate(NetProtocol.MAX_PACKET_SIZE);
+
+    private int playerId = -1;
+    private boolean rejected;
+
+    // Received snapshots, used as baselines for the next deltas
+    private final int[][] history = new int[NetProtocol.HISTORY_SIZE][NetProtocol.FIELD_COUNT];
+    private final int[] historyTick = new int[NetProtocol.HISTORY_SIZE];
+    private int[] latest;
+    private int latestTick = -1;
+
+    // Prediction
+    private final MainEntity predicted;
+    private int clientTick;
+    private boolean synced;
+    private final boolean[] jumpHistory = new boolean[INPUT_HISTORY];
+    private final int[] jumpHistoryTick = new int[INPUT_HISTORY];
+    private final int[] unackedJumps = new int[NetProtocol.MAX_INPUT_JUMPS];
+    private int unackedCount;
+    private float roundTripMillis;
+
+    // Statistics
+    private long bytesReceived;
+    private long bytesSent;
+    private int snapshotsReceived;
+    private float lastCorrection;
+    private float maxCorrection;
+    private double totalCorrection;
+    private int corrections;
+
+    // Network simulation for tests
+    private float simulatedLoss;
+    private int simulatedLatencyTicks;
+    private final ArrayDeque<DelayedPacket> delayedIn = new ArrayDeque<>();
+    private final ArrayDeque<DelayedPacket> delayedOut = new ArrayDeque<>();
+    private int localTicks;
+
+    private static final class DelayedPacket {
+        final int releaseTick;
+        final byte[] data;
+
+        DelayedPacket(int releaseTick, ByteBuffer buffer) {
+            this.releaseTick = releaseTick;
+            this.data = new byte[buffer.remaining()];
+            buffer.get(data);
+        }
+    }
+
+    /**
+     * Opens a client socket and says hello to the server.
+     *
+     * @param server Address of the server
+     */
+    public VersusClient(InetSocketAddress server) {
+        this.server = server;
+        this.predicted = new MainEntity(GameWorld.PLAYER_X, GameWorld.PLAYER_START_Y, NetProtocol.PLAYER_SIZE, NetProtocol.PLAYER_SIZE);
+        try {
+            channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.connect(server);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open client socket", e);
+        }
+        sendHello();
+    }
+
+    /**
+     * Runs one client tick: processes snapshots, applies the local jump and sends input.
+     *
+     * @param jumpPressed Whether the player pressed jump since the previous tick
+     */
+    public void tick(boolean jumpPressed) {
+        localTicks++;
+        receivePackets();
+
+        if (playerId < 0) {
+            // Keep knocking until the server answers
+            if (!rejected && localTicks % NetProtocol.TICK_RATE == 0) sendHello();
+            return;
+        }
+        if (latest == null) return;
+
+        clientTick++;
+        if (NetProtocol.isRacing(latest, clientTick) && NetProtocol.isPlayerAlive(latest, playerId)) {
+            boolean jumped = jumpPressed && unackedCount < unackedJumps.length;
+            recordJump(clientTick, jumped);
+            if (jumped) {
+                unackedJumps[unackedCount++] = clientTick;
+                predicted.jump();
+            }
+            predicted.update(NetProtocol.TICK_TIME);
+        }
+
+        sendInput();
+    }
+
+    private void recordJump(int tick, boolean jumped) {
+        int slot = tick % INPUT_HISTORY;
+        jumpHistory[slot] = jumped;
+        jumpHistoryTick[slot] = tick;
+    }
+
+    private boolean jumpedAt(int tick) {
+        int slot = tick % INPUT_HISTORY;
+        return jumpHistoryTick[slot] == tick && jumpHistory[slot];
+    }
+
+    private void receivePackets() {
+        try {
+            while (true) {
+                receiveBuffer.clear();
+                if (channel.receive(receiveBuffer) == null) break;
+                receiveBuffer.flip();
+                bytesReceived += receiveBuffer.remaining();
+
+                if (simulatedLoss > 0 && MathUtils.random() < simulatedLoss) continue;
+                if (simulatedLatencyTicks > 0) {
+                    delayedIn.addLast(new DelayedPacket(localTicks + simulatedLatencyTicks, receiveBuffer));
+                    continue;
+                }
+                handlePacket(receiveBuffer);
+            }
+
+            while (!delayedIn.isEmpty() && delayedIn.peekFirst().releaseTick <= localTicks) {
+                handlePacket(ByteBuffer.wrap(delayedIn.removeFirst().data));
+            }
+        } catch (IOException e) {
+            // Nothing listening yet, keep trying
+        }
+        flushDelayedOutput();
+    }
+
+    private void handlePacket(ByteBuffer packet) {
+        if (!packet.hasRemaining()) return;
+
+        switch (packet.get()) {
+            case NetProtocol.WELCOME:
+                if (playerId < 0) {
+                    playerId = packet.get();
+                    clientTick = packet.getInt();
+                }
+                break;
+            case NetProtocol.FULL:
+                rejected = true;
+                break;
+            case NetProtocol.SNAPSHOT:
+                readSnapshot(packet);
+                break;
+        }
+    }
+
+    private void readSnapshot(ByteBuffer packet) {
+        int tick = packet.getInt();
+        int baseTick = packet.getInt();
+        int echoTime = packet.getInt();
+        int lastJumpTick = packet.getInt();
+
+        // Snapshots that arrive out of order are useless once a newer one was applied
+        if (tick <= latestTick) return;
+
+        int[] baseline = null;
+        if (baseTick >= 0) {
+            int baseSlot = baseTick % NetProtocol.HISTORY_SIZE;
+            if (historyTick[baseSlot] != baseTick) return;
+            baseline = history[baseSlot];
+        }
+
+        int slot = tick % NetProtocol.HISTORY_SIZE;
+        NetProtocol.readDelta(packet, baseline, history[slot]);
+        historyTick[slot] = tick;
+        latest = history[slot];
+        latestTick = tick;
+        snapshotsReceived++;
+
+        int rtt = (int) (TimeUtils.millis() & 0x7FFFFFFF) - echoTime;
+        if (echoTime != 0 && rtt >= 0) {
+            roundTripMillis = roundTripMillis == 0 ? rtt : roundTripMillis * 0.9f + rtt * 0.1f;
+        }
+
+        // Forget jumps the server has received
+        int kept = 0;
+        for (int i = 0; i < unackedCount; i++) {
+            if (unackedJumps[i] > lastJumpTick) unackedJumps[kept++] = unackedJumps[i];
+        }
+        unackedCount = kept;
+
+        synchronizeClock(tick);
+        reconcile(tick);
+    }
+
+    /**
+     * Keeps the client tick about half a round trip plus a small jitter buffer ahead of the server.
+     */
+    private void synchronizeClock(int serverTick) {
+        int lead = Math.round(roundTripMillis / 2f / (1000f / NetProtocol.TICK_RATE)) + JITTER_TICKS;
+        int target = serverTick + lead;
+        if (!synced || Math.abs(clientTick - target) > RESYNC_THRESHOLD) {
+            clientTick = target;
+            synced = true;
+        }
+    }
+
+    /**
+     * Resets the local player to the authoritative state and replays the jumps made since then.
+     */
+    private void reconcile(int serverTick) {
+        float beforeY = predicted.getY();
+
+        predicted.setY(NetProtocol.getPlayerY(latest, playerId));
+        predicted.setVelocity(NetProtocol.getPlayerVelocity(latest, playerId));
+
+        if (NetProtocol.isPlayerAlive(latest, playerId)) {
+            for (int t = serverTick + 1; t <= clientTick; t++) {
+                if (!NetProtocol.isRacing(latest, t)) continue;
+                if (jumpedAt(t)) predicted.jump();
+                predicted.update(NetProtocol.TICK_TIME);
+            }
+        }
+
+        lastCorrection = Math.abs(predicted.getY() - beforeY);
+        if (NetProtocol.isRacing(latest, serverTick)) {
+            maxCorrection = Math.max(maxCorrection, lastCorrection);
+            totalCorrection += lastCorrection;
+            corrections++;
+        }
+    }
+
+    private void sendHello() {
+        sendBuffer.clear();
+        sendBuffer.put(NetProtocol.HELLO);
+        sendBuffer.putInt(NetProtocol.PROTOCOL_VERSION);
+        send();
+    }
+
+    private void sendInput() {
+        sendBuffer.clear();
+        sendBuffer.put(NetProtocol.INPUT);
+        sendBuffer.putInt(latestTick);
+        sendBuffer.putInt((int) (TimeUtils.millis() & 0x7FFFFFFF));
+        sendBuffer.put((byte) unackedCount);
+        for (int i = 0; i < unackedCount; i++) {
+            sendBuffer.putInt(unackedJumps[i]);
+        }
+        send();
+    }
+
+    /**
+     * Tells the server the client is leaving.
+     */
+    public void disconnect() {
+        sendBuffer.clear();
+        sendBuffer.put(NetProtocol.BYE);
+        send();
+    }
+
+    private void send() {
+        sendBuffer.flip();
+        if (simulatedLoss > 0 && MathUtils.random() < simulatedLoss) return;
+        if (simulatedLatencyTicks > 0) {
+            delayedOut.addLast(new DelayedPacket(localTicks + simulatedLatencyTicks, sendBuffer));
+            return;
+        }
+        write(sendBuffer);
+    }
+
+    private void flushDelayedOutput() {
+        while (!delayedOut.isEmpty() && delayedOut.peekFirst().releaseTick <= localTicks) {
+            write(ByteBuffer.wrap(delayedOut.removeFirst().data));
+        }
+    }
+
+    private void write(ByteBuffer packet) {
+        try {
+            bytesSent += packet.remaining();
+            channel.write(packet);
+        } catch (IOException e) {
+            // The server is not reachable yet; input is resent every tick anyway
+        }
+    }
+
+    /**
+     * Simulates an unreliable network for testing.
+     *
+     * @param loss         Probability of dropping each packet in either direction
+     * @param latencyTicks One-way delay in ticks
+     */
+    public void setSimulatedNetwork(float loss, int latencyTicks) {
+        this.simulatedLoss = loss;
+        this.simulatedLatencyTicks = latencyTicks;
+    }
+
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+
+    // Getters
+
+    public boolean isConnected() {
+        return playerId >= 0;
+    }
+
+    public boolean isRejected() {
+        return rejected;
+    }
+
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    public MainEntity getPredicted() {
+        return predicted;
+    }
+
+    /**
+     * Gets the latest authoritative state.
+     *
+     * @return The state vector, or null before the first snapshot
+     */
+    public int[] getLatestState() {
+        return latest;
+    }
+
+    public int getLatestTick() {
+        return latestTick;
+    }
+
+    public int getClientTick() {
+        return clientTick;
+    }
+
+    public float getRoundTripMillis() {
+        return roundTripMillis;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public int getSnapshotsReceived() {
+        return snapshotsReceived;
+    }
+
+    public float getLastCorrection() {
+        return lastCorrection;
+    }
+
+    public float getMaxCorrection() {
+        return maxCorrection;
+    }
+
+    public float getAverageCorrection() {
+        return corrections == 0 ? 0 : (float) (totalCorrection / corrections);
+    }
+
+    public InetSocketAddress getServer() {
+        return server;
+    }
+}
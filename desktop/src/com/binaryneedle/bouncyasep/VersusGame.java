@@ -0,0 +1,247 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.badlogic.gdx.utils.viewport.Viewport;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The VersusGame class is the graphical client of the versus mode.
+ * <p>
+ * The local player is drawn from the client's prediction, the other players and the obstacles from the
+ * latest snapshot. Obstacles are moved forward by the ticks the client runs ahead of the snapshot so
+ * they line up with the predicted player.
+ */
+public class VersusGame extends ApplicationAdapter {
+    private static final int WORLD_WIDTH = GameWorld.WORLD_WIDTH;
+    private static final int WORLD_HEIGHT = GameWorld.WORLD_HEIGHT;
+    private static final Color REMOTE_TINT = new Color(1f, 1f, 1f, 0.6f);
+
+    private final InetSocketAddress server;
+    private VersusClient client;
+
+    private SpriteBatch batch;
+    private OrthographicCamera camera;
+    private Viewport viewport;
+    private Character sprite;
+    private Background layer1, layer2, layer3;
+    private BitmapFont infoFont, debugFont;
+    private final List<Obstacle> obstacles = new ArrayList<>();
+
+    private float accumulator;
+    private float stateTime;
+    private boolean jumpPressed;
+    private boolean isDebugEnabled;
+
+    public VersusGame(InetSocketAddress server) {
+        this.server = server;
+    }
+
+    @Override
+    public void create() {
+        batch = new SpriteBatch();
+        camera = new OrthographicCamera();
+        viewport = new FitViewport(WORLD_WIDTH, WORLD_HEIGHT, camera);
+        viewport.apply();
+        camera.position.set(WORLD_WIDTH / 2f, WORLD_HEIGHT / 2f, 0);
+        Obstacle.setCamera(camera);
+
+        layer1 = new Background("bg/background_layer_1.png", 0.1f);
+        layer2 = new Background("bg/background_layer_2.png", 125f);
+        layer3 = new Background("bg/background_layer_3.png", 250f);
+        sprite = new Character(Character.PLAYER_ANIMATIONS);
+
+        infoFont = ResourceRegistry.newDefaultFont("VersusGame");
+        infoFont.setColor(Color.WHITE);
+        infoFont.getData().setScale(2.0f);
+        debugFont = ResourceRegistry.newDefaultFont("VersusGame");
+        debugFont.setColor(Color.WHITE);
+
+        // Obstacles only mirror the snapshot, they are never simulated here
+        for (int i = 0; i < GameWorld.OBSTACLE_COUNT; i++) {
+            float x = GameWorld.OBSTACLE_BASE_X + (GameWorld.OBSTACLE_SPACING * i);
+            obstacles.add(new Obstacle(x, GameWorld.OBSTACLE_WIDTH, GameWorld.OBSTACLE_SPACING,
+                    GameWorld.OBSTACLE_GAP, GameWorld.TILE_SIZE));
+        }
+
+        Gdx.input.setInputProcessor(new InputAdapter() {
+            @Override
+            public boolean keyDown(int keycode) {
+                if (keycode == Input.Keys.SPACE) {
+                    jumpPressed = true;
+                } else if (keycode == Input.Keys.F3) {
+                    isDebugEnabled = !isDebugEnabled;
+                } else if (keycode == Input.Keys.ESCAPE) {
+                    Gdx.app.exit();
+                } else {
+                    return false;
+                }
+                return true;
+            }
+
+            @Override
+            public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+                jumpPressed = true;
+                return true;
+            }
+        });
+
+        client = new VersusClient(server);
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        viewport.update(width, height, true);
+    }
+
+    @Override
+    public void render() {
+        float deltaTime = Gdx.graphics.getDeltaTime();
+        stateTime += deltaTime;
+
+        // Run the network client at the server tick rate
+        accumulator += Math.min(deltaTime, 0.25f);
+        while (accumulator >= NetProtocol.TICK_TIME) {
+            client.tick(jumpPressed);
+            jumpPressed = false;
+            accumulator -= NetProtocol.TICK_TIME;
+        }
+
+        int[] state = client.getLatestState();
+        if (state != null && state[NetProtocol.FIELD_PHASE] == NetProtocol.PHASE_RACING) {
+            layer1.update(deltaTime);
+            layer2.update(deltaTime);
+            layer3.update(deltaTime);
+        }
+
+        ScreenUtils.clear(Color.BLACK);
+        camera.update();
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+
+        layer1.draw(batch, WORLD_HEIGHT);
+        layer2.draw(batch, WORLD_HEIGHT);
+        layer3.draw(batch, WORLD_HEIGHT);
+
+        if (state != null) {
+            drawObstacles(state);
+            drawPlayers(state);
+        }
+        drawUI(state);
+
+        batch.end();
+    }
+
+    private void drawObstacles(int[] state) {
+        float ahead = Math.max(0, client.getClientTick() - client.getLatestTick()) * NetProtocol.TICK_TIME;
+        float shift = NetProtocol.isRacing(state, client.getClientTick())
+                ? NetProtocol.dequantize(state[NetProtocol.FIELD_SPEED]) * ahead : 0;
+
+        for (int i = 0; i < obstacles.size(); i++) {
+            Obstacle obstacle = obstacles.get(i);
+            obstacle.setX(NetProtocol.getObstacleX(state, i) - shift);
+            obstacle.setY(NetProtocol.getObstacleY(state, i));
+            obstacle.draw(batch);
+        }
+    }
+
+    private void drawPlayers(int[] state) {
+        float size = NetProtocol.PLAYER_SIZE;
+
+        // Remote players are translucent and drawn behind the local one
+        batch.setColor(REMOTE_TINT);
+        for (int p = 0; p < NetProtocol.MAX_PLAYERS; p++) {
+            if (p == client.getPlayerId() || !NetProtocol.isPlayerConnected(state, p)) continue;
+            TextureRegion frame = sprite.getFrame(getState(state, p, NetProtocol.getPlayerVelocity(state, p)), stateTime);
+            batch.draw(frame, GameWorld.PLAYER_X, NetProtocol.getPlayerY(state, p), size, size);
+        }
+        batch.setColor(Color.WHITE);
+
+        MainEntity local = client.getPredicted();
+        TextureRegion frame = sprite.getFrame(getState(state, client.getPlayerId(), local.getVelocity()), stateTime);
+        batch.draw(frame, local.getX(), local.getY(), size, size);
+    }
+
+    private Character.State getState(int[] state, int player, float velocity) {
+        if (!NetProtocol.isPlayerAlive(state, player)) return Character.State.DEAD;
+        if (!NetProtocol.isRacing(state, client.getClientTick())) return Character.State.STANDING;
+        return velocity > 0 ? Character.State.JUMPING : Character.State.FALLING;
+    }
+
+    private void drawUI(int[] state) {
+        if (client.isRejected()) {
+            infoFont.draw(batch, "Server is full", 20, WORLD_HEIGHT - 20);
+            return;
+        }
+        if (state == null) {
+            infoFont.draw(batch, "Connecting to " + server.getHostString() + ":" + server.getPort() + "...", 20, WORLD_HEIGHT - 20);
+            return;
+        }
+
+        int id = client.getPlayerId();
+        switch (state[NetProtocol.FIELD_PHASE]) {
+            case NetProtocol.PHASE_WAITING:
+                infoFont.draw(batch, "Waiting for players...", 20, WORLD_HEIGHT - 20);
+                break;
+            case NetProtocol.PHASE_COUNTDOWN:
+                int ticksLeft = state[NetProtocol.FIELD_RACE_START] - client.getClientTick();
+                infoFont.draw(batch, "Race starts in " + (ticksLeft / NetProtocol.TICK_RATE + 1), 20, WORLD_HEIGHT - 20);
+                break;
+            case NetProtocol.PHASE_RACING:
+                infoFont.draw(batch, "Score: " + NetProtocol.getPlayerScore(state, id), 20, WORLD_HEIGHT - 20);
+                break;
+            case NetProtocol.PHASE_FINISHED:
+                infoFont.draw(batch, "Race over", 20, WORLD_HEIGHT - 20);
+                break;
+        }
+
+        // Scoreboard
+        float y = WORLD_HEIGHT - 70;
+        for (int p = 0; p < NetProtocol.MAX_PLAYERS; p++) {
+            if (!NetProtocol.isPlayerConnected(state, p)) continue;
+            String line = (p == id ? "> " : "  ") + "P" + (p + 1) + "  " + NetProtocol.getPlayerScore(state, p)
+                    + (NetProtocol.isPlayerAlive(state, p) ? "" : "  x");
+            debugFont.draw(batch, line, 20, y);
+            y -= 18;
+        }
+
+        if (isDebugEnabled) {
+            debugFont.draw(batch, "RTT: " + Math.round(client.getRoundTripMillis()) + " ms"
+                    + "\nTick: " + client.getClientTick() + " (server " + client.getLatestTick() + ")"
+                    + "\nCorrection: " + client.getLastCorrection()
+                    + "\nReceived: " + client.getBytesReceived() / 1024 + " KB", WORLD_WIDTH - 220, WORLD_HEIGHT - 20);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (client != null) {
+            client.disconnect();
+            client.close();
+        }
+        if (batch != null) batch.dispose();
+        if (sprite != null) sprite.dispose();
+        if (layer1 != null) layer1.dispose();
+        if (layer2 != null) layer2.dispose();
+        if (layer3 != null) layer3.dispose();
+        ResourceRegistry.release(infoFont);
+        ResourceRegistry.release(debugFont);
+        for (Obstacle obstacle : obstacles) {
+            obstacle.dispose();
+        }
+        Obstacle.disposeStatic();
+        ResourceRegistry.reportLeaks();
+    }
+}
@@ -0,0 +1,168 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The VersusLoopback class races a server against bot clients over real localhost UDP.
+ * <p>
+ * Every snapshot a client decodes is compared with the state the server recorded for that tick, so
+ * any mistake in the delta codec shows up as a mismatch. At the end it prints bandwidth per client,
+ * server tick time and prediction corrections, and exits with a non-zero status on mismatches.
+ * <p>
+ * Usage: {@code VersusLoopback [clients] [seconds] [loss] [latencyTicks]}
+ */
+public class VersusLoopback extends ApplicationAdapter {
+    private static final String TAG = "VersusLoopback";
+    // A jump rises 125 px, so jumping at the lower edge of a gap stays clear of the upper edge
+    private static final float JUMP_OFFSET = GameWorld.TILE_SIZE + 4f;
+
+    private final int clientCount;
+    private final int totalTicks;
+    private final float loss;
+    private final int latencyTicks;
+
+    private VersusServer server;
+    private VersusClient[] clients;
+    private int[] verifiedTick;
+    private int ticks;
+    private int verified;
+    private int mismatches;
+    private int unverifiable;
+    private boolean finished;
+
+    public VersusLoopback(int clientCount, int seconds, float loss, int latencyTicks) {
+        this.clientCount = clientCount;
+        this.totalTicks = seconds * NetProtocol.TICK_RATE;
+        this.loss = loss;
+        this.latencyTicks = latencyTicks;
+    }
+
+    public static void main(String[] args) {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        float loss = args.length > 2 ? Float.parseFloat(args[2]) : 0f;
+        int latency = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        run(clients, seconds, loss, latency);
+    }
+
+    /**
+     * Starts a headless application running the loopback race.
+     */
+    public static void run(int clients, int seconds, float loss, int latencyTicks) {
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.updatesPerSecond = NetProtocol.TICK_RATE;
+        new HeadlessApplication(new VersusLoopback(clients, seconds, loss, latencyTicks), config);
+    }
+
+    @Override
+    public void create() {
+        server = new VersusServer(0);
+        server.create();
+        server.setReportStats(false);
+
+        clients = new VersusClient[clientCount];
+        verifiedTick = new int[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            clients[i] = new VersusClient(server.getAddress());
+            clients[i].setSimulatedNetwork(loss, latencyTicks);
+            verifiedTick[i] = -1;
+        }
+        Gdx.app.log(TAG, "Racing " + clientCount + " bots for " + totalTicks / NetProtocol.TICK_RATE + " s");
+    }
+
+    @Override
+    public void render() {
+        if (finished) return;
+        server.render();
+
+        for (int i = 0; i < clients.length; i++) {
+            VersusClient client = clients[i];
+            client.tick(shouldJump(client));
+            verify(i, client);
+        }
+
+        ticks++;
+        if (ticks % NetProtocol.TICK_RATE == 0 && !server.getLastReport().isEmpty()) {
+            Gdx.app.log(TAG, server.getLastReport());
+        }
+        if (ticks >= totalTicks) {
+            report();
+            finished = true;
+            Gdx.app.exit();
+        }
+    }
+
+    /**
+     * Jumps when the predicted player is about to drop below the lower edge of the next gap.
+     * The bots are simple on purpose; they exist to generate traffic, not to win.
+     */
+    private boolean shouldJump(VersusClient client) {
+        int[] state = client.getLatestState();
+        if (state == null || !NetProtocol.isRacing(state, client.getClientTick())) return false;
+
+        float targetY = GameWorld.PLAYER_START_Y;
+        float nearest = Float.MAX_VALUE;
+        for (int o = 0; o < GameWorld.OBSTACLE_COUNT; o++) {
+            float right = NetProtocol.getObstacleX(state, o) + GameWorld.TILE_SIZE;
+            if (right > GameWorld.PLAYER_X && right < nearest) {
+                nearest = right;
+                targetY = NetProtocol.getObstacleY(state, o) + JUMP_OFFSET;
+            }
+        }
+
+        MainEntity player = client.getPredicted();
+        float nextY = player.getY() + (player.getVelocity() - player.getGravity() * NetProtocol.TICK_TIME) * NetProtocol.TICK_TIME;
+        return nextY < targetY && player.getVelocity() <= 0;
+    }
+
+    /**
+     * Compares the newest state a client decoded with the server's record of that tick.
+     */
+    private void verify(int index, VersusClient client) {
+        int tick = client.getLatestTick();
+        if (tick < 0 || tick == verifiedTick[index]) return;
+        verifiedTick[index] = tick;
+
+        int[] expected = server.getHistory(tick);
+        if (expected == null) {
+            unverifiable++;
+        } else if (Arrays.equals(expected, client.getLatestState())) {
+            verified++;
+        } else {
+            mismatches++;
+            Gdx.app.error(TAG, "Client " + index + " decoded a different state for tick " + tick);
+        }
+    }
+
+    private void report() {
+        float seconds = ticks / (float) NetProtocol.TICK_RATE;
+        Gdx.app.log(TAG, String.format(Locale.ROOT, "%d ticks, %d snapshots verified, %d mismatches, %d too old to check",
+                ticks, verified, mismatches, unverifiable));
+        for (int i = 0; i < clients.length; i++) {
+            VersusClient client = clients[i];
+            int[] state = client.getLatestState();
+            int score = state != null && client.getPlayerId() >= 0 ? NetProtocol.getPlayerScore(state, client.getPlayerId()) : 0;
+            Gdx.app.log(TAG, String.format(Locale.ROOT,
+                    "bot %d: player %d, down %.0f B/s, up %.0f B/s, %d snapshots, rtt %.1f ms, correction avg %.2f max %.2f px, score %d",
+                    i, client.getPlayerId(), client.getBytesReceived() / seconds, client.getBytesSent() / seconds,
+                    client.getSnapshotsReceived(), client.getRoundTripMillis(),
+                    client.getAverageCorrection(), client.getMaxCorrection(), score));
+        }
+    }
+
+    @Override
+    public void dispose() {
+        for (VersusClient client : clients) {
+            client.disconnect();
+            client.close();
+        }
+        server.dispose();
+        System.exit(mismatches == 0 ? 0 : 1);
+    }
+}
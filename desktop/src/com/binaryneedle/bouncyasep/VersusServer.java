@@ -0,0 +1,471 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Locale;
+
+/**
+ * The VersusServer class runs the authoritative simulation of a two-to-eight player race.
+ * <p>
+ * Every tick it drains client inputs from a non-blocking UDP socket, applies each jump at the tick
+ * the client stamped it with (or immediately if it arrived late), steps the shared {@link GameWorld}
+ * and sends every client a snapshot delta-compressed against the last state that client acknowledged.
+ * Bandwidth per client and tick processing time are reported once per second.
+ */
+public class VersusServer extends ApplicationAdapter {
+    private static final String TAG = "VersusServer";
+    private static final int MIN_PLAYERS = 2;
+    private static final int COUNTDOWN_TICKS = 3 * NetProtocol.TICK_RATE;
+    private static final int RESULTS_TICKS = 5 * NetProtocol.TICK_RATE;
+    private static final long CLIENT_TIMEOUT_MS = 5000;
+
+    private final int port;
+    private final String bindAddress;
+    private DatagramChannel channel;
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(NetProtocol.MAX_PACKET_SIZE);
+    private final ByteBuffer sendBuffer = ByteBuffer.allocate(NetProtocol.MAX_PACKET_SIZE);
+
+    private GameWorld world;
+    private final ClientSlot[] clients = new ClientSlot[NetProtocol.MAX_PLAYERS];
+    private int tick;
+    private int phase = NetProtocol.PHASE_WAITING;
+    private int raceStart;
+    private int phaseEndTick;
+
+    // Snapshot history, used as delta baselines
+    private final int[][] history = new int[NetProtocol.HISTORY_SIZE][NetProtocol.FIELD_COUNT];
+    private final int[] historyTick = new int[NetProtocol.HISTORY_SIZE];
+
+    // Statistics
+    private long statsStart;
+    private long tickNanos;
+    private long maxTickNanos;
+    private int statsTicks;
+    private boolean reportStats = true;
+    private String lastReport = "";
+
+    /**
+     * Per-client connection state.
+     */
+    private static final class ClientSlot {
+        SocketAddress address;
+        long lastHeard;
+        int ackTick = -1;
+        int echoTime;
+        int lastJumpTick = -1;
+        final int[] pendingJumps = new int[NetProtocol.MAX_INPUT_JUMPS];
+        int pendingCount;
+        long bytesSent;
+        long bytesReceived;
+        int fullSnapshots;
+    }
+
+    /**
+     * Creates a server listening on localhost.
+     *
+     * @param port UDP port, 0 for an ephemeral port
+     */
+    public VersusServer(int port) {
+        this("127.0.0.1", port);
+    }
+
+    /**
+     * Creates a server listening on the given address.
+     *
+     * @param bindAddress Address to bind to
+     * @param port        UDP port, 0 for an ephemeral port
+     */
+    public VersusServer(String bindAddress, int port) {
+        this.bindAddress = bindAddress;
+        this.port = port;
+    }
+
+    @Override
+    public void create() {
+        // Obstacles need the world width, which would otherwise come from the game camera
+        OrthographicCamera camera = new OrthographicCamera(GameWorld.WORLD_WIDTH, GameWorld.WORLD_HEIGHT);
+        Obstacle.setCamera(camera);
+
+        CourseGenerator course = GameWorld.createCourseGenerator(NetProtocol.PLAYER_SIZE, NetProtocol.PLAYER_SIZE,
+                NetProtocol.TICK_TIME);
+        world = new GameWorld(NetProtocol.MAX_PLAYERS, NetProtocol.PLAYER_SIZE, NetProtocol.PLAYER_SIZE, course);
+        // Collide by the same frame shapes the clients draw
+        world.setPlayerMasks(Character.loadFrameMasks(Character.PLAYER_ANIMATIONS));
+        resetWorld();
+
+        try {
+            channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.bind(new InetSocketAddress(bindAddress, port));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open server socket", e);
+        }
+
+        statsStart = TimeUtils.millis();
+        Gdx.app.log(TAG, "Listening on " + getAddress());
+    }
+
+    /**
+     * Runs one server tick.
+     */
+    @Override
+    public void render() {
+        long start = TimeUtils.nanoTime();
+
+        receivePackets();
+        updatePhase();
+
+        if (phase == NetProtocol.PHASE_RACING) {
+            applyInputs();
+            world.update(NetProtocol.TICK_TIME);
+        }
+
+        // Record the state of this tick and send it to everyone
+        int slot = tick % NetProtocol.HISTORY_SIZE;
+        NetProtocol.writeState(world, tick, phase, raceStart, getConnectedMask(), history[slot]);
+        historyTick[slot] = tick;
+        sendSnapshots(history[slot]);
+
+        long elapsed = TimeUtils.nanoTime() - start;
+        tickNanos += elapsed;
+        maxTickNanos = Math.max(maxTickNanos, elapsed);
+        statsTicks++;
+        tick++;
+
+        updateStats();
+    }
+
+    /**
+     * Drives the lobby, countdown, race and results phases.
+     */
+    private void updatePhase() {
+        int connected = Integer.bitCount(getConnectedMask());
+
+        switch (phase) {
+            case NetProtocol.PHASE_WAITING:
+                if (connected >= MIN_PLAYERS) {
+                    resetWorld();
+                    phase = NetProtocol.PHASE_COUNTDOWN;
+                    raceStart = tick + COUNTDOWN_TICKS;
+                    Gdx.app.log(TAG, "Race starts in " + COUNTDOWN_TICKS / NetProtocol.TICK_RATE + " s with " + connected + " players");
+                }
+                break;
+
+            case NetProtocol.PHASE_COUNTDOWN:
+                if (tick >= raceStart) {
+                    phase = NetProtocol.PHASE_RACING;
+                }
+                break;
+
+            case NetProtocol.PHASE_RACING:
+                if (!world.isAnyoneAlive()) {
+                    phase = NetProtocol.PHASE_FINISHED;
+                    phaseEndTick = tick + RESULTS_TICKS;
+                    Gdx.app.log(TAG, "Race finished at tick " + tick + ", best score " + world.getBestScore());
+                }
+                break;
+
+            case NetProtocol.PHASE_FINISHED:
+                if (tick >= phaseEndTick) {
+                    phase = NetProtocol.PHASE_WAITING;
+                }
+                break;
+        }
+    }
+
+    /**
+     * Resets the world for a new race. Slots without a client are kept out of the race.
+     */
+    private void resetWorld() {
+        world.reset(MathUtils.random.nextLong());
+        for (int i = 0; i < clients.length; i++) {
+            world.setAlive(i, clients[i] != null);
+        }
+    }
+
+    /**
+     * Applies every queued jump that is due at the current tick.
+     */
+    private void applyInputs() {
+        for (int i = 0; i < clients.length; i++) {
+            ClientSlot client = clients[i];
+            if (client == null) continue;
+
+            boolean jumped = false;
+            int kept = 0;
+            for (int j = 0; j < client.pendingCount; j++) {
+                int jumpTick = client.pendingJumps[j];
+                if (jumpTick <= tick) {
+                    // Late jumps are applied now, at most one jump per tick
+                    jumped = true;
+                } else {
+                    client.pendingJumps[kept++] = jumpTick;
+                }
+            }
+            client.pendingCount = kept;
+
+            if (jumped) {
+                world.jump(i);
+            }
+        }
+    }
+
+    private void receivePackets() {
+        try {
+            SocketAddress sender;
+            while ((sender = receive()) != null) {
+                handlePacket(sender, receiveBuffer);
+            }
+        } catch (IOException e) {
+            Gdx.app.error(TAG, "Receive failed", e);
+        }
+
+        // Drop clients that went silent
+        long now = TimeUtils.millis();
+        for (int i = 0; i < clients.length; i++) {
+            if (clients[i] != null && now - clients[i].lastHeard > CLIENT_TIMEOUT_MS) {
+                Gdx.app.log(TAG, "Player " + i + " timed out");
+                removeClient(i);
+            }
+        }
+    }
+
+    private SocketAddress receive() throws IOException {
+        receiveBuffer.clear();
+        SocketAddress sender = channel.receive(receiveBuffer);
+        receiveBuffer.flip();
+        return sender;
+    }
+
+    private void handlePacket(SocketAddress sender, ByteBuffer packet) {
+        if (!packet.hasRemaining()) return;
+
+        int playerId = findClient(sender);
+        byte type = packet.get();
+        try {
+            switch (type) {
+                case NetProtocol.HELLO:
+                    if (packet.getInt() != NetProtocol.PROTOCOL_VERSION) return;
+                    if (playerId < 0) playerId = addClient(sender);
+                    sendWelcome(sender, playerId);
+                    break;
+
+                case NetProtocol.INPUT:
+                    if (playerId < 0) return;
+                    readInput(clients[playerId], packet);
+                    break;
+
+                case NetProtocol.BYE:
+                    if (playerId >= 0) {
+                        Gdx.app.log(TAG, "Player " + playerId + " left");
+                        removeClient(playerId);
+                    }
+                    break;
+            }
+        } catch (RuntimeException e) {
+            Gdx.app.error(TAG, "Malformed packet from " + sender, e);
+        }
+
+        if (playerId >= 0 && clients[playerId] != null) {
+            clients[playerId].lastHeard = TimeUtils.millis();
+            clients[playerId].bytesReceived += packet.limit();
+        }
+    }
+
+    /**
+     * Reads an input packet: acknowledged tick, echo time and the unacknowledged jump ticks.
+     */
+    private void readInput(ClientSlot client, ByteBuffer packet) {
+        int ackTick = packet.getInt();
+        client.echoTime = packet.getInt();
+        int count = packet.get() & 0xFF;
+
+        if (ackTick > client.ackTick) {
+            client.ackTick = ackTick;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int jumpTick = packet.getInt();
+            // Jumps are resent until acknowledged, so skip the ones already queued or applied
+            if (jumpTick > client.lastJumpTick && client.pendingCount < client.pendingJumps.length) {
+                client.pendingJumps[client.pendingCount++] = jumpTick;
+                client.lastJumpTick = jumpTick;
+            }
+        }
+    }
+
+    private int findClient(SocketAddress address) {
+        for (int i = 0; i < clients.length; i++) {
+            if (clients[i] != null && clients[i].address.equals(address)) return i;
+        }
+        return -1;
+    }
+
+    private int addClient(SocketAddress address) {
+        for (int i = 0; i < clients.length; i++) {
+            if (clients[i] == null) {
+                ClientSlot client = new ClientSlot();
+                client.address = address;
+                client.lastHeard = TimeUtils.millis();
+                clients[i] = client;
+                // Players joining before the start line take part in the coming race
+                world.setAlive(i, phase == NetProtocol.PHASE_COUNTDOWN);
+                Gdx.app.log(TAG, "Player " + i + " joined from " + address);
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeClient(int playerId) {
+        clients[playerId] = null;
+        world.setAlive(playerId, false);
+    }
+
+    private int getConnectedMask() {
+        int mask = 0;
+        for (int i = 0; i < clients.length; i++) {
+            if (clients[i] != null) mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    private void sendWelcome(SocketAddress address, int playerId) {
+        sendBuffer.clear();
+        if (playerId < 0) {
+            sendBuffer.put(NetProtocol.FULL);
+        } else {
+            sendBuffer.put(NetProtocol.WELCOME);
+            sendBuffer.put((byte) playerId);
+            sendBuffer.putInt(tick);
+        }
+        send(address, null);
+    }
+
+    /**
+     * Sends the current state to every client as a delta against its acknowledged snapshot.
+     */
+    private void sendSnapshots(int[] state) {
+        for (int i = 0; i < clients.length; i++) {
+            ClientSlot client = clients[i];
+            if (client == null) continue;
+
+            int[] baseline = null;
+            int baseTick = -1;
+            if (client.ackTick >= 0 && tick - client.ackTick < NetProtocol.HISTORY_SIZE) {
+                int slot = client.ackTick % NetProtocol.HISTORY_SIZE;
+                if (historyTick[slot] == client.ackTick) {
+                    baseline = history[slot];
+                    baseTick = client.ackTick;
+                }
+            }
+            if (baseline == null) client.fullSnapshots++;
+
+            sendBuffer.clear();
+            sendBuffer.put(NetProtocol.SNAPSHOT);
+            sendBuffer.putInt(tick);
+            sendBuffer.putInt(baseTick);
+            sendBuffer.putInt(client.echoTime);
+            sendBuffer.putInt(client.lastJumpTick);
+            NetProtocol.writeDelta(state, baseline, sendBuffer);
+            send(client.address, client);
+        }
+    }
+
+    private void send(SocketAddress address, ClientSlot client) {
+        sendBuffer.flip();
+        int size = sendBuffer.remaining();
+        try {
+            channel.send(sendBuffer, address);
+            if (client != null) client.bytesSent += size;
+        } catch (IOException e) {
+            Gdx.app.error(TAG, "Send to " + address + " failed", e);
+        }
+    }
+
+    /**
+     * Logs bandwidth per client and tick processing time once per second.
+     */
+    private void updateStats() {
+        long now = TimeUtils.millis();
+        long elapsed = now - statsStart;
+        if (elapsed < 1000) return;
+
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "tick %d phase %d | tick time avg %.1f us max %.1f us",
+                tick, phase, tickNanos / 1000f / Math.max(1, statsTicks), maxTickNanos / 1000f));
+        for (int i = 0; i < clients.length; i++) {
+            ClientSlot client = clients[i];
+            if (client == null) continue;
+            report.append(String.format(Locale.ROOT, " | p%d out %.0f B/s in %.0f B/s full %d",
+                    i, client.bytesSent * 1000f / elapsed, client.bytesReceived * 1000f / elapsed, client.fullSnapshots));
+            client.bytesSent = 0;
+            client.bytesReceived = 0;
+            client.fullSnapshots = 0;
+        }
+        lastReport = report.toString();
+        if (reportStats) Gdx.app.log(TAG, lastReport);
+
+        statsStart = now;
+        tickNanos = 0;
+        maxTickNanos = 0;
+        statsTicks = 0;
+    }
+
+    /**
+     * Gets the authoritative state recorded for a tick, if it is still in the history.
+     *
+     * @param tick The tick
+     * @return The state vector, or null if it has been overwritten
+     */
+    public int[] getHistory(int tick) {
+        int slot = tick % NetProtocol.HISTORY_SIZE;
+        return historyTick[slot] == tick ? history[slot] : null;
+    }
+
+    public InetSocketAddress getAddress() {
+        try {
+            return (InetSocketAddress) channel.getLocalAddress();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    public String getLastReport() {
+        return lastReport;
+    }
+
+    public void setReportStats(boolean reportStats) {
+        this.reportStats = reportStats;
+    }
+
+    @Override
+    public void dispose() {
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+        if (world != null) {
+            world.getCourse().dispose();
+            world.dispose();
+        }
+    }
+}
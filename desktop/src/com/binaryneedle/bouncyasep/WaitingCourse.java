@@ -0,0 +1,41 @@
+package com.binaryneedle.bouncyasep;
+
+/**
+ * The WaitingCourse class waits for a course generator instead of falling back to random placement,
+ * so every obstacle of a tool's run is a generated one, however far the generator falls behind.
+ */
+class WaitingCourse implements CourseSource {
+    private final CourseSource source;
+
+    WaitingCourse(CourseSource source) {
+        this.source = source;
+    }
+
+    @Override
+    public void reset(long seed) {
+        source.reset(seed);
+    }
+
+    @Override
+    public void advance(float distance) {
+        source.advance(distance);
+    }
+
+    @Override
+    public boolean placeNext(Obstacle obstacle) {
+        while (source.getLookahead() == 0) {
+            Thread.yield();
+        }
+        return source.placeNext(obstacle);
+    }
+
+    @Override
+    public int getLookahead() {
+        return source.getLookahead();
+    }
+
+    @Override
+    public void dispose() {
+        source.dispose();
+    }
+}
@@ -0,0 +1,47 @@
+package com.binaryneedle.bouncyasep;
+
+import com.badlogic.gdx.backends.gwt.preloader.DefaultAssetFilter;
+
+/**
+ * The WebAssetFilter class splits the web build's assets into two preloader bundles.
+ * <p>
+ * The {@code assets} bundle is downloaded before the game starts and holds only what the menu draws.
+ * Everything the menu does not need goes into the {@link #DEFERRED_BUNDLE} bundle, which the launcher
+ * downloads while the menu is already showing. Assets the web build never opens are left out entirely.
+ * <p>
+ * This class runs inside the GWT compiler, so it is not part of the translated client code.
+ */
+public class WebAssetFilter extends DefaultAssetFilter {
+    public static final String DEFERRED_BUNDLE = "deferred";
+
+    // Path prefixes of assets streamed in after the menu shows
+    private static final String[] DEFERRED = {"bg/", "sounds/", "particles/", "obstacle_tiles.png"};
+    // Path prefixes of assets the web build never uses; images cannot be decoded out of the asset archive
+    private static final String[] EXCLUDED = {"icons/", "ghosts/", "replays/", "assets.pak"};
+    // Compressed texture variants, which WebGL cannot sample
+    private static final String COMPRESSED_EXTENSION = ".zktx";
+
+    @Override
+    public boolean accept(String file, boolean isDirectory) {
+        String path = normalize(file);
+        if (path.endsWith(COMPRESSED_EXTENSION)) return false;
+        for (String prefix : EXCLUDED) {
+            if (path.startsWith(prefix) || (isDirectory && prefix.startsWith(path + "/"))) return false;
+        }
+        return super.accept(file, isDirectory);
+    }
+
+    @Override
+    public String getBundleName(String file) {
+        String path = normalize(file);
+        for (String prefix : DEFERRED) {
+            if (path.startsWith(prefix)) return DEFERRED_BUNDLE;
+        }
+        return super.getBundleName(file);
+    }
+
+    private static String normalize(String file) {
+        String path = file.replace('\\', '/');
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+}
@@ -1,11 +1,20 @@
 package com.binaryneedle.bouncyasep.client;
 
 import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.backends.gwt.GwtApplication;
 import com.badlogic.gdx.backends.gwt.GwtApplicationConfiguration;
+import com.badlogic.gdx.backends.gwt.preloader.Preloader;
 import com.binaryneedle.bouncyasep.BouncyAsep;
+import com.binaryneedle.bouncyasep.DeferredAssets;
+import com.binaryneedle.bouncyasep.StreamCourseReader;
 
 public class HtmlLauncher extends GwtApplication {
+        // Bundle list written by the preloader for WebAssetFilter's deferred bundle
+        private static final String DEFERRED_BUNDLE_LIST = "deferred.txt";
+
+        private float deferredProgress;
+        private boolean deferredLoaded;
 
         @Override
         public GwtApplicationConfiguration getConfig () {
@@ -17,6 +26,50 @@ public class HtmlLauncher extends GwtApplication {
 
         @Override
         public ApplicationListener createApplicationListener () {
-                return new BouncyAsep();
+                return new BouncyAsep(StreamCourseReader.FACTORY, new DeferredAssets() {
+                        @Override
+                        public void load (final Runnable onLoaded) {
+                                getPreloader().preload(DEFERRED_BUNDLE_LIST, new Preloader.PreloaderCallback() {
+                                        @Override
+                                        public void update (Preloader.PreloaderState state) {
+                                                deferredProgress = state.getProgress();
+                                                if (state.hasEnded() && !deferredLoaded) {
+                                                        deferredLoaded = true;
+                                                        Gdx.app.log("HtmlLauncher", "Fully loaded after " + Math.round(now()) + " ms");
+                                                        Gdx.app.postRunnable(onLoaded);
+                                                }
+                                        }
+
+                                        @Override
+                                        public void error (String file) {
+                                                Gdx.app.error("HtmlLauncher", "Could not download " + file);
+                                        }
+                                });
+                        }
+
+                        @Override
+                        public float getProgress () {
+                                return deferredProgress;
+                        }
+                }) {
+                        private boolean interactive;
+
+                        @Override
+                        public void render () {
+                                super.render();
+                                // Time to interactive: from navigation start to the first menu frame
+                                if (!interactive) {
+                                        interactive = true;
+                                        Gdx.app.log("HtmlLauncher", "Interactive after " + Math.round(now()) + " ms");
+                                }
+                        }
+                };
         }
-}
\ No newline at end of file
+
+        /**
+         * Milliseconds since the page started loading.
+         */
+        private static native double now () /*-{
+                return $wnd.performance.now();
+        }-*/;
+}